@@ -1,6 +1,8 @@
 
 package moran.ab;
 
+import java.util.random.RandomGenerator;
+
 import moran.cell.Cell;
 import moran.cell.Genotype;
 
@@ -80,29 +82,19 @@ public final class ABCell extends Cell {
         return genotype.type();
     }
 
-    @Override public ABCell divide() {
-        return new ABCell(this, daughterGenotype());
+    @Override public ABCell divide(RandomGenerator random) {
+        return new ABCell(this, genotype.divide(random));
     }
 
-    private ABGenotype daughterGenotype() {
-        if (isB()) {
-            //
-            // Cells of type B never mutate...
-            //
-            return ABGenotype.B;
-        }
-        else if (ABConfig.global().getMutationRate().accept()) {
-            //
-            // Cell of type A mutates...
-            //
-            return ABGenotype.B;
-        }
-        else {
-            //
-            // Cell of type A divides without mutation...
-            //
-            return ABGenotype.A;
-        }
+    @Override public ABCell divide(Genotype genotype) {
+        if (genotype instanceof ABGenotype)
+            return new ABCell(this, (ABGenotype) genotype);
+        else
+            throw new IllegalArgumentException("Invalid genotype runtime type.");
+    }
+
+    @Override public boolean dividesByGenotype() {
+        return true;
     }
 
     @Override public ABGenotype getGenotype() {
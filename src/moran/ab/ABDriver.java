@@ -3,6 +3,7 @@ package moran.ab;
 
 import java.io.File;
 
+import moran.cell.GenotypeCodec;
 import moran.driver.MoranDriver;
 import moran.space.Space;
 
@@ -22,7 +23,7 @@ public final class ABDriver extends MoranDriver {
      */
     public static void run(String... propertyFiles) {
         ABDriver driver = new ABDriver(propertyFiles);
-        driver.runSimulation();
+        driver.simulate();
     }
 
     @Override protected Space createSpace() {
@@ -33,6 +34,14 @@ public final class ABDriver extends MoranDriver {
         return ABPhenotype.INSTANCE;
     }
 
+    @Override protected ABGenotype createFounderGenotype() {
+        return ABGenotype.A;
+    }
+
+    @Override public GenotypeCodec getGenotypeCodec() {
+        return ABGenotype.CODEC;
+    }
+
     @Override protected void recordSnapshot(File snapshotDir) {
         // No-op...
     }
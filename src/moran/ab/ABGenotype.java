@@ -1,7 +1,13 @@
 
 package moran.ab;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.random.RandomGenerator;
+
 import moran.cell.Genotype;
+import moran.cell.GenotypeCodec;
 
 /**
  * Defines the genotype for the {@code A/B} Moran model: simply the
@@ -24,6 +30,22 @@ public final class ABGenotype implements Genotype {
      */
     public final static ABGenotype B = new ABGenotype(ABType.B);
 
+    /**
+     * Encodes {@code A/B} genotypes in trial checkpoints.
+     */
+    public final static GenotypeCodec CODEC = new GenotypeCodec() {
+            @Override public void write(DataOutput output, Genotype genotype) throws IOException {
+                if (genotype instanceof ABGenotype)
+                    output.writeBoolean(((ABGenotype) genotype).isA());
+                else
+                    throw new IllegalArgumentException("Invalid genotype runtime type.");
+            }
+
+            @Override public ABGenotype read(DataInput input) throws IOException {
+                return input.readBoolean() ? A : B;
+            }
+        };
+
     /**
      * Identifies genotypes of type {@code A}.
      *
@@ -51,6 +73,41 @@ public final class ABGenotype implements Genotype {
         return type;
     }
 
+    @Override public ABGenotype divide(RandomGenerator random) {
+        if (isB()) {
+            //
+            // Cells of type B never mutate...
+            //
+            return B;
+        }
+        else if (random.nextDouble() < ABConfig.global().getMutationRate().doubleValue()) {
+            //
+            // Cell of type A mutates...
+            //
+            return B;
+        }
+        else {
+            //
+            // Cell of type A divides without mutation...
+            //
+            return A;
+        }
+    }
+
+    @Override public double getMutationProbability() {
+        if (isB())
+            return 0.0;
+        else
+            return ABConfig.global().getMutationRate().doubleValue();
+    }
+
+    @Override public ABGenotype mutate(RandomGenerator random) {
+        if (isB())
+            throw new UnsupportedOperationException("Cells of type B never mutate.");
+
+        return B;
+    }
+
     @Override public String format() {
         return type.name();
     }
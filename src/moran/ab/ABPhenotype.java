@@ -27,7 +27,19 @@ public final class ABPhenotype implements Phenotype {
         return getABFitness((ABGenotype) genotype);
     }
 
-    private static double getABFitness(ABGenotype genotype) {
+    @Override public boolean isNeutral() {
+        return fitnessA == fitnessB;
+    }
+
+    /**
+     * Returns the relative scalar fitness for an {@code A/B} genotype
+     * (without the runtime type check of the general method).
+     *
+     * @param genotype the genotype to evaluate.
+     *
+     * @return the relative scalar fitness for the specified genotype.
+     */
+    public static double getABFitness(ABGenotype genotype) {
         switch (genotype.type()) {
         case A:
             return fitnessA;
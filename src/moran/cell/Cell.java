@@ -1,14 +1,42 @@
 
 package moran.cell;
 
+import java.util.random.RandomGenerator;
+
 import jam.bio.Propagator;
 import jam.lang.OrdinalIndex;
 
 /**
  * The fundamental agent in a Moran simulation.
+ *
+ * <p><b>Lineage.</b> The ancestry retained for each cell is governed
+ * by the {@code moran.cell.lineageMode} property (see {@link
+ * LineageMode}).  Only in {@code FULL} mode do cells reference their
+ * parents, so the {@code getParent()} and {@code getFounder()}
+ * methods are meaningful only in that mode; the founder index and
+ * the lineage trace are available in every mode that retains them.
  */
 public abstract class Cell extends Propagator {
-    private static final OrdinalIndex ordinalIndex = OrdinalIndex.create();
+    private final long founderIndex;
+    private final int lineageSlot;
+
+    private static final LineageMode lineageMode = LineageMode.global();
+
+    //
+    // Each thread numbers its cells independently and keeps its own
+    // lineage table, so that the cell indexes (and the founder indexes
+    // written to reports) depend only on the history of the simulation
+    // trial that created them, not on any trials running concurrently
+    // on other threads...
+    //
+    private static final class TrialLineage {
+        private final OrdinalIndex ordinalIndex = OrdinalIndex.create();
+        private final LineageTable lineageTable =
+            (lineageMode == LineageMode.PRUNED) ? LineageTable.create() : null;
+    }
+
+    private static final ThreadLocal<TrialLineage> trialLineage =
+        ThreadLocal.withInitial(TrialLineage::new);
 
     /**
      * Creates a new founder cell.
@@ -23,15 +51,171 @@ public abstract class Cell extends Propagator {
      * @param parent the parent of the new cell.
      */
     protected Cell(Cell parent) {
-        super(ordinalIndex.next(), parent);
+        this(parent, trialLineage.get());
+    }
+
+    private Cell(Cell parent, TrialLineage lineage) {
+        super(lineage.ordinalIndex.next(), lineageMode == LineageMode.FULL ? parent : null);
+
+        if (parent == null)
+            this.founderIndex = getIndex();
+        else
+            this.founderIndex = parent.founderIndex;
+
+        if (lineage.lineageTable == null)
+            this.lineageSlot = LineageTable.NO_PARENT;
+        else
+            this.lineageSlot = lineage.lineageTable.add(parent == null ? LineageTable.NO_PARENT : parent.lineageSlot, getIndex());
+    }
+
+    //
+    // Creates a snapshot of a member of a population in column
+    // storage, which carries its own index and has no lineage slot...
+    //
+    Cell(long index, long founderIndex) {
+        super(index, null);
+
+        this.founderIndex = founderIndex;
+        this.lineageSlot = LineageTable.NO_PARENT;
+    }
+
+    /**
+     * Restarts the ordinal indexes and lineage table for cells created
+     * by the calling thread; simulation drivers call this method at
+     * the start of each trial so that cell indexes are reproducible
+     * within the trial.
+     */
+    public static void resetIndex() {
+        trialLineage.set(new TrialLineage());
+    }
+
+    /**
+     * Returns the lineage mode that governs all cells.
+     *
+     * @return the lineage mode that governs all cells.
+     */
+    public static LineageMode getLineageMode() {
+        return lineageMode;
+    }
+
+    /**
+     * Returns the lineage table for cells created by the calling
+     * thread.
+     *
+     * @return the lineage table for the calling thread, or
+     * {@code null} unless the lineage mode is {@code PRUNED}.
+     */
+    public static LineageTable getLineageTable() {
+        return trialLineage.get().lineageTable;
+    }
+
+    /**
+     * Records the death of this cell, allowing its ancestry to be
+     * discarded if it has no living descendants.  The Moran process
+     * calls this method when the cell is replaced; it must be called
+     * at most once, on the thread that created the cell and before
+     * that thread calls {@code resetIndex()}.
+     */
+    public void die() {
+        if (lineageSlot != LineageTable.NO_PARENT)
+            trialLineage.get().lineageTable.release(lineageSlot);
+    }
+
+    /**
+     * Returns the ordinal index of the founder of this cell's lineage
+     * (available in every lineage mode).
+     *
+     * @return the ordinal index of the founder of this cell.
+     */
+    public long getFounderIndex() {
+        return founderIndex;
+    }
+
+    /**
+     * Returns the ordinal indexes of this cell and all its ancestors,
+     * ordered from this cell back to its founder.  In {@code PRUNED}
+     * mode, only the ancestors at which the lineage branches (and the
+     * founder) are listed.
+     *
+     * @return the ordinal indexes of the lineage of this cell.
+     *
+     * @throws IllegalStateException if the lineage mode is
+     * {@code NONE}.
+     */
+    public long[] traceLineage() {
+        switch (lineageMode) {
+        case FULL:
+            return traceParents();
+
+        case PRUNED:
+            return trialLineage.get().lineageTable.traceLineage(lineageSlot);
+
+        default:
+            throw new IllegalStateException("Lineage is not retained.");
+        }
+    }
+
+    private long[] traceParents() {
+        int depth = 0;
+
+        for (Propagator cell = this; cell != null; cell = cell.getParent())
+            ++depth;
+
+        long[] lineage = new long[depth];
+        depth = 0;
+
+        for (Propagator cell = this; cell != null; cell = cell.getParent())
+            lineage[depth++] = cell.getIndex();
+
+        return lineage;
     }
 
     /**
      * Creates a new (possibly mutated) daughter cell.
      *
+     * @param random the source of random deviates for any mutations
+     * that accompany the division.
+     *
      * @return a new (possibly mutated) daughter cell.
      */
-    public abstract Cell divide();
+    public abstract Cell divide(RandomGenerator random);
+
+    /**
+     * Creates a new daughter cell carrying a specified genotype, for
+     * engines that draw the daughter genotype themselves.
+     *
+     * <p>This base class throws an exception; subclasses must override
+     * this method to support those engines.
+     *
+     * @param genotype the genotype of the daughter cell.
+     *
+     * @return a new daughter cell carrying the specified genotype.
+     *
+     * @throws IllegalArgumentException if the genotype has the wrong
+     * runtime type for this cell.
+     *
+     * @throws UnsupportedOperationException unless overridden.
+     */
+    public Cell divide(Genotype genotype) {
+        throw new UnsupportedOperationException("This cell cannot divide with a specified genotype.");
+    }
+
+    /**
+     * Indicates whether the division of this cell is described
+     * completely by its genotype: {@code divide(random)} must be
+     * equivalent to {@code divide(getGenotype().divide(random))}.
+     * Column and mapped storage, and the engines that divide cells by
+     * genotype, accept only cells with this property.
+     *
+     * <p>This base class returns {@code false}; subclasses that carry
+     * all of their mutations in their genotype should override this
+     * method.
+     *
+     * @return whether this cell mutates only through its genotype.
+     */
+    public boolean dividesByGenotype() {
+        return false;
+    }
 
     /**
      * Returns the underlying genotype for this cell.
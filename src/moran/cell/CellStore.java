@@ -0,0 +1,93 @@
+
+package moran.cell;
+
+import java.util.Collection;
+import java.util.List;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Defines the storage layout for the members of a population.
+ */
+abstract class CellStore {
+    static CellStore create(Collection<? extends Cell> cells, PopulationMode mode) {
+        switch (mode) {
+        case OBJECT:
+            return ObjectStore.create(cells);
+
+        case COLUMN:
+            requireGenotypeDivision(cells, mode);
+            return ColumnStore.create(cells);
+
+        case MAPPED:
+            requireGenotypeDivision(cells, mode);
+            return MappedStore.create(cells);
+
+        default:
+            throw new IllegalArgumentException("Unknown population mode.");
+        }
+    }
+
+    static boolean dividesByGenotype(Collection<? extends Cell> cells) {
+        for (Cell cell : cells)
+            if (!cell.dividesByGenotype())
+                return false;
+
+        return true;
+    }
+
+    private static void requireGenotypeDivision(Collection<? extends Cell> cells, PopulationMode mode) {
+        //
+        // Stores without cell objects divide their members through
+        // the genotype, so a cell that mutates in its own divide()
+        // method would silently stop mutating...
+        //
+        if (!dividesByGenotype(cells))
+            throw new IllegalArgumentException("The " + mode + " population mode requires cells that mutate only through their genotype.");
+    }
+
+    static CellStore create(int size, Genotype founderGenotype, PopulationMode mode) {
+        if (mode == PopulationMode.MAPPED)
+            return MappedStore.create(size, founderGenotype);
+        else
+            throw new IllegalArgumentException("Only mapped storage may be created without founder cells.");
+    }
+
+    abstract PopulationMode getMode();
+
+    abstract Cell get(int index);
+
+    abstract int indexOf(Cell cell);
+
+    abstract boolean contains(Cell cell);
+
+    abstract List<Cell> list();
+
+    abstract int size();
+
+    abstract Genotype getGenotype(int index);
+
+    abstract long getFounderIndex(int index);
+
+    abstract int getBirthStep(int index);
+
+    //
+    // Stores without cell objects divide their members through the
+    // genotype; object storage overrides this method...
+    //
+    boolean dividesByGenotype() {
+        return true;
+    }
+
+    abstract double computeFitness(int index, Phenotype phenotype);
+
+    abstract void divide(int parentIndex, int deadIndex, RandomGenerator random);
+
+    abstract void divide(int parentIndex, int deadIndex, Genotype daughterGenotype);
+
+    abstract void replace(Cell oldCell, Cell newCell);
+
+    abstract void replace(int index, Cell newCell);
+
+    abstract void restore(Genotype[] genotypes, long[] founderIndexes);
+}
@@ -0,0 +1,65 @@
+
+package moran.cell;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only snapshot of one member of a population held in column
+ * storage, created only when a report or other client requests the
+ * member as a cell object.
+ */
+final class ColumnCell extends Cell {
+    private final int position;
+    private final int birthStep;
+    private final Genotype genotype;
+
+    ColumnCell(long index, long founderIndex, Genotype genotype, int position, int birthStep) {
+        super(index, founderIndex);
+
+        this.genotype = genotype;
+        this.position = position;
+        this.birthStep = birthStep;
+    }
+
+    /**
+     * Returns the population index of this cell when the snapshot was
+     * created.
+     *
+     * @return the population index of this cell.
+     */
+    int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the number of complete time steps that elapsed before
+     * this cell was born.
+     *
+     * @return the birth step of this cell.
+     */
+    int getBirthStep() {
+        return birthStep;
+    }
+
+    /**
+     * Cells in column storage divide through their population, not
+     * through their snapshots.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override public Cell divide(RandomGenerator random) {
+        throw new UnsupportedOperationException("Cells in column storage divide through their population.");
+    }
+
+    @Override public long[] traceLineage() {
+        throw new IllegalStateException("Lineage is not retained in column storage.");
+    }
+
+    @Override public Genotype getGenotype() {
+        return genotype;
+    }
+
+    @Override public String toString() {
+        return "Cell(" + getIndex() + ", " + genotype.format() + ")";
+    }
+}
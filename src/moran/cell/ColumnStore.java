@@ -0,0 +1,240 @@
+
+package moran.cell;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Stores the members of a population as primitive columns indexed by
+ * population position, so that cell division and death are array
+ * writes rather than object allocations.
+ *
+ * <p>Genotypes are registered in a table local to the store and
+ * referenced by dense integer identifiers (see {@link
+ * GenotypeRegistry}); the fitness of each genotype is computed once
+ * and shared by every member carrying it.
+ *
+ * <p>Cell objects are created only on request, as read-only snapshots
+ * that remain valid until the member at their position is replaced.
+ */
+final class ColumnStore extends CellStore {
+    private final int size;
+
+    // The per-position columns...
+    private final int[] genotypeIds;
+    private final long[] cellIndexes;
+    private final long[] founderIndexes;
+    private final int[] birthSteps;
+
+    // Snapshot cells created on request, cleared when the member at
+    // the position is replaced...
+    private final Cell[] snapshots;
+
+    // The genotype table...
+    private final GenotypeRegistry registry = new GenotypeRegistry();
+
+    // Number of cell divisions since the population was created and
+    // the ordinal index to assign to the next daughter cell...
+    private long divisionCount = 0;
+    private long nextCellIndex = 0;
+
+    private ColumnStore(Collection<? extends Cell> cells) {
+        this.size = cells.size();
+
+        this.genotypeIds = new int[size];
+        this.cellIndexes = new long[size];
+        this.founderIndexes = new long[size];
+        this.birthSteps = new int[size];
+        this.snapshots = new Cell[size];
+
+        fillColumns(cells);
+    }
+
+    static ColumnStore create(Collection<? extends Cell> cells) {
+        return new ColumnStore(cells);
+    }
+
+    private void fillColumns(Collection<? extends Cell> cells) {
+        Map<Cell, Cell> unique = new IdentityHashMap<Cell, Cell>(size);
+        int index = 0;
+
+        for (Cell cell : cells) {
+            if (unique.put(cell, cell) != null)
+                throw new IllegalArgumentException("Duplicate cell.");
+
+            assign(index++, cell, 0);
+            nextCellIndex = Math.max(nextCellIndex, cell.getIndex() + 1);
+        }
+    }
+
+    private void assign(int index, Cell cell, int birthStep) {
+        int genotypeId = registry.register(cell.getGenotype());
+
+        genotypeIds[index] = genotypeId;
+        cellIndexes[index] = cell.getIndex();
+        founderIndexes[index] = cell.getFounderIndex();
+        birthSteps[index] = birthStep;
+
+        // The original cell serves as its own snapshot...
+        snapshots[index] = cell;
+        registry.retain(genotypeId);
+    }
+
+    private int currentStep() {
+        return (int) (divisionCount / size);
+    }
+
+    @Override PopulationMode getMode() {
+        return PopulationMode.COLUMN;
+    }
+
+    @Override Cell get(int index) {
+        Cell snapshot = snapshots[index];
+
+        if (snapshot == null) {
+            snapshot =
+                new ColumnCell(cellIndexes[index],
+                               founderIndexes[index],
+                               registry.get(genotypeIds[index]),
+                               index,
+                               birthSteps[index]);
+
+            snapshots[index] = snapshot;
+        }
+
+        return snapshot;
+    }
+
+    @Override int indexOf(Cell cell) {
+        int index = find(cell);
+
+        if (index < 0)
+            throw new IllegalArgumentException("Cannot find the cell.");
+
+        return index;
+    }
+
+    private int find(Cell cell) {
+        if (cell instanceof ColumnCell) {
+            int index = ((ColumnCell) cell).getPosition();
+
+            if (index < size && snapshots[index] == cell)
+                return index;
+            else
+                return -1;
+        }
+
+        //
+        // Only founder cells and cells inserted by replacement are
+        // stored as their own snapshots; the cell-based methods are
+        // not used in the Moran cycle, so a linear search suffices...
+        //
+        for (int index = 0; index < size; ++index)
+            if (snapshots[index] == cell)
+                return index;
+
+        return -1;
+    }
+
+    @Override boolean contains(Cell cell) {
+        return find(cell) >= 0;
+    }
+
+    @Override List<Cell> list() {
+        return new AbstractList<Cell>() {
+            @Override public Cell get(int index) {
+                return ColumnStore.this.get(index);
+            }
+
+            @Override public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override int size() {
+        return size;
+    }
+
+    @Override Genotype getGenotype(int index) {
+        return registry.get(genotypeIds[index]);
+    }
+
+    @Override long getFounderIndex(int index) {
+        return founderIndexes[index];
+    }
+
+    @Override boolean dividesByGenotype() {
+        return true;
+    }
+
+    @Override int getBirthStep(int index) {
+        return birthSteps[index];
+    }
+
+    @Override double computeFitness(int index, Phenotype phenotype) {
+        return registry.computeFitness(genotypeIds[index], phenotype);
+    }
+
+    @Override void divide(int parentIndex, int deadIndex, RandomGenerator random) {
+        divide(parentIndex, deadIndex, getGenotype(parentIndex).divide(random));
+    }
+
+    @Override void divide(int parentIndex, int deadIndex, Genotype daughterGenotype) {
+        int parentId = genotypeIds[parentIndex];
+        Genotype parentGenotype = registry.get(parentId);
+
+        int daughterId;
+
+        if (daughterGenotype == parentGenotype)
+            daughterId = parentId;
+        else
+            daughterId = registry.register(daughterGenotype);
+
+        //
+        // Count the daughter before releasing the dead cell, so that
+        // a genotype shared by both is never recycled...
+        //
+        registry.retain(daughterId);
+        registry.release(genotypeIds[deadIndex]);
+
+        genotypeIds[deadIndex] = daughterId;
+        cellIndexes[deadIndex] = nextCellIndex++;
+        founderIndexes[deadIndex] = founderIndexes[parentIndex];
+        birthSteps[deadIndex] = currentStep();
+        snapshots[deadIndex] = null;
+
+        ++divisionCount;
+    }
+
+    @Override void replace(Cell oldCell, Cell newCell) {
+        replace(indexOf(oldCell), newCell);
+    }
+
+    @Override void replace(int index, Cell newCell) {
+        int oldId = genotypeIds[index];
+
+        assign(index, newCell, currentStep());
+        registry.release(oldId);
+    }
+
+    @Override void restore(Genotype[] genotypes, long[] founderIndexes) {
+        for (int index = 0; index < size; ++index) {
+            int genotypeId = registry.register(genotypes[index]);
+
+            registry.retain(genotypeId);
+            registry.release(genotypeIds[index]);
+
+            genotypeIds[index] = genotypeId;
+            cellIndexes[index] = nextCellIndex++;
+            this.founderIndexes[index] = founderIndexes[index];
+            birthSteps[index] = 0;
+            snapshots[index] = null;
+        }
+    }
+}
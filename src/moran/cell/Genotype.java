@@ -1,10 +1,64 @@
 
 package moran.cell;
 
+import java.util.random.RandomGenerator;
+
 /**
  * Encapsulates the genetic information carried by a cell.
  */
 public interface Genotype {
+    /**
+     * Returns the (possibly mutated) genotype inherited by a daughter
+     * of a cell carrying this genotype.
+     *
+     * <p>Populations that store genotypes rather than cell objects
+     * (see {@link PopulationMode#COLUMN}) divide cells through this
+     * method.  The default implementation returns this genotype, so
+     * genotypes that mutate must override it.
+     *
+     * @param random the source of random deviates for any mutations
+     * that accompany the division.
+     *
+     * @return the genotype inherited by a daughter cell.
+     */
+    public default Genotype divide(RandomGenerator random) {
+        return this;
+    }
+
+    /**
+     * Returns the probability that a mutation accompanies the division
+     * of a cell carrying this genotype.
+     *
+     * <p>Engines that aggregate many divisions (see {@code
+     * moran.driver.TauLeapProcess}) draw the number of mutant
+     * daughters from this probability and then call {@link
+     * #mutate(RandomGenerator)} once for each.  The default
+     * implementation returns zero, consistent with the default
+     * {@code divide()} method.
+     *
+     * @return the probability of mutation per cell division.
+     */
+    public default double getMutationProbability() {
+        return 0.0;
+    }
+
+    /**
+     * Returns the genotype inherited by a daughter cell given that a
+     * mutation accompanies the division: the distribution of the
+     * result matches that of {@code divide()} conditioned on a
+     * mutation.
+     *
+     * @param random the source of random deviates for the mutations.
+     *
+     * @return the genotype inherited by a mutant daughter cell.
+     *
+     * @throws UnsupportedOperationException unless this genotype can
+     * mutate.
+     */
+    public default Genotype mutate(RandomGenerator random) {
+        throw new UnsupportedOperationException("This genotype does not mutate.");
+    }
+
     /**
      * Formats the complete genetic information in this genotype as a
      * string suitable for inclusion in report files.
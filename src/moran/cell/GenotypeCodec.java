@@ -0,0 +1,37 @@
+package moran.cell;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Encodes genotypes in the binary form stored in trial checkpoints.
+ */
+public interface GenotypeCodec {
+    /**
+     * Writes the complete genetic information in a genotype.
+     *
+     * @param output the destination for the genotype.
+     *
+     * @param genotype the genotype to write.
+     *
+     * @throws IOException if an I/O error occurs.
+     *
+     * @throws IllegalArgumentException if the genotype has the wrong
+     * runtime type for this codec.
+     */
+    public abstract void write(DataOutput output, Genotype genotype) throws IOException;
+
+    /**
+     * Reads a genotype written by {@link #write(DataOutput, Genotype)}.
+     *
+     * @param input the source of the genotype.
+     *
+     * @return the genotype with the genetic information read from the
+     * input (the canonical instance for genotypes that are interned).
+     *
+     * @throws IOException if an I/O error occurs or the input does not
+     * describe a valid genotype.
+     */
+    public abstract Genotype read(DataInput input) throws IOException;
+}
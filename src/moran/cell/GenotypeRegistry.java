@@ -0,0 +1,154 @@
+package moran.cell;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns dense integer identifiers to the distinct genotypes carried
+ * by the members of a population held in primitive storage, and
+ * caches the fitness of each genotype.
+ *
+ * <p>The registry counts the members carrying each genotype and
+ * recycles the identifier when the last one dies, so its size is
+ * bounded by the number of distinct living genotypes.
+ */
+final class GenotypeRegistry {
+    // The genotype table, indexed by genotype identifier...
+    private Genotype[] genotypes;
+    private int[] memberCounts;
+    private double[] genotypeFitness;
+
+    private final Map<Genotype, Integer> genotypeIdMap = new HashMap<Genotype, Integer>();
+
+    // Recycled genotype identifiers (a stack)...
+    private int[] freeIds;
+    private int freeCount = 0;
+    private int idCount = 0;
+
+    // The phenotype that computed the cached genotype fitness...
+    private Phenotype fitnessPhenotype = null;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    GenotypeRegistry() {
+        this.genotypes = new Genotype[INITIAL_CAPACITY];
+        this.memberCounts = new int[INITIAL_CAPACITY];
+        this.genotypeFitness = new double[INITIAL_CAPACITY];
+        this.freeIds = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns the identifier of a genotype, assigning a new identifier
+     * (with no members) if the genotype is not registered.
+     *
+     * @param genotype the genotype of interest.
+     *
+     * @return the identifier of the specified genotype.
+     */
+    int register(Genotype genotype) {
+        Integer genotypeId = genotypeIdMap.get(genotype);
+
+        if (genotypeId != null)
+            return genotypeId;
+
+        int newId;
+
+        if (freeCount > 0) {
+            newId = freeIds[--freeCount];
+        }
+        else {
+            if (idCount == genotypes.length)
+                grow();
+
+            newId = idCount++;
+        }
+
+        genotypes[newId] = genotype;
+        memberCounts[newId] = 0;
+        genotypeFitness[newId] = Double.NaN;
+        genotypeIdMap.put(genotype, newId);
+
+        return newId;
+    }
+
+    private void grow() {
+        int newLength = 2 * genotypes.length;
+
+        genotypes = Arrays.copyOf(genotypes, newLength);
+        memberCounts = Arrays.copyOf(memberCounts, newLength);
+        genotypeFitness = Arrays.copyOf(genotypeFitness, newLength);
+        freeIds = Arrays.copyOf(freeIds, newLength);
+    }
+
+    /**
+     * Counts one new member carrying a registered genotype.
+     *
+     * @param genotypeId the identifier of the genotype.
+     */
+    void retain(int genotypeId) {
+        ++memberCounts[genotypeId];
+    }
+
+    /**
+     * Counts several new members carrying a registered genotype.
+     *
+     * @param genotypeId the identifier of the genotype.
+     *
+     * @param count the number of new members.
+     */
+    void retain(int genotypeId, int count) {
+        memberCounts[genotypeId] += count;
+    }
+
+    /**
+     * Counts the death of one member carrying a registered genotype
+     * and recycles its identifier if no members remain.
+     *
+     * @param genotypeId the identifier of the genotype.
+     */
+    void release(int genotypeId) {
+        if (--memberCounts[genotypeId] == 0) {
+            genotypeIdMap.remove(genotypes[genotypeId]);
+            genotypes[genotypeId] = null;
+            freeIds[freeCount++] = genotypeId;
+        }
+    }
+
+    /**
+     * Returns the genotype with a given identifier.
+     *
+     * @param genotypeId the identifier of the genotype.
+     *
+     * @return the genotype with the specified identifier.
+     */
+    Genotype get(int genotypeId) {
+        return genotypes[genotypeId];
+    }
+
+    /**
+     * Returns the fitness of the genotype with a given identifier,
+     * computing it only on the first request for each phenotype.
+     *
+     * @param genotypeId the identifier of the genotype.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @return the fitness of the specified genotype.
+     */
+    double computeFitness(int genotypeId, Phenotype phenotype) {
+        if (phenotype != fitnessPhenotype) {
+            Arrays.fill(genotypeFitness, Double.NaN);
+            fitnessPhenotype = phenotype;
+        }
+
+        double fitness = genotypeFitness[genotypeId];
+
+        if (Double.isNaN(fitness)) {
+            fitness = phenotype.getFitness(genotypes[genotypeId]);
+            genotypeFitness[genotypeId] = fitness;
+        }
+
+        return fitness;
+    }
+}
@@ -0,0 +1,52 @@
+
+package moran.cell;
+
+import jam.app.JamProperties;
+
+/**
+ * Enumerates the policies for retaining the ancestry of cells.
+ */
+public enum LineageMode {
+    /**
+     * No ancestry is retained: each cell records only the index of
+     * its founder.
+     */
+    NONE,
+
+    /**
+     * Ancestry is retained in a compact table that discards every
+     * lineage with no living descendants and collapses every chain
+     * of ancestors with a single retained child, so the table size is
+     * bounded by the number of living cells and founders.
+     */
+    PRUNED,
+
+    /**
+     * Every cell holds a reference to its parent, so the complete
+     * ancestry of all living cells (including every dead ancestor)
+     * remains reachable.
+     */
+    FULL;
+
+    /**
+     * Name of the system property that defines the lineage mode.
+     */
+    public static final String LINEAGE_MODE_PROPERTY = "moran.cell.lineageMode";
+
+    /**
+     * Default lineage mode, which preserves the original behavior.
+     */
+    public static final LineageMode DEFAULT = FULL;
+
+    /**
+     * Returns the lineage mode defined by system properties.
+     *
+     * @return the lineage mode defined by system properties.
+     */
+    public static LineageMode global() {
+        if (JamProperties.isSet(LINEAGE_MODE_PROPERTY))
+            return JamProperties.getRequiredEnum(LINEAGE_MODE_PROPERTY, LineageMode.class);
+        else
+            return DEFAULT;
+    }
+}
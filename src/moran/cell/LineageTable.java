@@ -0,0 +1,274 @@
+
+package moran.cell;
+
+import java.util.Arrays;
+
+/**
+ * Records the ancestry of the living cells in one simulation trial
+ * using primitive arrays, retaining only the founders and the
+ * ancestors at which the lineages of living cells branch.
+ *
+ * <p>Each cell occupies one slot in the table.  A slot is referenced
+ * by its cell (while the cell is alive) and by the slots of its
+ * retained children; when the last reference is released, the slot
+ * is recycled and the reference it held on its parent is released in
+ * turn.  A dead ancestor left with a single retained child (other
+ * than a founder) is spliced out of the tree, and its child adopts
+ * its parent, so the lineage of a cell lists only its founder and
+ * the ancestors that it shares with other living cells.
+ *
+ * <p>Every retained slot that is not a founder therefore holds a
+ * living cell or has at least two retained children.  A forest with
+ * {@code L} leaves has fewer than {@code L} nodes with two or more
+ * children, so the table never holds more than {@code 2N + F} slots
+ * for {@code N} living cells and {@code F} founders, no matter how
+ * many divisions have occurred.
+ *
+ * <p>This class is not thread-safe: each trial owns its own table.
+ */
+public final class LineageTable {
+    // Slot of the parent of each occupied slot (or NO_PARENT)...
+    private int[] parents;
+
+    // Ordinal index of the cell occupying each slot...
+    private long[] cellIndexes;
+
+    // Number of references to each slot: one for a living cell plus
+    // one for each occupied child slot.  Free slots hold the index of
+    // the next free slot instead...
+    private int[] references;
+
+    // Whether the cell occupying each slot is still alive...
+    private boolean[] living;
+
+    // The retained children of each slot, held in a doubly linked
+    // list so that a unary ancestor may be spliced out in constant
+    // time...
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] prevSibling;
+
+    private int freeHead = NO_SLOT;
+    private int capacity = 0;
+    private int occupied = 0;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Slot value for founder cells, which have no parent.
+     */
+    public static final int NO_PARENT = -1;
+
+    // End-of-list marker for the free list...
+    private static final int NO_SLOT = -1;
+
+    private LineageTable() {
+        this.parents = new int[INITIAL_CAPACITY];
+        this.cellIndexes = new long[INITIAL_CAPACITY];
+        this.references = new int[INITIAL_CAPACITY];
+        this.living = new boolean[INITIAL_CAPACITY];
+        this.firstChild = new int[INITIAL_CAPACITY];
+        this.nextSibling = new int[INITIAL_CAPACITY];
+        this.prevSibling = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Creates a new empty lineage table.
+     *
+     * @return a new empty lineage table.
+     */
+    public static LineageTable create() {
+        return new LineageTable();
+    }
+
+    /**
+     * Records the birth of a living cell.
+     *
+     * @param parentSlot the slot of the parent cell, or
+     * {@code NO_PARENT} for founder cells.
+     *
+     * @param cellIndex the ordinal index of the new cell.
+     *
+     * @return the slot assigned to the new cell.
+     */
+    public int add(int parentSlot, long cellIndex) {
+        int slot = allocate();
+
+        parents[slot] = parentSlot;
+        cellIndexes[slot] = cellIndex;
+        references[slot] = 1;
+        living[slot] = true;
+        firstChild[slot] = NO_SLOT;
+        prevSibling[slot] = NO_SLOT;
+        nextSibling[slot] = NO_SLOT;
+
+        if (parentSlot != NO_PARENT) {
+            ++references[parentSlot];
+
+            nextSibling[slot] = firstChild[parentSlot];
+
+            if (firstChild[parentSlot] != NO_SLOT)
+                prevSibling[firstChild[parentSlot]] = slot;
+
+            firstChild[parentSlot] = slot;
+        }
+
+        ++occupied;
+        return slot;
+    }
+
+    private int allocate() {
+        if (freeHead != NO_SLOT) {
+            int slot = freeHead;
+            freeHead = references[slot];
+            return slot;
+        }
+
+        if (capacity == parents.length)
+            grow();
+
+        return capacity++;
+    }
+
+    private void grow() {
+        int newLength = 2 * parents.length;
+
+        parents = Arrays.copyOf(parents, newLength);
+        cellIndexes = Arrays.copyOf(cellIndexes, newLength);
+        references = Arrays.copyOf(references, newLength);
+        living = Arrays.copyOf(living, newLength);
+        firstChild = Arrays.copyOf(firstChild, newLength);
+        nextSibling = Arrays.copyOf(nextSibling, newLength);
+        prevSibling = Arrays.copyOf(prevSibling, newLength);
+    }
+
+    /**
+     * Records the death of a living cell, discarding every ancestor
+     * left without living descendants and splicing out the first
+     * ancestor left with a single retained child.
+     *
+     * @param slot the slot of the cell that died.
+     */
+    public void release(int slot) {
+        living[slot] = false;
+
+        while (--references[slot] == 0) {
+            int parent = parents[slot];
+
+            unlink(slot);
+            free(slot);
+
+            if (parent == NO_PARENT)
+                return;
+
+            slot = parent;
+        }
+
+        //
+        // Removing one child cannot leave any ancestor above this slot
+        // with fewer children, so only this slot may become unary...
+        //
+        if (!living[slot] && references[slot] == 1 && parents[slot] != NO_PARENT)
+            splice(slot);
+    }
+
+    private void unlink(int slot) {
+        int prev = prevSibling[slot];
+        int next = nextSibling[slot];
+
+        if (prev != NO_SLOT)
+            nextSibling[prev] = next;
+        else if (parents[slot] != NO_PARENT)
+            firstChild[parents[slot]] = next;
+
+        if (next != NO_SLOT)
+            prevSibling[next] = prev;
+    }
+
+    private void splice(int slot) {
+        //
+        // The only child takes the place of this slot in the child
+        // list of its parent, whose reference count is unchanged...
+        //
+        int child = firstChild[slot];
+        int prev = prevSibling[slot];
+        int next = nextSibling[slot];
+
+        parents[child] = parents[slot];
+        prevSibling[child] = prev;
+        nextSibling[child] = next;
+
+        if (prev != NO_SLOT)
+            nextSibling[prev] = child;
+        else
+            firstChild[parents[slot]] = child;
+
+        if (next != NO_SLOT)
+            prevSibling[next] = child;
+
+        free(slot);
+    }
+
+    private void free(int slot) {
+        references[slot] = freeHead;
+        freeHead = slot;
+        --occupied;
+    }
+
+    /**
+     * Returns the slot of the nearest retained ancestor of a cell.
+     *
+     * @param slot the slot of the cell of interest.
+     *
+     * @return the slot of the nearest retained ancestor, or {@code
+     * NO_PARENT} for founder cells.
+     */
+    public int getParentSlot(int slot) {
+        return parents[slot];
+    }
+
+    /**
+     * Returns the ordinal index of the cell occupying a slot.
+     *
+     * @param slot the slot of interest.
+     *
+     * @return the ordinal index of the cell occupying the slot.
+     */
+    public long getCellIndex(int slot) {
+        return cellIndexes[slot];
+    }
+
+    /**
+     * Returns the ordinal indexes of a cell and its retained ancestors
+     * (its branch points and its founder), ordered from the cell
+     * itself back to its founder.
+     *
+     * @param slot the slot of the cell of interest.
+     *
+     * @return the ordinal indexes of the lineage of the cell.
+     */
+    public long[] traceLineage(int slot) {
+        int depth = 0;
+
+        for (int k = slot; k != NO_PARENT; k = parents[k])
+            ++depth;
+
+        long[] lineage = new long[depth];
+        depth = 0;
+
+        for (int k = slot; k != NO_PARENT; k = parents[k])
+            lineage[depth++] = cellIndexes[k];
+
+        return lineage;
+    }
+
+    /**
+     * Returns the number of occupied slots (the living cells, their
+     * founders, and their branch points).
+     *
+     * @return the number of occupied slots.
+     */
+    public int size() {
+        return occupied;
+    }
+}
@@ -0,0 +1,70 @@
+package moran.cell;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only snapshot of one member of a population held in mapped
+ * storage, valid only until the next division or replacement in that
+ * population.
+ */
+final class MappedCell extends Cell {
+    private final MappedStore store;
+    private final long version;
+    private final int position;
+    private final Genotype genotype;
+
+    MappedCell(MappedStore store, long version, int position, long founderIndex, Genotype genotype) {
+        super(position, founderIndex);
+
+        this.store = store;
+        this.version = version;
+        this.position = position;
+        this.genotype = genotype;
+    }
+
+    /**
+     * Identifies snapshots that still describe a member of a given
+     * store.
+     *
+     * @param store the store to examine.
+     *
+     * @param version the current version of the store.
+     *
+     * @return {@code true} iff this snapshot was created by the given
+     * store at its current version.
+     */
+    boolean isCurrent(MappedStore store, long version) {
+        return this.store == store && this.version == version;
+    }
+
+    /**
+     * Returns the population index of this cell.
+     *
+     * @return the population index of this cell.
+     */
+    int getPosition() {
+        return position;
+    }
+
+    /**
+     * Cells in mapped storage divide through their population, not
+     * through their snapshots.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override public Cell divide(RandomGenerator random) {
+        throw new UnsupportedOperationException("Cells in mapped storage divide through their population.");
+    }
+
+    @Override public long[] traceLineage() {
+        throw new IllegalStateException("Lineage is not retained in mapped storage.");
+    }
+
+    @Override public Genotype getGenotype() {
+        return genotype;
+    }
+
+    @Override public String toString() {
+        return "Cell(" + getIndex() + ", " + genotype.format() + ")";
+    }
+}
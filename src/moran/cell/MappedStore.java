@@ -0,0 +1,322 @@
+package moran.cell;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.random.RandomGenerator;
+
+import jam.app.JamProperties;
+import jam.lang.JamException;
+
+/**
+ * Stores the members of a population as integer columns in a
+ * memory-mapped file, so that populations far larger than the heap
+ * can be simulated with the working set paged by the operating
+ * system.
+ *
+ * <p><b>File layout.</b> The file contains one little-endian
+ * {@code int} genotype identifier per population position, followed
+ * (if founders are tracked) by one {@code int} founder index per
+ * position.  The columns are mapped in chunks of {@code 2^28}
+ * elements.  Genotype identifiers refer to a registry held on the
+ * heap (see {@link GenotypeRegistry}), whose size is bounded by the
+ * number of distinct living genotypes.
+ *
+ * <p><b>Files.</b> Each store creates its own file, with a unique
+ * name, in the directory given by {@link
+ * PopulationMode#MAPPED_DIRECTORY_PROPERTY}, and unlinks it as soon as
+ * the columns are mapped: the operating system keeps the storage until
+ * the mappings are released (when the store is reclaimed at the end of
+ * its trial), and no file outlives the application.  Platforms that
+ * forbid deleting a mapped file delete it when the application exits.
+ *
+ * <p><b>Cells.</b> Cell objects are created only on request, as
+ * read-only snapshots that remain valid until the next division or
+ * replacement anywhere in the population; they are never cached.
+ * Mapped storage does not track cell indexes, birth steps, or
+ * lineage, so each snapshot takes the index of its position.
+ */
+final class MappedStore extends CellStore {
+    private final int size;
+    private final MappedColumn genotypeIds;
+    private final MappedColumn founderIndexes;
+
+    private final GenotypeRegistry registry = new GenotypeRegistry();
+
+    // Incremented whenever a member is replaced; snapshots are valid
+    // only while the version at their creation is current...
+    private long version = 0;
+
+    private static final class MappedColumn {
+        private static final int CHUNK_SHIFT = 28;
+        private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+        private final IntBuffer[] chunks;
+
+        private MappedColumn(FileChannel channel, long offset, int size) throws IOException {
+            int chunkCount = (int) (((long) size + CHUNK_MASK) >>> CHUNK_SHIFT);
+            this.chunks = new IntBuffer[chunkCount];
+
+            for (int chunk = 0; chunk < chunkCount; ++chunk) {
+                long start = (long) chunk << CHUNK_SHIFT;
+                long length = Math.min(size - start, 1L << CHUNK_SHIFT);
+
+                chunks[chunk] =
+                    channel.map(FileChannel.MapMode.READ_WRITE, offset + Integer.BYTES * start, Integer.BYTES * length)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asIntBuffer();
+            }
+        }
+
+        private int get(int index) {
+            return chunks[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK);
+        }
+
+        private void set(int index, int value) {
+            chunks[index >>> CHUNK_SHIFT].put(index & CHUNK_MASK, value);
+        }
+    }
+
+    private MappedStore(int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("The population must contain at least one cell.");
+
+        this.size = size;
+
+        boolean tracked = resolveFounders();
+        Path file = createFile();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            //
+            // The mappings remain valid after the channel is closed...
+            //
+            this.genotypeIds = new MappedColumn(channel, 0L, size);
+            this.founderIndexes = tracked ? new MappedColumn(channel, (long) Integer.BYTES * size, size) : null;
+        }
+        catch (IOException ex) {
+            deleteFile(file);
+            throw JamException.runtime(ex);
+        }
+
+        deleteFile(file);
+    }
+
+    private static boolean resolveFounders() {
+        return JamProperties.getOptionalBoolean(PopulationMode.MAPPED_FOUNDERS_PROPERTY, true);
+    }
+
+    private static Path createFile() {
+        try {
+            if (JamProperties.isSet(PopulationMode.MAPPED_DIRECTORY_PROPERTY))
+                return Files.createTempFile(Path.of(JamProperties.getRequired(PopulationMode.MAPPED_DIRECTORY_PROPERTY)), "moran", ".map");
+            else
+                return Files.createTempFile("moran", ".map");
+        }
+        catch (IOException ex) {
+            throw JamException.runtime(ex);
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        //
+        // POSIX systems keep the storage of an unlinked file until its
+        // mappings are released; other platforms refuse to delete a
+        // mapped file, which is then deleted at exit...
+        //
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException ex) {
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    static MappedStore create(Collection<? extends Cell> cells) {
+        MappedStore store = new MappedStore(cells.size());
+        store.fillColumns(cells);
+        return store;
+    }
+
+    static MappedStore create(int size, Genotype founderGenotype) {
+        MappedStore store = new MappedStore(size);
+        store.fillColumns(founderGenotype);
+        return store;
+    }
+
+    private void fillColumns(Collection<? extends Cell> cells) {
+        Map<Cell, Cell> unique = new IdentityHashMap<Cell, Cell>(size);
+        int index = 0;
+
+        for (Cell cell : cells) {
+            if (unique.put(cell, cell) != null)
+                throw new IllegalArgumentException("Duplicate cell.");
+
+            assign(index++, cell);
+        }
+    }
+
+    private void fillColumns(Genotype founderGenotype) {
+        //
+        // Every member is a founder carrying the same genotype, which
+        // receives the first identifier (zero), the value already in
+        // every element of the new file; the founders are indexed by
+        // their positions...
+        //
+        int genotypeId = registry.register(founderGenotype);
+
+        if (genotypeId != 0)
+            throw new IllegalStateException("The founder genotype must be registered first.");
+
+        registry.retain(genotypeId, size);
+
+        if (founderIndexes != null)
+            for (int index = 0; index < size; ++index)
+                founderIndexes.set(index, index);
+    }
+
+    private void assign(int index, Cell cell) {
+        int genotypeId = registry.register(cell.getGenotype());
+
+        genotypeIds.set(index, genotypeId);
+        registry.retain(genotypeId);
+
+        if (founderIndexes != null)
+            founderIndexes.set(index, Math.toIntExact(cell.getFounderIndex()));
+    }
+
+    @Override PopulationMode getMode() {
+        return PopulationMode.MAPPED;
+    }
+
+    @Override Cell get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Invalid population index.");
+
+        return new MappedCell(this, version, index, getFounderIndex(index), getGenotype(index));
+    }
+
+    @Override int indexOf(Cell cell) {
+        int index = find(cell);
+
+        if (index < 0)
+            throw new IllegalArgumentException("Cannot find the cell.");
+
+        return index;
+    }
+
+    private int find(Cell cell) {
+        if (cell instanceof MappedCell) {
+            MappedCell snapshot = (MappedCell) cell;
+
+            if (snapshot.isCurrent(this, version))
+                return snapshot.getPosition();
+        }
+
+        return -1;
+    }
+
+    @Override boolean contains(Cell cell) {
+        return find(cell) >= 0;
+    }
+
+    @Override List<Cell> list() {
+        return new AbstractList<Cell>() {
+            @Override public Cell get(int index) {
+                return MappedStore.this.get(index);
+            }
+
+            @Override public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override int size() {
+        return size;
+    }
+
+    @Override Genotype getGenotype(int index) {
+        return registry.get(genotypeIds.get(index));
+    }
+
+    @Override long getFounderIndex(int index) {
+        return (founderIndexes != null) ? founderIndexes.get(index) : -1L;
+    }
+
+    @Override boolean dividesByGenotype() {
+        return true;
+    }
+
+    @Override int getBirthStep(int index) {
+        throw new IllegalStateException("Birth steps are not retained in mapped storage.");
+    }
+
+    @Override double computeFitness(int index, Phenotype phenotype) {
+        return registry.computeFitness(genotypeIds.get(index), phenotype);
+    }
+
+    @Override void divide(int parentIndex, int deadIndex, RandomGenerator random) {
+        divide(parentIndex, deadIndex, getGenotype(parentIndex).divide(random));
+    }
+
+    @Override void divide(int parentIndex, int deadIndex, Genotype daughterGenotype) {
+        int parentId = genotypeIds.get(parentIndex);
+        int daughterId;
+
+        if (daughterGenotype == registry.get(parentId))
+            daughterId = parentId;
+        else
+            daughterId = registry.register(daughterGenotype);
+
+        //
+        // Count the daughter before releasing the dead cell, so that
+        // a genotype shared by both is never recycled...
+        //
+        registry.retain(daughterId);
+        registry.release(genotypeIds.get(deadIndex));
+        genotypeIds.set(deadIndex, daughterId);
+
+        if (founderIndexes != null)
+            founderIndexes.set(deadIndex, founderIndexes.get(parentIndex));
+
+        ++version;
+    }
+
+    @Override void replace(Cell oldCell, Cell newCell) {
+        replace(indexOf(oldCell), newCell);
+    }
+
+    @Override void replace(int index, Cell newCell) {
+        int oldId = genotypeIds.get(index);
+
+        assign(index, newCell);
+        registry.release(oldId);
+
+        ++version;
+    }
+
+    @Override void restore(Genotype[] genotypes, long[] founderIndexes) {
+        for (int index = 0; index < size; ++index) {
+            int genotypeId = registry.register(genotypes[index]);
+
+            registry.retain(genotypeId);
+            registry.release(genotypeIds.get(index));
+            genotypeIds.set(index, genotypeId);
+
+            if (this.founderIndexes != null)
+                this.founderIndexes.set(index, Math.toIntExact(founderIndexes[index]));
+        }
+
+        ++version;
+    }
+}
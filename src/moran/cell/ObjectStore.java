@@ -0,0 +1,186 @@
+
+package moran.cell;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Stores each member of a population as a cell object.
+ */
+final class ObjectStore extends CellStore {
+    //
+    // The cells must be stored in a random-access list for efficient
+    // random selection.  The hash table that maps cells back to their
+    // positions is needed only by the cell-based methods, so it is
+    // discarded when a cell is replaced by position (the hot path in
+    // the Moran process) and rebuilt on demand...
+    //
+    private final List<Cell> cellList;
+    private Map<Cell, Integer> indexMap;
+
+    // Whether every member mutates only through its genotype; the
+    // daughters of such cells do too, so only the cells placed by
+    // replacement need to be checked...
+    private boolean genotypeDivision;
+
+    private ObjectStore(Collection<? extends Cell> cells) {
+        this.cellList = new ArrayList<Cell>(cells);
+        this.indexMap = mapCells();
+        this.genotypeDivision = dividesByGenotype(cells);
+
+        assert cellList.size() == indexMap.size();
+    }
+
+    static ObjectStore create(Collection<? extends Cell> cells) {
+        return new ObjectStore(cells);
+    }
+
+    private Map<Cell, Integer> mapCells() {
+        Map<Cell, Integer> indexMap =
+            new HashMap<Cell, Integer>(cellList.size());
+
+        for (int index = 0; index < cellList.size(); ++index) {
+            Cell cell = cellList.get(index);
+
+            if (indexMap.containsKey(cell))
+                throw new IllegalArgumentException("Duplicate cell.");
+            else
+                indexMap.put(cell, index);
+        }
+
+        return indexMap;
+    }
+
+    private Map<Cell, Integer> indexMap() {
+        if (indexMap == null)
+            indexMap = mapCells();
+
+        return indexMap;
+    }
+
+    @Override PopulationMode getMode() {
+        return PopulationMode.OBJECT;
+    }
+
+    @Override Cell get(int index) {
+        return cellList.get(index);
+    }
+
+    @Override int indexOf(Cell cell) {
+        Integer index = indexMap().get(cell);
+
+        if (index == null)
+            throw new IllegalArgumentException("Cannot find the cell.");
+
+        return index;
+    }
+
+    @Override boolean contains(Cell cell) {
+        return indexMap().containsKey(cell);
+    }
+
+    @Override List<Cell> list() {
+        return Collections.unmodifiableList(cellList);
+    }
+
+    @Override int size() {
+        return cellList.size();
+    }
+
+    @Override Genotype getGenotype(int index) {
+        return cellList.get(index).getGenotype();
+    }
+
+    @Override long getFounderIndex(int index) {
+        return cellList.get(index).getFounderIndex();
+    }
+
+    @Override boolean dividesByGenotype() {
+        return genotypeDivision;
+    }
+
+    @Override int getBirthStep(int index) {
+        throw new IllegalStateException("Birth steps are recorded only in column storage.");
+    }
+
+    @Override double computeFitness(int index, Phenotype phenotype) {
+        return phenotype.getFitness(cellList.get(index));
+    }
+
+    @Override void divide(int parentIndex, int deadIndex, RandomGenerator random) {
+        Cell daughter = cellList.get(parentIndex).divide(random);
+
+        cellList.get(deadIndex).die();
+        place(deadIndex, daughter);
+    }
+
+    @Override void divide(int parentIndex, int deadIndex, Genotype daughterGenotype) {
+        Cell daughter = cellList.get(parentIndex).divide(daughterGenotype);
+
+        cellList.get(deadIndex).die();
+        place(deadIndex, daughter);
+    }
+
+    @Override void replace(Cell oldCell, Cell newCell) {
+        //
+        // Place the new cell in the same list element to avoid
+        // adding or removing elements from the list...
+        //
+        Map<Cell, Integer> indexMap = indexMap();
+        Integer index = indexMap.get(oldCell);
+
+        if (index == null)
+            throw new IllegalArgumentException("Cannot find the cell to replace.");
+
+        cellList.set(index, newCell);
+        indexMap.put(newCell, index);
+        indexMap.remove(oldCell);
+
+        genotypeDivision &= newCell.dividesByGenotype();
+    }
+
+    @Override void replace(int index, Cell newCell) {
+        place(index, newCell);
+        genotypeDivision &= newCell.dividesByGenotype();
+    }
+
+    private void place(int index, Cell newCell) {
+        cellList.set(index, newCell);
+        indexMap = null;
+    }
+
+    @Override void restore(Genotype[] genotypes, long[] founderIndexes) {
+        //
+        // Each restored member is a daughter of the founder cell with
+        // the recorded index, so it inherits that founder index...
+        //
+        Map<Long, Cell> founders = new HashMap<Long, Cell>(cellList.size());
+
+        for (Cell cell : cellList)
+            if (cell.getIndex() == cell.getFounderIndex())
+                founders.put(cell.getFounderIndex(), cell);
+
+        for (int index = 0; index < cellList.size(); ++index) {
+            Cell founder = founders.get(founderIndexes[index]);
+
+            if (founder == null)
+                throw new IllegalArgumentException("Missing founder cell [" + founderIndexes[index] + "].");
+
+            cellList.set(index, founder.divide(genotypes[index]));
+        }
+
+        // The replaced founders are no longer members, so the lineage
+        // table (in PRUNED mode) retains only those with restored
+        // descendants...
+        for (Cell founder : founders.values())
+            founder.die();
+
+        indexMap = null;
+    }
+}
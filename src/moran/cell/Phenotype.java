@@ -31,4 +31,19 @@ public interface Phenotype {
      * type compatible with this phenotype.
      */
     public abstract double getFitness(Genotype genotype);
+
+    /**
+     * Identifies neutral phenotypes, which assign the same fitness to
+     * every genotype.  Neutral phenotypes may be simulated by engines
+     * that skip all fitness calculations.
+     *
+     * <p>This default implementation returns {@code false}, which is
+     * always safe.
+     *
+     * @return {@code true} iff this phenotype assigns the same fitness
+     * to every genotype.
+     */
+    public default boolean isNeutral() {
+        return false;
+    }
 }
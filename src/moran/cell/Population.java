@@ -2,52 +2,188 @@
 package moran.cell;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+
+import java.util.random.RandomGenerator;
 
 import jam.util.ListUtil;
 
 /**
  * Represents the fixed-size population of cells in a Moran
  * simulation.
+ *
+ * <p>The storage layout is governed by the population mode (see
+ * {@link PopulationMode}).  The Moran process operates on positions
+ * (through the {@code computeFitness()} and {@code divide()} methods)
+ * so that it runs unchanged in every mode.
  */
 public class Population implements PopulationView {
-    //
-    // The cells must be stored in a random-access list for efficient
-    // random selection, and the list must be indexed by a hash table
-    // for efficient replacement of dead cells...
-    //
-    private final List<Cell> cellList;
-    private final Map<Cell, Integer> indexMap;
+    private final CellStore store;
 
     /**
      * Creates a new population and fills it with a collection of
-     * cells.
+     * cells, using the population mode defined by system properties.
      *
      * @param cells the initial members of the population.
      *
      * @throws IllegalArgumentException unless all cells are unique.
      */
     public Population(Collection<? extends Cell> cells) {
-        this.cellList = new ArrayList<Cell>(cells);
-        this.indexMap = new HashMap<Cell, Integer>(cells.size());
+        this(cells, PopulationMode.global());
+    }
+
+    /**
+     * Creates a new population with a specific storage layout and
+     * fills it with a collection of cells.
+     *
+     * @param cells the initial members of the population.
+     *
+     * @param mode the storage layout for the population.
+     *
+     * @throws IllegalArgumentException unless all cells are unique.
+     */
+    public Population(Collection<? extends Cell> cells, PopulationMode mode) {
+        this.store = CellStore.create(cells, mode);
+    }
+
+    /**
+     * Creates a new population of founder cells that all carry the
+     * same genotype, without creating any cell objects.  The founders
+     * are indexed by their positions.
+     *
+     * @param size the fixed number of cells in the population.
+     *
+     * @param founderGenotype the genotype of every founder cell.
+     *
+     * @param mode the storage layout for the population.
+     *
+     * @throws IllegalArgumentException unless the storage layout is
+     * {@code MAPPED}.
+     */
+    protected Population(int size, Genotype founderGenotype, PopulationMode mode) {
+        this.store = CellStore.create(size, founderGenotype, mode);
+    }
+
+    /**
+     * Returns the storage layout of this population.
+     *
+     * @return the storage layout of this population.
+     */
+    public PopulationMode getMode() {
+        return store.getMode();
+    }
 
-        mapCells();
-        assert cellList.size() == indexMap.size();
+    @Override public Cell get(int index) {
+        return store.get(index);
     }
 
-    private void mapCells() {
-        for (int index = 0; index < cellList.size(); ++index) {
-            Cell cell = cellList.get(index);
-            
-            if (indexMap.containsKey(cell))
-                throw new IllegalArgumentException("Duplicate cell.");
-            else
-                indexMap.put(cell, index);
-        }
+    @Override public int indexOf(Cell cell) {
+        return store.indexOf(cell);
+    }
+
+    /**
+     * Returns the genotype of the cell at a given position, without
+     * creating a cell object in column storage.
+     *
+     * @param index the population index of the cell of interest.
+     *
+     * @return the genotype of the cell at the specified position.
+     *
+     * @throws IndexOutOfBoundsException unless the index is valid.
+     */
+    public Genotype getGenotype(int index) {
+        return store.getGenotype(index);
+    }
+
+    /**
+     * Returns the founder index of the cell at a given position,
+     * without creating a cell object in column or mapped storage.
+     *
+     * @param index the population index of the cell of interest.
+     *
+     * @return the founder index of the cell at the specified position
+     * (or {@code -1} in mapped storage that does not track founders).
+     *
+     * @throws IndexOutOfBoundsException unless the index is valid.
+     */
+    public long getFounderIndex(int index) {
+        return store.getFounderIndex(index);
+    }
+
+    /**
+     * Indicates whether every member of this population mutates only
+     * through its genotype (see {@link Cell#dividesByGenotype()}), so
+     * that engines may divide the members by genotype.  Populations
+     * in column or mapped storage always do.
+     *
+     * @return whether every member of this population mutates only
+     * through its genotype.
+     */
+    public boolean dividesByGenotype() {
+        return store.dividesByGenotype();
+    }
+
+    /**
+     * Returns the number of complete time steps (of one cell cycle
+     * per member) that elapsed before the cell at a given position
+     * was born; founder cells have birth step zero.
+     *
+     * @param index the population index of the cell of interest.
+     *
+     * @return the birth step of the cell at the specified position.
+     *
+     * @throws IllegalStateException unless this population is held
+     * in column storage.
+     */
+    public int getBirthStep(int index) {
+        return store.getBirthStep(index);
+    }
+
+    /**
+     * Computes the fitness of the cell at a given position.
+     *
+     * @param index the population index of the cell of interest.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @return the fitness of the cell at the specified position.
+     *
+     * @throws IndexOutOfBoundsException unless the index is valid.
+     */
+    public double computeFitness(int index, Phenotype phenotype) {
+        return store.computeFitness(index, phenotype);
+    }
+
+    /**
+     * Replaces one cell with a (possibly mutated) daughter of another.
+     *
+     * @param parentIndex the population index of the dividing cell.
+     *
+     * @param deadIndex the population index of the cell that dies.
+     *
+     * @param random the source of random deviates for any mutations
+     * that accompany the division.
+     *
+     * @throws IndexOutOfBoundsException unless both indexes are valid.
+     */
+    public void divide(int parentIndex, int deadIndex, RandomGenerator random) {
+        store.divide(parentIndex, deadIndex, random);
+    }
+
+    /**
+     * Replaces one cell with a daughter of another that carries a
+     * specified genotype.
+     *
+     * @param parentIndex the population index of the dividing cell.
+     *
+     * @param deadIndex the population index of the cell that dies.
+     *
+     * @param daughterGenotype the genotype of the daughter cell.
+     *
+     * @throws IndexOutOfBoundsException unless both indexes are valid.
+     */
+    public void divide(int parentIndex, int deadIndex, Genotype daughterGenotype) {
+        store.divide(parentIndex, deadIndex, daughterGenotype);
     }
 
     /**
@@ -61,18 +197,48 @@ public class Population implements PopulationView {
      * contains the old cell and does not contain the new cell.
      */
     public void replace(Cell oldCell, Cell newCell) {
-        //
-        // Place the new cell in the same list element to avoid
-        // adding or removing elements from the list...
-        //
-        Integer index = indexMap.get(oldCell);
+        store.replace(oldCell, newCell);
+    }
 
-        if (index == null)
-            throw new IllegalArgumentException("Cannot find the cell to replace.");
+    /**
+     * Replaces the cell at a given position with another, without
+     * any hash table lookups.
+     *
+     * @param index the population index of the cell to remove.
+     *
+     * @param newCell the new cell to add.
+     *
+     * @throws IndexOutOfBoundsException unless the index is valid.
+     */
+    public void replace(int index, Cell newCell) {
+        store.replace(index, newCell);
+    }
 
-        cellList.set(index, newCell);
-        indexMap.put(newCell, index);
-        indexMap.remove(oldCell);
+    /**
+     * Restores the genotype and founder index of every member of this
+     * population from a trial checkpoint.
+     *
+     * <p>This population must contain only the founder cells created
+     * at the start of the trial, so that each restored member can
+     * inherit its recorded founder index.  Cell indexes, birth steps,
+     * and lineage are not restored: restored members are numbered as
+     * new daughter cells.
+     *
+     * @param genotypes the genotype of each member, indexed by its
+     * position in the population.
+     *
+     * @param founderIndexes the founder index of each member, indexed
+     * by its position in the population.
+     *
+     * @throws IllegalArgumentException unless both arrays match the
+     * size of this population and every recorded founder index
+     * identifies a founder cell in this population.
+     */
+    public void restore(Genotype[] genotypes, long[] founderIndexes) {
+        if (genotypes.length != store.size() || founderIndexes.length != store.size())
+            throw new IllegalArgumentException("The restored state does not match the population size.");
+
+        store.restore(genotypes, founderIndexes);
     }
 
     /**
@@ -82,18 +248,30 @@ public class Population implements PopulationView {
      * @return one cell from this population selected at random.
      */
     public Cell select() {
-        return ListUtil.select(cellList);
+        return ListUtil.select(store.list());
+    }
+
+    /**
+     * Selects the position of one cell from this population at random
+     * (with equal likelihood for all).
+     *
+     * @param random the source of random deviates.
+     *
+     * @return the population index of one cell selected at random.
+     */
+    public int selectIndex(RandomGenerator random) {
+        return random.nextInt(store.size());
     }
 
     @Override public boolean contains(Cell cell) {
-        return indexMap.containsKey(cell);
+        return store.contains(cell);
     }
 
     @Override public List<Cell> list() {
-        return Collections.unmodifiableList(cellList);
+        return store.list();
     }
 
     @Override public int size() {
-        return cellList.size();
+        return store.size();
     }
 }
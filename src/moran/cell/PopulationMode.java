@@ -0,0 +1,80 @@
+
+package moran.cell;
+
+import jam.app.JamProperties;
+
+/**
+ * Enumerates the storage layouts for the members of a population.
+ */
+public enum PopulationMode {
+    /**
+     * Each member is stored as a cell object, and every division
+     * creates a new cell object.
+     */
+    OBJECT,
+
+    /**
+     * Members are stored as primitive columns (genotype, founder
+     * index, and birth step) indexed by population position, so that
+     * division and death are array writes; cell objects are created
+     * only when requested through the population view, as read-only
+     * snapshots of one position.
+     *
+     * <p>Column storage does not record ancestry beyond the founder
+     * index, so the lineage mode is ignored for the cells it holds.
+     * Members divide through {@link Genotype#divide}, so the founder
+     * cells must mutate only through their genotype (see {@link
+     * Cell#dividesByGenotype()}).
+     */
+    COLUMN,
+
+    /**
+     * Members are stored as integer columns (genotype identifier and,
+     * optionally, founder index) in a memory-mapped file, so that the
+     * population need not fit on the heap.  Cell objects are created
+     * only on request, as read-only snapshots that are valid until the
+     * next division; cell indexes, birth steps, and lineage are not
+     * retained.
+     */
+    MAPPED;
+
+    /**
+     * Name of the system property that defines the population mode.
+     */
+    public static final String POPULATION_MODE_PROPERTY = "moran.cell.populationMode";
+
+    /**
+     * Name of the system property that defines the directory in which
+     * populations in mapped storage create their files (the default
+     * temporary-file directory by default).  Each population creates
+     * a file with a unique name, so concurrent trials never share a
+     * file, and removes it from the directory as soon as it has been
+     * mapped; the storage is released when the population is
+     * reclaimed.
+     */
+    public static final String MAPPED_DIRECTORY_PROPERTY = "moran.cell.mappedDirectory";
+
+    /**
+     * Name of the system property that specifies whether mapped
+     * storage records the founder index of each member ({@code true}
+     * by default; disabling it halves the file size).
+     */
+    public static final String MAPPED_FOUNDERS_PROPERTY = "moran.cell.mappedFounders";
+
+    /**
+     * Default population mode, which preserves the original behavior.
+     */
+    public static final PopulationMode DEFAULT = OBJECT;
+
+    /**
+     * Returns the population mode defined by system properties.
+     *
+     * @return the population mode defined by system properties.
+     */
+    public static PopulationMode global() {
+        if (JamProperties.isSet(POPULATION_MODE_PROPERTY))
+            return JamProperties.getRequiredEnum(POPULATION_MODE_PROPERTY, PopulationMode.class);
+        else
+            return DEFAULT;
+    }
+}
@@ -19,6 +19,29 @@ public interface PopulationView extends Iterable<Cell> {
      */
     public abstract boolean contains(Cell cell);
 
+    /**
+     * Returns the cell at a given position in this population.
+     *
+     * @param index the population index of the cell.
+     *
+     * @return the cell at the specified position.
+     *
+     * @throws IndexOutOfBoundsException unless the index is valid.
+     */
+    public abstract Cell get(int index);
+
+    /**
+     * Returns the position of a cell in this population.
+     *
+     * @param cell the cell to locate.
+     *
+     * @return the population index of the specified cell.
+     *
+     * @throws IllegalArgumentException unless this population
+     * contains the cell.
+     */
+    public abstract int indexOf(Cell cell);
+
     /**
      * Returns a read-only list view of the cells in this population.
      *
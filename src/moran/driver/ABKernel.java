@@ -0,0 +1,54 @@
+package moran.driver;
+
+import java.util.random.RandomGenerator;
+
+import moran.ab.ABCell;
+import moran.ab.ABGenotype;
+import moran.ab.ABPhenotype;
+import moran.space.Space;
+
+/**
+ * Executes the spatial Moran process for the {@code A/B} model.
+ */
+final class ABKernel extends MoranKernel {
+    private final ABGenotype[] genotypes;
+
+    private ABKernel(Space space, RandomGenerator random, ABGenotype[] genotypes) {
+        super(space, random, computeFitness(genotypes));
+        this.genotypes = genotypes;
+    }
+
+    static ABKernel create(Space space, RandomGenerator random) {
+        return new ABKernel(space, random, copyGenotypes(space));
+    }
+
+    private static ABGenotype[] copyGenotypes(Space space) {
+        ABGenotype[] genotypes = new ABGenotype[space.size()];
+
+        for (int index = 0; index < genotypes.length; ++index)
+            genotypes[index] = (ABGenotype) space.getGenotype(index);
+
+        return genotypes;
+    }
+
+    private static double[] computeFitness(ABGenotype[] genotypes) {
+        double[] fitness = new double[genotypes.length];
+
+        for (int index = 0; index < fitness.length; ++index)
+            fitness[index] = ABPhenotype.getABFitness(genotypes[index]);
+
+        return fitness;
+    }
+
+    @Override double divide(int parentIndex, int deadIndex) {
+        ABGenotype daughterGenotype = genotypes[parentIndex].divide(random);
+
+        if (cellObjects)
+            replace(deadIndex, ((ABCell) space.get(parentIndex)).divide(daughterGenotype));
+        else
+            space.divide(parentIndex, deadIndex, daughterGenotype);
+
+        genotypes[deadIndex] = daughterGenotype;
+        return ABPhenotype.getABFitness(daughterGenotype);
+    }
+}
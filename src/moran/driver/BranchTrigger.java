@@ -0,0 +1,127 @@
+package moran.driver;
+
+import jam.app.JamProperties;
+import jam.math.DoubleRange;
+
+/**
+ * Enumerates the conditions that end the shared burn-in phase of an
+ * ensemble of branched simulation trials.
+ *
+ * <p>In branching mode, the driver runs one burn-in trial until its
+ * trigger condition is reached, records its state in memory, and then
+ * forks several child trials from that state, each with its own
+ * random number stream (see {@link MoranDriver}).
+ */
+public enum BranchTrigger {
+    /**
+     * Branching is disabled: every trial starts from the founder
+     * population.
+     */
+    NONE {
+        @Override public boolean isReached(MoranTrial trial, double threshold) {
+            return true;
+        }
+    },
+
+    /**
+     * The burn-in ends after a fixed number of time steps, given by
+     * the branch threshold.
+     */
+    STEP {
+        @Override public boolean isReached(MoranTrial trial, double threshold) {
+            return trial.getTimeStep() >= threshold;
+        }
+    },
+
+    /**
+     * The burn-in ends when the mean fitness of the population reaches
+     * the branch threshold.
+     */
+    FITNESS {
+        @Override public boolean isReached(MoranTrial trial, double threshold) {
+            return trial.getMeanFitness() >= threshold;
+        }
+    },
+
+    /**
+     * The burn-in ends when the first mutant appears: when the
+     * population carries more than one distinct genotype.
+     */
+    MUTANT {
+        @Override public boolean isReached(MoranTrial trial, double threshold) {
+            return trial.countGenotypes().size() > 1;
+        }
+    };
+
+    /**
+     * Determines whether a burn-in trial has reached this trigger
+     * condition at the end of its latest completed time step.
+     *
+     * @param trial the burn-in trial.
+     *
+     * @param threshold the branch threshold (ignored by triggers that
+     * do not require one).
+     *
+     * @return {@code true} iff the burn-in phase is complete.
+     */
+    public abstract boolean isReached(MoranTrial trial, double threshold);
+
+    /**
+     * Identifies triggers that require a branch threshold.
+     *
+     * @return {@code true} iff this trigger compares the trial state
+     * to the branch threshold.
+     */
+    public boolean requiresThreshold() {
+        return this == STEP || this == FITNESS;
+    }
+
+    /**
+     * Name of the system property that defines the branch trigger.
+     */
+    public static final String BRANCH_TRIGGER_PROPERTY = "moran.driver.branchTrigger";
+
+    /**
+     * Name of the system property that defines the branch threshold:
+     * the number of burn-in time steps for the {@code STEP} trigger or
+     * the mean fitness for the {@code FITNESS} trigger.
+     */
+    public static final String BRANCH_THRESHOLD_PROPERTY = "moran.driver.branchThreshold";
+
+    /**
+     * Name of the system property that defines the number of child
+     * trials forked from each burn-in trial (by default, all trials
+     * share one burn-in).
+     */
+    public static final String BRANCH_COUNT_PROPERTY = "moran.driver.branchCount";
+
+    /**
+     * Default branch trigger, which preserves the original behavior.
+     */
+    public static final BranchTrigger DEFAULT = NONE;
+
+    /**
+     * Returns the branch trigger defined by system properties.
+     *
+     * @return the branch trigger defined by system properties.
+     */
+    public static BranchTrigger global() {
+        if (JamProperties.isSet(BRANCH_TRIGGER_PROPERTY))
+            return JamProperties.getRequiredEnum(BRANCH_TRIGGER_PROPERTY, BranchTrigger.class);
+        else
+            return DEFAULT;
+    }
+
+    /**
+     * Returns the branch threshold defined by system properties.
+     *
+     * @return the branch threshold defined by system properties (not
+     * a number unless the global trigger requires a threshold).
+     */
+    public static double resolveThreshold() {
+        if (global().requiresThreshold())
+            return JamProperties.getRequiredDouble(BRANCH_THRESHOLD_PROPERTY, DoubleRange.POSITIVE);
+        else
+            return Double.NaN;
+    }
+}
@@ -0,0 +1,378 @@
+
+package moran.driver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import moran.cell.Genotype;
+import moran.cell.Phenotype;
+import moran.space.SpaceView;
+
+/**
+ * Simulates the evolution of a well-mixed cellular population by
+ * tracking the number of cells carrying each distinct genotype (each
+ * clone) rather than the individual cells.
+ *
+ * <p>In a well-mixed (zero-dimensional) space the state of a Moran
+ * process is completely described by the clone sizes, so this engine
+ * executes the same cycle of cell death and division as {@link
+ * MoranProcess} with the same probabilities and time increments, but
+ * in {@code O(log K)} time per cycle and {@code O(K)} memory, where
+ * {@code K} is the number of clones.  Each cycle draws its random
+ * deviates in the same order as the cell-based process.
+ *
+ * <p>The clone sizes are stored in one Fenwick tree (to select the
+ * dead cell uniformly from the population) and the clone fitness
+ * (size times cell fitness) in another (to select the dividing cell
+ * with a probability proportional to its fitness).  Mutant daughters
+ * found new clones; clones are discarded when their last cell dies,
+ * and their positions in the trees are recycled.
+ */
+public final class CloneProcess implements MoranEngine {
+    // The fixed number of cells in the population...
+    private final int size;
+
+    // The governing phenotype model...
+    private final Phenotype phenotype;
+
+    // The random number source, private to this process...
+    private final RandomGenerator random;
+
+    // The clone table, indexed by clone position; vacant positions
+    // have a null genotype, zero size, and zero fitness...
+    private Genotype[] genotypes;
+    private int[] cloneSizes;
+    private double[] cellFitness;
+
+    // Maps each genotype present in the population to its clone
+    // position...
+    private final Map<Genotype, Integer> clonePositions = new HashMap<Genotype, Integer>();
+
+    // Vacant clone positions below the high-water mark (a stack)...
+    private int[] vacancies;
+    private int vacancyCount = 0;
+    private int highWater = 0;
+
+    private FitnessTree sizeTree;
+    private FitnessTree fitnessTree;
+
+    private double timeClock = 0.0;
+    private double meanFitness;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private CloneProcess(Map<? extends Genotype, Integer> census, Phenotype phenotype, RandomGenerator random) {
+        this.phenotype = phenotype;
+        this.random = random;
+
+        int capacity = INITIAL_CAPACITY;
+
+        while (capacity < census.size())
+            capacity *= 2;
+
+        this.genotypes = new Genotype[capacity];
+        this.cloneSizes = new int[capacity];
+        this.cellFitness = new double[capacity];
+        this.vacancies = new int[capacity];
+
+        long total = 0;
+
+        for (Map.Entry<? extends Genotype, Integer> entry : census.entrySet()) {
+            int cloneSize = entry.getValue();
+
+            if (cloneSize < 0)
+                throw new IllegalArgumentException("Negative clone size.");
+
+            if (cloneSize > 0) {
+                int clone = register(entry.getKey());
+                cloneSizes[clone] = cloneSize;
+                total += cloneSize;
+            }
+        }
+
+        if (total < 2)
+            throw new IllegalArgumentException("A well-mixed population requires at least two cells.");
+
+        if (total > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Population size exceeds the maximum.");
+
+        this.size = (int) total;
+        rebuildTrees();
+
+        this.meanFitness = computeMeanFitness();
+    }
+
+    /**
+     * Initializes a new clone process for a population founded by
+     * identical cells.
+     *
+     * @param founder the genotype carried by every founder cell.
+     *
+     * @param size the number of cells in the population.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @param random the source of random deviates for the process.
+     *
+     * @return the initialized clone process.
+     *
+     * @throws IllegalArgumentException unless the population contains
+     * at least two cells.
+     */
+    public static CloneProcess initialize(Genotype founder, int size, Phenotype phenotype, RandomGenerator random) {
+        return initialize(Map.of(founder, size), phenotype, random);
+    }
+
+    /**
+     * Initializes a new clone process for a population with specified
+     * clone sizes.
+     *
+     * @param census the number of cells carrying each genotype.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @param random the source of random deviates for the process.
+     *
+     * @return the initialized clone process.
+     *
+     * @throws IllegalArgumentException unless the population contains
+     * at least two cells and all clone sizes are non-negative.
+     */
+    public static CloneProcess initialize(Map<? extends Genotype, Integer> census, Phenotype phenotype, RandomGenerator random) {
+        return new CloneProcess(census, phenotype, random);
+    }
+
+    private int register(Genotype genotype) {
+        Integer position = clonePositions.get(genotype);
+
+        if (position != null)
+            return position;
+
+        int newPosition;
+
+        if (vacancyCount > 0) {
+            newPosition = vacancies[--vacancyCount];
+        }
+        else {
+            if (highWater == genotypes.length)
+                grow();
+
+            newPosition = highWater++;
+        }
+
+        genotypes[newPosition] = genotype;
+        cloneSizes[newPosition] = 0;
+        cellFitness[newPosition] = phenotype.getFitness(genotype);
+        clonePositions.put(genotype, newPosition);
+
+        return newPosition;
+    }
+
+    private void grow() {
+        int newLength = 2 * genotypes.length;
+
+        genotypes = Arrays.copyOf(genotypes, newLength);
+        cloneSizes = Arrays.copyOf(cloneSizes, newLength);
+        cellFitness = Arrays.copyOf(cellFitness, newLength);
+        vacancies = Arrays.copyOf(vacancies, newLength);
+
+        // The trees are created after the initial clones have been
+        // registered...
+        if (sizeTree != null)
+            rebuildTrees();
+    }
+
+    private void rebuildTrees() {
+        double[] sizeWeights = new double[genotypes.length];
+        double[] fitnessWeights = new double[genotypes.length];
+
+        for (int position = 0; position < highWater; ++position) {
+            sizeWeights[position] = cloneSizes[position];
+            fitnessWeights[position] = cloneSizes[position] * cellFitness[position];
+        }
+
+        if (sizeTree == null || sizeTree.size() != genotypes.length) {
+            sizeTree = FitnessTree.create(sizeWeights);
+            fitnessTree = FitnessTree.create(fitnessWeights);
+        }
+        else {
+            sizeTree.rebuild(sizeWeights);
+            fitnessTree.rebuild(fitnessWeights);
+        }
+    }
+
+    private double computeMeanFitness() {
+        double totalFitness = 0.0;
+
+        for (int position = 0; position < highWater; ++position)
+            totalFitness += cloneSizes[position] * cellFitness[position];
+
+        return totalFitness / size;
+    }
+
+    /**
+     * Executes one cycle of cell death and division.
+     */
+    public void executeCellCycle() {
+        //
+        // (1) Select a cell "I" at random from the population, with
+        // equal probability for all cells; the clone sizes define
+        // contiguous ranges of cell positions, so the dead cell is
+        // located by a search of the cumulative clone sizes.
+        //
+        int deadClone = sizeTree.search(random.nextInt(size));
+        double deadFitness = cellFitness[deadClone];
+
+        //
+        // (2) Update the dimensionless time clock according to the
+        // fitness of the other N - 1 cells.
+        //
+        double neighborTotal = fitnessTree.total() - deadFitness;
+        double neighborRate = neighborTotal / (size - 1);
+
+        timeClock += random.nextExponential() / neighborRate / size;
+
+        //
+        // (3) Select the dividing cell "J" from the other N - 1 cells
+        // with a probability proportional to its fitness.
+        //
+        int parentClone = selectParent(deadClone, neighborTotal, random.nextDouble());
+
+        //
+        // (4) Replace cell "I" with a daughter of cell "J".
+        //
+        Genotype parentGenotype = genotypes[parentClone];
+        Genotype daughterGenotype = parentGenotype.divide(random);
+
+        int daughterClone;
+
+        if (daughterGenotype == parentGenotype)
+            daughterClone = parentClone;
+        else
+            daughterClone = register(daughterGenotype);
+
+        if (daughterClone != deadClone) {
+            addCell(daughterClone);
+            removeCell(deadClone);
+        }
+
+        meanFitness += (cellFitness[daughterClone] - deadFitness) / size;
+    }
+
+    private int selectParent(int deadClone, double neighborTotal, double uniform) {
+        //
+        // Place the dead cell at the end of the cumulative fitness
+        // interval of its clone and skip over it...
+        //
+        double deadFitness = cellFitness[deadClone];
+        double deadStart = fitnessTree.prefixSum(deadClone) + (cloneSizes[deadClone] - 1) * deadFitness;
+        double target = uniform * neighborTotal;
+
+        if (target >= deadStart)
+            target += deadFitness;
+
+        int selected = fitnessTree.search(target);
+
+        if (isEligibleParent(selected, deadClone))
+            return selected;
+
+        // Round-off error has placed the target on the boundary of an
+        // empty interval; take the nearest eligible clone...
+        for (int offset = 1; offset < highWater; ++offset) {
+            if (selected + offset < highWater && isEligibleParent(selected + offset, deadClone))
+                return selected + offset;
+
+            if (selected - offset >= 0 && isEligibleParent(selected - offset, deadClone))
+                return selected - offset;
+        }
+
+        throw new IllegalStateException("No eligible parent cell.");
+    }
+
+    private boolean isEligibleParent(int clone, int deadClone) {
+        int eligible = (clone == deadClone) ? cloneSizes[clone] - 1 : cloneSizes[clone];
+        return eligible > 0 && cellFitness[clone] > 0.0;
+    }
+
+    private void addCell(int clone) {
+        ++cloneSizes[clone];
+        sizeTree.add(clone, 1.0);
+        fitnessTree.add(clone, cellFitness[clone]);
+    }
+
+    private void removeCell(int clone) {
+        --cloneSizes[clone];
+        sizeTree.add(clone, -1.0);
+        fitnessTree.add(clone, -cellFitness[clone]);
+
+        if (cloneSizes[clone] == 0) {
+            clonePositions.remove(genotypes[clone]);
+            genotypes[clone] = null;
+            cellFitness[clone] = 0.0;
+            vacancies[vacancyCount++] = clone;
+        }
+    }
+
+    /**
+     * Returns the number of distinct genotypes (clones) in the current
+     * population.
+     *
+     * @return the number of distinct genotypes in the population.
+     */
+    public int countClones() {
+        return clonePositions.size();
+    }
+
+    /**
+     * Returns the number of cells in the population.
+     *
+     * @return the number of cells in the population.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Executes one cycle of cell death and division for each member
+     * of the cell population.
+     */
+    @Override public void executeTimeStep() {
+        //
+        // Discard the round-off error accumulated in the fitness tree
+        // and the mean fitness by the incremental updates...
+        //
+        rebuildTrees();
+        meanFitness = computeMeanFitness();
+
+        for (int cycle = 0; cycle < size; ++cycle)
+            executeCellCycle();
+    }
+
+    @Override public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    @Override public double getTimeClock() {
+        return timeClock;
+    }
+
+    @Override public Map<Genotype, Integer> countGenotypes() {
+        Map<Genotype, Integer> census = new HashMap<Genotype, Integer>(clonePositions.size());
+
+        for (Map.Entry<Genotype, Integer> entry : clonePositions.entrySet())
+            census.put(entry.getKey(), cloneSizes[entry.getValue()]);
+
+        return census;
+    }
+
+    /**
+     * The clone process does not track individual cells.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override public SpaceView viewSpace() {
+        throw new UnsupportedOperationException("The clone process does not track individual cells.");
+    }
+}
@@ -0,0 +1,206 @@
+package moran.driver;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws discrete and gamma random deviates for the engines that
+ * aggregate many cycles of cell death and division into a single
+ * update.
+ *
+ * <p>All deviates are exact.  Deviates with small means are drawn
+ * directly (in time proportional to the mean); deviates with large
+ * means are drawn by the order-statistic recursions described by
+ * Knuth (The Art of Computer Programming, Vol. 2, Section 3.4.1),
+ * which reduce the mean geometrically with each gamma deviate, and
+ * gamma deviates are drawn by the method of Marsaglia and Tsang.
+ */
+final class Deviates {
+    private Deviates() {}
+
+    // Means below this value are drawn directly...
+    private static final double DIRECT_MEAN_THRESHOLD = 30.0;
+
+    /**
+     * Draws a binomial deviate.
+     *
+     * @param random the source of uniform deviates.
+     *
+     * @param trials the number of trials.
+     *
+     * @param prob the success probability for each trial.
+     *
+     * @return the number of successes.
+     */
+    static long binomial(RandomGenerator random, long trials, double prob) {
+        if (trials <= 0 || prob <= 0.0)
+            return 0;
+
+        if (prob >= 1.0)
+            return trials;
+
+        if (prob > 0.5)
+            return trials - binomial(random, trials, 1.0 - prob);
+
+        if (trials * prob < DIRECT_MEAN_THRESHOLD)
+            return waitingBinomial(random, trials, prob);
+
+        //
+        // The a-th smallest of n uniform deviates has a beta(a, n + 1 - a)
+        // distribution; count the deviates below "prob" on whichever
+        // side of it "prob" falls...
+        //
+        long a = 1 + trials / 2;
+        long b = trials + 1 - a;
+        double order = beta(random, a, b);
+
+        if (order >= prob)
+            return binomial(random, a - 1, prob / order);
+        else
+            return a + binomial(random, b - 1, (prob - order) / (1.0 - order));
+    }
+
+    private static long waitingBinomial(RandomGenerator random, long trials, double prob) {
+        //
+        // Sum the geometric waiting times between successes until the
+        // number of trials is exhausted...
+        //
+        long successes = 0;
+        long position = 0;
+
+        while (true) {
+            position += geometric(random, prob) + 1;
+
+            if (position > trials)
+                return successes;
+
+            ++successes;
+        }
+    }
+
+    /**
+     * Draws the number of failures before the first success in a
+     * sequence of independent trials.
+     *
+     * @param random the source of uniform deviates.
+     *
+     * @param prob the success probability for each trial.
+     *
+     * @return the number of failures before the first success
+     * ({@code Long.MAX_VALUE} if the success probability is zero).
+     */
+    static long geometric(RandomGenerator random, double prob) {
+        if (prob >= 1.0)
+            return 0;
+
+        if (prob <= 0.0)
+            return Long.MAX_VALUE;
+
+        double failures = Math.floor(Math.log(1.0 - random.nextDouble()) / Math.log1p(-prob));
+        return (failures < Long.MAX_VALUE) ? (long) failures : Long.MAX_VALUE;
+    }
+
+    /**
+     * Draws a Poisson deviate.
+     *
+     * @param random the source of uniform deviates.
+     *
+     * @param mean the mean of the distribution.
+     *
+     * @return the Poisson deviate.
+     */
+    static long poisson(RandomGenerator random, double mean) {
+        if (mean <= 0.0)
+            return 0;
+
+        if (mean < DIRECT_MEAN_THRESHOLD) {
+            double limit = Math.exp(-mean);
+            double product = random.nextDouble();
+            long count = 0;
+
+            while (product > limit) {
+                product *= random.nextDouble();
+                ++count;
+            }
+
+            return count;
+        }
+
+        //
+        // The m-th arrival time of a unit-rate Poisson process has a
+        // gamma(m) distribution...
+        //
+        long m = (long) (0.875 * mean);
+        double arrival = gamma(random, m);
+
+        if (arrival < mean)
+            return m + poisson(random, mean - arrival);
+        else
+            return binomial(random, m - 1, mean / arrival);
+    }
+
+    /**
+     * Draws the sum of independent exponential deviates with unit
+     * mean (a gamma deviate with integer shape).
+     *
+     * @param random the source of uniform deviates.
+     *
+     * @param count the number of exponential deviates to sum.
+     *
+     * @return the sum of the exponential deviates.
+     */
+    static double exponentialSum(RandomGenerator random, long count) {
+        if (count < DIRECT_MEAN_THRESHOLD) {
+            double sum = 0.0;
+
+            for (long k = 0; k < count; ++k)
+                sum += random.nextExponential();
+
+            return sum;
+        }
+
+        return gamma(random, count);
+    }
+
+    /**
+     * Draws a gamma deviate with unit scale.
+     *
+     * @param random the source of uniform deviates.
+     *
+     * @param shape the shape parameter (at least one).
+     *
+     * @return the gamma deviate.
+     */
+    static double gamma(RandomGenerator random, double shape) {
+        if (shape < 1.0)
+            throw new IllegalArgumentException("The shape parameter must be at least one.");
+
+        double d = shape - 1.0 / 3.0;
+        double c = 1.0 / Math.sqrt(9.0 * d);
+
+        while (true) {
+            double x = random.nextGaussian();
+            double v = 1.0 + c * x;
+
+            if (v <= 0.0)
+                continue;
+
+            v = v * v * v;
+
+            double u = 1.0 - random.nextDouble();
+            double xx = x * x;
+
+            if (u < 1.0 - 0.0331 * xx * xx)
+                return d * v;
+
+            if (Math.log(u) < 0.5 * xx + d * (1.0 - v + Math.log(v)))
+                return d * v;
+        }
+    }
+
+    private static double beta(RandomGenerator random, double a, double b) {
+        double x = gamma(random, a);
+        double y = gamma(random, b);
+
+        return x / (x + y);
+    }
+}
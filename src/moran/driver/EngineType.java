@@ -0,0 +1,119 @@
+package moran.driver;
+
+import jam.app.JamProperties;
+
+/**
+ * Enumerates the engines that execute the time steps of a simulation
+ * trial.
+ */
+public enum EngineType {
+    /**
+     * Every cell is tracked individually in a spatial Moran process
+     * (see {@link MoranProcess}); this engine supports every spatial
+     * structure and every report.  Trials with a neutral phenotype
+     * (see {@link moran.cell.Phenotype#isNeutral()}) are executed by
+     * the {@code NEUTRAL} engine, which samples the same process, and
+     * the built-in models are executed by kernels specialized for
+     * their phenotype (see {@link MoranKernel}).
+     */
+    CELL,
+
+    /**
+     * Cells are tracked only as counts of each distinct genotype (see
+     * {@link CloneProcess}).  This engine applies only to well-mixed
+     * ({@code POINT}) structures and does not support reports that
+     * require individual cells or their coordinates.
+     */
+    COUNT,
+
+    /**
+     * Cells are tracked as genotype counts, and many cycles of cell
+     * death and division are aggregated into each update (see {@link
+     * TauLeapProcess}).  This approximate engine applies only to
+     * well-mixed ({@code POINT}) structures, is intended for very
+     * large populations, and shares the restrictions of the
+     * {@code COUNT} engine.
+     */
+    TAU_LEAP,
+
+    /**
+     * Every cell is tracked individually, but only the cell cycles
+     * that can change the genotype configuration are executed (see
+     * {@link KineticProcess}).  This engine supports every spatial
+     * structure and is most efficient on lattices with few active
+     * clone boundaries; it does not reproduce the cell and founder
+     * indexes of the {@code CELL} engine.
+     */
+    KINETIC,
+
+    /**
+     * Every cell is tracked individually and has the same fitness, so
+     * the dividing neighbor is selected uniformly and no fitness is
+     * computed (see {@link NeutralProcess}).  This engine supports
+     * every spatial structure and every report; it may be requested
+     * explicitly for phenotypes that do not identify themselves as
+     * neutral, but trials fail if any cell has a different fitness.
+     */
+    NEUTRAL,
+
+    /**
+     * Every cell is tracked individually, and disjoint tiles of a
+     * single lattice are updated concurrently (see {@link
+     * ParallelLatticeProcess}).  This engine applies only to lattice
+     * structures; it reorders the cell cycles near tile boundaries
+     * and therefore samples the cell process approximately.
+     */
+    PARALLEL,
+
+    /**
+     * Several trials on the same lattice are advanced together, with
+     * the genotypes of all cells stored in primitive arrays (see
+     * {@link LockstepProcess}).  Each trial reproduces the trajectory
+     * of the {@code CELL} engine with the same random number stream,
+     * but this engine applies only to lattice structures and does not
+     * support reports that require individual cells or their
+     * coordinates.
+     */
+    LOCKSTEP;
+
+    /**
+     * Name of the system property that defines the engine type.
+     */
+    public static final String ENGINE_TYPE_PROPERTY = "moran.driver.engineType";
+
+    /**
+     * Default engine type, which preserves the original behavior.
+     */
+    public static final EngineType DEFAULT = CELL;
+
+    /**
+     * Indicates whether this engine tracks individual cells, so that
+     * reports may view the cellular space of a trial.
+     *
+     * @return {@code true} unless this engine tracks only genotype
+     * counts.
+     */
+    public boolean tracksCells() {
+        switch (this) {
+        case COUNT:
+        case TAU_LEAP:
+        case LOCKSTEP:
+            return false;
+
+        default:
+            return true;
+        }
+    }
+
+    /**
+     * Returns the engine type defined by system properties.
+     *
+     * @return the engine type defined by system properties.
+     */
+    public static EngineType global() {
+        if (JamProperties.isSet(ENGINE_TYPE_PROPERTY))
+            return JamProperties.getRequiredEnum(ENGINE_TYPE_PROPERTY, EngineType.class);
+        else
+            return DEFAULT;
+    }
+}
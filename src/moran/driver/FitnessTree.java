@@ -0,0 +1,145 @@
+
+package moran.driver;
+
+/**
+ * Maintains the cumulative fitness of an indexed collection of cells
+ * in a binary indexed (Fenwick) tree, which supports updates, prefix
+ * sums, and fitness-proportional selection in {@code O(log N)} time.
+ */
+public final class FitnessTree {
+    private final int size;
+
+    // One-based Fenwick tree: element k holds the sum of the values
+    // in the half-open range (k - lowbit(k), k]...
+    private final double[] tree;
+
+    // The highest power of two not exceeding the size, the starting
+    // stride for the binary search...
+    private final int topStride;
+
+    private FitnessTree(int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("The tree must contain at least one element.");
+
+        this.size = size;
+        this.tree = new double[size + 1];
+        this.topStride = Integer.highestOneBit(size);
+    }
+
+    /**
+     * Creates a new fitness tree populated with initial values.
+     *
+     * @param fitness the initial fitness values (which must be
+     * non-negative).
+     *
+     * @return a new fitness tree containing the specified values.
+     */
+    public static FitnessTree create(double[] fitness) {
+        FitnessTree tree = new FitnessTree(fitness.length);
+        tree.rebuild(fitness);
+        return tree;
+    }
+
+    /**
+     * Rebuilds this tree from a complete set of fitness values in
+     * {@code O(N)} time, discarding any round-off error accumulated
+     * through incremental updates.
+     *
+     * @param fitness the current fitness values.
+     *
+     * @throws IllegalArgumentException unless the number of values
+     * matches the size of this tree.
+     */
+    public void rebuild(double[] fitness) {
+        if (fitness.length != size)
+            throw new IllegalArgumentException("Fitness array length does not match the tree size.");
+
+        for (int k = 1; k <= size; ++k)
+            tree[k] = fitness[k - 1];
+
+        for (int k = 1; k <= size; ++k) {
+            int parent = k + (k & -k);
+
+            if (parent <= size)
+                tree[parent] += tree[k];
+        }
+    }
+
+    /**
+     * Adds an increment to the fitness of one element.
+     *
+     * @param index the zero-based index of the element to update.
+     *
+     * @param delta the change in fitness.
+     */
+    public void add(int index, double delta) {
+        for (int k = index + 1; k <= size; k += k & -k)
+            tree[k] += delta;
+    }
+
+    /**
+     * Computes the total fitness of the elements preceding a given
+     * index.
+     *
+     * @param index the zero-based index of the first element that
+     * is excluded from the sum.
+     *
+     * @return the total fitness of elements {@code [0, index)}.
+     */
+    public double prefixSum(int index) {
+        double sum = 0.0;
+
+        for (int k = index; k > 0; k -= k & -k)
+            sum += tree[k];
+
+        return sum;
+    }
+
+    /**
+     * Returns the total fitness of all elements.
+     *
+     * @return the total fitness of all elements.
+     */
+    public double total() {
+        return prefixSum(size);
+    }
+
+    /**
+     * Locates the element whose cumulative fitness interval contains
+     * a target value: the smallest index {@code i} for which
+     * {@code prefixSum(i + 1) > target}.
+     *
+     * <p>Given a target drawn uniformly from {@code [0, total())},
+     * elements are selected with probability proportional to their
+     * fitness; elements with zero fitness are never selected.
+     *
+     * @param target the cumulative fitness to locate.
+     *
+     * @return the index of the element containing the target.
+     */
+    public int search(double target) {
+        int index = 0;
+
+        for (int stride = topStride; stride > 0; stride >>= 1) {
+            int next = index + stride;
+
+            if (next <= size && tree[next] <= target) {
+                index   = next;
+                target -= tree[next];
+            }
+        }
+
+        // Guard against round-off error for targets at the very top
+        // of the cumulative range...
+        return Math.min(index, size - 1);
+    }
+
+    /**
+     * Returns the number of elements in this tree.
+     *
+     * @return the number of elements in this tree.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,386 @@
+
+package moran.driver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import moran.cell.Genotype;
+import moran.cell.Phenotype;
+import moran.space.Space;
+import moran.space.SpaceView;
+
+/**
+ * Simulates the evolution of a spatial Moran process by sampling only
+ * the cell cycles that can change the genotype configuration
+ * (rejection-free kinetic Monte Carlo).
+ *
+ * <p>A cycle in which cell {@code I} dies can change the configuration
+ * only if a neighbor of {@code I} carries a different genotype (the
+ * site is <em>active</em>) or the daughter mutates.  Each site is
+ * therefore assigned an event weight: one for active sites, and the
+ * mutation probability of its genotype for inactive sites.  Over the
+ * {@code N} cycles of a time step, the number of consecutive null
+ * cycles before the next effective cycle is geometric with success
+ * probability {@code W / N}, where {@code W} is the total weight; the
+ * site of the effective cycle is then selected in proportion to its
+ * weight, and a cycle at an inactive site is conditioned on mutation.
+ *
+ * <p>The time clock still advances for the skipped cycles: a null
+ * cycle occurs at an inactive site, whose neighbors all share the
+ * fitness of its genotype, so the skipped time increments are summed
+ * exactly as gamma deviates grouped by genotype.  The genotype
+ * configuration, time clock, and mean fitness after each time step
+ * therefore have exactly the distribution produced by {@link
+ * MoranProcess}.  Skipped cycles do not replace any cells, however,
+ * so cell indexes and founder indexes are not reproduced.
+ *
+ * <p>Genotypes are compared with {@code equals()} and must report
+ * their mutation probability (see {@link
+ * Genotype#getMutationProbability()}); the neighbor relationships
+ * must be symmetric.  Daughters are created from the genotype of their
+ * parent, so the cells must mutate only through their genotype (see
+ * {@link moran.cell.Cell#dividesByGenotype()}).
+ */
+public final class KineticProcess implements MoranEngine {
+    private final Space space;
+    private final Phenotype phenotype;
+    private final RandomGenerator random;
+
+    // The genotype, fitness, and mutation probability of each site...
+    private final Genotype[] genotypes;
+    private final double[] cellFitness;
+    private final double[] mutationProb;
+
+    // The number of neighbors of each site carrying a different
+    // genotype: sites with at least one are active...
+    private final int[] mismatches;
+
+    // The event weight of each site and their cumulative sums...
+    private final double[] eventWeights;
+    private final FitnessTree eventTree;
+
+    // Selects the dividing neighbor of an effective cycle...
+    private final NeighborSampler sampler;
+
+    // Scratch buffer for the neighbors of one site...
+    private final int[] neighbors;
+
+    // The inactive sites grouped by genotype, for the time increments
+    // of the skipped cycles; the groups are visited in insertion order
+    // so that trials are reproducible...
+    private final Map<Genotype, InactiveGroup> inactiveGroups = new LinkedHashMap<Genotype, InactiveGroup>();
+
+    private double timeClock = 0.0;
+    private double meanFitness;
+
+    private static final class InactiveGroup {
+        private final double fitness;
+        private final double mutationProb;
+        private long siteCount = 0;
+
+        private InactiveGroup(double fitness, double mutationProb) {
+            this.fitness = fitness;
+            this.mutationProb = mutationProb;
+        }
+
+        private double nullWeight() {
+            return siteCount * (1.0 - mutationProb);
+        }
+    }
+
+    private KineticProcess(Space space, Phenotype phenotype, RandomGenerator random) {
+        if (!space.dividesByGenotype())
+            throw new IllegalArgumentException("The kinetic engine requires cells that mutate only through their genotype.");
+
+        this.space = space;
+        this.phenotype = phenotype;
+        this.random = random;
+
+        int size = space.size();
+
+        this.genotypes = new Genotype[size];
+        this.cellFitness = new double[size];
+        this.mutationProb = new double[size];
+        this.mismatches = new int[size];
+        this.eventWeights = new double[size];
+        this.neighbors = new int[space.maxNeighborCount()];
+
+        for (int site = 0; site < size; ++site) {
+            genotypes[site] = space.getGenotype(site);
+            cellFitness[site] = space.computeFitness(site, phenotype);
+            mutationProb[site] = genotypes[site].getMutationProbability();
+        }
+
+        for (int site = 0; site < size; ++site) {
+            mismatches[site] = countMismatches(site);
+            eventWeights[site] = computeEventWeight(site);
+
+            if (mismatches[site] == 0)
+                inactiveGroup(site).siteCount++;
+        }
+
+        this.eventTree = FitnessTree.create(eventWeights);
+        this.sampler = NeighborSampler.create(space, cellFitness);
+        this.meanFitness = computeMeanFitness();
+    }
+
+    /**
+     * Initializes a new kinetic Monte Carlo process for a given
+     * cellular population.
+     *
+     * @param space the spatial structure of the cellular population.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @param random the source of random deviates for the process.
+     *
+     * @return the initialized process.
+     *
+     * @throws IllegalArgumentException unless the cells mutate only
+     * through their genotype.
+     */
+    public static KineticProcess initialize(Space space, Phenotype phenotype, RandomGenerator random) {
+        return new KineticProcess(space, phenotype, random);
+    }
+
+    private int countMismatches(int site) {
+        int count = space.getNeighborIndexes(site, neighbors);
+        int mismatch = 0;
+
+        for (int k = 0; k < count; ++k)
+            if (!genotypes[neighbors[k]].equals(genotypes[site]))
+                ++mismatch;
+
+        return mismatch;
+    }
+
+    private double computeEventWeight(int site) {
+        return (mismatches[site] > 0) ? 1.0 : mutationProb[site];
+    }
+
+    private InactiveGroup inactiveGroup(int site) {
+        InactiveGroup group = inactiveGroups.get(genotypes[site]);
+
+        if (group == null) {
+            group = new InactiveGroup(cellFitness[site], mutationProb[site]);
+            inactiveGroups.put(genotypes[site], group);
+        }
+
+        return group;
+    }
+
+    private double computeMeanFitness() {
+        double total = 0.0;
+
+        for (double fitness : cellFitness)
+            total += fitness;
+
+        return total / cellFitness.length;
+    }
+
+    /**
+     * Returns the number of active sites: those with at least one
+     * neighbor carrying a different genotype.
+     *
+     * @return the number of active sites.
+     */
+    public int countActiveSites() {
+        int count = 0;
+
+        for (int mismatch : mismatches)
+            if (mismatch > 0)
+                ++count;
+
+        return count;
+    }
+
+    /**
+     * Executes one time step: {@code N} cycles of cell death and
+     * division, of which only those that may change the genotype
+     * configuration are executed explicitly.
+     */
+    @Override public void executeTimeStep() {
+        int size = space.size();
+
+        eventTree.rebuild(eventWeights);
+        sampler.refresh();
+
+        long remaining = size;
+
+        while (remaining > 0) {
+            double totalWeight = eventTree.total();
+            long skipped = Deviates.geometric(random, totalWeight / size);
+
+            if (skipped >= remaining) {
+                skipCycles(remaining);
+                break;
+            }
+
+            skipCycles(skipped);
+            executeEffectiveCycle(totalWeight);
+
+            remaining -= skipped + 1;
+        }
+    }
+
+    private void skipCycles(long cycleCount) {
+        if (cycleCount == 0)
+            return;
+
+        //
+        // Distribute the skipped cycles among the genotype groups of
+        // the inactive sites, in proportion to their null weights, and
+        // add the time increments of each group as a gamma deviate...
+        //
+        List<InactiveGroup> groups = new ArrayList<InactiveGroup>(inactiveGroups.size());
+        double remainingWeight = 0.0;
+
+        for (InactiveGroup group : inactiveGroups.values()) {
+            if (group.nullWeight() > 0.0) {
+                groups.add(group);
+                remainingWeight += group.nullWeight();
+            }
+        }
+
+        long remainingCycles = cycleCount;
+
+        for (int k = 0; k < groups.size() && remainingCycles > 0; ++k) {
+            InactiveGroup group = groups.get(k);
+            long groupCycles;
+
+            if (k == groups.size() - 1)
+                groupCycles = remainingCycles;
+            else
+                groupCycles = Deviates.binomial(random, remainingCycles, Math.min(1.0, group.nullWeight() / remainingWeight));
+
+            timeClock += Deviates.exponentialSum(random, groupCycles) / group.fitness / space.size();
+
+            remainingCycles -= groupCycles;
+            remainingWeight -= group.nullWeight();
+        }
+    }
+
+    private void executeEffectiveCycle(double totalWeight) {
+        int deadIndex = eventTree.search(random.nextDouble() * totalWeight);
+
+        // Round-off error may place the target on the boundary of a
+        // site with zero weight; draw again...
+        while (eventWeights[deadIndex] <= 0.0)
+            deadIndex = eventTree.search(random.nextDouble() * totalWeight);
+
+        double neighborRate = sampler.gather(deadIndex);
+        timeClock += random.nextExponential() / neighborRate / space.size();
+
+        int parentIndex = sampler.select(random.nextDouble());
+        Genotype parentGenotype = genotypes[parentIndex];
+        Genotype daughterGenotype;
+
+        if (mismatches[deadIndex] > 0)
+            daughterGenotype = parentGenotype.divide(random);
+        else
+            daughterGenotype = parentGenotype.mutate(random);
+
+        replace(deadIndex, parentIndex, daughterGenotype);
+    }
+
+    private void replace(int deadIndex, int parentIndex, Genotype daughterGenotype) {
+        Genotype deadGenotype = genotypes[deadIndex];
+        double deadFitness = cellFitness[deadIndex];
+
+        space.divide(parentIndex, deadIndex, daughterGenotype);
+
+        if (daughterGenotype.equals(deadGenotype))
+            return;
+
+        double daughterFitness = space.computeFitness(deadIndex, phenotype);
+
+        //
+        // Detach the dead site and its neighbors from the event
+        // weights and inactive groups, update their genotypes and
+        // mismatch counts, and attach them again...
+        //
+        int count = space.getNeighborIndexes(deadIndex, neighbors);
+
+        detach(deadIndex);
+
+        for (int k = 0; k < count; ++k)
+            detach(neighbors[k]);
+
+        genotypes[deadIndex] = daughterGenotype;
+        cellFitness[deadIndex] = daughterFitness;
+        mutationProb[deadIndex] = daughterGenotype.getMutationProbability();
+
+        int deadMismatches = 0;
+
+        for (int k = 0; k < count; ++k) {
+            Genotype neighborGenotype = genotypes[neighbors[k]];
+
+            if (neighborGenotype.equals(deadGenotype))
+                ++mismatches[neighbors[k]];
+
+            if (neighborGenotype.equals(daughterGenotype))
+                --mismatches[neighbors[k]];
+            else
+                ++deadMismatches;
+        }
+
+        mismatches[deadIndex] = deadMismatches;
+
+        attach(deadIndex);
+
+        for (int k = 0; k < count; ++k)
+            attach(neighbors[k]);
+
+        sampler.update(deadIndex, deadFitness, daughterFitness);
+        meanFitness += (daughterFitness - deadFitness) / space.size();
+    }
+
+    private void detach(int site) {
+        if (mismatches[site] == 0)
+            removeInactive(site);
+    }
+
+    private void removeInactive(int site) {
+        InactiveGroup group = inactiveGroups.get(genotypes[site]);
+
+        if (--group.siteCount == 0)
+            inactiveGroups.remove(genotypes[site]);
+    }
+
+    private void attach(int site) {
+        if (mismatches[site] == 0)
+            inactiveGroup(site).siteCount++;
+
+        double newWeight = computeEventWeight(site);
+
+        if (newWeight != eventWeights[site]) {
+            eventTree.add(site, newWeight - eventWeights[site]);
+            eventWeights[site] = newWeight;
+        }
+    }
+
+    @Override public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    @Override public double getTimeClock() {
+        return timeClock;
+    }
+
+    @Override public Map<Genotype, Integer> countGenotypes() {
+        Map<Genotype, Integer> census = new HashMap<Genotype, Integer>();
+
+        for (Genotype genotype : genotypes)
+            census.merge(genotype, 1, Integer::sum);
+
+        return census;
+    }
+
+    @Override public SpaceView viewSpace() {
+        return space;
+    }
+}
@@ -0,0 +1,159 @@
+package moran.driver;
+
+import moran.space.Space;
+
+/**
+ * Samples neighbors in spaces with local neighborhoods (lattices) by
+ * maintaining the total fitness of the neighborhood of every cell.
+ *
+ * <p>When the fitness of one cell changes, only the neighborhood sums
+ * of the cells that count it as a neighbor are updated (at most
+ * {@code z} sums on a lattice with coordination number {@code z}), so
+ * the mean neighbor fitness that governs the time clock is available
+ * in constant time.  The dividing neighbor is selected with a single
+ * uniform deviate scaled by the maintained sum.  All sums are
+ * recomputed once per time step to discard accumulated round-off
+ * error.
+ *
+ * <p>Neighbor relationships need not be symmetric: the cells that
+ * count each cell as a neighbor are tabulated when the sampler is
+ * created, in the same compressed-row format as the lattice topology.
+ * Spaces with symmetric neighbor relationships require no table,
+ * because the cells that count a cell as a neighbor are its own
+ * neighbors.
+ */
+final class LocalNeighborSampler extends NeighborSampler {
+    // Scratch buffer for the population indexes of the neighbors of
+    // the dead cell, allocated once to keep the cell cycle free of
+    // object allocation...
+    private final int[] neighborIndexes;
+
+    // The total fitness of the neighbors of each cell...
+    private final double[] neighborSums;
+
+    // The cells that count cell "s" as a neighbor occupy elements
+    // [reverseOffsets[s], reverseOffsets[s + 1]) of reverseNeighbors
+    // (both null for spaces with symmetric neighbors)...
+    private final int[] reverseOffsets;
+    private final int[] reverseNeighbors;
+
+    // Scratch buffer for the neighbors of an updated cell in spaces
+    // with symmetric neighbors...
+    private final int[] updateIndexes;
+
+    // The most recently gathered dead cell...
+    private int deadIndex;
+
+    LocalNeighborSampler(Space space, double[] cellFitness) {
+        super(space, cellFitness);
+
+        this.neighborIndexes = new int[space.maxNeighborCount()];
+        this.updateIndexes = new int[space.maxNeighborCount()];
+        this.neighborSums = new double[space.size()];
+
+        if (space.hasSymmetricNeighbors()) {
+            this.reverseOffsets = null;
+            this.reverseNeighbors = null;
+        }
+        else {
+            this.reverseOffsets = new int[space.size() + 1];
+            this.reverseNeighbors = new int[countNeighborPairs()];
+
+            mapReverseNeighbors();
+        }
+
+        refresh();
+    }
+
+    private int countNeighborPairs() {
+        long pairs = 0;
+
+        for (int index = 0; index < space.size(); ++index)
+            pairs += space.countNeighbors(index);
+
+        if (pairs > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many neighbor pairs.");
+
+        return (int) pairs;
+    }
+
+    private void mapReverseNeighbors() {
+        int size = space.size();
+
+        for (int index = 0; index < size; ++index) {
+            int count = space.getNeighborIndexes(index, neighborIndexes);
+
+            for (int k = 0; k < count; ++k)
+                ++reverseOffsets[neighborIndexes[k] + 1];
+        }
+
+        for (int index = 0; index < size; ++index)
+            reverseOffsets[index + 1] += reverseOffsets[index];
+
+        int[] fill = new int[size];
+
+        for (int index = 0; index < size; ++index) {
+            int count = space.getNeighborIndexes(index, neighborIndexes);
+
+            for (int k = 0; k < count; ++k) {
+                int neighbor = neighborIndexes[k];
+                reverseNeighbors[reverseOffsets[neighbor] + fill[neighbor]++] = index;
+            }
+        }
+    }
+
+    @Override double gather(int deadIndex) {
+        this.deadIndex = deadIndex;
+        return neighborSums[deadIndex] / space.countNeighbors(deadIndex);
+    }
+
+    @Override int select(double uniform) {
+        //
+        // Select directly from the unnormalized fitness values: walk
+        // the cumulative fitness until it exceeds a uniform deviate
+        // scaled by the total fitness...
+        //
+        int neighborCount = space.getNeighborIndexes(deadIndex, neighborIndexes);
+        double target = uniform * neighborSums[deadIndex];
+
+        for (int k = 0; k < neighborCount - 1; ++k) {
+            target -= cellFitness[neighborIndexes[k]];
+
+            if (target < 0.0)
+                return neighborIndexes[k];
+        }
+
+        // Guard against round-off error in the cumulative sum...
+        return neighborIndexes[neighborCount - 1];
+    }
+
+    @Override void update(int index, double oldFitness, double newFitness) {
+        if (newFitness == oldFitness)
+            return;
+
+        double delta = newFitness - oldFitness;
+
+        if (reverseOffsets == null) {
+            int count = space.getNeighborIndexes(index, updateIndexes);
+
+            for (int k = 0; k < count; ++k)
+                neighborSums[updateIndexes[k]] += delta;
+        }
+        else {
+            for (int k = reverseOffsets[index]; k < reverseOffsets[index + 1]; ++k)
+                neighborSums[reverseNeighbors[k]] += delta;
+        }
+    }
+
+    @Override void refresh() {
+        for (int index = 0; index < neighborSums.length; ++index) {
+            int count = space.getNeighborIndexes(index, neighborIndexes);
+            double total = 0.0;
+
+            for (int k = 0; k < count; ++k)
+                total += cellFitness[neighborIndexes[k]];
+
+            neighborSums[index] = total;
+        }
+    }
+}
@@ -0,0 +1,538 @@
+
+package moran.driver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import jam.app.JamProperties;
+
+import moran.cell.Genotype;
+import moran.cell.Phenotype;
+import moran.space.Space;
+import moran.space.SpaceView;
+
+/**
+ * Advances many replicate trials of a spatial Moran process on the
+ * same lattice in lockstep, with the state of every replicate stored
+ * in primitive arrays.
+ *
+ * <p><b>Storage.</b> Genotypes are registered in a table shared by all
+ * replicates and referenced by dense integer identifiers; the state of
+ * the replicates is a single {@code int[]} array of identifiers in
+ * replicate-major order (the identifier for replicate {@code k} and
+ * site {@code s} is at position {@code k * N + s}).  The fitness of
+ * each genotype is computed once, when it is registered, and the
+ * neighbor table is shared by all replicates in compressed-row form.
+ * No cell objects are created after the founders.  The table counts
+ * the sites that carry each genotype in all replicates (active or
+ * not), and a genotype is removed as soon as its count reaches zero,
+ * so the table grows with the number of coexisting genotypes rather
+ * than the number ever created.  Daughters are created from the
+ * genotype of their parent, so the cells must mutate only through
+ * their genotype (see {@link moran.cell.Cell#dividesByGenotype()}).
+ *
+ * <p><b>Lockstep cycles.</b> Each cell cycle is executed for all
+ * active replicates one phase at a time: the dead cells are selected,
+ * then the neighbor fitness is accumulated, then the time clocks are
+ * advanced, then the dividing neighbors are selected, and finally the
+ * daughters are placed.  Each phase is a tight loop over the
+ * replicates with no object dereferences other than the random number
+ * sources (and the genotype of the parent in the division phase).
+ *
+ * <p><b>Equivalence.</b> Each replicate owns a random number source
+ * and draws its deviates in the same order as {@link MoranProcess}, so
+ * a replicate reproduces the trajectory of the cell engine with the
+ * same source exactly (apart from floating-point round-off in the
+ * neighbor fitness sums).
+ *
+ * <p><b>Replicate views.</b> Each replicate is exposed as a {@link
+ * MoranEngine} view.  Calling {@code executeTimeStep()} on the view of
+ * any active replicate advances every active replicate that has not
+ * yet executed that step, so each replicate view may be driven
+ * independently as long as all active replicates are advanced once per
+ * step.  Replicates that stop early are deactivated and no longer
+ * advanced.
+ */
+public final class LockstepProcess {
+    private final int size;
+    private final int replicateCount;
+    private final Phenotype phenotype;
+    private final RandomGenerator[] randoms;
+
+    // The shared neighbor table: the neighbors of site "s" occupy
+    // elements [neighborOffsets[s], neighborOffsets[s + 1])...
+    private final int[] neighborOffsets;
+    private final int[] neighborIndexes;
+
+    // The genotype identifier of every site in every replicate, in
+    // replicate-major order...
+    private final int[] genotypeIds;
+
+    // The shared genotype table, indexed by identifier, with the
+    // number of sites that carry each genotype in all replicates...
+    private Genotype[] genotypes;
+    private double[] genotypeFitness;
+    private int[] genotypeSizes;
+    private int genotypeCount = 0;
+
+    // Identifiers of extinct genotypes, available for reuse...
+    private int[] vacancies;
+    private int vacancyCount = 0;
+
+    private final Map<Genotype, Integer> genotypeIdMap = new HashMap<Genotype, Integer>();
+
+    // Per-replicate state...
+    private final double[] timeClocks;
+    private final double[] meanFitness;
+
+    // The number of time steps consumed through each replicate view...
+    private final int[] viewSteps;
+
+    // Per-replicate scratch arrays for the phases of one cycle...
+    private final int[] deadIndexes;
+    private final int[] parentIndexes;
+    private final double[] neighborTotals;
+
+    // The indexes of the active replicates...
+    private final int[] activeReplicates;
+    private int activeCount;
+    private final boolean[] active;
+
+    // The number of time steps executed by the active replicates...
+    private int stepCount = 0;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Name of the system property that defines the number of trials
+     * advanced in lockstep by the driver.
+     */
+    public static final String WIDTH_PROPERTY = "moran.driver.lockstepWidth";
+
+    /**
+     * Default number of trials advanced in lockstep.
+     */
+    public static final int DEFAULT_WIDTH = 16;
+
+    private LockstepProcess(List<? extends Space> spaces, Phenotype phenotype, List<? extends RandomGenerator> randoms) {
+        if (spaces.isEmpty())
+            throw new IllegalArgumentException("At least one replicate is required.");
+
+        if (spaces.size() != randoms.size())
+            throw new IllegalArgumentException("Each replicate requires one random number source.");
+
+        Space first = spaces.get(0);
+
+        if (first.isWellMixed())
+            throw new IllegalArgumentException("The lockstep engine requires a lattice space.");
+
+        for (Space space : spaces)
+            if (!space.dividesByGenotype())
+                throw new IllegalArgumentException("The lockstep engine requires cells that mutate only through their genotype.");
+
+        this.size = first.size();
+        this.replicateCount = spaces.size();
+        this.phenotype = phenotype;
+        this.randoms = randoms.toArray(new RandomGenerator[0]);
+
+        this.neighborOffsets = new int[size + 1];
+        this.neighborIndexes = mapNeighbors(first);
+
+        for (Space space : spaces)
+            validateNeighbors(space);
+
+        this.genotypes = new Genotype[INITIAL_CAPACITY];
+        this.genotypeFitness = new double[INITIAL_CAPACITY];
+        this.genotypeSizes = new int[INITIAL_CAPACITY];
+        this.vacancies = new int[INITIAL_CAPACITY];
+        this.genotypeIds = new int[Math.multiplyExact(replicateCount, size)];
+
+        for (int replicate = 0; replicate < replicateCount; ++replicate) {
+            for (int site = 0; site < size; ++site) {
+                int genotypeId = register(spaces.get(replicate).getGenotype(site));
+
+                genotypeIds[replicate * size + site] = genotypeId;
+                ++genotypeSizes[genotypeId];
+            }
+        }
+
+        this.timeClocks = new double[replicateCount];
+        this.meanFitness = new double[replicateCount];
+        this.viewSteps = new int[replicateCount];
+
+        this.deadIndexes = new int[replicateCount];
+        this.parentIndexes = new int[replicateCount];
+        this.neighborTotals = new double[replicateCount];
+
+        this.active = new boolean[replicateCount];
+        this.activeReplicates = new int[replicateCount];
+        this.activeCount = replicateCount;
+
+        for (int replicate = 0; replicate < replicateCount; ++replicate) {
+            active[replicate] = true;
+            activeReplicates[replicate] = replicate;
+            meanFitness[replicate] = computeMeanFitness(replicate);
+        }
+    }
+
+    /**
+     * Initializes a new lockstep process for a set of replicate
+     * populations.
+     *
+     * @param spaces the initial spatial structure of each replicate;
+     * all spaces must have the same size and neighbor relationships.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @param randoms the source of random deviates for each replicate.
+     *
+     * @return the initialized lockstep process.
+     *
+     * @throws IllegalArgumentException unless the spaces are lattices
+     * with identical neighbor relationships whose cells mutate only
+     * through their genotype, and there is one random number source
+     * for each space.
+     */
+    public static LockstepProcess initialize(List<? extends Space> spaces,
+                                             Phenotype phenotype,
+                                             List<? extends RandomGenerator> randoms) {
+        return new LockstepProcess(spaces, phenotype, randoms);
+    }
+
+    /**
+     * Returns the number of trials advanced in lockstep by the driver,
+     * as defined by system properties.
+     *
+     * @return the number of trials advanced in lockstep.
+     */
+    public static int resolveWidth() {
+        int width = JamProperties.getOptionalInt(WIDTH_PROPERTY, DEFAULT_WIDTH);
+
+        if (width < 1)
+            throw new IllegalStateException("The lockstep width must be positive.");
+
+        return width;
+    }
+
+    private int[] mapNeighbors(Space space) {
+        int[] buffer = new int[space.maxNeighborCount()];
+
+        for (int site = 0; site < size; ++site)
+            neighborOffsets[site + 1] = neighborOffsets[site] + space.countNeighbors(site);
+
+        int[] neighbors = new int[neighborOffsets[size]];
+
+        for (int site = 0; site < size; ++site) {
+            int count = space.getNeighborIndexes(site, buffer);
+
+            if (count == 0)
+                throw new IllegalArgumentException("Every cell must have at least one neighbor.");
+
+            System.arraycopy(buffer, 0, neighbors, neighborOffsets[site], count);
+        }
+
+        return neighbors;
+    }
+
+    private void validateNeighbors(Space space) {
+        if (space.size() != size)
+            throw new IllegalArgumentException("All replicates must have the same size.");
+
+        int[] buffer = new int[space.maxNeighborCount()];
+
+        for (int site = 0; site < size; ++site) {
+            int count = space.getNeighborIndexes(site, buffer);
+
+            if (!Arrays.equals(buffer, 0, count, neighborIndexes, neighborOffsets[site], neighborOffsets[site + 1]))
+                throw new IllegalArgumentException("All replicates must have the same neighbor relationships.");
+        }
+    }
+
+    private int register(Genotype genotype) {
+        Integer genotypeId = genotypeIdMap.get(genotype);
+
+        if (genotypeId != null)
+            return genotypeId;
+
+        int newId;
+
+        if (vacancyCount > 0) {
+            newId = vacancies[--vacancyCount];
+        }
+        else {
+            if (genotypeCount == genotypes.length) {
+                int capacity = 2 * genotypeCount;
+
+                genotypes = Arrays.copyOf(genotypes, capacity);
+                genotypeFitness = Arrays.copyOf(genotypeFitness, capacity);
+                genotypeSizes = Arrays.copyOf(genotypeSizes, capacity);
+                vacancies = Arrays.copyOf(vacancies, capacity);
+            }
+
+            newId = genotypeCount++;
+        }
+
+        genotypes[newId] = genotype;
+        genotypeFitness[newId] = phenotype.getFitness(genotype);
+        genotypeIdMap.put(genotype, newId);
+
+        return newId;
+    }
+
+    private void release(int genotypeId) {
+        //
+        // No site in any replicate carries the genotype any longer, so
+        // it cannot be the parent of a later division...
+        //
+        if (--genotypeSizes[genotypeId] > 0)
+            return;
+
+        genotypeIdMap.remove(genotypes[genotypeId]);
+        genotypes[genotypeId] = null;
+        vacancies[vacancyCount++] = genotypeId;
+    }
+
+    private double computeMeanFitness(int replicate) {
+        int base = replicate * size;
+        double total = 0.0;
+
+        for (int site = 0; site < size; ++site)
+            total += genotypeFitness[genotypeIds[base + site]];
+
+        return total / size;
+    }
+
+    /**
+     * Returns the number of distinct genotypes carried by the sites of
+     * all replicates (active or not), which is the size of the shared
+     * genotype table.
+     *
+     * @return the number of registered genotypes.
+     */
+    public int countRegistered() {
+        return genotypeIdMap.size();
+    }
+
+    /**
+     * Returns the number of replicates in this process.
+     *
+     * @return the number of replicates in this process.
+     */
+    public int countReplicates() {
+        return replicateCount;
+    }
+
+    /**
+     * Returns the number of replicates that are still advancing.
+     *
+     * @return the number of active replicates.
+     */
+    public int countActive() {
+        return activeCount;
+    }
+
+    /**
+     * Identifies active replicates.
+     *
+     * @param replicate the index of a replicate.
+     *
+     * @return {@code true} iff the specified replicate is still
+     * advancing.
+     */
+    public boolean isActive(int replicate) {
+        return active[replicate];
+    }
+
+    /**
+     * Stops advancing one replicate; its state remains available.
+     *
+     * @param replicate the index of the replicate to stop.
+     */
+    public void deactivate(int replicate) {
+        if (!active[replicate])
+            return;
+
+        active[replicate] = false;
+
+        int position = 0;
+
+        for (int k = 0; k < activeCount; ++k)
+            if (activeReplicates[k] != replicate)
+                activeReplicates[position++] = activeReplicates[k];
+
+        activeCount = position;
+    }
+
+    /**
+     * Returns a view of one replicate as an engine.
+     *
+     * @param replicate the index of the replicate.
+     *
+     * @return a view of the specified replicate.
+     */
+    public MoranEngine replicate(int replicate) {
+        if (replicate < 0 || replicate >= replicateCount)
+            throw new IndexOutOfBoundsException("Invalid replicate index.");
+
+        return new ReplicateView(replicate);
+    }
+
+    /**
+     * Executes one time step ({@code N} cell cycles) in every active
+     * replicate.
+     */
+    public void executeTimeStep() {
+        for (int cycle = 0; cycle < size; ++cycle)
+            executeCellCycle();
+
+        for (int k = 0; k < activeCount; ++k) {
+            int replicate = activeReplicates[k];
+
+            // Discard the round-off error accumulated by the
+            // incremental updates...
+            meanFitness[replicate] = computeMeanFitness(replicate);
+        }
+
+        ++stepCount;
+    }
+
+    private void executeCellCycle() {
+        //
+        // (1) Select the dead cells...
+        //
+        for (int k = 0; k < activeCount; ++k) {
+            int replicate = activeReplicates[k];
+            deadIndexes[replicate] = randoms[replicate].nextInt(size);
+        }
+
+        //
+        // (2) Accumulate the fitness of their neighbors...
+        //
+        for (int k = 0; k < activeCount; ++k) {
+            int replicate = activeReplicates[k];
+            int base = replicate * size;
+            int dead = deadIndexes[replicate];
+            double total = 0.0;
+
+            for (int j = neighborOffsets[dead]; j < neighborOffsets[dead + 1]; ++j)
+                total += genotypeFitness[genotypeIds[base + neighborIndexes[j]]];
+
+            neighborTotals[replicate] = total;
+        }
+
+        //
+        // (3) Advance the time clocks...
+        //
+        for (int k = 0; k < activeCount; ++k) {
+            int replicate = activeReplicates[k];
+            int dead = deadIndexes[replicate];
+            int count = neighborOffsets[dead + 1] - neighborOffsets[dead];
+
+            timeClocks[replicate] += randoms[replicate].nextExponential() / (neighborTotals[replicate] / count) / size;
+        }
+
+        //
+        // (4) Select the dividing neighbors...
+        //
+        for (int k = 0; k < activeCount; ++k) {
+            int replicate = activeReplicates[k];
+            parentIndexes[replicate] = selectParent(replicate, randoms[replicate].nextDouble() * neighborTotals[replicate]);
+        }
+
+        //
+        // (5) Replace the dead cells with daughters of the parents...
+        //
+        for (int k = 0; k < activeCount; ++k) {
+            int replicate = activeReplicates[k];
+            int base = replicate * size;
+            int deadPosition = base + deadIndexes[replicate];
+            int parentId = genotypeIds[base + parentIndexes[replicate]];
+
+            Genotype parentGenotype = genotypes[parentId];
+            Genotype daughterGenotype = parentGenotype.divide(randoms[replicate]);
+
+            int daughterId = (daughterGenotype == parentGenotype) ? parentId : register(daughterGenotype);
+            int deadId = genotypeIds[deadPosition];
+
+            meanFitness[replicate] += (genotypeFitness[daughterId] - genotypeFitness[deadId]) / size;
+            genotypeIds[deadPosition] = daughterId;
+
+            ++genotypeSizes[daughterId];
+            release(deadId);
+        }
+    }
+
+    private int selectParent(int replicate, double target) {
+        int base = replicate * size;
+        int dead = deadIndexes[replicate];
+        int last = neighborOffsets[dead + 1] - 1;
+
+        for (int j = neighborOffsets[dead]; j < last; ++j) {
+            target -= genotypeFitness[genotypeIds[base + neighborIndexes[j]]];
+
+            if (target < 0.0)
+                return neighborIndexes[j];
+        }
+
+        // Guard against round-off error in the cumulative sum...
+        return neighborIndexes[last];
+    }
+
+    private final class ReplicateView implements MoranEngine {
+        private final int replicate;
+
+        private ReplicateView(int replicate) {
+            this.replicate = replicate;
+        }
+
+        /**
+         * Advances this replicate by one time step: executes the next
+         * step for all active replicates unless another replicate has
+         * already done so.
+         *
+         * @throws IllegalStateException unless this replicate is
+         * active and has kept pace with the other active replicates.
+         */
+        @Override public void executeTimeStep() {
+            if (!active[replicate])
+                throw new IllegalStateException("The replicate has been deactivated.");
+
+            if (viewSteps[replicate] == stepCount)
+                LockstepProcess.this.executeTimeStep();
+            else if (viewSteps[replicate] != stepCount - 1)
+                throw new IllegalStateException("The replicate has fallen behind.");
+
+            ++viewSteps[replicate];
+        }
+
+        @Override public double getMeanFitness() {
+            return meanFitness[replicate];
+        }
+
+        @Override public double getTimeClock() {
+            return timeClocks[replicate];
+        }
+
+        @Override public Map<Genotype, Integer> countGenotypes() {
+            Map<Genotype, Integer> census = new HashMap<Genotype, Integer>();
+            int base = replicate * size;
+
+            for (int site = 0; site < size; ++site)
+                census.merge(genotypes[genotypeIds[base + site]], 1, Integer::sum);
+
+            return census;
+        }
+
+        /**
+         * Lockstep replicates do not track individual cells.
+         *
+         * @throws UnsupportedOperationException always.
+         */
+        @Override public SpaceView viewSpace() {
+            throw new UnsupportedOperationException("Lockstep replicates do not track individual cells.");
+        }
+    }
+}
@@ -6,16 +6,27 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
 
 import jam.app.JamLogger;
 import jam.app.JamProperties;
+import jam.lang.JamException;
 import jam.math.DoubleRange;
 import jam.math.IntRange;
 import jam.math.Point;
 import jam.sim.DiscreteTimeSimulation;
 
 import moran.cell.Cell;
+import moran.cell.Genotype;
+import moran.cell.GenotypeCodec;
 import moran.cell.Phenotype;
+import moran.report.BranchReport;
+import moran.report.EventLogReport;
+import moran.report.FrameReport;
 import moran.report.GenotypeCoordReport;
 import moran.report.MeanCopyNumberReport;
 import moran.report.MeanFitnessReport;
@@ -26,19 +37,103 @@ import moran.space.SpaceView;
 /**
  * Provides a base class for applications running simulations of
  * spatial Moran models.
+ *
+ * <p><b>Parallel trials.</b> Simulation trials are independent, so
+ * the {@link #simulate()} method may execute them concurrently on a
+ * pool of {@code moran.driver.threadCount} threads.  Each trial owns
+ * its Moran process and a random number stream seeded from the base
+ * seed and the trial index alone, so the trajectory of each trial
+ * (and therefore the merged report output) does not depend on the
+ * number of threads or the order in which the trials are scheduled.
+ * Subclasses that write snapshots must do so in a thread-safe manner
+ * when running with more than one thread.
+ *
+ * <p><b>Engines.</b> The {@code moran.driver.engineType} property
+ * selects the engine that executes each trial (see {@link
+ * EngineType}).  Engines that track genotype counts rather than
+ * individual cells require subclasses to override the {@link
+ * #createFounderGenotype()} method.  Trials with a neutral phenotype
+ * switch automatically from the default cell engine to the neutral
+ * engine.  The lockstep engine advances batches of trials together,
+ * so the trials in one batch share a thread.
+ *
+ * <p><b>Checkpoints.</b> Trials executed by the cell engine may write
+ * periodic checkpoints of their complete state (see {@link
+ * TrialCheckpoint}) to the report directory, every {@code
+ * moran.driver.checkpointInterval} time steps and/or every {@code
+ * moran.driver.checkpointPeriod} seconds of wall-clock time.  Setting
+ * {@code moran.driver.resumeFrom} to a checkpoint file resumes the
+ * interrupted simulation exactly where the checkpoint was written:
+ * the trials before the checkpointed trial are skipped, and their
+ * report data is restored from the checkpoint.  Checkpoints require
+ * sequential trials and a subclass that defines a {@link
+ * #getGenotypeCodec() genotype codec}.  In the {@code FULL} and {@code
+ * PRUNED} lineage modes, the resumed cells descend directly from their
+ * founders: the intermediate ancestry is not recorded.
+ *
+ * <p><b>Branching.</b> When {@code moran.driver.branchTrigger} is set
+ * (see {@link BranchTrigger}), trials that would repeat an identical
+ * burn-in phase share it instead: one burn-in trial runs until the
+ * trigger condition is reached, its state is recorded in memory, and
+ * {@code moran.driver.branchCount} child trials (by default, all of
+ * them) are forked from that state.  Each child draws from its own
+ * stream split from the burn-in stream with the jump function, so the
+ * children are independent and reproducible; they execute on the
+ * thread pool when more than one thread has been requested.  The
+ * burn-in steps are not reported, and the parent trial and branch
+ * step of each child are written to the branch report.  Branching
+ * requires the cell engine; as with checkpoints, the cells of each
+ * child descend directly from their founders.
+ *
+ * <p><b>Resumable simulations.</b> When {@code moran.driver.resumable}
+ * is {@code true}, the reports write the output of each trial into
+ * durable part files, and each finished trial is then recorded in a
+ * manifest in the report directory (see {@link TrialManifest}).  A
+ * simulation restarted with the same properties and report directory
+ * skips the trials listed in the manifest, adopts the base random seed
+ * recorded there (so the remaining trials are reproduced exactly), and
+ * merges the output of the earlier and the new trials into the same
+ * final report files.  The lockstep engine skips a batch only when
+ * every trial in the batch is complete, and branched simulations skip
+ * a burn-in only when every child of the burn-in is complete.
  */
 public abstract class MoranDriver extends DiscreteTimeSimulation {
     private final int trialTarget;
     private final int maxStepCount;
     private final int snapInterval;
+    private final int threadCount;
+    private long randomSeed;
+    private final EngineType engineType;
+    private final int batchSize;
+
+    private final int checkpointInterval;
+    private final int checkpointPeriod;
+    private final File resumeFile;
+
+    private final BranchTrigger branchTrigger;
+    private final double branchThreshold;
+    private final int branchCount;
+
+    private final boolean resumable;
+
+    // The record of completed trials (null unless resumable)...
+    private TrialManifest manifest;
+
+    // The wall-clock time of the latest checkpoint (or the start of
+    // the simulation), from System.nanoTime()...
+    private long checkpointTime;
 
     private final DoubleRange fitnessRange;
 
     // All reports to run...
     private final List<MoranReport> reports = new ArrayList<MoranReport>();
 
-    // The active Moran process for the current simulation trial...
-    private MoranProcess process;
+    // The simulation trial executing on each thread...
+    private final ThreadLocal<MoranTrial> activeTrial = new ThreadLocal<MoranTrial>();
+
+    // The index of the next trial started by the inherited
+    // runSimulation() method...
+    private int sequentialIndex = 0;
 
     /**
      * Creates a new simulation instance and reads system properties
@@ -55,8 +150,25 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
         this.maxStepCount = resolveMaxStepCount();
         this.snapInterval = resolveSnapInterval();
         this.fitnessRange = resolveFitnessRange();
+        this.threadCount  = resolveThreadCount();
+        this.randomSeed   = resolveRandomSeed();
+        this.engineType   = EngineType.global();
+        this.batchSize    = resolveBatchSize(engineType);
+
+        this.checkpointInterval = resolveCheckpointInterval();
+        this.checkpointPeriod   = resolveCheckpointPeriod();
+        this.resumeFile         = resolveResumeFile();
+
+        this.branchTrigger   = BranchTrigger.global();
+        this.branchThreshold = BranchTrigger.resolveThreshold();
+        this.branchCount     = resolveBranchCount(trialTarget);
 
+        this.resumable = TrialManifest.resolveResumable();
+
+        validateCheckpoints();
+        validateBranching();
         registerReports();
+        validateReports();
     }
 
     private static int resolveTrialTarget() {
@@ -78,6 +190,86 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
             return DoubleRange.POSITIVE;
     }
 
+    private static int resolveThreadCount() {
+        return JamProperties.getOptionalInt(THREAD_COUNT_PROPERTY, 1);
+    }
+
+    private static int resolveBatchSize(EngineType engineType) {
+        if (engineType == EngineType.LOCKSTEP)
+            return LockstepProcess.resolveWidth();
+        else
+            return 1;
+    }
+
+    private static int resolveCheckpointInterval() {
+        return JamProperties.getOptionalInt(TrialCheckpoint.INTERVAL_PROPERTY, 0);
+    }
+
+    private static int resolveCheckpointPeriod() {
+        return JamProperties.getOptionalInt(TrialCheckpoint.PERIOD_PROPERTY, 0);
+    }
+
+    private static File resolveResumeFile() {
+        if (JamProperties.isSet(TrialCheckpoint.RESUME_FROM_PROPERTY))
+            return new File(JamProperties.getRequired(TrialCheckpoint.RESUME_FROM_PROPERTY));
+        else
+            return null;
+    }
+
+    private boolean checkpointsEnabled() {
+        return checkpointInterval > 0 || checkpointPeriod > 0 || resumeFile != null;
+    }
+
+    private void validateCheckpoints() {
+        if (!checkpointsEnabled())
+            return;
+
+        if (engineType != EngineType.CELL)
+            throw JamException.runtime("Checkpoints require the CELL engine.");
+
+        if (threadCount > 1)
+            throw JamException.runtime("Checkpoints require sequential trials.");
+    }
+
+    private static int resolveBranchCount(int trialTarget) {
+        return JamProperties.getOptionalInt(BranchTrigger.BRANCH_COUNT_PROPERTY, trialTarget);
+    }
+
+    private void validateBranching() {
+        if (branchTrigger == BranchTrigger.NONE)
+            return;
+
+        if (branchCount < 1)
+            throw JamException.runtime("The branch count must be positive.");
+
+        if (engineType != EngineType.CELL)
+            throw JamException.runtime("Branching requires the CELL engine.");
+
+        if (checkpointsEnabled())
+            throw JamException.runtime("Checkpoints are not supported for branched trials.");
+    }
+
+    private void validateReports() {
+        //
+        // Engines that track genotype counts cannot provide a view of
+        // the cellular space, so reports that need one would fail in
+        // the middle of the first trial...
+        //
+        for (MoranReport report : reports)
+            if (report.requiresCells() && !engineType.tracksCells())
+                throw JamException.runtime("The %s engine does not support the %s.", engineType, report.getClass().getSimpleName());
+    }
+
+    private static long resolveRandomSeed() {
+        if (JamProperties.isSet(RANDOM_SEED_PROPERTY))
+            return Long.parseLong(JamProperties.getRequired(RANDOM_SEED_PROPERTY));
+
+        long seed = System.nanoTime();
+        JamLogger.info("Base random seed: %d", seed);
+
+        return seed;
+    }
+
     private void registerReports() {
         //
         // Register the reports common to most applications...
@@ -90,6 +282,15 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
 
         if (MeanFitnessReport.reportRequested())
             registerReport(MeanFitnessReport.create(this));
+
+        if (BranchReport.reportRequested())
+            registerReport(BranchReport.create(this));
+
+        if (EventLogReport.reportRequested())
+            registerReport(EventLogReport.create(this));
+
+        if (FrameReport.reportRequested())
+            registerReport(FrameReport.create(this));
     }
 
     /**
@@ -118,6 +319,19 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
      */
     public static final String SNAPSHOT_INTERVAL_PROPERTY = "moran.driver.snapshotInterval";
 
+    /**
+     * Name of the system property that defines the number of threads
+     * used to execute simulation trials concurrently (one by default).
+     */
+    public static final String THREAD_COUNT_PROPERTY = "moran.driver.threadCount";
+
+    /**
+     * Name of the system property that defines the base seed for the
+     * random number streams of the simulation trials (the same
+     * property that seeds the global random number source).
+     */
+    public static final String RANDOM_SEED_PROPERTY = "jam.math.randomSeed";
+
     /**
      * Name of the output file containing all relevant system
      * properties that were defined at the time of execution.
@@ -143,6 +357,37 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
      */
     protected abstract Phenotype createPhenotype();
 
+    /**
+     * Returns the genotype carried by every founder cell, which is
+     * required by engines that track genotype counts rather than
+     * individual cells.
+     *
+     * <p>This base class throws an exception; subclasses supporting
+     * the count-based engines must override this method.
+     *
+     * @return the genotype carried by every founder cell.
+     *
+     * @throws UnsupportedOperationException unless overridden.
+     */
+    protected Genotype createFounderGenotype() {
+        throw new UnsupportedOperationException("This driver does not define a founder genotype.");
+    }
+
+    /**
+     * Returns the codec that writes the genotypes of the population
+     * into trial checkpoints and event logs.
+     *
+     * <p>This base class throws an exception; subclasses supporting
+     * checkpoints and event logs must override this method.
+     *
+     * @return the codec for the genotypes of the population.
+     *
+     * @throws UnsupportedOperationException unless overridden.
+     */
+    public GenotypeCodec getGenotypeCodec() {
+        throw new UnsupportedOperationException("This driver does not define a genotype codec.");
+    }
+
     /**
      * Writes snapshot reports for the most recently executed time
      * step into a specified output directory.
@@ -171,6 +416,64 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
         return maxStepCount;
     }
 
+    /**
+     * Returns the number of threads used to execute simulation trials.
+     *
+     * @return the number of threads used to execute simulation trials.
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Returns the type of engine that executes the simulation trials.
+     *
+     * @return the type of engine that executes the simulation trials.
+     */
+    public EngineType getEngineType() {
+        return engineType;
+    }
+
+    /**
+     * Identifies resumable simulations, which record completed trials
+     * in a manifest and write durable report output for each trial.
+     *
+     * @return {@code true} iff this simulation is resumable.
+     */
+    public boolean isResumable() {
+        return resumable;
+    }
+
+    /**
+     * Determines whether a trial was completed by this execution or
+     * by an earlier, interrupted execution of a resumable simulation.
+     *
+     * @param trialIndex the index of the trial.
+     *
+     * @return {@code true} iff the simulation is resumable and the
+     * specified trial has been recorded as complete.
+     */
+    public boolean isTrialComplete(int trialIndex) {
+        return manifest != null && manifest.isComplete(trialIndex);
+    }
+
+    /**
+     * Returns the simulation trial executing on the calling thread.
+     *
+     * @return the simulation trial executing on the calling thread.
+     *
+     * @throws IllegalStateException unless a trial is executing on the
+     * calling thread.
+     */
+    public MoranTrial getTrial() {
+        MoranTrial trial = activeTrial.get();
+
+        if (trial == null)
+            throw new IllegalStateException("No active simulation trial.");
+
+        return trial;
+    }
+
     /**
      * Returns the allowed fitness range: simulation trials stop when
      * the average fitness of the population moves out of this range.
@@ -187,7 +490,7 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
      * @return the average fitness of the current cell population.
      */
     public double getMeanFitness() {
-        return process.getMeanFitness();
+        return getTrial().getMeanFitness();
     }
 
     /**
@@ -199,7 +502,18 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
      * trial.
      */
     public double getTimeClock() {
-        return process.getTimeClock();
+        return getTrial().getTimeClock();
+    }
+
+    /**
+     * Counts the cells carrying each distinct genotype in the current
+     * simulation trial.
+     *
+     * @return a map from each genotype present in the population to
+     * the number of cells that carry it.
+     */
+    public Map<Genotype, Integer> countGenotypes() {
+        return getTrial().countGenotypes();
     }
 
     /**
@@ -231,7 +545,7 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
      * simulation trial.
      */
     public SpaceView viewSpace() {
-        return process.viewSpace();
+        return getTrial().viewSpace();
     }
 
     /**
@@ -268,15 +582,16 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
      * Logs a message to the console after every step.
      */
     protected void consoleLogStep() {
-        JamLogger.info("TRIAL: %4d; STEP: %5d; FITNESS: %.4f", getTrialIndex(), getTimeStep(), getMeanFitness());
+        MoranTrial trial = getTrial();
+        JamLogger.info("TRIAL: %4d; STEP: %5d; FITNESS: %.4f", trial.getTrialIndex(), trial.getTimeStep(), trial.getMeanFitness());
     }
 
     private boolean isSnapshotStep() {
-        return (snapInterval > 0) && (getTimeStep() % snapInterval == 0);
+        return (snapInterval > 0) && (getTrial().getTimeStep() % snapInterval == 0);
     }
 
     private File getSnapshotDir() {
-        return getSnapshotDir(getTimeStep());
+        return getSnapshotDir(getTrial().getTimeStep());
     }
 
     private File getSnapshotDir(int timeStep) {
@@ -287,13 +602,377 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
         return String.format("%s%05d", SUBDIR_PREFIX, timeStep);
     }
 
+    /**
+     * Executes all simulation trials, concurrently if more than one
+     * thread has been requested.
+     *
+     * <p>Trials are submitted to the thread pool individually (or in
+     * batches for the lockstep engine), so an idle thread picks up the
+     * next pending trial as soon as its previous trial stops,
+     * regardless of how long the other trials run.  Reports are
+     * finalized only after all trials complete.
+     *
+     * <p>The inherited {@code runSimulation()} method remains
+     * available and executes the trials in sequence on the calling
+     * thread, without lockstep batches or branching.
+     */
+    public void simulate() {
+        // Subclasses may have registered reports after construction...
+        validateReports();
+        initializeSimulation();
+
+        if (branchTrigger != BranchTrigger.NONE)
+            runBranchedTrials();
+        else if (threadCount > 1)
+            runConcurrentTrials();
+        else
+            runSequentialTrials();
+
+        finalizeSimulation();
+    }
+
+    private void runSequentialTrials() {
+        int startIndex = 0;
+
+        if (resumeFile != null)
+            startIndex = resumeTrial(TrialCheckpoint.read(resumeFile, getGenotypeCodec())) + 1;
+
+        for (int firstIndex = startIndex; firstIndex < trialTarget; firstIndex += batchSize)
+            runBatch(firstIndex);
+    }
+
+    private int resumeTrial(TrialCheckpoint checkpoint) {
+        RandomGenerator random = checkpoint.restoreRandom();
+        MoranEngine engine = restoreEngine(checkpoint, random);
+
+        activeTrial.set(MoranTrial.restore(checkpoint.getTrialIndex(), checkpoint.getTimeStep(), engine, random));
+        checkpoint.restore(reports);
+
+        JamLogger.info("Resumed TRIAL: %4d; STEP: %5d", checkpoint.getTrialIndex(), checkpoint.getTimeStep());
+
+        while (continueTrial())
+            advanceTrial();
+
+        finalizeTrial();
+        return checkpoint.getTrialIndex();
+    }
+
+    private void runConcurrentTrials() {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<?>> futures = new ArrayList<Future<?>>(trialTarget);
+
+        try {
+            for (int firstIndex = 0; firstIndex < trialTarget; firstIndex += batchSize) {
+                final int index = firstIndex;
+                futures.add(executor.submit(() -> runBatch(index)));
+            }
+
+            awaitTrials(futures);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitTrials(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw JamException.runtime("Interrupted while executing simulation trials.");
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            else
+                throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    private void runBranchedTrials() {
+        //
+        // The burn-in trials run on the calling thread; the children
+        // of each burn-in are submitted to the pool (if there is one)
+        // while the next burn-in proceeds...
+        //
+        ExecutorService executor = (threadCount > 1) ? Executors.newFixedThreadPool(threadCount) : null;
+        List<Future<?>> futures = new ArrayList<Future<?>>(trialTarget);
+
+        try {
+            for (int firstIndex = 0; firstIndex < trialTarget; firstIndex += branchCount) {
+                final int parentIndex = firstIndex / branchCount;
+                int lastIndex = Math.min(firstIndex + branchCount, trialTarget);
+
+                if (allComplete(firstIndex, lastIndex))
+                    continue;
+
+                MoranRandom parentRandom = createBranchRandom(parentIndex);
+                final TrialCheckpoint burnIn = runBurnIn(parentIndex, parentRandom);
+
+                for (int trialIndex = firstIndex; trialIndex < lastIndex; ++trialIndex) {
+                    final int index = trialIndex;
+                    final MoranRandom random = parentRandom.split();
+
+                    // Split the stream of a completed child anyway, so
+                    // the other children draw the same streams...
+                    if (isTrialComplete(index))
+                        continue;
+
+                    if (executor != null)
+                        futures.add(executor.submit(() -> runBranch(burnIn, parentIndex, index, random)));
+                    else
+                        runBranch(burnIn, parentIndex, index, random);
+                }
+            }
+
+            awaitTrials(futures);
+        }
+        finally {
+            if (executor != null)
+                executor.shutdownNow();
+        }
+    }
+
+    private MoranRandom createBranchRandom(int parentIndex) {
+        RandomGenerator random = createRandom(parentIndex);
+
+        if (random instanceof MoranRandom)
+            return (MoranRandom) random;
+        else
+            throw new IllegalStateException("Branching requires MoranRandom streams.");
+    }
+
+    private TrialCheckpoint runBurnIn(int parentIndex, MoranRandom random) {
+        Cell.resetIndex();
+
+        MoranEngine engine = createCellEngine(createSpace(), createPhenotype(), random);
+        MoranTrial trial = MoranTrial.create(parentIndex, engine, random);
+
+        while (!branchTrigger.isReached(trial, branchThreshold)) {
+            if (trial.getTimeStep() >= maxStepCount || !fitnessRange.contains(trial.getMeanFitness())) {
+                JamLogger.info("Burn-in trial %d stopped before its branch trigger.", parentIndex);
+                break;
+            }
+
+            trial.advance();
+        }
+
+        JamLogger.info("BURN-IN: %4d; STEP: %5d; FITNESS: %.4f", parentIndex, trial.getTimeStep(), trial.getMeanFitness());
+        return TrialCheckpoint.capture(trial, List.of());
+    }
+
+    private void runBranch(TrialCheckpoint burnIn, int parentIndex, int trialIndex, RandomGenerator random) {
+        MoranEngine engine = restoreEngine(burnIn, random);
+        activeTrial.set(MoranTrial.branch(trialIndex, parentIndex, burnIn.getTimeStep(), engine, random));
+
+        for (MoranReport report : reports)
+            report.initializeTrial();
+
+        while (continueTrial())
+            advanceTrial();
+
+        finalizeTrial();
+    }
+
+    private MoranEngine restoreEngine(TrialCheckpoint checkpoint, RandomGenerator random) {
+        //
+        // Rebuild the founder population exactly as at the start of
+        // the trial, and then restore the recorded members into it so
+        // that they inherit the recorded founder indexes...
+        //
+        Cell.resetIndex();
+
+        Space space = createSpace();
+        checkpoint.restore(space);
+
+        MoranEngine engine = createCellEngine(space, createPhenotype(), random);
+        engine.restoreState(checkpoint.getTimeClock(), checkpoint.getMeanFitness());
+
+        return engine;
+    }
+
+    private void runBatch(int firstIndex) {
+        int lastIndex = Math.min(firstIndex + batchSize, trialTarget);
+
+        if (allComplete(firstIndex, lastIndex))
+            return;
+
+        //
+        // The replicates of a lockstep batch share one process, so the
+        // completed trials in a partially completed batch execute
+        // again (with identical results)...
+        //
+        if (engineType == EngineType.LOCKSTEP)
+            runLockstepTrials(firstIndex, lastIndex);
+        else
+            for (int trialIndex = firstIndex; trialIndex < lastIndex; ++trialIndex)
+                if (!isTrialComplete(trialIndex))
+                    runTrial(trialIndex);
+    }
+
+    private boolean allComplete(int firstIndex, int lastIndex) {
+        for (int trialIndex = firstIndex; trialIndex < lastIndex; ++trialIndex)
+            if (!isTrialComplete(trialIndex))
+                return false;
+
+        return true;
+    }
+
+    private void runLockstepTrials(int firstIndex, int lastIndex) {
+        int trialCount = lastIndex - firstIndex;
+
+        List<Space> spaces = new ArrayList<Space>(trialCount);
+        List<RandomGenerator> randoms = new ArrayList<RandomGenerator>(trialCount);
+
+        for (int trialIndex = firstIndex; trialIndex < lastIndex; ++trialIndex) {
+            Cell.resetIndex();
+            spaces.add(createSpace());
+            randoms.add(createRandom(trialIndex));
+        }
+
+        LockstepProcess process = LockstepProcess.initialize(spaces, createPhenotype(), randoms);
+        MoranTrial[] trials = new MoranTrial[trialCount];
+
+        for (int replicate = 0; replicate < trialCount; ++replicate) {
+            trials[replicate] = MoranTrial.create(firstIndex + replicate, process.replicate(replicate));
+            activeTrial.set(trials[replicate]);
+
+            for (MoranReport report : reports)
+                report.initializeTrial();
+        }
+
+        while (true) {
+            //
+            // Stop every finished trial before advancing the others,
+            // because a step taken by any replicate advances all of
+            // the active replicates...
+            //
+            for (int replicate = 0; replicate < trialCount; ++replicate) {
+                if (process.isActive(replicate)) {
+                    activeTrial.set(trials[replicate]);
+
+                    if (!continueTrial()) {
+                        finalizeTrial();
+                        process.deactivate(replicate);
+                    }
+                }
+            }
+
+            if (process.countActive() == 0)
+                break;
+
+            for (int replicate = 0; replicate < trialCount; ++replicate) {
+                if (process.isActive(replicate)) {
+                    activeTrial.set(trials[replicate]);
+                    advanceTrial();
+                }
+            }
+        }
+    }
+
+    private void runTrial(int trialIndex) {
+        startTrial(trialIndex);
+
+        while (continueTrial())
+            advanceTrial();
+
+        finalizeTrial();
+    }
+
+    private void startTrial(int trialIndex) {
+        //
+        // Cell indexes restart with each trial so that the founder
+        // indexes in the reports do not depend on which thread (or in
+        // what order) the trials execute...
+        //
+        Cell.resetIndex();
+
+        RandomGenerator random = createRandom(trialIndex);
+        MoranEngine engine = createEngine(random);
+        activeTrial.set(MoranTrial.create(trialIndex, engine, random));
+
+        for (MoranReport report : reports)
+            report.initializeTrial();
+    }
+
+    private MoranEngine createEngine(RandomGenerator random) {
+        switch (engineType) {
+        case CELL:
+            return createCellEngine(createSpace(), createPhenotype(), random);
+
+        case COUNT:
+            return CloneProcess.initialize(createFounderGenotype(), Space.resolvePointSize(), createPhenotype(), random);
+
+        case TAU_LEAP:
+            return TauLeapProcess.initialize(createFounderGenotype(), Space.resolvePointSize(), createPhenotype(), random);
+
+        case KINETIC:
+            return KineticProcess.initialize(createSpace(), createPhenotype(), random);
+
+        case NEUTRAL:
+            return NeutralProcess.initialize(createSpace(), createPhenotype(), random);
+
+        case PARALLEL:
+            return ParallelLatticeProcess.initialize(createSpace(), createPhenotype(), random);
+
+        case LOCKSTEP:
+            // Lockstep trials run in batches (see runLockstepTrials)...
+            throw new IllegalStateException("Lockstep trials do not have individual engines.");
+
+        default:
+            throw new IllegalStateException("Unknown engine type.");
+        }
+    }
+
+    private MoranEngine createCellEngine(Space space, Phenotype phenotype, RandomGenerator random) {
+        //
+        // Neutral trials do not require any fitness calculations, but
+        // the neutral engine divides cells by genotype; the other
+        // trials use the kernel specialized for the phenotype, if
+        // there is one...
+        //
+        if (phenotype.isNeutral() && space.dividesByGenotype())
+            return NeutralProcess.initialize(space, phenotype, random);
+        else
+            return MoranKernel.initialize(space, phenotype, random);
+    }
+
+    /**
+     * Creates the random number stream for a simulation trial; the
+     * stream depends only on the base seed and the trial index.
+     *
+     * @param trialIndex the index of the simulation trial.
+     *
+     * @return the random number stream for the specified trial.
+     */
+    protected RandomGenerator createRandom(int trialIndex) {
+        return MoranRandom.create(randomSeed, trialIndex);
+    }
+
     @Override protected void initializeSimulation() {
+        sequentialIndex = 0;
+
+        if (resumable)
+            openManifest();
+
         writeRuntimeProperties();
+        checkpointTime = System.nanoTime();
 
         for (MoranReport report : reports)
             report.initializeSimulation();
     }
 
+    private void openManifest() {
+        manifest = TrialManifest.open(getReportFile(TrialManifest.FILE_NAME),
+                                      randomSeed, JamProperties.isSet(RANDOM_SEED_PROPERTY));
+        randomSeed = manifest.getRandomSeed();
+
+        if (manifest.countComplete() > 0)
+            JamLogger.info("Skipping %d completed trials.", manifest.countComplete());
+    }
+
     private void writeRuntimeProperties() {
         PrintWriter writer = openWriter(PROPERTY_FILE_NAME);
         Map<String, String> properties = JamProperties.filter("jam.", "moran.");
@@ -312,19 +991,44 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
     }
 
     @Override protected void initializeTrial() {
-        process = MoranProcess.initialize(createSpace(), createPhenotype());
+        //
+        // The simulate() method starts its own trials; this hook
+        // serves the inherited runSimulation() method, which executes
+        // the trials in sequence on the calling thread...
+        //
+        if (engineType == EngineType.LOCKSTEP || branchTrigger != BranchTrigger.NONE)
+            throw JamException.runtime("Lockstep and branched trials require the simulate() method.");
 
-        for (MoranReport report : reports)
-            report.initializeTrial();
+        startTrial(sequentialIndex++);
     }
 
     @Override protected boolean continueTrial() {
-        return (getTimeStep() < maxStepCount) && fitnessRange.contains(getMeanFitness());
+        MoranTrial trial = getTrial();
+        return (trial.getTimeStep() < maxStepCount) && fitnessRange.contains(trial.getMeanFitness());
     }
 
     @Override protected void advanceTrial() {
-        process.executeTimeStep();
+        getTrial().advance();
         recordStep();
+
+        if (isCheckpointStep())
+            writeCheckpoint();
+    }
+
+    private boolean isCheckpointStep() {
+        if (checkpointInterval > 0 && getTrial().getTimeStep() % checkpointInterval == 0)
+            return true;
+
+        return checkpointPeriod > 0 && System.nanoTime() - checkpointTime >= checkpointPeriod * 1000000000L;
+    }
+
+    private void writeCheckpoint() {
+        MoranTrial trial = getTrial();
+
+        TrialCheckpoint.capture(trial, reports).write(getReportFile(TrialCheckpoint.FILE_NAME), getGenotypeCodec());
+        checkpointTime = System.nanoTime();
+
+        JamLogger.info("Checkpoint TRIAL: %4d; STEP: %5d", trial.getTrialIndex(), trial.getTimeStep());
     }
 
     @Override protected void finalizeTrial() {
@@ -332,5 +1036,10 @@ public abstract class MoranDriver extends DiscreteTimeSimulation {
 
         for (MoranReport report : reports)
             report.finalizeTrial();
+
+        if (manifest != null)
+            manifest.markComplete(getTrial().getTrialIndex());
+
+        activeTrial.remove();
     }
 }
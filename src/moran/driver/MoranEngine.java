@@ -0,0 +1,81 @@
+package moran.driver;
+
+import java.util.Map;
+
+import moran.cell.Genotype;
+import moran.space.SpaceView;
+
+/**
+ * Advances the state of one simulation trial through the discrete
+ * time steps of a Moran model and exposes the statistics recorded by
+ * the simulation reports.
+ *
+ * <p>Each time step comprises one cycle of cell death and division
+ * for each member of the population (on average), and the time clock
+ * is normalized by the population size, so every engine reports the
+ * same statistics on the same time scale.
+ */
+public interface MoranEngine {
+    /**
+     * Executes the next time step.
+     */
+    public abstract void executeTimeStep();
+
+    /**
+     * Returns the average fitness of the current cell population.
+     *
+     * @return the average fitness of the current cell population.
+     */
+    public abstract double getMeanFitness();
+
+    /**
+     * Returns the continuous elapsed time in this engine (normalized
+     * by the size of the cellular population).
+     *
+     * @return the continuous elapsed time in this engine.
+     */
+    public abstract double getTimeClock();
+
+    /**
+     * Counts the cells carrying each distinct genotype in the current
+     * population.
+     *
+     * @return a map from each genotype present in the population to
+     * the number of cells that carry it.
+     */
+    public abstract Map<Genotype, Integer> countGenotypes();
+
+    /**
+     * Returns a read-only view of the cellular space.
+     *
+     * @return a read-only view of the cellular space.
+     *
+     * @throws UnsupportedOperationException if this engine does not
+     * track individual cells.
+     */
+    public abstract SpaceView viewSpace();
+
+    /**
+     * Restores the time clock and mean fitness recorded in a trial
+     * checkpoint, after this engine has been initialized with the
+     * population restored from the same checkpoint.
+     *
+     * <p>The mean fitness is accumulated incrementally during a trial,
+     * so it may differ in the last bits from the value recomputed for
+     * the restored population; restoring the recorded value keeps the
+     * continued trial identical to the uninterrupted trial.
+     *
+     * <p>The default implementation throws an exception; engines that
+     * support checkpoints must override this method.
+     *
+     * @param timeClock the recorded time clock.
+     *
+     * @param meanFitness the recorded mean fitness.
+     *
+     * @throws UnsupportedOperationException unless this engine
+     * supports checkpoints.
+     */
+    public default void restoreState(double timeClock, double meanFitness) {
+        throw new UnsupportedOperationException("This engine does not support checkpoints.");
+    }
+}
@@ -0,0 +1,265 @@
+package moran.driver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import moran.ab.ABPhenotype;
+import moran.cell.Cell;
+import moran.cell.Genotype;
+import moran.cell.Phenotype;
+import moran.cell.PopulationMode;
+import moran.scalar.ScalarPhenotype;
+import moran.segment.SegmentCNPhenotype;
+import moran.space.Space;
+import moran.space.SpaceView;
+
+/**
+ * Provides a base class for Moran processes that are specialized for
+ * one phenotype model, so that every call in the cell cycle has a
+ * single receiver type.
+ *
+ * <p>The general {@link MoranProcess} evaluates fitness through the
+ * {@code Phenotype} interface, the abstract {@code Cell} class, and
+ * the {@code Genotype} interface, and selects neighbors through the
+ * abstract {@code NeighborSampler} class.  When several models run in
+ * one virtual machine, those call sites receive several runtime types
+ * and can no longer be inlined by the compiler.  This base class
+ * executes separate copies of the cell cycle for well-mixed and
+ * lattice spaces, each with a sampler of a concrete (final) type, and
+ * delegates only the division of the parent cell to its subclass.
+ * Each kernel holds the genotypes of the population in an array of
+ * their concrete (final) type, evaluates fitness through the concrete
+ * phenotype, and creates daughter cells through the concrete cell
+ * class.  The cell space is still updated on every division, so cell
+ * indexes, lineages, and reports are unchanged.
+ *
+ * <p>Kernels draw their random deviates in the same order as {@link
+ * MoranProcess} and reproduce its trajectories exactly.
+ */
+public abstract class MoranKernel implements MoranEngine {
+    /**
+     * The cell space for the active simulation trial.
+     */
+    protected final Space space;
+
+    /**
+     * The random number source, private to this process.
+     */
+    protected final RandomGenerator random;
+
+    /**
+     * The number of cells in the population.
+     */
+    protected final int size;
+
+    /**
+     * The fitness of each cell, indexed by its position in the
+     * population.
+     */
+    protected final double[] cellFitness;
+
+    /**
+     * The neighbor sampler for well-mixed spaces ({@code null} for
+     * lattice spaces).
+     */
+    final WellMixedNeighborSampler pointSampler;
+
+    /**
+     * The neighbor sampler for lattice spaces ({@code null} for
+     * well-mixed spaces).
+     */
+    final LocalNeighborSampler latticeSampler;
+
+    /**
+     * Whether the population stores its members as cell objects, which
+     * the kernel must create on division.
+     */
+    final boolean cellObjects;
+
+    /**
+     * The continuous (dimensionless) time elapsed in the trial.
+     */
+    protected double timeClock = 0.0;
+
+    /**
+     * The average fitness of cells in the population.
+     */
+    protected double meanFitness;
+
+    /**
+     * Creates a new kernel with fixed initial cell fitness values.
+     *
+     * @param space the spatial structure of the cellular population.
+     *
+     * @param random the source of random deviates for the process.
+     *
+     * @param cellFitness the initial fitness of each cell, indexed by
+     * its position in the population.
+     */
+    MoranKernel(Space space, RandomGenerator random, double[] cellFitness) {
+        this.space = space;
+        this.random = random;
+        this.size = space.size();
+        this.cellFitness = cellFitness;
+
+        if (space.isWellMixed()) {
+            this.pointSampler = new WellMixedNeighborSampler(space, cellFitness);
+            this.latticeSampler = null;
+        }
+        else {
+            this.pointSampler = null;
+            this.latticeSampler = new LocalNeighborSampler(space, cellFitness);
+        }
+
+        this.cellObjects = (space.getMode() == PopulationMode.OBJECT);
+        this.meanFitness = computeMeanFitness();
+    }
+
+    private double computeMeanFitness() {
+        double meanFitness = 0.0;
+
+        for (double fitness : cellFitness)
+            meanFitness += fitness;
+
+        meanFitness /= size;
+        return meanFitness;
+    }
+
+    /**
+     * Initializes the most efficient cell-based Moran process for a
+     * given population and phenotype: a specialized kernel for the
+     * {@code A/B}, scalar, and segment copy-number models, or the
+     * general {@link MoranProcess} for all others.  The kernels
+     * divide cells by genotype, so populations with cells that mutate
+     * outside their genotype (see {@link
+     * moran.cell.Cell#dividesByGenotype()}) always use the general
+     * process.
+     *
+     * @param space the spatial structure of the cellular population.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @param random the source of random deviates for the process.
+     *
+     * @return the initialized Moran process.
+     *
+     * @throws ClassCastException unless the genotypes in the space
+     * have a runtime type compatible with the phenotype.
+     */
+    public static MoranEngine initialize(Space space, Phenotype phenotype, RandomGenerator random) {
+        if (!space.dividesByGenotype())
+            return MoranProcess.initialize(space, phenotype, random);
+
+        if (phenotype instanceof ABPhenotype)
+            return ABKernel.create(space, random);
+
+        if (phenotype instanceof ScalarPhenotype)
+            return ScalarKernel.create(space, random);
+
+        if (phenotype instanceof SegmentCNPhenotype)
+            return SegmentCNKernel.create(space, (SegmentCNPhenotype) phenotype, random);
+
+        return MoranProcess.initialize(space, phenotype, random);
+    }
+
+    /**
+     * Replaces a dead cell with a daughter of a parent cell and
+     * records the genotype of the daughter.
+     *
+     * <p>In object storage, the kernel creates the daughter cell
+     * through its concrete class and places it with {@link
+     * #replace(int, Cell)}; other storage modes have no cell objects
+     * and are updated through the daughter genotype.
+     *
+     * @param parentIndex the population index of the parent cell.
+     *
+     * @param deadIndex the population index of the dead cell.
+     *
+     * @return the fitness of the daughter cell.
+     */
+    abstract double divide(int parentIndex, int deadIndex);
+
+    /**
+     * Replaces a dead cell with a daughter cell created by the kernel.
+     *
+     * @param deadIndex the population index of the dead cell.
+     *
+     * @param daughter the daughter cell to place.
+     */
+    final void replace(int deadIndex, Cell daughter) {
+        space.get(deadIndex).die();
+        space.replace(deadIndex, daughter);
+    }
+
+    @Override public final void executeTimeStep() {
+        if (pointSampler != null) {
+            pointSampler.refresh();
+
+            for (int cycle = 0; cycle < size; ++cycle)
+                executePointCycle();
+        }
+        else {
+            latticeSampler.refresh();
+
+            for (int cycle = 0; cycle < size; ++cycle)
+                executeLatticeCycle();
+        }
+    }
+
+    private void executePointCycle() {
+        int deadIndex = random.nextInt(size);
+        timeClock += tick(pointSampler.gather(deadIndex));
+
+        int parentIndex = pointSampler.select(random.nextDouble());
+        double deadFitness = cellFitness[deadIndex];
+        double daughterFitness = divide(parentIndex, deadIndex);
+
+        cellFitness[deadIndex] = daughterFitness;
+        pointSampler.update(deadIndex, deadFitness, daughterFitness);
+        meanFitness += (daughterFitness - deadFitness) / size;
+    }
+
+    private void executeLatticeCycle() {
+        int deadIndex = random.nextInt(size);
+        timeClock += tick(latticeSampler.gather(deadIndex));
+
+        int parentIndex = latticeSampler.select(random.nextDouble());
+        double deadFitness = cellFitness[deadIndex];
+        double daughterFitness = divide(parentIndex, deadIndex);
+
+        cellFitness[deadIndex] = daughterFitness;
+        latticeSampler.update(deadIndex, deadFitness, daughterFitness);
+        meanFitness += (daughterFitness - deadFitness) / size;
+    }
+
+    private double tick(double neighborRate) {
+        return random.nextExponential() / neighborRate / size;
+    }
+
+    @Override public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    @Override public double getTimeClock() {
+        return timeClock;
+    }
+
+    @Override public SpaceView viewSpace() {
+        return space;
+    }
+
+    @Override public void restoreState(double timeClock, double meanFitness) {
+        this.timeClock = timeClock;
+        this.meanFitness = meanFitness;
+    }
+
+    @Override public Map<Genotype, Integer> countGenotypes() {
+        Map<Genotype, Integer> census = new HashMap<Genotype, Integer>();
+
+        for (int index = 0; index < size; ++index)
+            census.merge(space.getGenotype(index), 1, Integer::sum);
+
+        return census;
+    }
+}
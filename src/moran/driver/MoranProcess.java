@@ -1,13 +1,13 @@
 
 package moran.driver;
 
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
 
-import jam.dist.ExponentialDistribution;
 import jam.math.JamRandom;
-import jam.vector.VectorUtil;
 
-import moran.cell.Cell;
+import moran.cell.Genotype;
 import moran.cell.Phenotype;
 import moran.space.Space;
 import moran.space.SpaceView;
@@ -39,13 +39,22 @@ import moran.space.SpaceView;
  *   </li>
  * </ol>
  */
-public final class MoranProcess {
+public final class MoranProcess implements MoranEngine {
     // The cell space for the active simulation trial...
     private final Space space;
 
     // The governing phenotype model...
     private final Phenotype phenotype;
 
+    // The fitness of each cell, indexed by its position in the
+    // population; the entries are assigned only when a cell is
+    // replaced, so each cell is evaluated exactly once...
+    private final double[] cellFitness;
+
+    // Selects the dividing neighbors and computes the neighborhood
+    // fitness for the time clock...
+    private final NeighborSampler sampler;
+
     // The continuous (dimensionless) time elapsed in the active
     // simulation trial...
     private double timeClock;
@@ -53,43 +62,69 @@ public final class MoranProcess {
     // The average fitness of cells in the population...
     private double meanFitness;
 
-    // The random number source...
-    private final JamRandom random = JamRandom.global();
+    // The random number source, private to this process so that
+    // independent processes may run concurrently...
+    private final RandomGenerator random;
 
-    private MoranProcess(Space space, Phenotype phenotype) {
+    private MoranProcess(Space space, Phenotype phenotype, RandomGenerator random) {
         this.space = space;
+        this.random = random;
         this.phenotype = phenotype;
 
+        this.cellFitness = computeCellFitness();
+        this.sampler = NeighborSampler.create(space, cellFitness);
+
         this.timeClock = 0.0;
         this.meanFitness = computeMeanFitness();
     }
 
+    private double[] computeCellFitness() {
+        double[] fitness = new double[space.size()];
+
+        for (int index = 0; index < fitness.length; ++index)
+            fitness[index] = space.computeFitness(index, phenotype);
+
+        return fitness;
+    }
+
     private double computeMeanFitness() {
         double meanFitness = 0.0;
 
-        for (Cell cell : space)
-            meanFitness += getFitness(cell);
+        for (double fitness : cellFitness)
+            meanFitness += fitness;
 
         meanFitness /= space.size();
         return meanFitness;
     }
 
-    private double getFitness(Cell cell) {
-        return phenotype.getFitness(cell);
+    /**
+     * Initializes a new spatial Moran process for a given cellular
+     * population using the global random number source.
+     *
+     * @param space the spatial structure of the cellular population.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @return the initialized Moran process.
+     */
+    public static MoranProcess initialize(Space space, Phenotype phenotype) {
+        return initialize(space, phenotype, JamRandom.global());
     }
 
     /**
      * Initializes a new spatial Moran process for a given cellular
-     * population.
+     * population with a dedicated random number source.
      *
      * @param space the spatial structure of the cellular population.
      *
      * @param phenotype the cellular fitness (phenotype) model.
      *
+     * @param random the source of random deviates for the process.
+     *
      * @return the initialized Moran process.
      */
-    public static MoranProcess initialize(Space space, Phenotype phenotype) {
-        return new MoranProcess(space, phenotype);
+    public static MoranProcess initialize(Space space, Phenotype phenotype, RandomGenerator random) {
+        return new MoranProcess(space, phenotype, random);
     }
 
     /**
@@ -109,42 +144,27 @@ public final class MoranProcess {
         //
         // (4) Replace cell "I" with a daughter of cell "J".
         //
-        Cell deadCell = space.select();
-
-        List<Cell> neighborCells = space.getNeighbors(deadCell);
-        double[]   neighborFit   = getNeighborFitness(neighborCells);
-
-        updateTimeClock(neighborFit);
-
-        Cell neighbor = selectNeighbor(neighborCells, neighborFit);
-        Cell daughter = neighbor.divide();
-
-        space.replace(deadCell, daughter);
-        updateMeanFitness(deadCell, daughter);
-    }
-
-    private double[] getNeighborFitness(List<Cell> neighborCells) {
-        double[] neighborFit = new double[neighborCells.size()];
+        int deadIndex = space.selectIndex(random);
 
-        for (int k = 0; k < neighborCells.size(); ++k)
-            neighborFit[k] = getFitness(neighborCells.get(k));
+        double neighborRate = sampler.gather(deadIndex);
+        updateTimeClock(neighborRate);
 
-        return neighborFit;
+        int parentIndex = sampler.select(random.nextDouble());
+        replace(deadIndex, parentIndex);
     }
 
-    private void updateTimeClock(double[] neighborFit) {
-        timeClock += tick(neighborFit);
+    private void updateTimeClock(double neighborRate) {
+        timeClock += tick(neighborRate);
     }
 
-    private double tick(double[] neighborFit) {
+    private double tick(double neighborRate) {
         //
         // Each division event is modeled as a Poisson process, so we
         // sample the elapased time from an exponential distribution
         // with a rate parameter equal to the average fitness of the
         // neighbors that may divide.
         //
-        double rate = VectorUtil.mean(neighborFit);
-        double time = ExponentialDistribution.sample(rate, random);
+        double time = random.nextExponential() / neighborRate;
 
         // At each discrete time step, we execute N cell cycles (where
         // N is the population size), so on average each cell will die
@@ -154,24 +174,25 @@ public final class MoranProcess {
         return time / space.size();
     }
 
-    private Cell selectNeighbor(List<Cell> neighborCells, double[] neighborFit) {
-        double[] divisionProb = VectorUtil.copy(neighborFit);
+    private void replace(int deadIndex, int parentIndex) {
+        double deadFitness = cellFitness[deadIndex];
 
-        VectorUtil.normalize(divisionProb);
-        int neighborIndex = random.selectPDF(divisionProb);
+        space.divide(parentIndex, deadIndex, random);
+        double daughterFitness = space.computeFitness(deadIndex, phenotype);
 
-        return neighborCells.get(neighborIndex);
-    }
+        cellFitness[deadIndex] = daughterFitness;
+        sampler.update(deadIndex, deadFitness, daughterFitness);
 
-    private void updateMeanFitness(Cell deadCell, Cell daughter) {
-        meanFitness += (getFitness(daughter) - getFitness(deadCell)) / space.size();
+        meanFitness += (daughterFitness - deadFitness) / space.size();
     }
 
     /**
      * Executes one cycle of cell death and division for each member
      * of the cell population.
      */
-    public void executeTimeStep() {
+    @Override public void executeTimeStep() {
+        sampler.refresh();
+
         for (int cycle = 0; cycle < space.size(); ++ cycle)
             executeCellCycle();
     }
@@ -181,7 +202,7 @@ public final class MoranProcess {
      *
      * @return the average fitness of the current cell population.
      */
-    public double getMeanFitness() {
+    @Override public double getMeanFitness() {
         return meanFitness;
     }
 
@@ -192,7 +213,7 @@ public final class MoranProcess {
      *
      * @return the continuous elapsed time in this Moran process.
      */
-    public double getTimeClock() {
+    @Override public double getTimeClock() {
         return timeClock;
     }
 
@@ -201,7 +222,21 @@ public final class MoranProcess {
      *
      * @return a read-only view of the cellular space in this process.
      */
-    public SpaceView viewSpace() {
+    @Override public SpaceView viewSpace() {
         return space;
     }
+
+    @Override public void restoreState(double timeClock, double meanFitness) {
+        this.timeClock = timeClock;
+        this.meanFitness = meanFitness;
+    }
+
+    @Override public Map<Genotype, Integer> countGenotypes() {
+        Map<Genotype, Integer> census = new HashMap<Genotype, Integer>();
+
+        for (int index = 0; index < space.size(); ++index)
+            census.merge(space.getGenotype(index), 1, Integer::sum);
+
+        return census;
+    }
 }
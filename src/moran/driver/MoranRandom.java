@@ -0,0 +1,309 @@
+
+package moran.driver;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates the random deviates for one simulation trial using the
+ * {@code xoshiro256**} algorithm.
+ *
+ * <p>Each generator is owned by a single trial (and therefore a single
+ * thread), so no draw requires synchronization.  Uniform and
+ * exponential deviates are generated in blocks and served from
+ * buffers, which keeps the inner generator loop tight and moves the
+ * logarithm evaluations for exponential deviates out of the Moran
+ * cell cycle.
+ *
+ * <p>Generators are seeded deterministically: the state of the
+ * generator for a trial depends only on the base seed and the hashed
+ * trial index (expanded through the {@code SplitMix64} generator), so
+ * trial trajectories are reproducible regardless of thread scheduling.
+ * Generators may also be split into statistically independent
+ * streams with the {@code xoshiro256} jump function, and the complete
+ * state (including any unused buffered deviates) may be saved and
+ * restored for trial checkpoints.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class MoranRandom implements RandomGenerator {
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    private final double[] uniformBuffer = new double[BUFFER_SIZE];
+    private final double[] exponentialBuffer = new double[BUFFER_SIZE];
+
+    // Positions of the next unused deviates; a position equal to the
+    // buffer size indicates an exhausted buffer...
+    private int uniformCursor = BUFFER_SIZE;
+    private int exponentialCursor = BUFFER_SIZE;
+
+    private static final int BUFFER_SIZE = 256;
+
+    // Multiplier to map the upper 53 bits of a long onto [0, 1)...
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private MoranRandom(long s0, long s1, long s2, long s3) {
+        this.s0 = s0;
+        this.s1 = s1;
+        this.s2 = s2;
+        this.s3 = s3;
+
+        if ((s0 | s1 | s2 | s3) == 0L)
+            throw new IllegalArgumentException("The generator state must not be all zero.");
+    }
+
+    /**
+     * Creates a new generator from a single seed.
+     *
+     * @param seed the seed for the generator.
+     *
+     * @return a new generator with state expanded from the seed.
+     */
+    public static MoranRandom create(long seed) {
+        SplitMix64 mixer = new SplitMix64(seed);
+        return new MoranRandom(mixer.next(), mixer.next(), mixer.next(), mixer.next());
+    }
+
+    /**
+     * Creates the generator for one simulation trial.
+     *
+     * @param baseSeed the base seed for the simulation.
+     *
+     * @param trialIndex the index of the simulation trial.
+     *
+     * @return the generator for the specified trial.
+     */
+    public static MoranRandom create(long baseSeed, int trialIndex) {
+        //
+        // The trial index must pass through a separate hash before
+        // the SplitMix64 expansion: offsetting the seed by multiples
+        // of the SplitMix64 increment would shift the state words of
+        // adjacent trials by one position, and their streams would
+        // be strongly correlated...
+        //
+        return create(baseSeed ^ mixTrialIndex(trialIndex));
+    }
+
+    private static long mixTrialIndex(int trialIndex) {
+        //
+        // The MurmurHash3 finalizer, whose constants differ from those
+        // in the SplitMix64 output function...
+        //
+        long z = trialIndex + 1L;
+
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Splits off a new generator whose stream does not overlap the
+     * stream of this generator for the next {@code 2^128} draws.
+     *
+     * <p>The new generator starts with the current state of this
+     * generator, and this generator then jumps ahead by {@code 2^128}
+     * draws.  Unused buffered deviates remain with this generator.
+     *
+     * @return a new, independent generator.
+     */
+    public MoranRandom split() {
+        MoranRandom child = new MoranRandom(s0, s1, s2, s3);
+        jump();
+        return child;
+    }
+
+    /**
+     * Writes the complete state of this generator, including any
+     * unused buffered deviates.
+     *
+     * @param output the destination for the generator state.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeState(DataOutput output) throws IOException {
+        output.writeLong(s0);
+        output.writeLong(s1);
+        output.writeLong(s2);
+        output.writeLong(s3);
+
+        writeBuffer(output, uniformBuffer, uniformCursor);
+        writeBuffer(output, exponentialBuffer, exponentialCursor);
+    }
+
+    private static void writeBuffer(DataOutput output, double[] buffer, int cursor) throws IOException {
+        output.writeInt(cursor);
+
+        for (int k = cursor; k < BUFFER_SIZE; ++k)
+            output.writeDouble(buffer[k]);
+    }
+
+    /**
+     * Reads a generator state written by {@link #writeState(DataOutput)}.
+     *
+     * @param input the source of the generator state.
+     *
+     * @return a new generator that draws exactly the same deviates as
+     * the generator whose state was written.
+     *
+     * @throws IOException if an I/O error occurs or the state is
+     * invalid.
+     */
+    public static MoranRandom readState(DataInput input) throws IOException {
+        long s0 = input.readLong();
+        long s1 = input.readLong();
+        long s2 = input.readLong();
+        long s3 = input.readLong();
+
+        if ((s0 | s1 | s2 | s3) == 0L)
+            throw new IOException("Invalid generator state.");
+
+        MoranRandom random = new MoranRandom(s0, s1, s2, s3);
+
+        random.uniformCursor = readBuffer(input, random.uniformBuffer);
+        random.exponentialCursor = readBuffer(input, random.exponentialBuffer);
+
+        return random;
+    }
+
+    private static int readBuffer(DataInput input, double[] buffer) throws IOException {
+        int cursor = input.readInt();
+
+        if (cursor < 0 || cursor > BUFFER_SIZE)
+            throw new IOException("Invalid generator buffer position.");
+
+        for (int k = cursor; k < BUFFER_SIZE; ++k)
+            buffer[k] = input.readDouble();
+
+        return cursor;
+    }
+
+    private static final long[] JUMP = {
+        0x180EC6D33CFD0ABAL, 0xD5A61266F0C9392CL, 0xA9582618E03FC9AAL, 0x39ABDC4529B1661CL
+    };
+
+    private void jump() {
+        long t0 = 0L;
+        long t1 = 0L;
+        long t2 = 0L;
+        long t3 = 0L;
+
+        for (long word : JUMP) {
+            for (int bit = 0; bit < 64; ++bit) {
+                if ((word & (1L << bit)) != 0L) {
+                    t0 ^= s0;
+                    t1 ^= s1;
+                    t2 ^= s2;
+                    t3 ^= s3;
+                }
+
+                nextLong();
+            }
+        }
+
+        s0 = t0;
+        s1 = t1;
+        s2 = t2;
+        s3 = t3;
+    }
+
+    @Override public long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+
+        return result;
+    }
+
+    /**
+     * Returns the next buffered uniform deviate in {@code [0, 1)}.
+     *
+     * @return the next buffered uniform deviate in {@code [0, 1)}.
+     */
+    @Override public double nextDouble() {
+        if (uniformCursor == BUFFER_SIZE)
+            fillUniform();
+
+        return uniformBuffer[uniformCursor++];
+    }
+
+    private void fillUniform() {
+        for (int k = 0; k < BUFFER_SIZE; ++k)
+            uniformBuffer[k] = (nextLong() >>> 11) * DOUBLE_UNIT;
+
+        uniformCursor = 0;
+    }
+
+    /**
+     * Returns the next buffered exponential deviate with unit rate.
+     *
+     * @return the next buffered exponential deviate with unit rate.
+     */
+    @Override public double nextExponential() {
+        if (exponentialCursor == BUFFER_SIZE)
+            fillExponential();
+
+        return exponentialBuffer[exponentialCursor++];
+    }
+
+    private void fillExponential() {
+        //
+        // Inversion with 1 - U in (0, 1] never takes the logarithm of
+        // zero...
+        //
+        for (int k = 0; k < BUFFER_SIZE; ++k)
+            exponentialBuffer[k] = -Math.log1p(-((nextLong() >>> 11) * DOUBLE_UNIT));
+
+        exponentialCursor = 0;
+    }
+
+    /**
+     * Returns a uniformly distributed integer in {@code [0, bound)}
+     * computed from the next buffered uniform deviate.
+     *
+     * <p>The bias of the multiplicative mapping is below {@code
+     * bound / 2^53}, far beneath the resolution of any population
+     * that fits in memory.
+     *
+     * @param bound the exclusive upper bound.
+     *
+     * @return a uniformly distributed integer in {@code [0, bound)}.
+     *
+     * @throws IllegalArgumentException unless the bound is positive.
+     */
+    @Override public int nextInt(int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("The bound must be positive.");
+
+        return (int) (nextDouble() * bound);
+    }
+
+    private static final class SplitMix64 {
+        private long state;
+
+        private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+        private SplitMix64(long seed) {
+            this.state = seed;
+        }
+
+        private long next() {
+            long z = (state += GOLDEN_GAMMA);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+
+package moran.driver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import moran.cell.Cell;
+import moran.cell.Genotype;
+import moran.space.SpaceView;
+
+/**
+ * Encapsulates the state of one independent simulation trial: the
+ * trial index, the engine that executes the Moran process, the random
+ * number stream that drives the engine, and the number of completed
+ * time steps.  Trials forked from a shared burn-in trial also record
+ * the index of that parent trial and the time step of the fork.
+ *
+ * <p>Simulation trials share no mutable state, so multiple trials may
+ * be executed concurrently on separate threads.
+ */
+public final class MoranTrial {
+    private final int trialIndex;
+    private final int parentIndex;
+    private final int branchStep;
+    private final MoranEngine engine;
+    private final RandomGenerator random;
+
+    // The index of the latest completed time step...
+    private int timeStep;
+
+    private MoranTrial(int trialIndex, int parentIndex, int timeStep, MoranEngine engine, RandomGenerator random) {
+        this.trialIndex = trialIndex;
+        this.parentIndex = parentIndex;
+        this.branchStep = (parentIndex == NO_PARENT) ? 0 : timeStep;
+        this.timeStep = timeStep;
+        this.engine = engine;
+        this.random = random;
+    }
+
+    /**
+     * The parent index of trials that were not forked from a burn-in
+     * trial.
+     */
+    public static final int NO_PARENT = -1;
+
+    /**
+     * Creates a new simulation trial at time step zero.
+     *
+     * @param trialIndex the index of the trial.
+     *
+     * @param engine the initialized engine for the trial.
+     *
+     * @return the new simulation trial.
+     */
+    public static MoranTrial create(int trialIndex, MoranEngine engine) {
+        return new MoranTrial(trialIndex, NO_PARENT, 0, engine, null);
+    }
+
+    /**
+     * Creates a new simulation trial at time step zero with a known
+     * random number stream.
+     *
+     * @param trialIndex the index of the trial.
+     *
+     * @param engine the initialized engine for the trial.
+     *
+     * @param random the random number stream that drives the engine.
+     *
+     * @return the new simulation trial.
+     */
+    public static MoranTrial create(int trialIndex, MoranEngine engine, RandomGenerator random) {
+        return new MoranTrial(trialIndex, NO_PARENT, 0, engine, random);
+    }
+
+    /**
+     * Resumes a simulation trial from a checkpoint.
+     *
+     * @param trialIndex the index of the trial.
+     *
+     * @param timeStep the index of the latest completed time step.
+     *
+     * @param engine the engine restored from the checkpoint.
+     *
+     * @param random the random number stream restored from the
+     * checkpoint.
+     *
+     * @return the resumed simulation trial.
+     */
+    public static MoranTrial restore(int trialIndex, int timeStep, MoranEngine engine, RandomGenerator random) {
+        return new MoranTrial(trialIndex, NO_PARENT, timeStep, engine, random);
+    }
+
+    /**
+     * Creates a new simulation trial forked from a burn-in trial.
+     *
+     * @param trialIndex the index of the new trial.
+     *
+     * @param parentIndex the index of the burn-in trial.
+     *
+     * @param branchStep the index of the latest time step completed
+     * by the burn-in trial, where the new trial begins.
+     *
+     * @param engine the engine initialized with the state of the
+     * burn-in trial.
+     *
+     * @param random the random number stream for the new trial.
+     *
+     * @return the new simulation trial.
+     *
+     * @throws IllegalArgumentException if the parent index is negative.
+     */
+    public static MoranTrial branch(int trialIndex, int parentIndex, int branchStep, MoranEngine engine, RandomGenerator random) {
+        if (parentIndex < 0)
+            throw new IllegalArgumentException("Invalid parent trial index.");
+
+        return new MoranTrial(trialIndex, parentIndex, branchStep, engine, random);
+    }
+
+    /**
+     * Executes the next time step in this trial.
+     */
+    public void advance() {
+        engine.executeTimeStep();
+        ++timeStep;
+    }
+
+    /**
+     * Returns the index of this simulation trial.
+     *
+     * @return the index of this simulation trial.
+     */
+    public int getTrialIndex() {
+        return trialIndex;
+    }
+
+    /**
+     * Returns the index of the burn-in trial from which this trial was
+     * forked.
+     *
+     * @return the index of the parent trial, or {@code NO_PARENT} if
+     * this trial was not forked from a burn-in trial.
+     */
+    public int getParentIndex() {
+        return parentIndex;
+    }
+
+    /**
+     * Returns the time step where this trial was forked from its
+     * burn-in trial.
+     *
+     * @return the time step where this trial was forked (zero if this
+     * trial was not forked from a burn-in trial).
+     */
+    public int getBranchStep() {
+        return branchStep;
+    }
+
+    /**
+     * Returns the index of the latest completed time step.
+     *
+     * @return the index of the latest completed time step.
+     */
+    public int getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * Returns the random number stream that drives the engine.
+     *
+     * @return the random number stream that drives the engine.
+     *
+     * @throws IllegalStateException unless the stream was assigned
+     * when this trial was created.
+     */
+    public RandomGenerator getRandom() {
+        if (random == null)
+            throw new IllegalStateException("The random number stream is not known.");
+
+        return random;
+    }
+
+    /**
+     * Returns the continuous elapsed time in this trial.
+     *
+     * @return the continuous elapsed time in this trial.
+     */
+    public double getTimeClock() {
+        return engine.getTimeClock();
+    }
+
+    /**
+     * Returns the average fitness of the current cell population.
+     *
+     * @return the average fitness of the current cell population.
+     */
+    public double getMeanFitness() {
+        return engine.getMeanFitness();
+    }
+
+    /**
+     * Returns the engine executing this trial.
+     *
+     * @return the engine executing this trial.
+     */
+    public MoranEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Counts the cells carrying each distinct genotype in this trial.
+     *
+     * @return a map from each genotype present in the population to
+     * the number of cells that carry it.
+     */
+    public Map<Genotype, Integer> countGenotypes() {
+        return engine.countGenotypes();
+    }
+
+    /**
+     * Returns a read-only list view of the cells in this trial.
+     *
+     * @return a read-only list view of the cells in this trial.
+     */
+    public List<Cell> listCells() {
+        return viewSpace().list();
+    }
+
+    /**
+     * Returns a read-only view of the cellular space in this trial.
+     *
+     * @return a read-only view of the cellular space in this trial.
+     *
+     * @throws UnsupportedOperationException if the engine does not
+     * track individual cells.
+     */
+    public SpaceView viewSpace() {
+        return engine.viewSpace();
+    }
+}
@@ -0,0 +1,97 @@
+
+package moran.driver;
+
+import moran.space.Space;
+
+/**
+ * Selects the neighbor that divides to replace a dead cell, with a
+ * probability proportional to the neighbor fitness, and computes the
+ * mean neighbor fitness that governs the time clock.
+ *
+ * <p>Samplers read the fitness of each cell from an array owned by
+ * the Moran process and must be notified whenever an element of that
+ * array changes.
+ */
+abstract class NeighborSampler {
+    /**
+     * The cell space for the active simulation trial.
+     */
+    protected final Space space;
+
+    /**
+     * The fitness of each cell, indexed by its position in the
+     * population.
+     */
+    protected final double[] cellFitness;
+
+    /**
+     * Creates a new sampler for a fixed space and fitness array.
+     *
+     * @param space the cell space for the active simulation trial.
+     *
+     * @param cellFitness the fitness of each cell, indexed by its
+     * position in the population.
+     */
+    protected NeighborSampler(Space space, double[] cellFitness) {
+        this.space = space;
+        this.cellFitness = cellFitness;
+    }
+
+    /**
+     * Creates the most efficient sampler for a given space.
+     *
+     * @param space the cell space for the active simulation trial.
+     *
+     * @param cellFitness the fitness of each cell, indexed by its
+     * position in the population.
+     *
+     * @return the most efficient sampler for the specified space.
+     */
+    static NeighborSampler create(Space space, double[] cellFitness) {
+        if (space.isWellMixed())
+            return new WellMixedNeighborSampler(space, cellFitness);
+        else
+            return new LocalNeighborSampler(space, cellFitness);
+    }
+
+    /**
+     * Identifies the neighbors of a dead cell and returns their mean
+     * fitness.  Subsequent calls to {@code select()} will choose from
+     * these neighbors.
+     *
+     * @param deadIndex the population index of the dead cell.
+     *
+     * @return the mean fitness of the neighbors of the dead cell.
+     */
+    abstract double gather(int deadIndex);
+
+    /**
+     * Selects a neighbor of the most recently gathered dead cell with
+     * a probability proportional to its fitness.
+     *
+     * @param uniform a random deviate drawn uniformly from the
+     * interval {@code [0, 1)}.
+     *
+     * @return the population index of the selected neighbor.
+     */
+    abstract int select(double uniform);
+
+    /**
+     * Notifies this sampler that the fitness of one cell has changed.
+     *
+     * @param index the population index of the updated cell.
+     *
+     * @param oldFitness the previous fitness of the cell.
+     *
+     * @param newFitness the new fitness of the cell.
+     */
+    abstract void update(int index, double oldFitness, double newFitness);
+
+    /**
+     * Synchronizes any derived data structures with the fitness array
+     * (called once per time step to discard accumulated round-off
+     * error); this default implementation does nothing.
+     */
+    void refresh() {
+    }
+}
@@ -0,0 +1,176 @@
+
+package moran.driver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import moran.cell.Genotype;
+import moran.cell.Phenotype;
+import moran.space.Space;
+import moran.space.SpaceView;
+
+/**
+ * Simulates the evolution of a spatial Moran process under a neutral
+ * phenotype, in which every cell has the same fitness.
+ *
+ * <p>With equal fitness, the dividing cell is selected uniformly from
+ * the neighbors of the dead cell and the time increment of every cell
+ * cycle is an exponential deviate with the same rate.  This engine
+ * therefore executes the same cycle of cell death and division as
+ * {@link MoranProcess} without any fitness calculations: the parent
+ * is drawn with one uniform integer deviate, and the time increments
+ * of the {@code N} cycles in each time step are drawn in bulk as a
+ * single gamma deviate.  The genotype configuration, cell indexes,
+ * and time clock have exactly the distribution produced by {@link
+ * MoranProcess}, although the random deviates are drawn in a
+ * different order.
+ *
+ * <p>The fitness of every mutant daughter is verified, so applying
+ * this engine to a phenotype that is not neutral fails rather than
+ * producing an incorrect trajectory.  Daughters are created from the
+ * genotype of their parent, so the engine also rejects populations
+ * whose cells mutate outside their genotype (see {@link
+ * moran.cell.Cell#dividesByGenotype()}).
+ */
+public final class NeutralProcess implements MoranEngine {
+    private final Space space;
+    private final Phenotype phenotype;
+    private final RandomGenerator random;
+
+    // The common fitness of every cell...
+    private final double fitness;
+
+    // Scratch buffer for the neighbors of the dead cell (unused in
+    // well-mixed spaces)...
+    private final int[] neighbors;
+
+    private double timeClock = 0.0;
+
+    private NeutralProcess(Space space, Phenotype phenotype, RandomGenerator random) {
+        this.space = space;
+        this.phenotype = phenotype;
+        this.random = random;
+
+        if (space.size() < 2)
+            throw new IllegalArgumentException("A neutral process requires at least two cells.");
+
+        if (!space.dividesByGenotype())
+            throw new IllegalArgumentException("A neutral process requires cells that mutate only through their genotype.");
+
+        this.fitness = space.computeFitness(0, phenotype);
+
+        if (fitness <= 0.0)
+            throw new IllegalArgumentException("The neutral fitness must be positive.");
+
+        for (int index = 1; index < space.size(); ++index)
+            if (space.computeFitness(index, phenotype) != fitness)
+                throw new IllegalArgumentException("The phenotype is not neutral.");
+
+        this.neighbors = space.isWellMixed() ? null : new int[space.maxNeighborCount()];
+    }
+
+    /**
+     * Initializes a new neutral process for a given cellular
+     * population.
+     *
+     * @param space the spatial structure of the cellular population.
+     *
+     * @param phenotype the cellular fitness (phenotype) model, which
+     * must assign the same fitness to every genotype.
+     *
+     * @param random the source of random deviates for the process.
+     *
+     * @return the initialized process.
+     *
+     * @throws IllegalArgumentException unless the population contains
+     * at least two cells with the same positive fitness, all of which
+     * mutate only through their genotype.
+     */
+    public static NeutralProcess initialize(Space space, Phenotype phenotype, RandomGenerator random) {
+        return new NeutralProcess(space, phenotype, random);
+    }
+
+    /**
+     * Executes one cycle of cell death and division without updating
+     * the time clock (which is advanced in bulk by {@code
+     * executeTimeStep()}).
+     *
+     * @throws IllegalStateException if a mutant daughter has a
+     * different fitness than its parent.
+     */
+    public void executeCellCycle() {
+        int deadIndex = space.selectIndex(random);
+        int parentIndex = selectParent(deadIndex);
+
+        Genotype parentGenotype = space.getGenotype(parentIndex);
+        Genotype daughterGenotype = parentGenotype.divide(random);
+
+        // Mutations are rare, so verifying the fitness of every mutant
+        // daughter is inexpensive...
+        if (daughterGenotype != parentGenotype && phenotype.getFitness(daughterGenotype) != fitness)
+            throw new IllegalStateException("The phenotype is not neutral.");
+
+        space.divide(parentIndex, deadIndex, daughterGenotype);
+    }
+
+    private int selectParent(int deadIndex) {
+        if (neighbors == null) {
+            //
+            // Select uniformly from the other N - 1 cells by skipping
+            // over the dead cell...
+            //
+            int parentIndex = random.nextInt(space.size() - 1);
+            return (parentIndex < deadIndex) ? parentIndex : parentIndex + 1;
+        }
+
+        int count = space.getNeighborIndexes(deadIndex, neighbors);
+        return neighbors[random.nextInt(count)];
+    }
+
+    /**
+     * Executes one cycle of cell death and division for each member
+     * of the cell population.
+     */
+    @Override public void executeTimeStep() {
+        int size = space.size();
+
+        //
+        // Each cycle advances the clock by an exponential deviate with
+        // rate equal to the common fitness, divided by the population
+        // size; the sum over N cycles is a gamma deviate...
+        //
+        timeClock += Deviates.exponentialSum(random, size) / fitness / size;
+
+        for (int cycle = 0; cycle < size; ++cycle)
+            executeCellCycle();
+    }
+
+    @Override public double getMeanFitness() {
+        return fitness;
+    }
+
+    @Override public double getTimeClock() {
+        return timeClock;
+    }
+
+    @Override public void restoreState(double timeClock, double meanFitness) {
+        //
+        // The mean fitness is the common fitness of every cell...
+        //
+        this.timeClock = timeClock;
+    }
+
+    @Override public Map<Genotype, Integer> countGenotypes() {
+        Map<Genotype, Integer> census = new HashMap<Genotype, Integer>();
+
+        for (int index = 0; index < space.size(); ++index)
+            census.merge(space.getGenotype(index), 1, Integer::sum);
+
+        return census;
+    }
+
+    @Override public SpaceView viewSpace() {
+        return space;
+    }
+}
@@ -0,0 +1,625 @@
+
+package moran.driver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+import jam.app.JamProperties;
+import jam.lang.JamException;
+
+import moran.cell.Genotype;
+import moran.cell.Phenotype;
+import moran.space.Space;
+import moran.space.SpaceView;
+
+/**
+ * Simulates the evolution of a spatial Moran process on a single
+ * large lattice by updating disjoint regions of the lattice
+ * concurrently.
+ *
+ * <p><b>Tiles and colors.</b> The population is partitioned into
+ * tiles of contiguous population indexes (slabs of rows or planes
+ * for the lattice spaces, whose indexes are ordered by position).
+ * Two tiles are adjacent if a cell in one is a neighbor of a cell in
+ * the other, and the tiles are colored so that no two adjacent tiles
+ * share a color (two colors suffice for slabs on a lattice with an
+ * even number of slabs).  A cell cycle writes only the dead cell and
+ * reads only its neighbors, so the cycles in tiles of one color never
+ * read a cell written by another tile of that color: the tiles of one
+ * color are updated concurrently while the cells in all other tiles
+ * serve as a fixed halo.
+ *
+ * <p><b>Time steps.</b> Each time step is divided into sweeps.  At the
+ * start of the step, the number of cycles executed in each tile on
+ * each sweep is drawn from the multinomial distribution of {@code N}
+ * uniformly selected dead cells, so every cell dies with the same
+ * probability as in {@link MoranProcess}.  On each sweep, the colors
+ * are visited in a random order, and the tiles of each color execute
+ * their cycles concurrently, each with an independent random number
+ * stream split from the stream of the trial.  The cell space itself
+ * is updated after each color, on the calling thread, by replaying
+ * the divisions recorded by the tiles, so that cell indexes and
+ * lineages remain consistent.  The tiles create daughters from the
+ * genotype of their parent, so the cells must mutate only through
+ * their genotype (see {@link moran.cell.Cell#dividesByGenotype()}).
+ *
+ * <p><b>Approximation.</b> Every cell cycle follows the rules of the
+ * serial process exactly, but the order of the cycles does not: within
+ * one sweep, all cycles in the tiles of one color precede those of the
+ * next color, so a change at the edge of a tile is seen by the cells
+ * across the edge somewhat earlier or later than in a uniformly random
+ * order.  This engine therefore samples the serial process only
+ * approximately.  The error is confined to the tile boundaries and
+ * decreases with the slab thickness and the number of sweeps per step,
+ * so every slab must be at least {@link #MIN_SLAB_THICKNESS} lattice
+ * layers thick.  The trajectory of a trial depends only on its random
+ * number stream, the tile count, and the sweep count, not on the
+ * number of threads.
+ */
+public final class ParallelLatticeProcess implements MoranEngine {
+    private final Space space;
+    private final Phenotype phenotype;
+    private final RandomGenerator random;
+    private final int sweepCount;
+    private final int threadCount;
+
+    // The genotype and fitness of each cell, updated concurrently by
+    // the tiles; the cell space is synchronized after each color...
+    private final Genotype[] genotypes;
+    private final double[] cellFitness;
+
+    private final Tile[] tiles;
+
+    // The indexes of the tiles with each color...
+    private final int[][] colorTiles;
+
+    // The order in which the colors are visited on each sweep...
+    private final int[][] colorOrder;
+
+    private double timeClock = 0.0;
+    private double meanFitness;
+
+    /**
+     * Name of the system property that defines the number of tiles
+     * into which the lattice is partitioned (by default, the largest
+     * even number that keeps every slab at least {@link
+     * #MIN_SLAB_THICKNESS} lattice layers thick).
+     */
+    public static final String TILE_COUNT_PROPERTY = "moran.driver.parallelTileCount";
+
+    /**
+     * Name of the system property that defines the number of sweeps
+     * over the tile colors in each time step.
+     */
+    public static final String SWEEP_COUNT_PROPERTY = "moran.driver.parallelSweepCount";
+
+    /**
+     * Name of the system property that defines the number of threads
+     * that update the tiles of a single trial (the number of available
+     * processors by default).
+     */
+    public static final String THREAD_COUNT_PROPERTY = "moran.driver.parallelThreadCount";
+
+    /**
+     * Minimum thickness of each slab, in lattice layers: at least half
+     * of the cells in every tile lie away from the tile boundaries.
+     */
+    public static final int MIN_SLAB_THICKNESS = 4;
+
+    /**
+     * Default number of sweeps per time step.
+     */
+    public static final int DEFAULT_SWEEP_COUNT = 4;
+
+    // Thread pools shared by all processes with the same thread count;
+    // the worker threads are daemon threads...
+    private static final Map<Integer, ForkJoinPool> pools = new ConcurrentHashMap<Integer, ForkJoinPool>();
+
+    private final class Tile {
+        // The tile contains the cells with indexes [start, end)...
+        private final int start;
+        private final int end;
+        private final RandomGenerator random;
+        private final int[] neighbors;
+
+        // The number of cycles to execute on each sweep...
+        private final int[] sweepCycles;
+
+        // The divisions recorded since the cell space was last
+        // synchronized...
+        private int[] deadLog;
+        private int[] parentLog;
+        private Genotype[] daughterLog;
+        private int logCount;
+
+        private double timeIncrement;
+
+        private Tile(int start, int end, RandomGenerator random) {
+            this.start = start;
+            this.end = end;
+            this.random = random;
+            this.neighbors = new int[space.maxNeighborCount()];
+            this.sweepCycles = new int[sweepCount];
+
+            int capacity = 2 * (end - start) / sweepCount + 16;
+
+            this.deadLog = new int[capacity];
+            this.parentLog = new int[capacity];
+            this.daughterLog = new Genotype[capacity];
+        }
+
+        private int size() {
+            return end - start;
+        }
+
+        private void executeSweep(int sweep) {
+            for (int cycle = 0; cycle < sweepCycles[sweep]; ++cycle)
+                executeCellCycle();
+        }
+
+        private void executeCellCycle() {
+            int deadIndex = start + random.nextInt(size());
+            int count = space.getNeighborIndexes(deadIndex, neighbors);
+            double total = 0.0;
+
+            for (int k = 0; k < count; ++k)
+                total += cellFitness[neighbors[k]];
+
+            timeIncrement += random.nextExponential() / (total / count) / genotypes.length;
+
+            int parentIndex = selectParent(count, random.nextDouble() * total);
+            Genotype parentGenotype = genotypes[parentIndex];
+            Genotype daughterGenotype = parentGenotype.divide(random);
+
+            genotypes[deadIndex] = daughterGenotype;
+
+            if (daughterGenotype == parentGenotype)
+                cellFitness[deadIndex] = cellFitness[parentIndex];
+            else
+                cellFitness[deadIndex] = phenotype.getFitness(daughterGenotype);
+
+            record(deadIndex, parentIndex, daughterGenotype);
+        }
+
+        private int selectParent(int count, double target) {
+            for (int k = 0; k < count - 1; ++k) {
+                target -= cellFitness[neighbors[k]];
+
+                if (target < 0.0)
+                    return neighbors[k];
+            }
+
+            // Guard against round-off error in the cumulative sum...
+            return neighbors[count - 1];
+        }
+
+        private void record(int deadIndex, int parentIndex, Genotype daughterGenotype) {
+            if (logCount == deadLog.length) {
+                int capacity = 2 * logCount;
+
+                deadLog = Arrays.copyOf(deadLog, capacity);
+                parentLog = Arrays.copyOf(parentLog, capacity);
+                daughterLog = Arrays.copyOf(daughterLog, capacity);
+            }
+
+            deadLog[logCount] = deadIndex;
+            parentLog[logCount] = parentIndex;
+            daughterLog[logCount] = daughterGenotype;
+
+            ++logCount;
+        }
+
+        private void replay() {
+            for (int event = 0; event < logCount; ++event)
+                space.divide(parentLog[event], deadLog[event], daughterLog[event]);
+
+            Arrays.fill(daughterLog, 0, logCount, null);
+            logCount = 0;
+        }
+    }
+
+    private ParallelLatticeProcess(Space space,
+                                   Phenotype phenotype,
+                                   RandomGenerator random,
+                                   int tileCount,
+                                   int sweepCount,
+                                   int threadCount) {
+        if (space.isWellMixed())
+            throw new IllegalArgumentException("The parallel engine requires a lattice space.");
+
+        if (!space.dividesByGenotype())
+            throw new IllegalArgumentException("The parallel engine requires cells that mutate only through their genotype.");
+
+        if (tileCount < 1 || sweepCount < 1 || threadCount < 1)
+            throw new IllegalArgumentException("The tile, sweep, and thread counts must be positive.");
+
+        if (tileCount > maxTileCount(space))
+            throw new IllegalArgumentException(String.format("The slabs must be at least %d lattice layers thick.", MIN_SLAB_THICKNESS));
+
+        this.space = space;
+        this.phenotype = phenotype;
+        this.random = random;
+        this.sweepCount = sweepCount;
+        this.threadCount = threadCount;
+
+        int size = space.size();
+
+        this.genotypes = new Genotype[size];
+        this.cellFitness = new double[size];
+
+        for (int index = 0; index < size; ++index) {
+            genotypes[index] = space.getGenotype(index);
+            cellFitness[index] = space.computeFitness(index, phenotype);
+        }
+
+        this.tiles = createTiles(tileCount);
+        this.colorTiles = colorTiles();
+        this.colorOrder = new int[sweepCount][colorTiles.length];
+        this.meanFitness = computeMeanFitness();
+    }
+
+    /**
+     * Initializes a new parallel process for a given cellular
+     * population, with the tile, sweep, and thread counts defined by
+     * system properties.
+     *
+     * @param space the spatial structure of the cellular population.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @param random the source of random deviates for the process.
+     *
+     * @return the initialized process.
+     *
+     * @throws IllegalArgumentException if the space is well-mixed or
+     * contains cells that mutate outside their genotype, or if the
+     * tile count makes any slab too thin.
+     */
+    public static ParallelLatticeProcess initialize(Space space, Phenotype phenotype, RandomGenerator random) {
+        return initialize(space, phenotype, random, resolveTileCount(space), resolveSweepCount(), resolveThreadCount());
+    }
+
+    /**
+     * Initializes a new parallel process for a given cellular
+     * population.
+     *
+     * @param space the spatial structure of the cellular population.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @param random the source of random deviates for the process.
+     *
+     * @param tileCount the number of tiles into which the population
+     * is partitioned.
+     *
+     * @param sweepCount the number of sweeps over the tile colors in
+     * each time step.
+     *
+     * @param threadCount the number of threads that update the tiles.
+     *
+     * @return the initialized process.
+     *
+     * @throws IllegalArgumentException if the space is well-mixed or
+     * contains cells that mutate outside their genotype, any count is
+     * not positive, or the tile count makes any slab
+     * thinner than {@link #MIN_SLAB_THICKNESS} lattice layers.
+     */
+    public static ParallelLatticeProcess initialize(Space space,
+                                                    Phenotype phenotype,
+                                                    RandomGenerator random,
+                                                    int tileCount,
+                                                    int sweepCount,
+                                                    int threadCount) {
+        return new ParallelLatticeProcess(space, phenotype, random, tileCount, sweepCount, threadCount);
+    }
+
+    /**
+     * Returns the largest number of tiles into which a lattice space
+     * may be partitioned, with every slab at least {@link
+     * #MIN_SLAB_THICKNESS} lattice layers thick.
+     *
+     * @param space the spatial structure of the cellular population.
+     *
+     * @return the maximum tile count for the specified space (at least
+     * one).
+     */
+    public static int maxTileCount(Space space) {
+        return Math.max(1, space.size() / (MIN_SLAB_THICKNESS * computeLayerSize(space)));
+    }
+
+    private static int computeLayerSize(Space space) {
+        //
+        // Cells are indexed by position, so the neighbors of an
+        // interior cell span one lattice layer (a row or plane) on
+        // each side; cells on the edges of a layer reach further
+        // across the periodic boundaries, so the layer size is the
+        // smallest span of any cell...
+        //
+        int size = space.size();
+        int layerSize = size;
+        int[] neighbors = new int[space.maxNeighborCount()];
+
+        for (int index = 0; index < size; ++index) {
+            int count = space.getNeighborIndexes(index, neighbors);
+            int span = 0;
+
+            for (int k = 0; k < count; ++k) {
+                int distance = Math.abs(neighbors[k] - index);
+                span = Math.max(span, Math.min(distance, size - distance));
+            }
+
+            if (span > 0)
+                layerSize = Math.min(layerSize, span);
+        }
+
+        return layerSize;
+    }
+
+    private static int resolveTileCount(Space space) {
+        if (JamProperties.isSet(TILE_COUNT_PROPERTY))
+            return JamProperties.getRequiredInt(TILE_COUNT_PROPERTY);
+
+        //
+        // An even number of slabs on a periodic lattice requires only
+        // two colors...
+        //
+        int tileCount = maxTileCount(space);
+
+        if (tileCount > 1 && tileCount % 2 == 1)
+            --tileCount;
+
+        return tileCount;
+    }
+
+    private static int resolveSweepCount() {
+        return JamProperties.getOptionalInt(SWEEP_COUNT_PROPERTY, DEFAULT_SWEEP_COUNT);
+    }
+
+    private static int resolveThreadCount() {
+        return JamProperties.getOptionalInt(THREAD_COUNT_PROPERTY, Runtime.getRuntime().availableProcessors());
+    }
+
+    private Tile[] createTiles(int tileCount) {
+        Tile[] tiles = new Tile[tileCount];
+
+        for (int tile = 0; tile < tileCount; ++tile)
+            tiles[tile] = new Tile(tileStart(tile, tileCount), tileStart(tile + 1, tileCount), splitRandom());
+
+        return tiles;
+    }
+
+    private int tileStart(int tile, int tileCount) {
+        return (int) ((long) tile * space.size() / tileCount);
+    }
+
+    private int tileOf(int index) {
+        //
+        // The inverse of tileStart(): the largest tile whose start
+        // does not exceed the index...
+        //
+        return (int) ((((long) index + 1) * tiles.length - 1) / space.size());
+    }
+
+    private RandomGenerator splitRandom() {
+        if (random instanceof MoranRandom)
+            return ((MoranRandom) random).split();
+        else
+            return MoranRandom.create(random.nextLong());
+    }
+
+    private int[][] colorTiles() {
+        //
+        // Color the tile adjacency graph greedily, in tile order...
+        //
+        BitSet[] adjacent = new BitSet[tiles.length];
+        int[] neighbors = new int[space.maxNeighborCount()];
+
+        for (int tile = 0; tile < tiles.length; ++tile)
+            adjacent[tile] = new BitSet(tiles.length);
+
+        for (int index = 0; index < space.size(); ++index) {
+            int tile = tileOf(index);
+            int count = space.getNeighborIndexes(index, neighbors);
+
+            for (int k = 0; k < count; ++k) {
+                int other = tileOf(neighbors[k]);
+
+                if (other != tile) {
+                    adjacent[tile].set(other);
+                    adjacent[other].set(tile);
+                }
+            }
+        }
+
+        int[] colors = new int[tiles.length];
+        List<List<Integer>> classes = new ArrayList<List<Integer>>();
+
+        for (int tile = 0; tile < tiles.length; ++tile) {
+            BitSet used = new BitSet();
+
+            for (int other = adjacent[tile].nextSetBit(0); other >= 0 && other < tile; other = adjacent[tile].nextSetBit(other + 1))
+                used.set(colors[other]);
+
+            colors[tile] = used.nextClearBit(0);
+
+            if (colors[tile] == classes.size())
+                classes.add(new ArrayList<Integer>());
+
+            classes.get(colors[tile]).add(tile);
+        }
+
+        int[][] colorTiles = new int[classes.size()][];
+
+        for (int color = 0; color < colorTiles.length; ++color)
+            colorTiles[color] = classes.get(color).stream().mapToInt(Integer::intValue).toArray();
+
+        return colorTiles;
+    }
+
+    private double computeMeanFitness() {
+        double total = 0.0;
+
+        for (double fitness : cellFitness)
+            total += fitness;
+
+        return total / cellFitness.length;
+    }
+
+    /**
+     * Returns the number of tiles into which the population has been
+     * partitioned.
+     *
+     * @return the number of tiles.
+     */
+    public int countTiles() {
+        return tiles.length;
+    }
+
+    /**
+     * Returns the number of colors assigned to the tiles, which is the
+     * number of tile groups updated in sequence on each sweep.
+     *
+     * @return the number of tile colors.
+     */
+    public int countColors() {
+        return colorTiles.length;
+    }
+
+    /**
+     * Executes one cycle of cell death and division for each member
+     * of the cell population.
+     */
+    @Override public void executeTimeStep() {
+        assignCycles();
+        assignColorOrder();
+
+        for (int sweep = 0; sweep < sweepCount; ++sweep) {
+            for (int color : colorOrder[sweep]) {
+                executeSweep(sweep, colorTiles[color]);
+                synchronizeSpace(colorTiles[color]);
+            }
+        }
+
+        for (Tile tile : tiles) {
+            timeClock += tile.timeIncrement;
+            tile.timeIncrement = 0.0;
+        }
+
+        meanFitness = computeMeanFitness();
+    }
+
+    private void assignCycles() {
+        //
+        // Distribute the N dead cells among the sweeps and tiles as a
+        // multinomial deviate, by conditional binomial deviates...
+        //
+        long remainingCycles = space.size();
+        long remainingWeight = (long) space.size() * sweepCount;
+
+        for (int sweep = 0; sweep < sweepCount; ++sweep) {
+            for (Tile tile : tiles) {
+                long cycles = Deviates.binomial(random, remainingCycles, (double) tile.size() / remainingWeight);
+
+                tile.sweepCycles[sweep] = (int) cycles;
+                remainingCycles -= cycles;
+                remainingWeight -= tile.size();
+            }
+        }
+    }
+
+    private void assignColorOrder() {
+        for (int[] order : colorOrder) {
+            for (int color = 0; color < order.length; ++color)
+                order[color] = color;
+
+            for (int k = order.length - 1; k > 0; --k) {
+                int j = random.nextInt(k + 1);
+                int swap = order[k];
+
+                order[k] = order[j];
+                order[j] = swap;
+            }
+        }
+    }
+
+    private void executeSweep(int sweep, int[] tileIndexes) {
+        if (threadCount == 1 || tileIndexes.length == 1) {
+            for (int tile : tileIndexes)
+                tiles[tile].executeSweep(sweep);
+
+            return;
+        }
+
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(tileIndexes.length);
+
+        for (int tile : tileIndexes) {
+            final Tile target = tiles[tile];
+
+            tasks.add(() -> {
+                    target.executeSweep(sweep);
+                    return null;
+                });
+        }
+
+        try {
+            for (Future<Object> future : pool(threadCount).invokeAll(tasks))
+                future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw JamException.runtime("Interrupted while executing lattice tiles.");
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            else
+                throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    private static ForkJoinPool pool(int threadCount) {
+        return pools.computeIfAbsent(threadCount, ForkJoinPool::new);
+    }
+
+    private void synchronizeSpace(int[] tileIndexes) {
+        //
+        // Replay the divisions on the calling thread (which owns the
+        // cell indexes and lineage of the trial); the divisions in
+        // different tiles of one color are independent, so the tiles
+        // may be replayed in any order...
+        //
+        for (int tile : tileIndexes)
+            tiles[tile].replay();
+    }
+
+    @Override public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    @Override public double getTimeClock() {
+        return timeClock;
+    }
+
+    @Override public Map<Genotype, Integer> countGenotypes() {
+        Map<Genotype, Integer> census = new HashMap<Genotype, Integer>();
+
+        for (Genotype genotype : genotypes)
+            census.merge(genotype, 1, Integer::sum);
+
+        return census;
+    }
+
+    @Override public SpaceView viewSpace() {
+        return space;
+    }
+}
@@ -0,0 +1,58 @@
+package moran.driver;
+
+import java.util.random.RandomGenerator;
+
+import moran.scalar.ScalarCell;
+import moran.scalar.ScalarGenotype;
+import moran.scalar.ScalarPhenotype;
+import moran.space.Space;
+
+/**
+ * Executes the spatial Moran process for the scalar fitness model.
+ * Scalar genotypes never mutate, so each daughter inherits the
+ * genotype and fitness of its parent.  Scalar cells that mutate in
+ * their own {@code divide()} method do not divide by genotype and
+ * are simulated by the general {@link MoranProcess} instead.
+ */
+final class ScalarKernel extends MoranKernel {
+    private final ScalarGenotype[] genotypes;
+
+    private ScalarKernel(Space space, RandomGenerator random, ScalarGenotype[] genotypes) {
+        super(space, random, computeFitness(genotypes));
+        this.genotypes = genotypes;
+    }
+
+    static ScalarKernel create(Space space, RandomGenerator random) {
+        return new ScalarKernel(space, random, copyGenotypes(space));
+    }
+
+    private static ScalarGenotype[] copyGenotypes(Space space) {
+        ScalarGenotype[] genotypes = new ScalarGenotype[space.size()];
+
+        for (int index = 0; index < genotypes.length; ++index)
+            genotypes[index] = (ScalarGenotype) space.getGenotype(index);
+
+        return genotypes;
+    }
+
+    private static double[] computeFitness(ScalarGenotype[] genotypes) {
+        double[] fitness = new double[genotypes.length];
+
+        for (int index = 0; index < fitness.length; ++index)
+            fitness[index] = ScalarPhenotype.getScalarFitness(genotypes[index]);
+
+        return fitness;
+    }
+
+    @Override double divide(int parentIndex, int deadIndex) {
+        ScalarGenotype daughterGenotype = genotypes[parentIndex];
+
+        if (cellObjects)
+            replace(deadIndex, ((ScalarCell) space.get(parentIndex)).divide(daughterGenotype));
+        else
+            space.divide(parentIndex, deadIndex, daughterGenotype);
+
+        genotypes[deadIndex] = daughterGenotype;
+        return cellFitness[parentIndex];
+    }
+}
@@ -0,0 +1,66 @@
+package moran.driver;
+
+import java.util.random.RandomGenerator;
+
+import moran.segment.SegmentCNCell;
+import moran.segment.SegmentCNGenotype;
+import moran.segment.SegmentCNPhenotype;
+import moran.space.Space;
+
+/**
+ * Executes the spatial Moran process for the segment copy-number
+ * model.
+ */
+final class SegmentCNKernel extends MoranKernel {
+    private final SegmentCNPhenotype phenotype;
+    private final SegmentCNGenotype[] genotypes;
+
+    private SegmentCNKernel(Space space,
+                            SegmentCNPhenotype phenotype,
+                            RandomGenerator random,
+                            SegmentCNGenotype[] genotypes) {
+        super(space, random, computeFitness(phenotype, genotypes));
+
+        this.phenotype = phenotype;
+        this.genotypes = genotypes;
+    }
+
+    static SegmentCNKernel create(Space space, SegmentCNPhenotype phenotype, RandomGenerator random) {
+        return new SegmentCNKernel(space, phenotype, random, copyGenotypes(space));
+    }
+
+    private static SegmentCNGenotype[] copyGenotypes(Space space) {
+        SegmentCNGenotype[] genotypes = new SegmentCNGenotype[space.size()];
+
+        for (int index = 0; index < genotypes.length; ++index)
+            genotypes[index] = (SegmentCNGenotype) space.getGenotype(index);
+
+        return genotypes;
+    }
+
+    private static double[] computeFitness(SegmentCNPhenotype phenotype, SegmentCNGenotype[] genotypes) {
+        double[] fitness = new double[genotypes.length];
+
+        for (int index = 0; index < fitness.length; ++index)
+            fitness[index] = phenotype.getCNFitness(genotypes[index]);
+
+        return fitness;
+    }
+
+    @Override double divide(int parentIndex, int deadIndex) {
+        SegmentCNGenotype parentGenotype = genotypes[parentIndex];
+        SegmentCNGenotype daughterGenotype = parentGenotype.divide(random);
+
+        if (cellObjects)
+            replace(deadIndex, ((SegmentCNCell) space.get(parentIndex)).divide(daughterGenotype));
+        else
+            space.divide(parentIndex, deadIndex, daughterGenotype);
+
+        genotypes[deadIndex] = daughterGenotype;
+
+        if (daughterGenotype == parentGenotype)
+            return cellFitness[parentIndex];
+        else
+            return phenotype.getCNFitness(daughterGenotype);
+    }
+}
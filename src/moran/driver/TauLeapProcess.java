@@ -0,0 +1,503 @@
+
+package moran.driver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import jam.app.JamProperties;
+
+import moran.cell.Genotype;
+import moran.cell.Phenotype;
+import moran.space.SpaceView;
+
+/**
+ * Approximates the evolution of a very large well-mixed cellular
+ * population by aggregating many cycles of cell death and division
+ * into each update (tau-leaping).
+ *
+ * <p>Over a leap of {@code L} cycles the clone sizes are held fixed,
+ * so the deaths are a multinomial sample of {@code L} cells drawn in
+ * proportion to the clone sizes and the divisions a multinomial
+ * sample drawn in proportion to the clone fitness.  The number of
+ * mutant daughters of each clone is a Poisson arrival count with a
+ * mean equal to its divisions times its mutation probability; each
+ * mutant genotype is drawn individually from the parent genotype.
+ *
+ * <p>The leap size is chosen so that the expected change and the
+ * standard deviation of every clone size stay below the fraction
+ * {@code moran.driver.tauLeapTolerance} of the clone size (or one
+ * cell, for small clones).  When that bound falls below a minimum
+ * leap the engine executes single cycles exactly, and a leap that
+ * would drive a clone size negative is halved and redrawn.
+ *
+ * <p>Every time step still comprises exactly {@code N} cycles, so the
+ * reports keyed by time step are directly comparable to those of the
+ * exact engines.
+ */
+public final class TauLeapProcess implements MoranEngine {
+    private final int size;
+    private final double tolerance;
+    private final Phenotype phenotype;
+    private final RandomGenerator random;
+
+    // The clone table: the first cloneCount elements are occupied;
+    // clones that lose their last cell are removed at the end of each
+    // update...
+    private Genotype[] genotypes;
+    private long[] cloneSizes;
+    private double[] cellFitness;
+    private double[] mutationProb;
+    private int cloneCount = 0;
+
+    private final Map<Genotype, Integer> clonePositions = new HashMap<Genotype, Integer>();
+
+    // Per-leap work arrays...
+    private long[] deaths;
+    private long[] births;
+    private long[] mutants;
+
+    private double timeClock = 0.0;
+    private double meanFitness;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Leaps shorter than this are executed as exact single cycles...
+    private static final long MIN_LEAP = 10;
+
+    // The number of exact cycles executed before the leap size is
+    // reconsidered...
+    private static final long EXACT_BATCH = 100;
+
+    /**
+     * Name of the system property that defines the relative error
+     * tolerance for the clone sizes over one leap.
+     */
+    public static final String TOLERANCE_PROPERTY = "moran.driver.tauLeapTolerance";
+
+    /**
+     * Default relative error tolerance.
+     */
+    public static final double DEFAULT_TOLERANCE = 0.03;
+
+    private TauLeapProcess(Map<? extends Genotype, Integer> census, Phenotype phenotype, RandomGenerator random, double tolerance) {
+        if (tolerance <= 0.0 || tolerance >= 1.0)
+            throw new IllegalArgumentException("The tolerance must lie in the open interval (0, 1).");
+
+        this.phenotype = phenotype;
+        this.random = random;
+        this.tolerance = tolerance;
+
+        allocate(Math.max(INITIAL_CAPACITY, census.size()));
+
+        long total = 0;
+
+        for (Map.Entry<? extends Genotype, Integer> entry : census.entrySet()) {
+            int cloneSize = entry.getValue();
+
+            if (cloneSize < 0)
+                throw new IllegalArgumentException("Negative clone size.");
+
+            if (cloneSize > 0) {
+                int clone = register(entry.getKey());
+                cloneSizes[clone] = cloneSize;
+                total += cloneSize;
+            }
+        }
+
+        if (total < 2)
+            throw new IllegalArgumentException("A well-mixed population requires at least two cells.");
+
+        if (total > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Population size exceeds the maximum.");
+
+        this.size = (int) total;
+        this.meanFitness = computeTotalFitness() / size;
+    }
+
+    private void allocate(int capacity) {
+        genotypes = new Genotype[capacity];
+        cloneSizes = new long[capacity];
+        cellFitness = new double[capacity];
+        mutationProb = new double[capacity];
+        deaths = new long[capacity];
+        births = new long[capacity];
+        mutants = new long[capacity];
+    }
+
+    /**
+     * Initializes a new tau-leaping process for a population founded
+     * by identical cells, with the error tolerance defined by system
+     * properties.
+     *
+     * @param founder the genotype carried by every founder cell.
+     *
+     * @param size the number of cells in the population.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @param random the source of random deviates for the process.
+     *
+     * @return the initialized tau-leaping process.
+     */
+    public static TauLeapProcess initialize(Genotype founder, int size, Phenotype phenotype, RandomGenerator random) {
+        return initialize(Map.of(founder, size), phenotype, random, resolveTolerance());
+    }
+
+    /**
+     * Initializes a new tau-leaping process for a population with
+     * specified clone sizes.
+     *
+     * @param census the number of cells carrying each genotype.
+     *
+     * @param phenotype the cellular fitness (phenotype) model.
+     *
+     * @param random the source of random deviates for the process.
+     *
+     * @param tolerance the relative error tolerance for the clone
+     * sizes over one leap.
+     *
+     * @return the initialized tau-leaping process.
+     *
+     * @throws IllegalArgumentException unless the population contains
+     * at least two cells and the tolerance lies in {@code (0, 1)}.
+     */
+    public static TauLeapProcess initialize(Map<? extends Genotype, Integer> census,
+                                            Phenotype phenotype,
+                                            RandomGenerator random,
+                                            double tolerance) {
+        return new TauLeapProcess(census, phenotype, random, tolerance);
+    }
+
+    private static double resolveTolerance() {
+        if (JamProperties.isSet(TOLERANCE_PROPERTY))
+            return Double.parseDouble(JamProperties.getRequired(TOLERANCE_PROPERTY));
+        else
+            return DEFAULT_TOLERANCE;
+    }
+
+    private int register(Genotype genotype) {
+        Integer position = clonePositions.get(genotype);
+
+        if (position != null)
+            return position;
+
+        if (cloneCount == genotypes.length)
+            grow();
+
+        int newPosition = cloneCount++;
+
+        genotypes[newPosition] = genotype;
+        cloneSizes[newPosition] = 0;
+        cellFitness[newPosition] = phenotype.getFitness(genotype);
+        mutationProb[newPosition] = genotype.getMutationProbability();
+        clonePositions.put(genotype, newPosition);
+
+        return newPosition;
+    }
+
+    private void grow() {
+        int newLength = 2 * genotypes.length;
+
+        genotypes = Arrays.copyOf(genotypes, newLength);
+        cloneSizes = Arrays.copyOf(cloneSizes, newLength);
+        cellFitness = Arrays.copyOf(cellFitness, newLength);
+        mutationProb = Arrays.copyOf(mutationProb, newLength);
+        deaths = Arrays.copyOf(deaths, newLength);
+        births = Arrays.copyOf(births, newLength);
+        mutants = Arrays.copyOf(mutants, newLength);
+    }
+
+    private void removeExtinctClones() {
+        //
+        // Move the last clone into each vacated position...
+        //
+        int position = 0;
+
+        while (position < cloneCount) {
+            if (cloneSizes[position] > 0) {
+                ++position;
+                continue;
+            }
+
+            clonePositions.remove(genotypes[position]);
+
+            int last = --cloneCount;
+
+            if (position < last) {
+                genotypes[position] = genotypes[last];
+                cloneSizes[position] = cloneSizes[last];
+                cellFitness[position] = cellFitness[last];
+                mutationProb[position] = mutationProb[last];
+                clonePositions.put(genotypes[position], position);
+            }
+
+            genotypes[last] = null;
+        }
+    }
+
+    private double computeTotalFitness() {
+        double total = 0.0;
+
+        for (int clone = 0; clone < cloneCount; ++clone)
+            total += cloneSizes[clone] * cellFitness[clone];
+
+        return total;
+    }
+
+    /**
+     * Returns the relative error tolerance for the clone sizes over
+     * one leap.
+     *
+     * @return the relative error tolerance.
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Returns the number of distinct genotypes (clones) in the current
+     * population.
+     *
+     * @return the number of distinct genotypes in the population.
+     */
+    public int countClones() {
+        return cloneCount;
+    }
+
+    /**
+     * Returns the number of cells in the population.
+     *
+     * @return the number of cells in the population.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Executes {@code N} cycles of cell death and division, where
+     * {@code N} is the population size.
+     */
+    @Override public void executeTimeStep() {
+        long remaining = size;
+
+        while (remaining > 0) {
+            long leap = Math.min(remaining, selectLeap());
+
+            if (leap < MIN_LEAP)
+                remaining -= executeExactCycles(Math.min(remaining, EXACT_BATCH));
+            else
+                remaining -= executeLeap(leap);
+        }
+    }
+
+    private long selectLeap() {
+        //
+        // Per cycle, the size of clone "i" increases by one with
+        // probability b_i = f_i n_i / F and decreases by one with
+        // probability d_i = n_i / N, so over L cycles its expected
+        // change is L (b_i - d_i) and its variance about L (b_i + d_i);
+        // both are bounded by max(tolerance * n_i, 1)...
+        //
+        double totalFitness = computeTotalFitness();
+        double bound = Double.POSITIVE_INFINITY;
+
+        for (int clone = 0; clone < cloneCount; ++clone) {
+            double birthProb = cloneSizes[clone] * cellFitness[clone] / totalFitness;
+            double deathProb = (double) cloneSizes[clone] / size;
+
+            double drift = Math.abs(birthProb - deathProb);
+            double variance = birthProb + deathProb;
+            double limit = Math.max(tolerance * cloneSizes[clone], 1.0);
+
+            if (drift > 0.0)
+                bound = Math.min(bound, limit / drift);
+
+            if (variance > 0.0)
+                bound = Math.min(bound, limit * limit / variance);
+        }
+
+        return (long) Math.min(bound, Long.MAX_VALUE);
+    }
+
+    private long executeLeap(long leap) {
+        //
+        // Redraw the leap with half the size until no clone size
+        // would become negative...
+        //
+        while (!drawLeap(leap)) {
+            leap /= 2;
+
+            if (leap < MIN_LEAP)
+                return executeExactCycles(leap);
+        }
+
+        timeClock += Deviates.exponentialSum(random, leap) / (meanFitness * size);
+
+        for (int clone = 0; clone < cloneCount; ++clone)
+            cloneSizes[clone] += births[clone] - mutants[clone] - deaths[clone];
+
+        //
+        // Register the mutant daughters after the clone updates above,
+        // since new clones are appended to the table...
+        //
+        int parentCount = cloneCount;
+
+        for (int parent = 0; parent < parentCount; ++parent) {
+            Genotype parentGenotype = genotypes[parent];
+
+            for (long mutant = 0; mutant < mutants[parent]; ++mutant) {
+                // Registration may reallocate the clone table...
+                int daughter = register(parentGenotype.mutate(random));
+                ++cloneSizes[daughter];
+            }
+        }
+
+        removeExtinctClones();
+        meanFitness = computeTotalFitness() / size;
+
+        return leap;
+    }
+
+    private boolean drawLeap(long leap) {
+        double[] deathWeights = new double[cloneCount];
+        double[] birthWeights = new double[cloneCount];
+
+        for (int clone = 0; clone < cloneCount; ++clone) {
+            deathWeights[clone] = cloneSizes[clone];
+            birthWeights[clone] = cloneSizes[clone] * cellFitness[clone];
+        }
+
+        drawMultinomial(leap, deathWeights, deaths);
+        drawMultinomial(leap, birthWeights, births);
+
+        for (int clone = 0; clone < cloneCount; ++clone) {
+            mutants[clone] = Math.min(births[clone], Deviates.poisson(random, births[clone] * mutationProb[clone]));
+
+            if (cloneSizes[clone] + births[clone] - mutants[clone] - deaths[clone] < 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    private void drawMultinomial(long trials, double[] weights, long[] counts) {
+        //
+        // Draw each count from the binomial distribution conditioned
+        // on the counts already drawn...
+        //
+        double remainingWeight = 0.0;
+
+        for (int clone = 0; clone < cloneCount; ++clone)
+            remainingWeight += weights[clone];
+
+        long remainingTrials = trials;
+
+        for (int clone = 0; clone < cloneCount; ++clone) {
+            if (remainingTrials == 0 || remainingWeight <= 0.0) {
+                counts[clone] = 0;
+                continue;
+            }
+
+            double prob = Math.min(1.0, weights[clone] / remainingWeight);
+            long count = Deviates.binomial(random, remainingTrials, prob);
+
+            counts[clone] = count;
+            remainingTrials -= count;
+            remainingWeight -= weights[clone];
+        }
+
+        // Assign any trials left by round-off to the last clone with
+        // positive weight...
+        if (remainingTrials > 0) {
+            for (int clone = cloneCount - 1; clone >= 0; --clone) {
+                if (weights[clone] > 0.0) {
+                    counts[clone] += remainingTrials;
+                    break;
+                }
+            }
+        }
+    }
+
+    private long executeExactCycles(long cycleCount) {
+        for (long cycle = 0; cycle < cycleCount; ++cycle)
+            executeExactCycle();
+
+        removeExtinctClones();
+        meanFitness = computeTotalFitness() / size;
+
+        return cycleCount;
+    }
+
+    private void executeExactCycle() {
+        //
+        // The same cycle as the clone process, with linear searches
+        // over the (few) clones...
+        //
+        int deadClone = locate(cloneSizes, random.nextInt(size));
+        double deadFitness = cellFitness[deadClone];
+
+        double neighborTotal = computeTotalFitness() - deadFitness;
+        timeClock += random.nextExponential() / (neighborTotal / (size - 1)) / size;
+
+        double target = random.nextDouble() * neighborTotal;
+        int parentClone = cloneCount - 1;
+
+        for (int clone = 0; clone < cloneCount; ++clone) {
+            long eligible = (clone == deadClone) ? cloneSizes[clone] - 1 : cloneSizes[clone];
+            double weight = eligible * cellFitness[clone];
+
+            if (weight > 0.0) {
+                parentClone = clone;
+
+                if (target < weight)
+                    break;
+
+                target -= weight;
+            }
+        }
+
+        int daughterClone = register(genotypes[parentClone].divide(random));
+
+        --cloneSizes[deadClone];
+        ++cloneSizes[daughterClone];
+    }
+
+    private int locate(long[] cloneSizes, long cellIndex) {
+        for (int clone = 0; clone < cloneCount; ++clone) {
+            if (cellIndex < cloneSizes[clone])
+                return clone;
+
+            cellIndex -= cloneSizes[clone];
+        }
+
+        throw new IllegalStateException("Cell index exceeds the population size.");
+    }
+
+    @Override public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    @Override public double getTimeClock() {
+        return timeClock;
+    }
+
+    @Override public Map<Genotype, Integer> countGenotypes() {
+        Map<Genotype, Integer> census = new HashMap<Genotype, Integer>(cloneCount);
+
+        for (int clone = 0; clone < cloneCount; ++clone)
+            census.put(genotypes[clone], (int) cloneSizes[clone]);
+
+        return census;
+    }
+
+    /**
+     * The tau-leaping process does not track individual cells.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override public SpaceView viewSpace() {
+        throw new UnsupportedOperationException("The tau-leaping process does not track individual cells.");
+    }
+}
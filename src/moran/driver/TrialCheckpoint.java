@@ -0,0 +1,416 @@
+package moran.driver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import moran.cell.Cell;
+import moran.cell.Genotype;
+import moran.cell.GenotypeCodec;
+import moran.report.MoranReport;
+import moran.space.Space;
+import moran.space.SpaceView;
+
+/**
+ * Records the complete state of a cell-based simulation trial at the
+ * end of a time step, so that the trial may be resumed after an
+ * interruption and continue exactly as it would have without one.
+ *
+ * <p>A checkpoint contains the trial index and time step, the time
+ * clock and mean fitness of the engine, the complete state of the
+ * random number stream, the genotype and founder index of every
+ * member of the population, and the data accumulated by each report.
+ * Each distinct genotype is written once (by a {@link GenotypeCodec})
+ * and referenced by the members that carry it.  Cell indexes and the
+ * ancestry between each member and its founder are not recorded, so
+ * every restored member is a daughter of its founder cell.
+ *
+ * <p>Checkpoint files are written to a temporary file that is forced
+ * to the storage device and then atomically renamed, so an existing
+ * checkpoint is replaced only by a complete one.
+ */
+public final class TrialCheckpoint {
+    private final int trialIndex;
+    private final int timeStep;
+    private final double timeClock;
+    private final double meanFitness;
+
+    // The serialized state of the random number stream, so that each
+    // restored stream starts from the same state...
+    private final byte[] randomState;
+
+    // The genotype and founder index of each member, indexed by its
+    // position in the population...
+    private final Genotype[] genotypes;
+    private final long[] founderIndexes;
+
+    // The data written by each report, in registration order...
+    private final List<byte[]> reportData;
+
+    private static final int MAGIC = 0x4D4F524E;
+    private static final int VERSION = 1;
+
+    private TrialCheckpoint(int trialIndex,
+                            int timeStep,
+                            double timeClock,
+                            double meanFitness,
+                            byte[] randomState,
+                            Genotype[] genotypes,
+                            long[] founderIndexes,
+                            List<byte[]> reportData) {
+        this.trialIndex = trialIndex;
+        this.timeStep = timeStep;
+        this.timeClock = timeClock;
+        this.meanFitness = meanFitness;
+        this.randomState = randomState;
+        this.genotypes = genotypes;
+        this.founderIndexes = founderIndexes;
+        this.reportData = reportData;
+    }
+
+    /**
+     * Name of the system property that defines the number of time
+     * steps between checkpoints (zero, the default, disables
+     * step-based checkpoints).
+     */
+    public static final String INTERVAL_PROPERTY = "moran.driver.checkpointInterval";
+
+    /**
+     * Name of the system property that defines the wall-clock time
+     * between checkpoints, in seconds (zero, the default, disables
+     * time-based checkpoints).
+     */
+    public static final String PERIOD_PROPERTY = "moran.driver.checkpointPeriod";
+
+    /**
+     * Name of the system property that specifies a checkpoint file
+     * from which to resume an interrupted simulation.
+     */
+    public static final String RESUME_FROM_PROPERTY = "moran.driver.resumeFrom";
+
+    /**
+     * Base name of the checkpoint file in the report directory.
+     */
+    public static final String FILE_NAME = "checkpoint.bin";
+
+    /**
+     * Records the state of a simulation trial at the end of its latest
+     * completed time step; the trial must be executing on the calling
+     * thread so that the reports describe it.
+     *
+     * @param trial the trial to record.
+     *
+     * @param reports the reports registered with the simulation.
+     *
+     * @return the checkpoint for the current state of the trial.
+     *
+     * @throws IllegalStateException unless the trial is driven by a
+     * {@link MoranRandom} stream.
+     *
+     * @throws UnsupportedOperationException unless the engine tracks
+     * individual cells.
+     */
+    public static TrialCheckpoint capture(MoranTrial trial, List<? extends MoranReport> reports) {
+        RandomGenerator random = trial.getRandom();
+
+        if (!(random instanceof MoranRandom))
+            throw new IllegalStateException("Checkpoints require a MoranRandom stream.");
+
+        SpaceView space = trial.viewSpace();
+
+        Genotype[] genotypes = new Genotype[space.size()];
+        long[] founderIndexes = new long[space.size()];
+
+        for (int index = 0; index < genotypes.length; ++index) {
+            Cell cell = space.get(index);
+
+            genotypes[index] = cell.getGenotype();
+            founderIndexes[index] = cell.getFounderIndex();
+        }
+
+        try {
+            ByteArrayOutputStream randomBytes = new ByteArrayOutputStream();
+            ((MoranRandom) random).writeState(new DataOutputStream(randomBytes));
+
+            List<byte[]> reportData = new ArrayList<byte[]>(reports.size());
+
+            for (MoranReport report : reports) {
+                ByteArrayOutputStream reportBytes = new ByteArrayOutputStream();
+                report.writeCheckpoint(new DataOutputStream(reportBytes));
+                reportData.add(reportBytes.toByteArray());
+            }
+
+            return new TrialCheckpoint(trial.getTrialIndex(),
+                                       trial.getTimeStep(),
+                                       trial.getTimeClock(),
+                                       trial.getMeanFitness(),
+                                       randomBytes.toByteArray(),
+                                       genotypes,
+                                       founderIndexes,
+                                       reportData);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads a checkpoint file.
+     *
+     * @param file the checkpoint file to read.
+     *
+     * @param codec the codec for the genotypes in the population.
+     *
+     * @return the checkpoint stored in the file.
+     *
+     * @throws UncheckedIOException if an I/O error occurs or the file
+     * is not a valid checkpoint.
+     */
+    public static TrialCheckpoint read(File file, GenotypeCodec codec) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return read(new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel))), codec);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static TrialCheckpoint read(DataInputStream input, GenotypeCodec codec) throws IOException {
+        if (input.readInt() != MAGIC)
+            throw new IOException("Not a checkpoint file.");
+
+        if (input.readInt() != VERSION)
+            throw new IOException("Unsupported checkpoint version.");
+
+        int trialIndex = input.readInt();
+        int timeStep = input.readInt();
+        double timeClock = input.readDouble();
+        double meanFitness = input.readDouble();
+        byte[] randomState = readBytes(input);
+
+        Genotype[] genotypeTable = new Genotype[input.readInt()];
+
+        for (int id = 0; id < genotypeTable.length; ++id)
+            genotypeTable[id] = codec.read(input);
+
+        Genotype[] genotypes = new Genotype[input.readInt()];
+        long[] founderIndexes = new long[genotypes.length];
+
+        for (int index = 0; index < genotypes.length; ++index) {
+            genotypes[index] = genotypeTable[input.readInt()];
+            founderIndexes[index] = input.readLong();
+        }
+
+        int reportCount = input.readInt();
+        List<byte[]> reportData = new ArrayList<byte[]>(reportCount);
+
+        for (int k = 0; k < reportCount; ++k)
+            reportData.add(readBytes(input));
+
+        return new TrialCheckpoint(trialIndex,
+                                   timeStep,
+                                   timeClock,
+                                   meanFitness,
+                                   randomState,
+                                   genotypes,
+                                   founderIndexes,
+                                   reportData);
+    }
+
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes this checkpoint to a file, replacing any existing file
+     * atomically.
+     *
+     * @param file the checkpoint file to write.
+     *
+     * @param codec the codec for the genotypes in the population.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    public void write(File file, GenotypeCodec codec) {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp,
+                                                        StandardOpenOption.CREATE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING,
+                                                        StandardOpenOption.WRITE)) {
+                DataOutputStream output =
+                    new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+                write(output, codec);
+                output.flush();
+                channel.force(true);
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void write(DataOutputStream output, GenotypeCodec codec) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(trialIndex);
+        output.writeInt(timeStep);
+        output.writeDouble(timeClock);
+        output.writeDouble(meanFitness);
+        writeBytes(output, randomState);
+
+        //
+        // Write each distinct genotype once, in order of appearance,
+        // and then the table identifier of each member...
+        //
+        Map<Genotype, Integer> genotypeIds = new HashMap<Genotype, Integer>();
+        List<Genotype> genotypeTable = new ArrayList<Genotype>();
+
+        for (Genotype genotype : genotypes)
+            if (genotypeIds.putIfAbsent(genotype, genotypeTable.size()) == null)
+                genotypeTable.add(genotype);
+
+        output.writeInt(genotypeTable.size());
+
+        for (Genotype genotype : genotypeTable)
+            codec.write(output, genotype);
+
+        output.writeInt(genotypes.length);
+
+        for (int index = 0; index < genotypes.length; ++index) {
+            output.writeInt(genotypeIds.get(genotypes[index]));
+            output.writeLong(founderIndexes[index]);
+        }
+
+        output.writeInt(reportData.size());
+
+        for (byte[] data : reportData)
+            writeBytes(output, data);
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Restores the recorded population into the founder population
+     * created at the start of the trial (see {@link
+     * Space#restore(Genotype[], long[])}).
+     *
+     * @param space the founder population created for the trial.
+     */
+    public void restore(Space space) {
+        space.restore(genotypes.clone(), founderIndexes.clone());
+    }
+
+    /**
+     * Restores the data accumulated by each report; the restored trial
+     * must be executing on the calling thread.
+     *
+     * @param reports the reports registered with the simulation, in
+     * the order of their registration when this checkpoint was
+     * written.
+     *
+     * @throws IllegalArgumentException unless the number of reports
+     * matches the number recorded in this checkpoint.
+     *
+     * @throws UncheckedIOException if the report data is invalid.
+     */
+    public void restore(List<? extends MoranReport> reports) {
+        if (reports.size() != reportData.size())
+            throw new IllegalArgumentException("The registered reports do not match the checkpoint.");
+
+        try {
+            for (int k = 0; k < reports.size(); ++k)
+                reports.get(k).readCheckpoint(new DataInputStream(new ByteArrayInputStream(reportData.get(k))));
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns a new random number stream in the recorded state; every
+     * stream returned by this method draws the same deviates.
+     *
+     * @return a new random number stream in the recorded state.
+     */
+    public MoranRandom restoreRandom() {
+        try {
+            return MoranRandom.readState(new DataInputStream(new ByteArrayInputStream(randomState)));
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns the index of the recorded trial.
+     *
+     * @return the index of the recorded trial.
+     */
+    public int getTrialIndex() {
+        return trialIndex;
+    }
+
+    /**
+     * Returns the index of the latest completed time step.
+     *
+     * @return the index of the latest completed time step.
+     */
+    public int getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * Returns the recorded time clock.
+     *
+     * @return the recorded time clock.
+     */
+    public double getTimeClock() {
+        return timeClock;
+    }
+
+    /**
+     * Returns the recorded mean fitness.
+     *
+     * @return the recorded mean fitness.
+     */
+    public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    /**
+     * Returns the number of members in the recorded population.
+     *
+     * @return the number of members in the recorded population.
+     */
+    public int size() {
+        return genotypes.length;
+    }
+}
@@ -0,0 +1,223 @@
+
+package moran.driver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jam.app.JamLogger;
+import jam.app.JamProperties;
+import jam.lang.JamException;
+
+/**
+ * Records the completed trials of a resumable simulation in the
+ * report directory, so that a restarted simulation skips them.
+ *
+ * <p>The manifest is an append-only text file: the first line holds
+ * the base random seed, and each following line holds the index of
+ * one trial whose report output has been written durably.  Every line
+ * is forced to the storage device as it is appended.  A final line
+ * without its terminating newline (left by an interrupted write) is
+ * ignored, so the manifest never lists a trial whose completion was
+ * not fully recorded.
+ *
+ * <p>The random number stream of each trial depends only on the base
+ * seed and the trial index, so a restarted simulation that adopts the
+ * recorded seed reproduces the remaining trials exactly as they would
+ * have executed in the interrupted simulation.
+ */
+public final class TrialManifest {
+    private final File file;
+    private final long randomSeed;
+    private final Set<Integer> completed = ConcurrentHashMap.newKeySet();
+
+    private static final String SEED_KEY = "randomSeed";
+    private static final String TRIAL_KEY = "trial";
+
+    private TrialManifest(File file, long randomSeed) {
+        this.file = file;
+        this.randomSeed = randomSeed;
+    }
+
+    /**
+     * Name of the system property that specifies whether to record
+     * completed trials in a manifest and write durable report output
+     * for each trial, so that an interrupted simulation may be
+     * restarted without repeating its completed trials.
+     */
+    public static final String RESUMABLE_PROPERTY = "moran.driver.resumable";
+
+    /**
+     * Base name of the manifest file in the report directory.
+     */
+    public static final String FILE_NAME = "trial-manifest.csv";
+
+    /**
+     * Determines whether resumable simulations have been requested.
+     *
+     * @return {@code true} iff completed trials should be recorded in
+     * a manifest.
+     */
+    public static boolean resolveResumable() {
+        return JamProperties.getOptionalBoolean(RESUMABLE_PROPERTY, false);
+    }
+
+    /**
+     * Opens the manifest for a simulation, reading the trials that
+     * were completed by an earlier (interrupted) execution or creating
+     * a new manifest if there was none.
+     *
+     * @param file the manifest file.
+     *
+     * @param randomSeed the base random seed for a new simulation.
+     *
+     * @param seedFixed whether the base random seed was assigned
+     * explicitly (and therefore must match the seed recorded in an
+     * existing manifest).
+     *
+     * @return the manifest for the simulation.
+     *
+     * @throws RuntimeException if an existing manifest is invalid or
+     * records a different fixed random seed.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    public static TrialManifest open(File file, long randomSeed, boolean seedFixed) {
+        String[] lines = readLines(file);
+
+        if (lines.length == 0)
+            return create(file, randomSeed);
+
+        TrialManifest manifest = new TrialManifest(file, parseSeed(file, lines[0]));
+
+        if (seedFixed && manifest.randomSeed != randomSeed)
+            throw JamException.runtime("The random seed does not match the trial manifest: [%s].", file);
+
+        for (int k = 1; k < lines.length; ++k)
+            manifest.completed.add(parseTrial(file, lines[k]));
+
+        if (!seedFixed)
+            JamLogger.info("Base random seed from the trial manifest: %d", manifest.randomSeed);
+
+        return manifest;
+    }
+
+    private static String[] readLines(File file) {
+        if (!file.exists())
+            return new String[0];
+
+        String text;
+
+        try {
+            text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        // Only the lines terminated by a newline are complete...
+        int end = text.lastIndexOf('\n');
+
+        if (end < 0)
+            return new String[0];
+        else
+            return text.substring(0, end).split("\n");
+    }
+
+    private static long parseSeed(File file, String line) {
+        return Long.parseLong(parseValue(file, line, SEED_KEY));
+    }
+
+    private static int parseTrial(File file, String line) {
+        return Integer.parseInt(parseValue(file, line, TRIAL_KEY));
+    }
+
+    private static String parseValue(File file, String line, String key) {
+        String[] fields = line.split(",");
+
+        if (fields.length != 2 || !fields[0].equals(key))
+            throw JamException.runtime("Invalid trial manifest line [%s] in [%s].", line, file);
+
+        return fields[1].trim();
+    }
+
+    private static TrialManifest create(File file, long randomSeed) {
+        TrialManifest manifest = new TrialManifest(file, randomSeed);
+        manifest.append(SEED_KEY, randomSeed, StandardOpenOption.TRUNCATE_EXISTING);
+        return manifest;
+    }
+
+    private void append(String key, long value, StandardOpenOption mode) {
+        byte[] bytes = (key + "," + value + "\n").getBytes(StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE,
+                                                    mode)) {
+            channel.write(ByteBuffer.wrap(bytes));
+            channel.force(true);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Records the completion of a trial; the trial must not be
+     * recorded until all of its report output has been written.
+     *
+     * @param trialIndex the index of the completed trial.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    public synchronized void markComplete(int trialIndex) {
+        if (completed.add(trialIndex))
+            append(TRIAL_KEY, trialIndex, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Determines whether a trial has been completed.
+     *
+     * @param trialIndex the index of the trial.
+     *
+     * @return {@code true} iff the manifest records the completion of
+     * the specified trial.
+     */
+    public boolean isComplete(int trialIndex) {
+        return completed.contains(trialIndex);
+    }
+
+    /**
+     * Returns the number of completed trials.
+     *
+     * @return the number of completed trials.
+     */
+    public int countComplete() {
+        return completed.size();
+    }
+
+    /**
+     * Returns the base random seed of the simulation.
+     *
+     * @return the base random seed recorded in the manifest.
+     */
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    /**
+     * Returns the manifest file.
+     *
+     * @return the manifest file.
+     */
+    public File getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,68 @@
+
+package moran.driver;
+
+import moran.space.Space;
+
+/**
+ * Samples neighbors in a well-mixed (zero-dimensional) space, where
+ * every cell except the dead cell is a neighbor, in {@code O(log N)}
+ * time per cell cycle.
+ *
+ * <p>The cell fitness is stored in a Fenwick tree that is updated
+ * incrementally when cells are replaced.  The dead cell is excluded
+ * from selection by drawing a target from the cumulative fitness of
+ * the other {@code N - 1} cells and skipping over the interval that
+ * belongs to the dead cell.
+ */
+final class WellMixedNeighborSampler extends NeighborSampler {
+    private final FitnessTree tree;
+
+    // The most recently gathered dead cell and the total fitness of
+    // all other cells...
+    private int deadIndex;
+    private double neighborTotal;
+
+    WellMixedNeighborSampler(Space space, double[] cellFitness) {
+        super(space, cellFitness);
+
+        if (space.size() < 2)
+            throw new IllegalArgumentException("A well-mixed space requires at least two cells.");
+
+        this.tree = FitnessTree.create(cellFitness);
+    }
+
+    @Override double gather(int deadIndex) {
+        this.deadIndex = deadIndex;
+        this.neighborTotal = tree.total() - cellFitness[deadIndex];
+
+        return neighborTotal / (space.size() - 1);
+    }
+
+    @Override int select(double uniform) {
+        double deadStart = tree.prefixSum(deadIndex);
+        double target = uniform * neighborTotal;
+
+        // Skip over the cumulative interval occupied by the dead
+        // cell...
+        if (target >= deadStart)
+            target += cellFitness[deadIndex];
+
+        int selected = tree.search(target);
+
+        if (selected != deadIndex)
+            return selected;
+
+        // Round-off error has placed the target on the boundary of
+        // the dead cell interval; take the adjacent cell...
+        return (deadIndex + 1 < space.size()) ? deadIndex + 1 : deadIndex - 1;
+    }
+
+    @Override void update(int index, double oldFitness, double newFitness) {
+        if (newFitness != oldFitness)
+            tree.add(index, newFitness - oldFitness);
+    }
+
+    @Override void refresh() {
+        tree.rebuild(cellFitness);
+    }
+}
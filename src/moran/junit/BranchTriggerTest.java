@@ -0,0 +1,160 @@
+package moran.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import moran.ab.ABCell;
+import moran.ab.ABConfig;
+import moran.ab.ABGenotype;
+import moran.ab.ABPhenotype;
+import moran.cell.Cell;
+import moran.driver.BranchTrigger;
+import moran.driver.MoranEngine;
+import moran.driver.MoranKernel;
+import moran.driver.MoranRandom;
+import moran.driver.MoranTrial;
+import moran.driver.TrialCheckpoint;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class BranchTriggerTest {
+    static {
+        System.setProperty(ABConfig.FITNESS_RATIO_PROPERTY, "1.25");
+        System.setProperty(ABConfig.MUTATION_RATE_PROPERTY, "0.001");
+    }
+
+    private static final int SIZE = 100;
+
+    private static Space createSpace() {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        Cell.resetIndex();
+
+        for (int k = 0; k < SIZE; ++k)
+            cells.add(ABCell.newA());
+
+        return Space.point(cells);
+    }
+
+    private static MoranTrial createTrial(int trialIndex, MoranRandom random) {
+        return MoranTrial.create(trialIndex, MoranKernel.initialize(createSpace(), ABPhenotype.INSTANCE, random), random);
+    }
+
+    private static MoranTrial runBurnIn(MoranRandom random) {
+        MoranTrial trial = createTrial(0, random);
+
+        while (!BranchTrigger.MUTANT.isReached(trial, Double.NaN))
+            trial.advance();
+
+        return trial;
+    }
+
+    private static MoranTrial branch(TrialCheckpoint burnIn, int trialIndex, MoranRandom random) {
+        Space space = createSpace();
+        burnIn.restore(space);
+
+        MoranEngine engine = MoranKernel.initialize(space, ABPhenotype.INSTANCE, random);
+        engine.restoreState(burnIn.getTimeClock(), burnIn.getMeanFitness());
+
+        return MoranTrial.branch(trialIndex, burnIn.getTrialIndex(), burnIn.getTimeStep(), engine, random);
+    }
+
+    @Test public void testStep() {
+        MoranTrial trial = createTrial(0, MoranRandom.create(1L));
+
+        for (int step = 0; step < 5; ++step) {
+            assertFalse(BranchTrigger.STEP.isReached(trial, 5.0));
+            trial.advance();
+        }
+
+        assertTrue(BranchTrigger.STEP.isReached(trial, 5.0));
+        assertTrue(BranchTrigger.NONE.isReached(trial, Double.NaN));
+    }
+
+    @Test public void testFitness() {
+        MoranTrial trial = createTrial(0, MoranRandom.create(2L));
+
+        assertTrue(BranchTrigger.FITNESS.isReached(trial, 1.0));
+        assertFalse(BranchTrigger.FITNESS.isReached(trial, 1.0001));
+    }
+
+    @Test public void testMutant() {
+        MoranTrial trial = runBurnIn(MoranRandom.create(3L));
+
+        assertTrue(trial.getTimeStep() > 0);
+        assertEquals(2, trial.countGenotypes().size());
+        assertTrue(trial.countGenotypes().containsKey(ABGenotype.B));
+    }
+
+    @Test public void testThreshold() {
+        assertTrue(BranchTrigger.STEP.requiresThreshold());
+        assertTrue(BranchTrigger.FITNESS.requiresThreshold());
+        assertFalse(BranchTrigger.MUTANT.requiresThreshold());
+        assertFalse(BranchTrigger.NONE.requiresThreshold());
+    }
+
+    @Test public void testBranch() {
+        MoranRandom parentRandom = MoranRandom.create(4L);
+        MoranTrial parent = runBurnIn(parentRandom);
+        TrialCheckpoint burnIn = TrialCheckpoint.capture(parent, List.of());
+
+        //
+        // Each child runs before the next is branched, as in the
+        // driver, because restoring a child restarts the cell indexes
+        // and lineage table of the thread...
+        //
+        MoranTrial child1 = branch(burnIn, 1, parentRandom.split());
+
+        assertEquals(0, child1.getParentIndex());
+        assertEquals(parent.getTimeStep(), child1.getBranchStep());
+        assertEquals(parent.getTimeStep(), child1.getTimeStep());
+        assertEquals(parent.getTimeClock(), child1.getTimeClock(), 0.0);
+
+        for (int step = 0; step < 5; ++step)
+            child1.advance();
+
+        MoranTrial child2 = branch(burnIn, 2, parentRandom.split());
+
+        assertEquals(parent.getMeanFitness(), child2.getMeanFitness(), 0.0);
+        assertEquals(parent.countGenotypes(), child2.countGenotypes());
+
+        for (int step = 0; step < 5; ++step)
+            child2.advance();
+
+        // The children draw from independent streams...
+        assertTrue(child1.getTimeClock() != child2.getTimeClock());
+        assertEquals(parent.getTimeStep(), child1.getBranchStep());
+
+        // The branches are reproducible from the burn-in seed...
+        MoranRandom replayRandom = MoranRandom.create(4L);
+        TrialCheckpoint replayBurnIn = TrialCheckpoint.capture(runBurnIn(replayRandom), List.of());
+        MoranTrial replay = branch(replayBurnIn, 1, replayRandom.split());
+
+        for (int step = 0; step < 5; ++step)
+            replay.advance();
+
+        assertEquals(child1.getTimeClock(), replay.getTimeClock(), 0.0);
+        assertEquals(child1.getMeanFitness(), replay.getMeanFitness(), 0.0);
+    }
+
+    @Test public void testUnbranched() {
+        MoranTrial trial = createTrial(5, MoranRandom.create(5L));
+
+        assertEquals(MoranTrial.NO_PARENT, trial.getParentIndex());
+        assertEquals(0, trial.getBranchStep());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParent() {
+        MoranRandom random = MoranRandom.create(6L);
+        MoranEngine engine = MoranKernel.initialize(createSpace(), ABPhenotype.INSTANCE, random);
+
+        MoranTrial.branch(1, MoranTrial.NO_PARENT, 0, engine, random);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.BranchTriggerTest");
+    }
+}
@@ -0,0 +1,119 @@
+package moran.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import moran.cell.Cell;
+import moran.cell.Genotype;
+import moran.driver.CloneProcess;
+import moran.driver.MoranEngine;
+import moran.driver.MoranProcess;
+import moran.driver.MoranRandom;
+import moran.scalar.ScalarCell;
+import moran.scalar.ScalarGenotype;
+import moran.scalar.ScalarPhenotype;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class CloneProcessTest {
+    private static final ScalarGenotype WILD = ScalarGenotype.REFERENCE;
+    private static final ScalarGenotype FIT  = ScalarGenotype.instance(1.5);
+
+    private static final int SIZE = 8;
+    private static final int TRIALS = 4000;
+
+    private static CloneProcess createClones(MoranRandom random) {
+        return CloneProcess.initialize(Map.of(WILD, SIZE / 2, FIT, SIZE / 2), ScalarPhenotype.INSTANCE, random);
+    }
+
+    private static MoranProcess createCells(MoranRandom random) {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        for (int k = 0; k < SIZE; ++k)
+            cells.add(new ScalarCell(k < SIZE / 2 ? 1.0 : 1.5));
+
+        return MoranProcess.initialize(Space.point(cells), ScalarPhenotype.INSTANCE, random);
+    }
+
+    private static int countFit(MoranEngine engine) {
+        //
+        // Scalar genotypes other than the reference are not shared,
+        // so the cell process reports each fit cell separately...
+        //
+        int count = 0;
+
+        for (Map.Entry<Genotype, Integer> entry : engine.countGenotypes().entrySet())
+            if (((ScalarGenotype) entry.getKey()).getFitness() > 1.0)
+                count += entry.getValue();
+
+        return count;
+    }
+
+    @Test public void testCensus() {
+        CloneProcess process = createClones(MoranRandom.create(11L));
+
+        assertEquals(SIZE, process.size());
+        assertEquals(2, process.countClones());
+        assertEquals(1.25, process.getMeanFitness(), 1.0E-12);
+
+        for (int step = 0; step < 5; ++step) {
+            process.executeTimeStep();
+
+            int fitCount = countFit(process);
+            int total = 0;
+
+            for (int count : process.countGenotypes().values())
+                total += count;
+
+            assertEquals(SIZE, total);
+            assertEquals(process.countClones(), process.countGenotypes().size());
+            assertEquals((SIZE - fitCount + 1.5 * fitCount) / SIZE, process.getMeanFitness(), 1.0E-12);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewSpace() {
+        createClones(MoranRandom.create(12L)).viewSpace();
+    }
+
+    @Test public void testCellEquivalence() {
+        //
+        // The clone and cell processes must have the same distribution
+        // of the fit clone size and the time clock after one step...
+        //
+        double cloneCount = 0.0;
+        double cellCount = 0.0;
+        double cloneClock = 0.0;
+        double cellClock = 0.0;
+
+        for (int trial = 0; trial < TRIALS; ++trial) {
+            CloneProcess clones = createClones(MoranRandom.create(20191126L, trial));
+            MoranProcess cells = createCells(MoranRandom.create(20191127L, trial));
+
+            clones.executeTimeStep();
+            cells.executeTimeStep();
+
+            cloneCount += countFit(clones);
+            cellCount += countFit(cells);
+
+            cloneClock += clones.getTimeClock();
+            cellClock += cells.getTimeClock();
+        }
+
+        cloneCount /= TRIALS;
+        cellCount /= TRIALS;
+        cloneClock /= TRIALS;
+        cellClock /= TRIALS;
+
+        // Standard errors are approximately 0.03 and 0.006...
+        assertEquals(cellCount, cloneCount, 0.12);
+        assertEquals(cellClock, cloneClock, 0.025);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.CloneProcessTest");
+    }
+}
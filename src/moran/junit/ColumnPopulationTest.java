@@ -0,0 +1,125 @@
+package moran.junit;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import moran.cell.Cell;
+import moran.cell.Phenotype;
+import moran.cell.Population;
+import moran.cell.PopulationMode;
+import moran.driver.MoranRandom;
+import moran.scalar.ScalarCell;
+import moran.scalar.ScalarPhenotype;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class ColumnPopulationTest {
+    private static final Cell cell0 = new ScalarCell(1.0);
+    private static final Cell cell1 = new ScalarCell(1.1);
+    private static final Cell cell2 = new ScalarCell(1.2);
+    private static final Cell cell3 = new ScalarCell(1.3);
+    private static final Cell cell4 = new ScalarCell(1.4);
+
+    private static final Phenotype PHENOTYPE = ScalarPhenotype.INSTANCE;
+
+    private static Population create() {
+        return new Population(List.of(cell0, cell1, cell2, cell3), PopulationMode.COLUMN);
+    }
+
+    @Test public void testFounders() {
+        Population population = create();
+
+        assertEquals(PopulationMode.COLUMN, population.getMode());
+        assertEquals(4, population.size());
+
+        assertSame(cell0, population.get(0));
+        assertSame(cell3, population.list().get(3));
+
+        assertTrue(population.contains(cell2));
+        assertFalse(population.contains(cell4));
+
+        assertEquals(1, population.indexOf(cell1));
+        assertEquals(0, population.getBirthStep(1));
+        assertEquals(1.2, population.computeFitness(2, PHENOTYPE), 1.0E-12);
+    }
+
+    private static final class MutatingCell extends ScalarCell {
+        private MutatingCell(double fitness) {
+            super(fitness);
+        }
+
+        @Override public ScalarCell divide(RandomGenerator random) {
+            return new MutatingCell(1.1 * getGenotype().getFitness());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCellMutation() {
+        //
+        // Column storage divides through the genotype, so it must not
+        // accept cells that mutate in their own divide() method...
+        //
+        new Population(List.of(new MutatingCell(1.0), new MutatingCell(1.0)), PopulationMode.COLUMN);
+    }
+
+    @Test public void testDivide() {
+        Population population = create();
+        population.divide(1, 2, MoranRandom.create(1L));
+
+        // The daughter replaces cell 2 as a snapshot of its position...
+        assertFalse(population.contains(cell2));
+        assertSame(cell1.getGenotype(), population.getGenotype(2));
+        assertEquals(1.1, population.computeFitness(2, PHENOTYPE), 1.0E-12);
+
+        Cell daughter = population.get(2);
+
+        assertSame(daughter, population.get(2));
+        assertTrue(population.contains(daughter));
+        assertEquals(2, population.indexOf(daughter));
+        assertEquals(cell1.getFounderIndex(), daughter.getFounderIndex());
+        assertSame(cell1.getGenotype(), daughter.getGenotype());
+
+        // The snapshot is discarded when its position is replaced...
+        population.divide(0, 2, MoranRandom.create(2L));
+
+        assertFalse(population.contains(daughter));
+        assertEquals(cell0.getFounderIndex(), population.get(2).getFounderIndex());
+        assertEquals(cell0.getFounderIndex(), population.getFounderIndex(2));
+        assertEquals(1.0, population.computeFitness(2, PHENOTYPE), 1.0E-12);
+    }
+
+    @Test public void testBirthStep() {
+        Population population = create();
+        MoranRandom random = MoranRandom.create(3L);
+
+        // Two complete time steps of four cycles...
+        for (int cycle = 0; cycle < 8; ++cycle)
+            population.divide(0, 1 + cycle % 3, random);
+
+        population.divide(0, 3, random);
+
+        assertEquals(0, population.getBirthStep(0));
+        assertEquals(1, population.getBirthStep(2));
+        assertEquals(2, population.getBirthStep(3));
+    }
+
+    @Test public void testReplace() {
+        Population population = create();
+        population.replace(cell1, cell4);
+
+        assertFalse(population.contains(cell1));
+        assertTrue(population.contains(cell4));
+        assertEquals(1, population.indexOf(cell4));
+        assertEquals(1.4, population.computeFitness(1, PHENOTYPE), 1.0E-12);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testObjectBirthStep() {
+        new Population(List.of(cell0, cell1), PopulationMode.OBJECT).getBirthStep(0);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.ColumnPopulationTest");
+    }
+}
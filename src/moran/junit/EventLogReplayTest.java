@@ -0,0 +1,174 @@
+package moran.junit;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import moran.ab.ABCell;
+import moran.ab.ABConfig;
+import moran.ab.ABGenotype;
+import moran.ab.ABPhenotype;
+import moran.cell.Cell;
+import moran.cell.Genotype;
+import moran.driver.MoranKernel;
+import moran.driver.MoranRandom;
+import moran.driver.MoranTrial;
+import moran.report.EventLogReplay;
+import moran.report.EventLogWriter;
+import moran.space.LatticeTopology;
+import moran.space.Space;
+import moran.space.SpaceView;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class EventLogReplayTest {
+    static {
+        System.setProperty(ABConfig.FITNESS_RATIO_PROPERTY, "1.25");
+        System.setProperty(ABConfig.MUTATION_RATE_PROPERTY, "0.01");
+    }
+
+    private static final String STRUCTURE = "SQUARE; 1.0; 8, 6";
+    private static final int STEPS = 45;
+    private static final int KEYFRAME_INTERVAL = 10;
+
+    private static final List<Genotype[]> genotypeHistory = new ArrayList<Genotype[]>();
+    private static final List<long[]> founderHistory = new ArrayList<long[]>();
+    private static final List<Double> clockHistory = new ArrayList<Double>();
+
+    private static File logFile;
+
+    private static Space createLattice() {
+        LatticeTopology topology = LatticeTopology.parse(STRUCTURE);
+        List<Cell> cells = new ArrayList<Cell>();
+
+        Cell.resetIndex();
+
+        for (int site = 0; site < topology.size(); ++site)
+            cells.add(ABCell.newA());
+
+        return TopologySpace.create(topology, cells);
+    }
+
+    private static void recordHistory(MoranTrial trial) {
+        SpaceView space = trial.viewSpace();
+
+        Genotype[] genotypes = new Genotype[space.size()];
+        long[] founders = new long[space.size()];
+
+        for (int site = 0; site < space.size(); ++site) {
+            genotypes[site] = space.get(site).getGenotype();
+            founders[site] = space.get(site).getFounderIndex();
+        }
+
+        genotypeHistory.add(genotypes);
+        founderHistory.add(founders);
+        clockHistory.add(trial.getTimeClock());
+    }
+
+    private static synchronized File getLogFile() throws Exception {
+        if (logFile == null)
+            writeLog();
+
+        return logFile;
+    }
+
+    private static void writeLog() throws Exception {
+        logFile = File.createTempFile("event-log", ".bin");
+        logFile.deleteOnExit();
+        EventLogWriter.genotypeFile(logFile).deleteOnExit();
+
+        MoranRandom random = MoranRandom.create(41L);
+        MoranTrial trial = MoranTrial.create(2, MoranKernel.initialize(createLattice(), ABPhenotype.INSTANCE, random), random);
+
+        EventLogWriter writer = EventLogWriter.open(logFile, 2, trial.viewSpace().size(), ABGenotype.CODEC, KEYFRAME_INTERVAL);
+
+        writer.record(trial.viewSpace(), 0, trial.getTimeClock());
+        recordHistory(trial);
+
+        for (int step = 1; step <= STEPS; ++step) {
+            trial.advance();
+            writer.record(trial.viewSpace(), trial.getTimeStep(), trial.getTimeClock());
+            recordHistory(trial);
+        }
+
+        writer.close();
+    }
+
+    private static void assertStep(EventLogReplay replay, int timeStep) {
+        SpaceView space = replay.replay(timeStep, createLattice());
+
+        assertEquals(timeStep, replay.getReplayStep());
+        assertEquals(clockHistory.get(timeStep), replay.getTimeClock(), 0.0);
+
+        for (int site = 0; site < space.size(); ++site) {
+            assertSame(genotypeHistory.get(timeStep)[site], space.get(site).getGenotype());
+            assertEquals(founderHistory.get(timeStep)[site], space.get(site).getFounderIndex());
+        }
+    }
+
+    @Test public void testSequential() throws Exception {
+        try (EventLogReplay replay = EventLogReplay.open(getLogFile(), ABGenotype.CODEC)) {
+            assertEquals(2, replay.getTrialIndex());
+            assertEquals(48, replay.size());
+            assertEquals(0, replay.getFirstStep());
+
+            for (int step = 0; step <= STEPS; ++step)
+                assertStep(replay, step);
+        }
+
+        // The mutants must appear for the test to be meaningful...
+        assertTrue(List.of(genotypeHistory.get(STEPS)).contains(ABGenotype.B));
+    }
+
+    @Test public void testSeek() throws Exception {
+        try (EventLogReplay replay = EventLogReplay.open(getLogFile(), ABGenotype.CODEC)) {
+            int[] steps = { 37, 3, 40, 40, 12, 45, 0, 29, 19 };
+
+            for (int step : steps)
+                assertStep(replay, step);
+        }
+    }
+
+    @Test public void testCompact() throws Exception {
+        //
+        // Far fewer records than one per site and step...
+        //
+        assertTrue(getLogFile().length() < 16L * 48L * (STEPS + 1) / 2);
+    }
+
+    @Test public void testInterrupted() throws Exception {
+        File copy = File.createTempFile("event-log", ".bin");
+        copy.deleteOnExit();
+
+        File genotypeCopy = EventLogWriter.genotypeFile(copy);
+        genotypeCopy.deleteOnExit();
+
+        Files.copy(getLogFile().toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(EventLogWriter.genotypeFile(logFile).toPath(), genotypeCopy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        // Drop the index and part of a record...
+        try (RandomAccessFile file = new RandomAccessFile(copy, "rw")) {
+            file.setLength(file.length() / 2 + 7);
+        }
+
+        try (EventLogReplay replay = EventLogReplay.open(copy, ABGenotype.CODEC)) {
+            assertStep(replay, 5);
+            assertStep(replay, 11);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnlogged() throws Exception {
+        try (EventLogReplay replay = EventLogReplay.open(getLogFile(), ABGenotype.CODEC)) {
+            replay.replay(STEPS + 1, createLattice());
+        }
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.EventLogReplayTest");
+    }
+}
@@ -0,0 +1,74 @@
+
+package moran.junit;
+
+import moran.driver.FitnessTree;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class FitnessTreeTest {
+    private static final double TOLERANCE = 1.0E-12;
+
+    private static FitnessTree create() {
+        return FitnessTree.create(new double[] { 1.0, 0.0, 2.0, 3.0, 0.0, 4.0, 0.5 });
+    }
+
+    @Test public void testAdd() {
+        FitnessTree tree = create();
+
+        tree.add(1, 2.0);
+        tree.add(5, -1.5);
+
+        assertEquals(11.0, tree.total(), TOLERANCE);
+        assertEquals( 3.0, tree.prefixSum(2), TOLERANCE);
+        assertEquals(10.5, tree.prefixSum(6), TOLERANCE);
+
+        assertEquals(0, tree.search(0.5));
+        assertEquals(1, tree.search(1.5));
+        assertEquals(5, tree.search(9.0));
+    }
+
+    @Test public void testPrefixSum() {
+        FitnessTree tree = create();
+
+        assertEquals( 0.0, tree.prefixSum(0), TOLERANCE);
+        assertEquals( 1.0, tree.prefixSum(1), TOLERANCE);
+        assertEquals( 1.0, tree.prefixSum(2), TOLERANCE);
+        assertEquals( 3.0, tree.prefixSum(3), TOLERANCE);
+        assertEquals( 6.0, tree.prefixSum(4), TOLERANCE);
+        assertEquals( 6.0, tree.prefixSum(5), TOLERANCE);
+        assertEquals(10.0, tree.prefixSum(6), TOLERANCE);
+        assertEquals(10.5, tree.prefixSum(7), TOLERANCE);
+        assertEquals(10.5, tree.total(), TOLERANCE);
+    }
+
+    @Test public void testRebuild() {
+        FitnessTree tree = create();
+        double[] fitness = new double[] { 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0 };
+
+        tree.add(3, 100.0);
+        tree.rebuild(fitness);
+
+        assertEquals(7.0, tree.total(), TOLERANCE);
+        assertEquals(3, tree.search(3.5));
+    }
+
+    @Test public void testSearch() {
+        FitnessTree tree = create();
+
+        // Elements with zero fitness are never selected...
+        assertEquals(0, tree.search(0.0));
+        assertEquals(0, tree.search(0.99));
+        assertEquals(2, tree.search(1.0));
+        assertEquals(2, tree.search(2.99));
+        assertEquals(3, tree.search(3.0));
+        assertEquals(5, tree.search(6.0));
+        assertEquals(6, tree.search(10.0));
+        assertEquals(6, tree.search(10.49));
+        assertEquals(6, tree.search(99.0));
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.FitnessTreeTest");
+    }
+}
@@ -0,0 +1,132 @@
+package moran.junit;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import moran.ab.ABGenotype;
+import moran.report.FrameFormat;
+import moran.report.FrameRenderer;
+import moran.report.FrameReport;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class FrameRendererTest {
+    private static final int CELL_SIZE = 2;
+
+    private static FrameRenderer createRenderer() {
+        // The lattice constant must not affect the frame geometry...
+        return FrameRenderer.create(Space.mapped("SQUARE; 3.0; 4, 3", ABGenotype.A), CELL_SIZE);
+    }
+
+    private static int[] createColors() {
+        int[] colors = new int[12];
+
+        for (int site = 0; site < colors.length; ++site)
+            colors[site] = 0x010203 * (site + 1);
+
+        return colors;
+    }
+
+    @Test public void testGeometry() {
+        FrameRenderer renderer = createRenderer();
+
+        assertEquals(12, renderer.size());
+        assertEquals(8, renderer.getWidth());
+        assertEquals(6, renderer.getHeight());
+    }
+
+    @Test public void testRender() {
+        FrameRenderer renderer = createRenderer();
+        int[] colors = createColors();
+        int[] pixels = renderer.render(colors);
+
+        // Site (i, j) occupies a square with the y-axis pointing up...
+        for (int site = 0; site < 12; ++site) {
+            int i = site % 4;
+            int j = site / 4;
+
+            for (int dy = 0; dy < CELL_SIZE; ++dy)
+                for (int dx = 0; dx < CELL_SIZE; ++dx)
+                    assertEquals(colors[site], pixels[(2 * (2 - j) + dy) * 8 + 2 * i + dx]);
+        }
+    }
+
+    @Test public void testHexagonal() {
+        FrameRenderer renderer = FrameRenderer.create(Space.mapped("HEXAGONAL; 1.0; 6, 7", ABGenotype.A), 4);
+        int[] pixels = renderer.render(new int[42]);
+
+        // Every site is drawn, and the offset rows leave a margin...
+        int background = 0;
+
+        for (int pixel : pixels)
+            if (pixel == FrameRenderer.BACKGROUND)
+                ++background;
+
+        assertTrue(background > 0);
+        assertTrue(pixels.length - background >= 42 * 4 * 2);
+    }
+
+    @Test public void testPPM() throws Exception {
+        File file = File.createTempFile("frame", ".ppm");
+        file.deleteOnExit();
+
+        FrameRenderer renderer = createRenderer();
+        int[] pixels = renderer.render(createColors());
+
+        FrameFormat.PPM.write(file, pixels, renderer.getWidth(), renderer.getHeight());
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        String header = "P6\n8 6\n255\n";
+
+        assertEquals(header.length() + 3 * 48, bytes.length);
+        assertEquals(header, new String(bytes, 0, header.length(), StandardCharsets.US_ASCII));
+
+        for (int k = 0; k < pixels.length; ++k) {
+            int offset = header.length() + 3 * k;
+            int rgb = ((bytes[offset] & 0xFF) << 16) | ((bytes[offset + 1] & 0xFF) << 8) | (bytes[offset + 2] & 0xFF);
+
+            assertEquals(pixels[k], rgb);
+        }
+    }
+
+    @Test public void testPNG() throws Exception {
+        File file = File.createTempFile("frame", ".png");
+        file.deleteOnExit();
+
+        FrameRenderer renderer = createRenderer();
+        int[] pixels = renderer.render(createColors());
+
+        FrameFormat.PNG.write(file, pixels, renderer.getWidth(), renderer.getHeight());
+
+        BufferedImage image = ImageIO.read(file);
+
+        assertEquals(8, image.getWidth());
+        assertEquals(6, image.getHeight());
+
+        for (int y = 0; y < 6; ++y)
+            for (int x = 0; x < 8; ++x)
+                assertEquals(pixels[y * 8 + x], image.getRGB(x, y) & 0xFFFFFF);
+    }
+
+    @Test public void testPalette() {
+        assertEquals(0x000000, FrameReport.paletteColor(0));
+        assertEquals(0xDF536B, FrameReport.paletteColor(1));
+        assertTrue(FrameReport.paletteColor(8) != FrameReport.paletteColor(9));
+        assertEquals("frame-00002-000150.png", FrameReport.formatFrameName(2, 150, FrameFormat.PNG));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testColorCount() {
+        createRenderer().render(new int[11]);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.FrameRendererTest");
+    }
+}
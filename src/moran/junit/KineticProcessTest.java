@@ -0,0 +1,104 @@
+package moran.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import moran.cell.Cell;
+import moran.driver.KineticProcess;
+import moran.driver.MoranEngine;
+import moran.driver.MoranProcess;
+import moran.driver.MoranRandom;
+import moran.segment.GenomeSegment;
+import moran.segment.SegmentCNARateModel;
+import moran.segment.SegmentCNCell;
+import moran.segment.SegmentCNGenotype;
+import moran.segment.SegmentCNPhenotype;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class KineticProcessTest {
+    static {
+        System.setProperty(GenomeSegment.DEFINITION_FILE_PROPERTY, "data/test/test_segment.txt");
+        System.setProperty(SegmentCNGenotype.MAX_COPY_NUMBER_PROPERTY, "5");
+        System.setProperty(SegmentCNPhenotype.FITNESS_MATRIX_FILE_PROPERTY, "data/test/explicit_phenotype.csv");
+        System.setProperty(SegmentCNARateModel.WGD_RATE_PROPERTY, "0.0");
+        System.setProperty(SegmentCNARateModel.GAIN_RATE_PROPERTY, "0.002");
+        System.setProperty(SegmentCNARateModel.LOSS_RATE_PROPERTY, "0.002");
+    }
+
+    private static final int SIZE = 50;
+    private static final int STEPS = 10;
+    private static final int TRIALS = 1000;
+
+    private static Space createSpace() {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        for (int k = 0; k < SIZE; ++k)
+            cells.add(SegmentCNCell.germline());
+
+        return Space.point(cells);
+    }
+
+    private static int countMutants(MoranEngine engine) {
+        return SIZE - engine.countGenotypes().getOrDefault(SegmentCNGenotype.GERMLINE, 0);
+    }
+
+    @Test public void testConsistency() {
+        Space space = createSpace();
+        KineticProcess process = KineticProcess.initialize(space, SegmentCNPhenotype.global(), MoranRandom.create(17L));
+
+        assertEquals(0, process.countActiveSites());
+
+        for (int step = 0; step < STEPS; ++step) {
+            process.executeTimeStep();
+
+            // The engine state must match the underlying space...
+            double totalFitness = 0.0;
+
+            for (int index = 0; index < SIZE; ++index) {
+                assertSame(space.get(index).getGenotype(), space.getGenotype(index));
+                totalFitness += space.computeFitness(index, SegmentCNPhenotype.global());
+            }
+
+            assertEquals(totalFitness / SIZE, process.getMeanFitness(), 1.0E-10);
+            assertEquals(SIZE - process.countGenotypes().getOrDefault(SegmentCNGenotype.GERMLINE, 0), countMutants(process));
+        }
+    }
+
+    @Test public void testCellEquivalence() {
+        //
+        // The kinetic and cell processes must agree on the mean number
+        // of mutant cells and the time clock to within the sampling
+        // error (approximately 0.07 and 0.002)...
+        //
+        double kineticMutants = 0.0;
+        double cellMutants = 0.0;
+        double kineticClock = 0.0;
+        double cellClock = 0.0;
+
+        for (int trial = 0; trial < TRIALS; ++trial) {
+            MoranEngine kinetic = KineticProcess.initialize(createSpace(), SegmentCNPhenotype.global(), MoranRandom.create(41L, trial));
+            MoranEngine cells = MoranProcess.initialize(createSpace(), SegmentCNPhenotype.global(), MoranRandom.create(43L, trial));
+
+            for (int step = 0; step < STEPS; ++step) {
+                kinetic.executeTimeStep();
+                cells.executeTimeStep();
+            }
+
+            kineticMutants += countMutants(kinetic);
+            cellMutants += countMutants(cells);
+
+            kineticClock += kinetic.getTimeClock();
+            cellClock += cells.getTimeClock();
+        }
+
+        assertEquals(cellMutants / TRIALS, kineticMutants / TRIALS, 0.3);
+        assertEquals(cellClock / TRIALS, kineticClock / TRIALS, 0.01);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.KineticProcessTest");
+    }
+}
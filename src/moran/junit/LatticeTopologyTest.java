@@ -0,0 +1,114 @@
+
+package moran.junit;
+
+import moran.space.LatticeTopology;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class LatticeTopologyTest {
+    @Test public void testCreate() {
+        LatticeTopology topology =
+            LatticeTopology.create(new int[][] { { 1, 2 }, { 0 }, { 0, 1, 2 } });
+
+        assertEquals(3, topology.size());
+        assertEquals(3, topology.maxNeighborCount());
+
+        assertEquals(2, topology.countNeighbors(0));
+        assertEquals(1, topology.countNeighbors(1));
+        assertEquals(3, topology.countNeighbors(2));
+
+        assertEquals(2, topology.getNeighbor(0, 1));
+        assertEquals(0, topology.getNeighbor(1, 0));
+        assertEquals(1, topology.getNeighbor(2, 1));
+
+        int[] buffer = new int[topology.maxNeighborCount()];
+
+        assertEquals(3, topology.getNeighbors(2, buffer));
+        assertArrayEquals(new int[] { 0, 1, 2 }, buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNeighbor() {
+        LatticeTopology.create(new int[][] { { 1 }, { 2 } });
+    }
+
+    @Test public void testCubic() {
+        LatticeTopology topology = LatticeTopology.parse("CUBIC; 1.0; 3, 4, 5");
+
+        assertEquals(60, topology.size());
+        assertEquals(6, topology.maxNeighborCount());
+        assertSymmetric(topology);
+
+        // Site (2, 3, 4) is the last site...
+        assertEquals(59, siteIndex(topology, 2, 3, 4));
+        assertEquals(2, topology.getLatticeIndex(59, 0));
+        assertEquals(3, topology.getLatticeIndex(59, 1));
+        assertEquals(4, topology.getLatticeIndex(59, 2));
+
+        // Periodic neighbors of site (2, 3, 4)...
+        assertEquals(siteIndex(topology, 0, 3, 4), topology.getNeighbor(59, 0));
+        assertEquals(siteIndex(topology, 2, 0, 4), topology.getNeighbor(59, 2));
+        assertEquals(siteIndex(topology, 2, 3, 0), topology.getNeighbor(59, 4));
+    }
+
+    @Test public void testHexagonal() {
+        LatticeTopology topology = LatticeTopology.parse("HEXAGONAL; 1.0; 4, 3");
+
+        assertEquals(12, topology.size());
+        assertEquals(6, topology.maxNeighborCount());
+        assertSymmetric(topology);
+
+        int[] buffer = new int[6];
+        topology.getNeighbors(0, buffer);
+
+        // (1, 0), (3, 0), (0, 1), (0, 2), (1, 2), (3, 1)
+        assertArrayEquals(new int[] { 1, 3, 4, 8, 9, 7 }, buffer);
+    }
+
+    @Test public void testLinear() {
+        LatticeTopology topology = LatticeTopology.parse("LINEAR; 1.0; 10");
+
+        assertEquals(10, topology.size());
+        assertEquals(2, topology.maxNeighborCount());
+        assertEquals(1, topology.getNeighbor(0, 0));
+        assertEquals(9, topology.getNeighbor(0, 1));
+    }
+
+    @Test public void testSquare() {
+        LatticeTopology topology = LatticeTopology.parse("SQUARE; 1.0; 5, 5");
+
+        assertEquals(25, topology.size());
+        assertEquals(4, topology.maxNeighborCount());
+        assertSymmetric(topology);
+        assertArrayEquals(new int[] { 5, 5 }, topology.getPeriods());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUnsupported() {
+        LatticeTopology.parse("TRIANGULAR; 1.0; 5, 5");
+    }
+
+    private static int siteIndex(LatticeTopology topology, int i, int j, int k) {
+        int[] periods = topology.getPeriods();
+        return i + periods[0] * (j + periods[1] * k);
+    }
+
+    private static void assertSymmetric(LatticeTopology topology) {
+        for (int site = 0; site < topology.size(); ++site)
+            for (int k = 0; k < topology.countNeighbors(site); ++k)
+                assertTrue(isNeighbor(topology, topology.getNeighbor(site, k), site));
+    }
+
+    private static boolean isNeighbor(LatticeTopology topology, int site, int neighbor) {
+        for (int k = 0; k < topology.countNeighbors(site); ++k)
+            if (topology.getNeighbor(site, k) == neighbor)
+                return true;
+
+        return false;
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.LatticeTopologyTest");
+    }
+}
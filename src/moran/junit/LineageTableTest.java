@@ -0,0 +1,116 @@
+
+package moran.junit;
+
+import java.util.Random;
+
+import moran.cell.LineageTable;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class LineageTableTest {
+    @Test public void testPrune() {
+        LineageTable table = LineageTable.create();
+
+        int founder0 = table.add(LineageTable.NO_PARENT, 0L);
+        int founder1 = table.add(LineageTable.NO_PARENT, 1L);
+
+        int child2 = table.add(founder0, 2L);
+        int child3 = table.add(child2, 3L);
+
+        assertEquals(4, table.size());
+        assertArrayEquals(new long[] { 3L, 2L, 0L }, table.traceLineage(child3));
+
+        // Dead founders are retained while a descendant lives, but a
+        // dead ancestor with a single child is spliced out...
+        table.release(founder0);
+        assertEquals(4, table.size());
+
+        table.release(child2);
+        assertEquals(3, table.size());
+        assertEquals(founder0, table.getParentSlot(child3));
+        assertArrayEquals(new long[] { 3L, 0L }, table.traceLineage(child3));
+
+        // ...and discarded with the last descendant...
+        table.release(child3);
+        assertEquals(1, table.size());
+
+        // ...and their slots are recycled...
+        int child4 = table.add(founder1, 4L);
+        assertTrue(child4 < 4);
+        assertEquals(2, table.size());
+        assertArrayEquals(new long[] { 4L, 1L }, table.traceLineage(child4));
+    }
+
+    @Test public void testBranch() {
+        LineageTable table = LineageTable.create();
+
+        int founder = table.add(LineageTable.NO_PARENT, 0L);
+        int parent  = table.add(founder, 1L);
+        int child2  = table.add(parent, 2L);
+        int child3  = table.add(parent, 3L);
+
+        // A dead ancestor shared by two living cells is retained...
+        table.release(parent);
+        assertEquals(4, table.size());
+        assertArrayEquals(new long[] { 2L, 1L, 0L }, table.traceLineage(child2));
+        assertArrayEquals(new long[] { 3L, 1L, 0L }, table.traceLineage(child3));
+
+        // ...until only one of them survives...
+        table.release(child2);
+        assertEquals(2, table.size());
+        assertArrayEquals(new long[] { 3L, 0L }, table.traceLineage(child3));
+    }
+
+    @Test public void testGrowth() {
+        LineageTable table = LineageTable.create();
+        int slot = table.add(LineageTable.NO_PARENT, 0L);
+
+        // A long chain in which each parent dies after dividing...
+        for (long index = 1; index <= 5000; ++index) {
+            int child = table.add(slot, index);
+            table.release(slot);
+            slot = child;
+        }
+
+        // Only the founder and the living cell are retained...
+        assertEquals(2, table.size());
+        assertArrayEquals(new long[] { 5000L, 0L }, table.traceLineage(slot));
+
+        table.release(slot);
+        assertEquals(0, table.size());
+    }
+
+    @Test public void testBound() {
+        int popSize = 50;
+        long cellIndex = 0;
+
+        LineageTable table = LineageTable.create();
+        Random random = new Random(20191121L);
+
+        int[] slots = new int[popSize];
+
+        for (int k = 0; k < popSize; ++k)
+            slots[k] = table.add(LineageTable.NO_PARENT, cellIndex++);
+
+        // A neutral Moran process: the table never holds more than one
+        // slot per founder plus two per living cell...
+        for (int cycle = 0; cycle < 100000; ++cycle) {
+            int deadIndex = random.nextInt(popSize);
+            int parentIndex = random.nextInt(popSize);
+
+            if (deadIndex == parentIndex)
+                continue;
+
+            int daughter = table.add(slots[parentIndex], cellIndex++);
+            table.release(slots[deadIndex]);
+            slots[deadIndex] = daughter;
+
+            assertTrue(table.size() <= 3 * popSize);
+        }
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.LineageTableTest");
+    }
+}
@@ -0,0 +1,122 @@
+package moran.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import moran.cell.Cell;
+import moran.driver.MoranProcess;
+import moran.driver.MoranRandom;
+import moran.scalar.ScalarCell;
+import moran.scalar.ScalarPhenotype;
+import moran.space.LatticeTopology;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class LocalNeighborSamplerTest {
+    private static final int STEPS = 20;
+
+    private static Space createSpace(LatticeTopology topology) {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        for (int site = 0; site < topology.size(); ++site)
+            cells.add(new ScalarCell(0.5 + 0.25 * (site % 5)));
+
+        return TopologySpace.create(topology, cells);
+    }
+
+    private static void assertReference(LatticeTopology topology) {
+        //
+        // Execute the cell cycle by brute force, drawing the random
+        // deviates in the same order as the Moran process, which must
+        // then reproduce the trajectory exactly (to within round-off
+        // error in the time clock)...
+        //
+        Space space = createSpace(topology);
+        MoranProcess process = MoranProcess.initialize(space, ScalarPhenotype.INSTANCE, MoranRandom.create(29L));
+
+        int size = topology.size();
+        double[] fitness = new double[size];
+
+        for (int site = 0; site < size; ++site)
+            fitness[site] = 0.5 + 0.25 * (site % 5);
+
+        RandomGenerator random = MoranRandom.create(29L);
+        int[] neighbors = new int[topology.maxNeighborCount()];
+        double timeClock = 0.0;
+
+        for (int step = 0; step < STEPS; ++step) {
+            process.executeTimeStep();
+
+            for (int cycle = 0; cycle < size; ++cycle) {
+                int deadIndex = random.nextInt(size);
+                int count = topology.getNeighbors(deadIndex, neighbors);
+                double total = 0.0;
+
+                for (int k = 0; k < count; ++k)
+                    total += fitness[neighbors[k]];
+
+                timeClock += random.nextExponential() / (total / count) / size;
+
+                double target = random.nextDouble() * total;
+                int parentIndex = neighbors[count - 1];
+
+                for (int k = 0; k < count - 1; ++k) {
+                    target -= fitness[neighbors[k]];
+
+                    if (target < 0.0) {
+                        parentIndex = neighbors[k];
+                        break;
+                    }
+                }
+
+                fitness[deadIndex] = fitness[parentIndex];
+            }
+
+            assertEquals(timeClock, process.getTimeClock(), 1.0E-10);
+        }
+
+        double meanFitness = 0.0;
+
+        for (int site = 0; site < size; ++site) {
+            assertEquals(fitness[site], space.computeFitness(site, ScalarPhenotype.INSTANCE), 0.0);
+            meanFitness += fitness[site];
+        }
+
+        assertEquals(meanFitness / size, process.getMeanFitness(), 1.0E-10);
+    }
+
+    @Test public void testSquare() {
+        assertReference(LatticeTopology.parse("SQUARE; 1.0; 8, 6"));
+    }
+
+    @Test public void testHexagonal() {
+        assertReference(LatticeTopology.parse("HEXAGONAL; 1.0; 6, 7"));
+    }
+
+    @Test public void testCubic() {
+        assertReference(LatticeTopology.parse("CUBIC; 1.0; 4, 3, 5"));
+    }
+
+    @Test public void testAsymmetric() {
+        //
+        // A directed ring in which every site also counts site zero as
+        // a neighbor...
+        //
+        int size = 30;
+        int[][] neighborLists = new int[size][];
+
+        neighborLists[0] = new int[] { 1 };
+
+        for (int site = 1; site < size; ++site)
+            neighborLists[site] = new int[] { (site + 1) % size, 0 };
+
+        assertReference(LatticeTopology.create(neighborLists));
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.LocalNeighborSamplerTest");
+    }
+}
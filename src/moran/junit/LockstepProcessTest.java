@@ -0,0 +1,204 @@
+package moran.junit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+import moran.ab.ABCell;
+import moran.ab.ABConfig;
+import moran.ab.ABPhenotype;
+import moran.cell.Cell;
+import moran.cell.Genotype;
+import moran.driver.LockstepProcess;
+import moran.driver.MoranEngine;
+import moran.driver.MoranProcess;
+import moran.driver.MoranRandom;
+import moran.scalar.ScalarCell;
+import moran.scalar.ScalarPhenotype;
+import moran.space.LatticeTopology;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class LockstepProcessTest {
+    static {
+        System.setProperty(ABConfig.FITNESS_RATIO_PROPERTY, "1.25");
+        System.setProperty(ABConfig.MUTATION_RATE_PROPERTY, "0.01");
+    }
+
+    private static final LatticeTopology HEXAGONAL = LatticeTopology.parse("HEXAGONAL; 1.0; 12, 10");
+
+    private static final int STEPS = 20;
+    private static final int REPLICATES = 5;
+
+    private static Space createSpace(LatticeTopology topology) {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        for (int site = 0; site < topology.size(); ++site)
+            cells.add(ABCell.newA());
+
+        return TopologySpace.create(topology, cells);
+    }
+
+    private static LockstepProcess createLockstep(int replicates) {
+        List<Space> spaces = new ArrayList<Space>();
+        List<RandomGenerator> randoms = new ArrayList<RandomGenerator>();
+
+        for (int replicate = 0; replicate < replicates; ++replicate) {
+            spaces.add(createSpace(HEXAGONAL));
+            randoms.add(MoranRandom.create(100L + replicate));
+        }
+
+        return LockstepProcess.initialize(spaces, ABPhenotype.INSTANCE, randoms);
+    }
+
+    private static void assertSameState(MoranProcess serial, Space serialSpace, MoranEngine replicate) {
+        assertEquals(serial.getTimeClock(), replicate.getTimeClock(), 1.0E-10);
+        assertEquals(serial.getMeanFitness(), replicate.getMeanFitness(), 1.0E-10);
+
+        Map<Genotype, Integer> census = replicate.countGenotypes();
+
+        for (int index = 0; index < serialSpace.size(); ++index)
+            census.merge(serialSpace.getGenotype(index), -1, Integer::sum);
+
+        for (int count : census.values())
+            assertEquals(0, count);
+    }
+
+    @Test public void testSerialEquivalence() {
+        //
+        // Each replicate draws its deviates in the same order as the
+        // cell engine and must reproduce its trajectory exactly...
+        //
+        LockstepProcess lockstep = createLockstep(REPLICATES);
+
+        List<Space> serialSpaces = new ArrayList<Space>();
+        List<MoranProcess> serialProcesses = new ArrayList<MoranProcess>();
+
+        for (int replicate = 0; replicate < REPLICATES; ++replicate) {
+            Space space = createSpace(HEXAGONAL);
+
+            serialSpaces.add(space);
+            serialProcesses.add(MoranProcess.initialize(space, ABPhenotype.INSTANCE, MoranRandom.create(100L + replicate)));
+        }
+
+        for (int step = 0; step < STEPS; ++step) {
+            lockstep.executeTimeStep();
+
+            for (int replicate = 0; replicate < REPLICATES; ++replicate) {
+                serialProcesses.get(replicate).executeTimeStep();
+                assertSameState(serialProcesses.get(replicate), serialSpaces.get(replicate), lockstep.replicate(replicate));
+            }
+        }
+    }
+
+    @Test public void testReplicateViews() {
+        //
+        // Advancing every view once per step must be equivalent to
+        // advancing the whole process once per step...
+        //
+        LockstepProcess direct = createLockstep(REPLICATES);
+        LockstepProcess viewed = createLockstep(REPLICATES);
+
+        MoranEngine[] views = new MoranEngine[REPLICATES];
+
+        for (int replicate = 0; replicate < REPLICATES; ++replicate)
+            views[replicate] = viewed.replicate(replicate);
+
+        for (int step = 0; step < STEPS; ++step) {
+            direct.executeTimeStep();
+
+            for (MoranEngine view : views)
+                view.executeTimeStep();
+
+            for (int replicate = 0; replicate < REPLICATES; ++replicate) {
+                assertEquals(direct.replicate(replicate).getTimeClock(), views[replicate].getTimeClock(), 0.0);
+                assertEquals(direct.replicate(replicate).getMeanFitness(), views[replicate].getMeanFitness(), 0.0);
+            }
+        }
+    }
+
+    @Test public void testDeactivate() {
+        LockstepProcess process = createLockstep(REPLICATES);
+
+        process.executeTimeStep();
+        process.deactivate(2);
+
+        MoranEngine stopped = process.replicate(2);
+
+        double timeClock = stopped.getTimeClock();
+        double meanFitness = stopped.getMeanFitness();
+
+        for (int step = 0; step < STEPS; ++step)
+            process.executeTimeStep();
+
+        assertEquals(REPLICATES - 1, process.countActive());
+        assertFalse(process.isActive(2));
+        assertEquals(timeClock, stopped.getTimeClock(), 0.0);
+        assertEquals(meanFitness, stopped.getMeanFitness(), 0.0);
+        assertTrue(process.replicate(1).getTimeClock() > timeClock);
+    }
+
+    @Test public void testPrune() {
+        //
+        // Every founder carries a distinct genotype; the genotypes of
+        // extinct founder lineages must leave the shared table, while
+        // those carried by a deactivated replicate must remain...
+        //
+        List<Space> spaces = new ArrayList<Space>();
+        List<RandomGenerator> randoms = new ArrayList<RandomGenerator>();
+
+        for (int replicate = 0; replicate < REPLICATES; ++replicate) {
+            List<Cell> cells = new ArrayList<Cell>();
+
+            for (int site = 0; site < HEXAGONAL.size(); ++site)
+                cells.add(new ScalarCell(1.0 + 0.001 * (site + 1)));
+
+            spaces.add(TopologySpace.create(HEXAGONAL, cells));
+            randoms.add(MoranRandom.create(200L + replicate));
+        }
+
+        LockstepProcess process = LockstepProcess.initialize(spaces, ScalarPhenotype.INSTANCE, randoms);
+        assertEquals(REPLICATES * HEXAGONAL.size(), process.countRegistered());
+
+        process.executeTimeStep();
+        process.deactivate(2);
+
+        for (int step = 0; step < STEPS; ++step)
+            process.executeTimeStep();
+
+        Set<Genotype> living = new HashSet<Genotype>();
+
+        for (int replicate = 0; replicate < REPLICATES; ++replicate)
+            living.addAll(process.replicate(replicate).countGenotypes().keySet());
+
+        assertEquals(living.size(), process.countRegistered());
+        assertTrue(process.countRegistered() < REPLICATES * HEXAGONAL.size() / 2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDeactivatedView() {
+        LockstepProcess process = createLockstep(2);
+
+        process.deactivate(0);
+        process.replicate(0).executeTimeStep();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWellMixed() {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        for (int k = 0; k < 10; ++k)
+            cells.add(ABCell.newA());
+
+        LockstepProcess.initialize(List.of(Space.point(cells)), ABPhenotype.INSTANCE, List.of(MoranRandom.create(1L)));
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.LockstepProcessTest");
+    }
+}
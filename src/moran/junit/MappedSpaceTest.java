@@ -0,0 +1,184 @@
+package moran.junit;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import jam.math.Point;
+
+import moran.ab.ABCell;
+import moran.ab.ABConfig;
+import moran.ab.ABGenotype;
+import moran.ab.ABPhenotype;
+import moran.cell.Cell;
+import moran.cell.Population;
+import moran.cell.PopulationMode;
+import moran.driver.MoranProcess;
+import moran.driver.MoranRandom;
+import moran.scalar.ScalarCell;
+import moran.scalar.ScalarPhenotype;
+import moran.space.LatticeTopology;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class MappedSpaceTest {
+    static {
+        System.setProperty(ABConfig.FITNESS_RATIO_PROPERTY, "1.25");
+        System.setProperty(ABConfig.MUTATION_RATE_PROPERTY, "0.01");
+    }
+
+    private static final String HEXAGONAL = "HEXAGONAL; 1.0; 6, 7";
+    private static final String CUBIC = "CUBIC; 1.0; 4, 3, 5";
+
+    private static final int STEPS = 20;
+
+    private static void assertNeighbors(String structure) {
+        Space space = Space.mapped(structure, ABGenotype.A);
+        LatticeTopology topology = LatticeTopology.parse(structure);
+
+        int[] expected = new int[topology.maxNeighborCount()];
+        int[] actual = new int[space.maxNeighborCount()];
+
+        assertEquals(topology.size(), space.size());
+        assertEquals(topology.maxNeighborCount(), space.maxNeighborCount());
+        assertTrue(space.hasSymmetricNeighbors());
+
+        for (int site = 0; site < space.size(); ++site) {
+            assertEquals(topology.getNeighbors(site, expected), space.getNeighborIndexes(site, actual));
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test public void testNeighbors() {
+        assertNeighbors(HEXAGONAL);
+        assertNeighbors(CUBIC);
+        assertNeighbors("SQUARE; 1.0; 5, 4");
+        assertNeighbors("LINEAR; 1.0; 9");
+    }
+
+    @Test public void testLocate() {
+        Space space = Space.mapped("HEXAGONAL; 2.0; 6, 7", ABGenotype.A);
+
+        // The site with lattice indexes (1, 1)...
+        Point point = space.locate(7);
+
+        assertEquals(2, point.dimensionality());
+        assertEquals(3.0, point.coord(0), 1.0E-12);
+        assertEquals(Math.sqrt(3.0), point.coord(1), 1.0E-12);
+    }
+
+    @Test public void testProcessEquivalence() {
+        //
+        // The Moran process must follow the same trajectory in mapped
+        // storage as in object storage...
+        //
+        LatticeTopology topology = LatticeTopology.parse(CUBIC);
+        List<Cell> cells = new ArrayList<Cell>();
+
+        Cell.resetIndex();
+
+        for (int site = 0; site < topology.size(); ++site)
+            cells.add(ABCell.newA());
+
+        Space objectSpace = TopologySpace.create(topology, cells);
+        Space mappedSpace = Space.mapped(CUBIC, ABGenotype.A);
+
+        MoranProcess objectProcess = MoranProcess.initialize(objectSpace, ABPhenotype.INSTANCE, MoranRandom.create(17L));
+        MoranProcess mappedProcess = MoranProcess.initialize(mappedSpace, ABPhenotype.INSTANCE, MoranRandom.create(17L));
+
+        for (int step = 0; step < STEPS; ++step) {
+            objectProcess.executeTimeStep();
+            mappedProcess.executeTimeStep();
+
+            assertEquals(objectProcess.getTimeClock(), mappedProcess.getTimeClock(), 0.0);
+            assertEquals(objectProcess.getMeanFitness(), mappedProcess.getMeanFitness(), 0.0);
+
+            for (int site = 0; site < topology.size(); ++site) {
+                assertSame(objectSpace.getGenotype(site), mappedSpace.getGenotype(site));
+                assertEquals(objectSpace.get(site).getFounderIndex(), mappedSpace.get(site).getFounderIndex());
+                assertEquals(objectSpace.getFounderIndex(site), mappedSpace.getFounderIndex(site));
+            }
+        }
+
+        assertTrue(objectProcess.getMeanFitness() > 1.0);
+    }
+
+    @Test public void testSnapshots() {
+        Space space = Space.mapped(HEXAGONAL, ABGenotype.A);
+        Cell snapshot = space.get(3);
+
+        assertEquals(PopulationMode.MAPPED, space.getMode());
+        assertTrue(space.contains(snapshot));
+        assertEquals(3, space.indexOf(snapshot));
+        assertSame(ABGenotype.A, snapshot.getGenotype());
+        assertEquals(3L, snapshot.getFounderIndex());
+
+        // Snapshots expire with the next division...
+        space.divide(4, 5, ABGenotype.B);
+
+        assertFalse(space.contains(snapshot));
+        assertSame(ABGenotype.B, space.getGenotype(5));
+        assertEquals(4L, space.get(5).getFounderIndex());
+        assertEquals(4L, space.getFounderIndex(5));
+        assertEquals(1.25, space.computeFitness(5, ABPhenotype.INSTANCE), 1.0E-12);
+    }
+
+    @Test public void testFile() throws Exception {
+        File directory = Files.createTempDirectory("mapped").toFile();
+        directory.deleteOnExit();
+
+        System.setProperty(PopulationMode.MAPPED_DIRECTORY_PROPERTY, directory.getPath());
+
+        try {
+            //
+            // Populations in the same directory (as in concurrent
+            // trials) have separate files, which are unlinked as soon
+            // as they are mapped...
+            //
+            Space space1 = Space.mapped(HEXAGONAL, ABGenotype.A);
+            Space space2 = Space.mapped(HEXAGONAL, ABGenotype.A);
+
+            space1.divide(4, 5, ABGenotype.B);
+
+            assertSame(ABGenotype.B, space1.getGenotype(5));
+            assertSame(ABGenotype.A, space2.getGenotype(5));
+            assertEquals(0, directory.list().length);
+
+            System.setProperty(PopulationMode.MAPPED_FOUNDERS_PROPERTY, "false");
+
+            Space space3 = Space.mapped(HEXAGONAL, ABGenotype.A);
+
+            assertEquals(-1L, space3.get(0).getFounderIndex());
+            assertEquals(0, directory.list().length);
+        }
+        finally {
+            System.clearProperty(PopulationMode.MAPPED_DIRECTORY_PROPERTY);
+            System.clearProperty(PopulationMode.MAPPED_FOUNDERS_PROPERTY);
+        }
+    }
+
+    @Test public void testPopulation() {
+        Cell cell0 = new ScalarCell(1.0);
+        Cell cell1 = new ScalarCell(1.5);
+        Cell cell2 = new ScalarCell(2.0);
+
+        Population population = new Population(List.of(cell0, cell1, cell2), PopulationMode.MAPPED);
+
+        assertEquals(3, population.size());
+        assertEquals(1.5, population.computeFitness(1, ScalarPhenotype.INSTANCE), 1.0E-12);
+        assertEquals(cell2.getFounderIndex(), population.get(2).getFounderIndex());
+
+        population.divide(2, 0, MoranRandom.create(1L));
+
+        assertSame(cell2.getGenotype(), population.getGenotype(0));
+        assertEquals(cell2.getFounderIndex(), population.get(0).getFounderIndex());
+        assertEquals(2.0, population.computeFitness(0, ScalarPhenotype.INSTANCE), 1.0E-12);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.MappedSpaceTest");
+    }
+}
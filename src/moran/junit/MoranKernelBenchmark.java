@@ -0,0 +1,114 @@
+package moran.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+import moran.ab.ABCell;
+import moran.ab.ABConfig;
+import moran.ab.ABPhenotype;
+import moran.cell.Phenotype;
+import moran.driver.MoranEngine;
+import moran.driver.MoranKernel;
+import moran.driver.MoranProcess;
+import moran.driver.MoranRandom;
+import moran.scalar.ScalarGenotype;
+import moran.scalar.ScalarPhenotype;
+import moran.segment.GenomeSegment;
+import moran.segment.SegmentCNARateModel;
+import moran.segment.SegmentCNCell;
+import moran.segment.SegmentCNGenotype;
+import moran.segment.SegmentCNPhenotype;
+import moran.space.LatticeTopology;
+import moran.space.Space;
+
+/**
+ * Compares the throughput of the general Moran process and the
+ * specialized kernels after the call sites of the general process
+ * have been exercised by several phenotype models and spatial
+ * structures, as they are when several models run in one virtual
+ * machine.  Run as a stand-alone program (it is not a unit test).
+ */
+public final class MoranKernelBenchmark {
+    static {
+        System.setProperty(ABConfig.FITNESS_RATIO_PROPERTY, "1.25");
+        System.setProperty(ABConfig.MUTATION_RATE_PROPERTY, "0.001");
+
+        System.setProperty(GenomeSegment.DEFINITION_FILE_PROPERTY, "data/test/test_segment.txt");
+        System.setProperty(SegmentCNGenotype.MAX_COPY_NUMBER_PROPERTY, "5");
+        System.setProperty(SegmentCNPhenotype.FITNESS_MATRIX_FILE_PROPERTY, "data/test/explicit_phenotype.csv");
+        System.setProperty(SegmentCNARateModel.WGD_RATE_PROPERTY, "0.0");
+        System.setProperty(SegmentCNARateModel.GAIN_RATE_PROPERTY, "0.0002");
+        System.setProperty(SegmentCNARateModel.LOSS_RATE_PROPERTY, "0.0002");
+    }
+
+    private static final LatticeTopology HEXAGONAL = LatticeTopology.parse("HEXAGONAL; 1.0; 200, 200");
+
+    private static final int POINT_SIZE = HEXAGONAL.size();
+    private static final int WARMUP_STEPS = 5;
+    private static final int TIMED_STEPS = 10;
+    private static final int REPETITIONS = 3;
+
+    private interface EngineFactory {
+        MoranEngine create(Space space, Phenotype phenotype, RandomGenerator random);
+    }
+
+    private static void pollute() {
+        //
+        // Run the general process with four phenotypes, three genotype
+        // and cell types, and both neighbor samplers...
+        //
+        Phenotype doubled = genotype -> 2.0 * ((ScalarGenotype) genotype).getFitness();
+
+        List<MoranEngine> engines = new ArrayList<MoranEngine>();
+
+        engines.add(MoranProcess.initialize(SpaceFixture.point(POINT_SIZE, index -> ABCell.newA()), ABPhenotype.INSTANCE, MoranRandom.create(1L)));
+        engines.add(MoranProcess.initialize(SpaceFixture.lattice(HEXAGONAL, index -> ABCell.newA()), ABPhenotype.INSTANCE, MoranRandom.create(2L)));
+        engines.add(MoranProcess.initialize(SpaceFixture.point(POINT_SIZE, SpaceFixture::scalar), ScalarPhenotype.INSTANCE, MoranRandom.create(3L)));
+        engines.add(MoranProcess.initialize(SpaceFixture.lattice(HEXAGONAL, SpaceFixture::scalar), ScalarPhenotype.INSTANCE, MoranRandom.create(4L)));
+        engines.add(MoranProcess.initialize(SpaceFixture.point(POINT_SIZE, SpaceFixture::scalar), doubled, MoranRandom.create(5L)));
+        engines.add(MoranProcess.initialize(SpaceFixture.lattice(HEXAGONAL, SpaceFixture::scalar), doubled, MoranRandom.create(6L)));
+        engines.add(MoranProcess.initialize(SpaceFixture.point(POINT_SIZE, index -> SegmentCNCell.germline()), SegmentCNPhenotype.global(), MoranRandom.create(7L)));
+        engines.add(MoranProcess.initialize(SpaceFixture.lattice(HEXAGONAL, index -> SegmentCNCell.germline()), SegmentCNPhenotype.global(), MoranRandom.create(8L)));
+
+        for (int step = 0; step < WARMUP_STEPS; ++step)
+            for (MoranEngine engine : engines)
+                engine.executeTimeStep();
+    }
+
+    private static double time(EngineFactory factory, Space space, Phenotype phenotype) {
+        MoranEngine engine = factory.create(space, phenotype, MoranRandom.create(11L));
+
+        for (int step = 0; step < WARMUP_STEPS; ++step)
+            engine.executeTimeStep();
+
+        long start = System.nanoTime();
+
+        for (int step = 0; step < TIMED_STEPS; ++step)
+            engine.executeTimeStep();
+
+        return (System.nanoTime() - start) / ((double) TIMED_STEPS * space.size());
+    }
+
+    private static void compare(String label, Supplier<Space> spaceFactory, Phenotype phenotype) {
+        for (int repetition = 0; repetition < REPETITIONS; ++repetition) {
+            double general = time(MoranProcess::initialize, spaceFactory.get(), phenotype);
+            double kernel = time(MoranKernel::initialize, spaceFactory.get(), phenotype);
+
+            System.out.println(String.format("%-16s general: %7.1f ns/cycle; kernel: %7.1f ns/cycle; speedup: %.2f",
+                                             label, general, kernel, general / kernel));
+        }
+    }
+
+    public static void main(String[] args) {
+        pollute();
+
+        compare("A/B point", () -> SpaceFixture.point(POINT_SIZE, index -> ABCell.newA()), ABPhenotype.INSTANCE);
+        compare("A/B lattice", () -> SpaceFixture.lattice(HEXAGONAL, index -> ABCell.newA()), ABPhenotype.INSTANCE);
+        compare("Scalar point", () -> SpaceFixture.point(POINT_SIZE, SpaceFixture::scalar), ScalarPhenotype.INSTANCE);
+        compare("Scalar lattice", () -> SpaceFixture.lattice(HEXAGONAL, SpaceFixture::scalar), ScalarPhenotype.INSTANCE);
+        compare("CN point", () -> SpaceFixture.point(POINT_SIZE, index -> SegmentCNCell.germline()), SegmentCNPhenotype.global());
+        compare("CN lattice", () -> SpaceFixture.lattice(HEXAGONAL, index -> SegmentCNCell.germline()), SegmentCNPhenotype.global());
+    }
+}
@@ -0,0 +1,152 @@
+package moran.junit;
+
+import java.util.random.RandomGenerator;
+
+import moran.ab.ABCell;
+import moran.ab.ABConfig;
+import moran.ab.ABPhenotype;
+import moran.cell.Phenotype;
+import moran.driver.MoranEngine;
+import moran.driver.MoranKernel;
+import moran.driver.MoranProcess;
+import moran.driver.MoranRandom;
+import moran.scalar.ScalarCell;
+import moran.scalar.ScalarGenotype;
+import moran.scalar.ScalarPhenotype;
+import moran.segment.GenomeSegment;
+import moran.segment.SegmentCNARateModel;
+import moran.segment.SegmentCNCell;
+import moran.segment.SegmentCNGenotype;
+import moran.segment.SegmentCNPhenotype;
+import moran.space.LatticeTopology;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class MoranKernelTest {
+    static {
+        System.setProperty(ABConfig.FITNESS_RATIO_PROPERTY, "1.25");
+        System.setProperty(ABConfig.MUTATION_RATE_PROPERTY, "0.01");
+
+        System.setProperty(GenomeSegment.DEFINITION_FILE_PROPERTY, "data/test/test_segment.txt");
+        System.setProperty(SegmentCNGenotype.MAX_COPY_NUMBER_PROPERTY, "5");
+        System.setProperty(SegmentCNPhenotype.FITNESS_MATRIX_FILE_PROPERTY, "data/test/explicit_phenotype.csv");
+        System.setProperty(SegmentCNARateModel.WGD_RATE_PROPERTY, "0.0");
+        System.setProperty(SegmentCNARateModel.GAIN_RATE_PROPERTY, "0.002");
+        System.setProperty(SegmentCNARateModel.LOSS_RATE_PROPERTY, "0.002");
+    }
+
+    private static final LatticeTopology HEXAGONAL = LatticeTopology.parse("HEXAGONAL; 1.0; 12, 10");
+
+    private static final int POINT_SIZE = 120;
+    private static final int STEPS = 20;
+
+    private static void assertEquivalent(Space kernelSpace, Space processSpace, Phenotype phenotype) {
+        //
+        // The kernel must reproduce the trajectory of the general
+        // process exactly...
+        //
+        MoranEngine kernel = MoranKernel.initialize(kernelSpace, phenotype, MoranRandom.create(31L));
+        MoranEngine process = MoranProcess.initialize(processSpace, phenotype, MoranRandom.create(31L));
+
+        assertTrue(kernel instanceof MoranKernel);
+
+        for (int step = 0; step < STEPS; ++step) {
+            kernel.executeTimeStep();
+            process.executeTimeStep();
+
+            assertEquals(process.getTimeClock(), kernel.getTimeClock(), 0.0);
+            assertEquals(process.getMeanFitness(), kernel.getMeanFitness(), 0.0);
+
+            for (int index = 0; index < kernelSpace.size(); ++index)
+                assertEquals(processSpace.computeFitness(index, phenotype), kernelSpace.computeFitness(index, phenotype), 0.0);
+        }
+    }
+
+    @Test public void testABPoint() {
+        assertEquivalent(SpaceFixture.point(POINT_SIZE, index -> ABCell.newA()),
+                         SpaceFixture.point(POINT_SIZE, index -> ABCell.newA()),
+                         ABPhenotype.INSTANCE);
+    }
+
+    @Test public void testABLattice() {
+        assertEquivalent(SpaceFixture.lattice(HEXAGONAL, index -> ABCell.newA()),
+                         SpaceFixture.lattice(HEXAGONAL, index -> ABCell.newA()),
+                         ABPhenotype.INSTANCE);
+    }
+
+    @Test public void testScalarPoint() {
+        assertEquivalent(SpaceFixture.point(POINT_SIZE, SpaceFixture::scalar),
+                         SpaceFixture.point(POINT_SIZE, SpaceFixture::scalar),
+                         ScalarPhenotype.INSTANCE);
+    }
+
+    @Test public void testScalarLattice() {
+        assertEquivalent(SpaceFixture.lattice(HEXAGONAL, SpaceFixture::scalar),
+                         SpaceFixture.lattice(HEXAGONAL, SpaceFixture::scalar),
+                         ScalarPhenotype.INSTANCE);
+    }
+
+    @Test public void testSegmentCNPoint() {
+        assertEquivalent(SpaceFixture.point(POINT_SIZE, index -> SegmentCNCell.germline()),
+                         SpaceFixture.point(POINT_SIZE, index -> SegmentCNCell.germline()),
+                         SegmentCNPhenotype.global());
+    }
+
+    @Test public void testSegmentCNLattice() {
+        assertEquivalent(SpaceFixture.lattice(HEXAGONAL, index -> SegmentCNCell.germline()),
+                         SpaceFixture.lattice(HEXAGONAL, index -> SegmentCNCell.germline()),
+                         SegmentCNPhenotype.global());
+    }
+
+    @Test public void testGeneralPhenotype() {
+        //
+        // Phenotypes without a specialized kernel use the general
+        // process...
+        //
+        Phenotype phenotype = genotype -> 2.0 * ((ScalarGenotype) genotype).getFitness();
+        Space space = SpaceFixture.point(POINT_SIZE, SpaceFixture::scalar);
+
+        assertTrue(MoranKernel.initialize(space, phenotype, MoranRandom.create(1L)) instanceof MoranProcess);
+    }
+
+    private static final class MutatingCell extends ScalarCell {
+        private MutatingCell(double fitness) {
+            super(fitness);
+        }
+
+        private MutatingCell(MutatingCell parent, double fitness) {
+            super(parent, fitness);
+        }
+
+        @Override public ScalarCell divide(RandomGenerator random) {
+            double fitness = getGenotype().getFitness();
+
+            if (random.nextDouble() < 0.01)
+                fitness *= 1.1;
+
+            return new MutatingCell(this, fitness);
+        }
+    }
+
+    @Test public void testScalarMutation() {
+        //
+        // Scalar cells that mutate in their own divide() method must
+        // use the general process, which calls that method...
+        //
+        Space space = SpaceFixture.point(POINT_SIZE, index -> new MutatingCell(1.0));
+        MoranEngine engine = MoranKernel.initialize(space, ScalarPhenotype.INSTANCE, MoranRandom.create(1L));
+
+        assertTrue(engine instanceof MoranProcess);
+
+        for (int step = 0; step < STEPS; ++step)
+            engine.executeTimeStep();
+
+        assertTrue(engine.getMeanFitness() > 1.0);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.MoranKernelTest");
+    }
+}
@@ -1,12 +1,10 @@
 
 package moran.junit;
 
-import jam.bravais.Lattice;
-
 import moran.ab.ABConfig;
 import moran.ab.ABPhenotype;
 import moran.ab.ABType;
-import moran.cell.Cell;
+import moran.space.LatticeTopology;
 import moran.space.Space;
 
 import org.junit.*;
@@ -18,21 +16,19 @@ public class MoranProcessABTest extends MoranProcessTestBase {
         System.setProperty(ABConfig.MUTATION_RATE_PROPERTY, "0.01");
     }
 
-    private static final double TOLERANCE = 0.0001;
+    private static final double TOLERANCE = 1.0E-12;
 
     public MoranProcessABTest() {
         super(TOLERANCE);
     }
 
     @Test public void testRun() {
-        runTest(25, 23.5079, 1.1671, true);
+        runTest(25, 23.277765187503633, 1.178049999999585, true);
     }
 
     @Override protected Space createSpace() {
-        Lattice<Cell> lattice = Lattice.parse("HEXAGONAL; 1.0; 100, 100");
-        lattice.fill(ABType.A.objectFactory());
-
-        return Space.lattice(lattice);
+        LatticeTopology topology = LatticeTopology.parse("HEXAGONAL; 1.0; 100, 100");
+        return TopologySpace.create(topology, ABType.A.objectFactory().newInstances(topology.size()));
     }
 
     @Override protected ABPhenotype createPhenotype() {
@@ -5,12 +5,15 @@ import jam.junit.NumericTestBase;
 
 import moran.cell.Phenotype;
 import moran.driver.MoranProcess;
+import moran.driver.MoranRandom;
 import moran.space.Space;
 
 import org.junit.*;
 import static org.junit.Assert.*;
 
 public abstract class MoranProcessTestBase extends NumericTestBase {
+    private static final long RANDOM_SEED = 20191121L;
+
     /**
      * Creates a new test with a given floating-point tolerance.
      *
@@ -47,7 +50,7 @@ public abstract class MoranProcessTestBase extends NumericTestBase {
      */
     protected MoranProcess runProcess(int stepCount, boolean verbose) {
         MoranProcess process =
-            MoranProcess.initialize(createSpace(), createPhenotype());
+            MoranProcess.initialize(createSpace(), createPhenotype(), MoranRandom.create(RANDOM_SEED));
 
         for (int stepIndex = 0; stepIndex < stepCount; ++stepIndex) {
             process.executeTimeStep();
@@ -65,7 +68,8 @@ public abstract class MoranProcessTestBase extends NumericTestBase {
     }
 
     /**
-     * Executes the Moran process and tests the results.
+     * Executes the Moran process and tests the results against the
+     * trajectory recorded from the fixed random seed.
      *
      * @param stepCount the number of steps to execute.
      *
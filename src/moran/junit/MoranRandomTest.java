@@ -0,0 +1,115 @@
+
+package moran.junit;
+
+import moran.driver.MoranRandom;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class MoranRandomTest {
+    private static final int SAMPLE_COUNT = 1000000;
+
+    @Test public void testExponential() {
+        MoranRandom random = MoranRandom.create(20191121L);
+
+        double sum1 = 0.0;
+        double sum2 = 0.0;
+
+        for (int k = 0; k < SAMPLE_COUNT; ++k) {
+            double x = random.nextExponential();
+
+            assertTrue(x >= 0.0);
+            sum1 += x;
+            sum2 += x * x;
+        }
+
+        double mean = sum1 / SAMPLE_COUNT;
+        double var  = sum2 / SAMPLE_COUNT - mean * mean;
+
+        assertEquals(1.0, mean, 0.005);
+        assertEquals(1.0, var,  0.02);
+    }
+
+    @Test public void testNextInt() {
+        MoranRandom random = MoranRandom.create(20191121L);
+        int[] counts = new int[10];
+
+        for (int k = 0; k < SAMPLE_COUNT; ++k)
+            ++counts[random.nextInt(counts.length)];
+
+        for (int count : counts)
+            assertEquals(0.1, count / (double) SAMPLE_COUNT, 0.002);
+    }
+
+    @Test public void testReproducible() {
+        MoranRandom random1 = MoranRandom.create(123L, 4);
+        MoranRandom random2 = MoranRandom.create(123L, 4);
+        MoranRandom random3 = MoranRandom.create(123L, 5);
+
+        boolean differ = false;
+
+        for (int k = 0; k < 1000; ++k) {
+            double x1 = random1.nextDouble();
+            double x2 = random2.nextDouble();
+            double x3 = random3.nextDouble();
+
+            assertEquals(x1, x2, 0.0);
+            differ |= (x1 != x3);
+        }
+
+        assertTrue(differ);
+    }
+
+    @Test public void testAdjacentTrials() {
+        int drawCount = 100000;
+
+        for (int trialIndex = 0; trialIndex < 10; ++trialIndex) {
+            MoranRandom random1 = MoranRandom.create(123L, trialIndex);
+            MoranRandom random2 = MoranRandom.create(123L, trialIndex + 1);
+
+            double sum12 = 0.0;
+
+            for (int k = 0; k < drawCount; ++k)
+                sum12 += (random1.nextDouble() - 0.5) * (random2.nextDouble() - 0.5);
+
+            // The product of two independent centered uniform deviates
+            // has mean zero and standard deviation 1/12...
+            assertEquals(0.0, sum12 / drawCount, 4.0 / (12.0 * Math.sqrt(drawCount)));
+        }
+    }
+
+    @Test public void testSplit() {
+        MoranRandom parent = MoranRandom.create(123L);
+        MoranRandom child  = parent.split();
+
+        // The child continues the original stream...
+        MoranRandom original = MoranRandom.create(123L);
+
+        for (int k = 0; k < 100; ++k)
+            assertEquals(original.nextLong(), child.nextLong());
+
+        // The parent has jumped to a different stream...
+        original = MoranRandom.create(123L);
+        assertTrue(original.nextLong() != parent.nextLong());
+    }
+
+    @Test public void testUniform() {
+        MoranRandom random = MoranRandom.create(20191121L);
+
+        double sum = 0.0;
+
+        for (int k = 0; k < SAMPLE_COUNT; ++k) {
+            double x = random.nextDouble();
+
+            assertTrue(x >= 0.0);
+            assertTrue(x < 1.0);
+            sum += x;
+        }
+
+        assertEquals(0.5, sum / SAMPLE_COUNT, 0.002);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.MoranRandomTest");
+    }
+}
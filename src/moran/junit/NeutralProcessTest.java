@@ -0,0 +1,155 @@
+package moran.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import moran.cell.Cell;
+import moran.cell.Genotype;
+import moran.cell.Phenotype;
+import moran.driver.MoranEngine;
+import moran.driver.MoranProcess;
+import moran.driver.MoranRandom;
+import moran.driver.NeutralProcess;
+import moran.scalar.ScalarCell;
+import moran.scalar.ScalarPhenotype;
+import moran.segment.GenomeSegment;
+import moran.segment.SegmentCNARateModel;
+import moran.segment.SegmentCNCell;
+import moran.segment.SegmentCNGenotype;
+import moran.segment.SegmentCNPhenotype;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class NeutralProcessTest {
+    static {
+        System.setProperty(GenomeSegment.DEFINITION_FILE_PROPERTY, "data/test/test_segment.txt");
+        System.setProperty(SegmentCNGenotype.MAX_COPY_NUMBER_PROPERTY, "5");
+        System.setProperty(SegmentCNPhenotype.FITNESS_MATRIX_FILE_PROPERTY, "data/test/explicit_phenotype.csv");
+        System.setProperty(SegmentCNARateModel.WGD_RATE_PROPERTY, "0.0");
+        System.setProperty(SegmentCNARateModel.GAIN_RATE_PROPERTY, "0.002");
+        System.setProperty(SegmentCNARateModel.LOSS_RATE_PROPERTY, "0.002");
+    }
+
+    private static final int SIZE = 50;
+    private static final int STEPS = 10;
+    private static final int TRIALS = 1000;
+
+    private static final double FITNESS = 1.25;
+
+    private static final Phenotype NEUTRAL = new Phenotype() {
+            @Override public double getFitness(Genotype genotype) {
+                return FITNESS;
+            }
+
+            @Override public boolean isNeutral() {
+                return true;
+            }
+        };
+
+    private static Space createSpace() {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        for (int k = 0; k < SIZE; ++k)
+            cells.add(SegmentCNCell.germline());
+
+        return Space.point(cells);
+    }
+
+    private static int countMutants(MoranEngine engine) {
+        return SIZE - engine.countGenotypes().getOrDefault(SegmentCNGenotype.GERMLINE, 0);
+    }
+
+    @Test public void testDetection() {
+        assertTrue(NEUTRAL.isNeutral());
+        assertFalse(ScalarPhenotype.INSTANCE.isNeutral());
+        assertFalse(SegmentCNPhenotype.global().isNeutral());
+    }
+
+    @Test public void testCellEquivalence() {
+        //
+        // The neutral and cell processes must agree on the mean number
+        // of mutant cells and the time clock to within three standard
+        // errors of their difference (approximately 0.3 and 0.002)...
+        //
+        double neutralMutants = 0.0;
+        double cellMutants = 0.0;
+        double neutralClock = 0.0;
+        double cellClock = 0.0;
+
+        for (int trial = 0; trial < TRIALS; ++trial) {
+            MoranEngine neutral = NeutralProcess.initialize(createSpace(), NEUTRAL, MoranRandom.create(47L, trial));
+            MoranEngine cells = MoranProcess.initialize(createSpace(), NEUTRAL, MoranRandom.create(53L, trial));
+
+            for (int step = 0; step < STEPS; ++step) {
+                neutral.executeTimeStep();
+                cells.executeTimeStep();
+            }
+
+            assertEquals(FITNESS, neutral.getMeanFitness(), 0.0);
+            assertEquals(SIZE, neutral.viewSpace().size());
+
+            neutralMutants += countMutants(neutral);
+            cellMutants += countMutants(cells);
+
+            neutralClock += neutral.getTimeClock();
+            cellClock += cells.getTimeClock();
+        }
+
+        assertEquals(cellMutants / TRIALS, neutralMutants / TRIALS, 1.0);
+        assertEquals(cellClock / TRIALS, neutralClock / TRIALS, 0.01);
+        assertEquals(STEPS / FITNESS, neutralClock / TRIALS, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnequalFitness() {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        for (int k = 0; k < SIZE; ++k)
+            cells.add(new ScalarCell(1.0 + 0.1 * (k % 2)));
+
+        NeutralProcess.initialize(Space.point(cells), ScalarPhenotype.INSTANCE, MoranRandom.create(1L));
+    }
+
+    private static final class MutatingCell extends ScalarCell {
+        private MutatingCell(double fitness) {
+            super(fitness);
+        }
+
+        @Override public ScalarCell divide(RandomGenerator random) {
+            return new MutatingCell(1.1 * getGenotype().getFitness());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCellMutation() {
+        //
+        // The neutral process divides through the genotype, so it must
+        // not accept cells that mutate in their own divide() method...
+        //
+        List<Cell> cells = new ArrayList<Cell>();
+
+        for (int k = 0; k < SIZE; ++k)
+            cells.add(new MutatingCell(1.0));
+
+        NeutralProcess.initialize(Space.point(cells), NEUTRAL, MoranRandom.create(1L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNonNeutralMutant() {
+        //
+        // Germline cells share the same fitness, but their mutant
+        // daughters do not...
+        //
+        NeutralProcess process = NeutralProcess.initialize(createSpace(), SegmentCNPhenotype.global(), MoranRandom.create(3L));
+
+        for (int step = 0; step < 1000; ++step)
+            process.executeTimeStep();
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.NeutralProcessTest");
+    }
+}
@@ -0,0 +1,181 @@
+package moran.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import moran.ab.ABCell;
+import moran.ab.ABConfig;
+import moran.ab.ABPhenotype;
+import moran.cell.Cell;
+import moran.cell.Genotype;
+import moran.driver.MoranEngine;
+import moran.driver.MoranProcess;
+import moran.driver.MoranRandom;
+import moran.driver.ParallelLatticeProcess;
+import moran.space.LatticeTopology;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class ParallelLatticeProcessTest {
+    static {
+        System.setProperty(ABConfig.FITNESS_RATIO_PROPERTY, "1.25");
+        System.setProperty(ABConfig.MUTATION_RATE_PROPERTY, "0.01");
+    }
+
+    private static final LatticeTopology HEXAGONAL = LatticeTopology.parse("HEXAGONAL; 1.0; 40, 40");
+
+    private static final int STEPS = 20;
+    private static final int TRIALS = 200;
+    private static final int TILES = 8;
+    private static final int SWEEPS = 4;
+
+    private static Space createSpace(LatticeTopology topology) {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        for (int site = 0; site < topology.size(); ++site)
+            cells.add(ABCell.newA());
+
+        return TopologySpace.create(topology, cells);
+    }
+
+    private static ParallelLatticeProcess createParallel(Space space, long seed, int threadCount) {
+        return ParallelLatticeProcess.initialize(space, ABPhenotype.INSTANCE, MoranRandom.create(seed), TILES, SWEEPS, threadCount);
+    }
+
+    @Test public void testColoring() {
+        //
+        // Slabs of four rows on a periodic lattice with an even number
+        // of slabs require two colors; an odd number requires three...
+        //
+        ParallelLatticeProcess even =
+            ParallelLatticeProcess.initialize(createSpace(LatticeTopology.parse("SQUARE; 1.0; 8, 32")),
+                                              ABPhenotype.INSTANCE, MoranRandom.create(1L), 8, 1, 1);
+
+        ParallelLatticeProcess odd =
+            ParallelLatticeProcess.initialize(createSpace(LatticeTopology.parse("HEXAGONAL; 1.0; 6, 28")),
+                                              ABPhenotype.INSTANCE, MoranRandom.create(1L), 7, 1, 1);
+
+        assertEquals(8, even.countTiles());
+        assertEquals(2, even.countColors());
+
+        assertEquals(7, odd.countTiles());
+        assertEquals(3, odd.countColors());
+    }
+
+    @Test public void testTileCount() {
+        //
+        // Forty rows of forty cells admit ten slabs of four rows...
+        //
+        Space space = createSpace(HEXAGONAL);
+
+        assertEquals(10, ParallelLatticeProcess.maxTileCount(space));
+        assertEquals(10, ParallelLatticeProcess.initialize(space, ABPhenotype.INSTANCE, MoranRandom.create(1L)).countTiles());
+
+        // An odd maximum is reduced to an even number of slabs...
+        space = createSpace(LatticeTopology.parse("SQUARE; 1.0; 10, 36"));
+
+        assertEquals(9, ParallelLatticeProcess.maxTileCount(space));
+        assertEquals(8, ParallelLatticeProcess.initialize(space, ABPhenotype.INSTANCE, MoranRandom.create(1L)).countTiles());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThinSlabs() {
+        //
+        // Eight slabs of two rows are thinner than the minimum...
+        //
+        ParallelLatticeProcess.initialize(createSpace(LatticeTopology.parse("SQUARE; 1.0; 8, 16")),
+                                          ABPhenotype.INSTANCE, MoranRandom.create(1L), 8, 1, 1);
+    }
+
+    @Test public void testThreadIndependence() {
+        Space serialSpace = createSpace(HEXAGONAL);
+        Space parallelSpace = createSpace(HEXAGONAL);
+
+        ParallelLatticeProcess serial = createParallel(serialSpace, 11L, 1);
+        ParallelLatticeProcess parallel = createParallel(parallelSpace, 11L, 4);
+
+        for (int step = 0; step < STEPS; ++step) {
+            serial.executeTimeStep();
+            parallel.executeTimeStep();
+
+            assertEquals(serial.getTimeClock(), parallel.getTimeClock(), 0.0);
+            assertEquals(serial.getMeanFitness(), parallel.getMeanFitness(), 0.0);
+
+            for (int index = 0; index < HEXAGONAL.size(); ++index)
+                assertSame(serialSpace.getGenotype(index), parallelSpace.getGenotype(index));
+        }
+    }
+
+    @Test public void testSpaceConsistency() {
+        Space space = createSpace(HEXAGONAL);
+        ParallelLatticeProcess process = createParallel(space, 13L, 4);
+
+        for (int step = 0; step < STEPS; ++step) {
+            process.executeTimeStep();
+
+            Map<Genotype, Integer> census = process.countGenotypes();
+            double totalFitness = 0.0;
+
+            for (int index = 0; index < space.size(); ++index) {
+                assertSame(space.get(index).getGenotype(), space.getGenotype(index));
+                census.merge(space.getGenotype(index), -1, Integer::sum);
+                totalFitness += space.computeFitness(index, ABPhenotype.INSTANCE);
+            }
+
+            for (int count : census.values())
+                assertEquals(0, count);
+
+            assertEquals(totalFitness / space.size(), process.getMeanFitness(), 1.0E-12);
+        }
+    }
+
+    @Test public void testSerialEquivalence() {
+        //
+        // The parallel and serial engines must agree on the mean
+        // fitness and time clock after twenty steps of the A-to-B
+        // scenario of MoranProcessABTest, on a smaller lattice, to
+        // within the sampling error (approximately 0.0015 and 0.017
+        // for the difference of the means)...
+        //
+        double parallelFitness = 0.0;
+        double serialFitness = 0.0;
+        double parallelClock = 0.0;
+        double serialClock = 0.0;
+
+        for (int trial = 0; trial < TRIALS; ++trial) {
+            MoranEngine parallel = createParallel(createSpace(HEXAGONAL), 1000L + trial, 4);
+            MoranEngine serial = MoranProcess.initialize(createSpace(HEXAGONAL), ABPhenotype.INSTANCE, MoranRandom.create(2000L + trial));
+
+            for (int step = 0; step < STEPS; ++step) {
+                parallel.executeTimeStep();
+                serial.executeTimeStep();
+            }
+
+            parallelFitness += parallel.getMeanFitness();
+            serialFitness += serial.getMeanFitness();
+
+            parallelClock += parallel.getTimeClock();
+            serialClock += serial.getTimeClock();
+        }
+
+        assertEquals(serialFitness / TRIALS, parallelFitness / TRIALS, 0.006);
+        assertEquals(serialClock / TRIALS, parallelClock / TRIALS, 0.07);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWellMixed() {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        for (int k = 0; k < 10; ++k)
+            cells.add(ABCell.newA());
+
+        ParallelLatticeProcess.initialize(Space.point(cells), ABPhenotype.INSTANCE, MoranRandom.create(1L), 2, 1, 1);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.ParallelLatticeProcessTest");
+    }
+}
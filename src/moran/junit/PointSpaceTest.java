@@ -43,6 +43,18 @@ public class PointSpaceTest extends NumericTestBase {
         assertEquals(List.of(cell0, cell1, cell2), FIXED.getNeighbors(cell3));
     }
 
+    @Test public void testNeighborIndexes() {
+        int[] neighbors = new int[FIXED.maxNeighborCount()];
+
+        assertEquals(3, FIXED.maxNeighborCount());
+
+        assertEquals(3, FIXED.getNeighborIndexes(0, neighbors));
+        assertArrayEquals(new int[] { 1, 2, 3 }, neighbors);
+
+        assertEquals(3, FIXED.getNeighborIndexes(2, neighbors));
+        assertArrayEquals(new int[] { 0, 1, 3 }, neighbors);
+    }
+
     @Test public void testList() {
         assertEquals(cell0, FIXED.list().get(0));
         assertEquals(cell1, FIXED.list().get(1));
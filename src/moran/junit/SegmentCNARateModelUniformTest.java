@@ -1,10 +1,13 @@
 
 package moran.junit;
 
+import java.util.random.RandomGenerator;
+
 import jam.junit.NumericTestBase;
 import jam.math.DoubleUtil;
 import jam.math.Probability;
 
+import moran.driver.MoranRandom;
 import moran.segment.GenomeSegment;
 import moran.segment.SegmentCNARateModel;
 import moran.segment.SegmentCNGenotype;
@@ -61,9 +64,11 @@ public class SegmentCNARateModelUniformTest extends NumericTestBase {
         int countLoss  = 0;
         int countTrial = 100000;
 
+        RandomGenerator random = MoranRandom.create(20191121);
+
         for (int trialIndex = 0; trialIndex < countTrial; ++trialIndex) {
             SegmentCNGenotype genotype =
-                SegmentCNARateModel.global().mutate(SegmentCNGenotype.GERMLINE);
+                SegmentCNARateModel.global().mutate(SegmentCNGenotype.GERMLINE, random);
 
             if (isDoubled(genotype))
                 ++countWGD;
@@ -79,9 +84,42 @@ public class SegmentCNARateModelUniformTest extends NumericTestBase {
         double rateGain = 0.5 * DoubleUtil.ratio(countGain, countTrial);
         double rateLoss = 0.5 * DoubleUtil.ratio(countLoss, countTrial);
 
-        assertEquals(0.078, rateWGD,  0.001);
-        assertEquals(0.123, rateGain, 0.001);
-        assertEquals(0.456, rateLoss, 0.001);
+        assertEquals(0.078, rateWGD,  samplingTolerance(0.078, countTrial));
+        assertEquals(0.123, rateGain, samplingTolerance(0.123, countTrial));
+        assertEquals(0.456, rateLoss, samplingTolerance(0.456, countTrial));
+    }
+
+    private static double samplingTolerance(double rate, int countTrial) {
+        //
+        // Allow four standard errors of the observed rate.  The gain
+        // and loss rates are averaged over two segments, but the
+        // segments are not independent (whole genome doubling
+        // excludes both), so the error for one segment per trial is
+        // used as a conservative bound...
+        //
+        return 4.0 * Math.sqrt(rate * (1.0 - rate) / countTrial);
+    }
+
+    @Test public void testIndependentSegments() {
+        int countBoth  = 0;
+        int countTrial = 100000;
+
+        RandomGenerator random = MoranRandom.create(20191126);
+
+        for (int trialIndex = 0; trialIndex < countTrial; ++trialIndex) {
+            SegmentCNGenotype genotype =
+                SegmentCNARateModel.global().mutate(SegmentCNGenotype.GERMLINE, random);
+
+            if (!isDoubled(genotype) && genotype.count(P6) != 2 && genotype.count(Q9) != 2)
+                ++countBoth;
+        }
+
+        // Events on the two segments are independent when whole
+        // genome doubling does not occur...
+        double rateEvent = (0.123 + 0.456) / (1.0 - 0.078);
+        double rateBoth  = (1.0 - 0.078) * rateEvent * rateEvent;
+
+        assertEquals(rateBoth, DoubleUtil.ratio(countBoth, countTrial), 0.005);
     }
 
     private boolean isDoubled(SegmentCNGenotype genotype) {
@@ -0,0 +1,77 @@
+
+package moran.junit;
+
+import jam.junit.NumericTestBase;
+import jam.math.Probability;
+
+import moran.cna.CNAType;
+import moran.segment.GenomeSegment;
+import moran.segment.SegmentCNARateMatrix;
+import moran.segment.SegmentCNASet;
+import moran.segment.SegmentCNATable;
+import moran.segment.SegmentCNGenotype;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class SegmentCNATableTest extends NumericTestBase {
+    static {
+        System.setProperty(GenomeSegment.DEFINITION_FILE_PROPERTY, "data/test/test_segment2.txt");
+        System.setProperty(SegmentCNGenotype.MAX_COPY_NUMBER_PROPERTY, "4");
+    }
+
+    private static final GenomeSegment P6 = GenomeSegment.instance("6p");
+    private static final GenomeSegment Q9 = GenomeSegment.instance("9q");
+
+    private static final SegmentCNASet EVENT_SETS =
+        SegmentCNASet.create(Probability.valueOf(0.1),
+                             SegmentCNARateMatrix.uniform(CNAType.GAIN, Probability.valueOf(0.09)),
+                             SegmentCNARateMatrix.uniform(CNAType.LOSS, Probability.valueOf(0.18)));
+
+    private static final SegmentCNATable TABLE = EVENT_SETS.getEventTable();
+
+    @Test public void testProbabilities() {
+        for (GenomeSegment segment : GenomeSegment.list()) {
+            for (int copyNum = 0; copyNum <= SegmentCNGenotype.maxCopyNumber(); ++copyNum) {
+                int index = TABLE.indexOf(segment, copyNum);
+
+                double gainProb = EVENT_SETS.getEventSet(segment, copyNum).getEventProbability(CNAType.GAIN).doubleValue();
+                double lossProb = EVENT_SETS.getEventSet(segment, copyNum).getEventProbability(CNAType.LOSS).doubleValue();
+
+                assertDouble(gainProb, TABLE.getGainProbability(index));
+                assertDouble(lossProb, TABLE.getLossProbability(index));
+                assertDouble(gainProb + lossProb, TABLE.getEventProbability(index));
+            }
+        }
+
+        // The rates are adjusted for the exclusion of whole genome
+        // doubling...
+        assertDouble(0.1, TABLE.getGainProbability(TABLE.indexOf(Q9, 2)));
+        assertDouble(0.2, TABLE.getLossProbability(TABLE.indexOf(Q9, 2)));
+
+        // No events from copy number zero, and no gains beyond the
+        // maximum...
+        assertDouble(0.0, TABLE.getEventProbability(TABLE.indexOf(P6, 0)));
+        assertDouble(0.0, TABLE.getGainProbability(TABLE.indexOf(P6, 4)));
+    }
+
+    @Test public void testSelectGivenEvent() {
+        // Gains account for one third of the events...
+        int index = TABLE.indexOf(P6, 2);
+
+        assertEquals(CNAType.GAIN, TABLE.selectGivenEvent(index, 0.0));
+        assertEquals(CNAType.GAIN, TABLE.selectGivenEvent(index, 0.333));
+        assertEquals(CNAType.LOSS, TABLE.selectGivenEvent(index, 0.334));
+        assertEquals(CNAType.LOSS, TABLE.selectGivenEvent(index, 0.999));
+
+        // Only losses are possible at the maximum copy number...
+        index = TABLE.indexOf(P6, 4);
+
+        assertEquals(CNAType.LOSS, TABLE.selectGivenEvent(index, 0.0));
+        assertEquals(CNAType.LOSS, TABLE.selectGivenEvent(index, 0.999));
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.SegmentCNATableTest");
+    }
+}
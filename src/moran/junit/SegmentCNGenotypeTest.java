@@ -45,6 +45,21 @@ public class SegmentCNGenotypeTest {
         assertEquals(cnP12, genotype.count(P12));
     }
 
+    @Test public void testInterning() {
+        SegmentCNGenotype genotype1 = SegmentCNGenotype.GERMLINE.gain(P6).gain(Q9);
+        SegmentCNGenotype genotype2 = SegmentCNGenotype.GERMLINE.gain(Q9).gain(P6);
+
+        assertSame(genotype1, genotype2);
+        assertEquals(genotype1.hashCode(), genotype2.hashCode());
+
+        assertSame(SegmentCNGenotype.GERMLINE, genotype1.lose(P6).lose(Q9));
+        assertFalse(SegmentCNGenotype.GERMLINE.equals(genotype1));
+
+        // Repeated events return the same canonical instance...
+        assertSame(genotype1.gain(P12), genotype1.gain(P12));
+        assertSame(genotype1.lose(P12), genotype1.lose(P12));
+    }
+
     @Test public void testLoss() {
         SegmentCNGenotype genotype = SegmentCNGenotype.GERMLINE;
 
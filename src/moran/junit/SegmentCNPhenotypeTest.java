@@ -0,0 +1,81 @@
+
+package moran.junit;
+
+import jam.junit.NumericTestBase;
+
+import moran.segment.GenomeSegment;
+import moran.segment.SegmentCNGenotype;
+import moran.segment.SegmentCNPhenotype;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class SegmentCNPhenotypeTest extends NumericTestBase {
+    static {
+        System.setProperty(GenomeSegment.DEFINITION_FILE_PROPERTY, "data/test/test_segment.txt");
+        System.setProperty(SegmentCNGenotype.MAX_COPY_NUMBER_PROPERTY, "5");
+        System.setProperty(SegmentCNPhenotype.FITNESS_MATRIX_FILE_PROPERTY, "data/test/explicit_phenotype.csv");
+    }
+
+    private static final GenomeSegment P6  = GenomeSegment.instance("6p");
+    private static final GenomeSegment Q9  = GenomeSegment.instance("9q");
+    private static final GenomeSegment P12 = GenomeSegment.instance("12p");
+
+    private static final SegmentCNPhenotype PHENOTYPE = SegmentCNPhenotype.global();
+
+    public SegmentCNPhenotypeTest() {
+        super(1.0E-10);
+    }
+
+    private double getFitness(SegmentCNGenotype genotype) {
+        return PHENOTYPE.getFitness(genotype);
+    }
+
+    @Test public void testGermline() {
+        assertDouble(3.0, getFitness(SegmentCNGenotype.GERMLINE));
+    }
+
+    @Test public void testIncremental() {
+        //
+        // Evaluate the germline first, so that the daughter fitness
+        // values are derived incrementally...
+        //
+        getFitness(SegmentCNGenotype.GERMLINE);
+
+        SegmentCNGenotype genotype = SegmentCNGenotype.GERMLINE;
+
+        genotype = genotype.gain(P6);
+        assertDouble(1.02 + 1.00 + 1.00, getFitness(genotype));
+
+        genotype = genotype.gain(P6);
+        assertDouble(1.05 + 1.00 + 1.00, getFitness(genotype));
+
+        genotype = genotype.lose(Q9);
+        assertDouble(1.05 + 0.90 + 1.00, getFitness(genotype));
+
+        genotype = genotype.lose(P12).lose(P12);
+        assertDouble(1.05 + 0.90 + 1.10, getFitness(genotype));
+
+        genotype = genotype.lose(P6).lose(P6).lose(P6).lose(P6);
+        assertDouble(0.98 + 0.90 + 1.10, getFitness(genotype));
+    }
+
+    @Test public void testPathIndependent() {
+        getFitness(SegmentCNGenotype.GERMLINE);
+
+        SegmentCNGenotype genotype1 = SegmentCNGenotype.GERMLINE.gain(P6).lose(Q9).gain(P12);
+        SegmentCNGenotype genotype2 = SegmentCNGenotype.GERMLINE.gain(P12).gain(P6).lose(Q9);
+
+        assertSame(genotype1, genotype2);
+        assertEquals(getFitness(genotype1), getFitness(genotype2), 0.0);
+    }
+
+    @Test public void testWholeGenomeDoubling() {
+        SegmentCNGenotype genotype = SegmentCNGenotype.GERMLINE.lose(Q9).doubleWG();
+        assertDouble(1.05 + 1.00 + 0.94, getFitness(genotype));
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.SegmentCNPhenotypeTest");
+    }
+}
@@ -0,0 +1,68 @@
+package moran.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import moran.cell.Cell;
+import moran.scalar.ScalarCell;
+import moran.space.LatticeTopology;
+import moran.space.Space;
+
+/**
+ * Creates the well-mixed and lattice populations shared by the
+ * engine tests and benchmarks.
+ */
+final class SpaceFixture {
+    private SpaceFixture() {}
+
+    /**
+     * Creates a well-mixed space.
+     *
+     * @param size the number of cells in the space.
+     *
+     * @param founder a function that creates the founder cell for
+     * each population index.
+     *
+     * @return the new well-mixed space.
+     */
+    static Space point(int size, IntFunction<? extends Cell> founder) {
+        return Space.point(createCells(size, founder));
+    }
+
+    /**
+     * Creates a space with the neighbor relationships of a lattice
+     * topology.
+     *
+     * @param topology the lattice topology.
+     *
+     * @param founder a function that creates the founder cell for
+     * each lattice site.
+     *
+     * @return the new lattice space.
+     */
+    static Space lattice(LatticeTopology topology, IntFunction<? extends Cell> founder) {
+        return TopologySpace.create(topology, createCells(topology.size(), founder));
+    }
+
+    /**
+     * Creates a scalar cell with one of five fitness values, cycling
+     * through the values with the population index.
+     *
+     * @param index the population index of the cell.
+     *
+     * @return the new scalar cell.
+     */
+    static Cell scalar(int index) {
+        return new ScalarCell(0.5 + 0.25 * (index % 5));
+    }
+
+    private static List<Cell> createCells(int size, IntFunction<? extends Cell> founder) {
+        List<Cell> cells = new ArrayList<Cell>(size);
+
+        for (int index = 0; index < size; ++index)
+            cells.add(founder.apply(index));
+
+        return cells;
+    }
+}
@@ -0,0 +1,127 @@
+package moran.junit;
+
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import moran.cell.Genotype;
+import moran.cell.Phenotype;
+import moran.driver.CloneProcess;
+import moran.driver.MoranEngine;
+import moran.driver.MoranRandom;
+import moran.driver.TauLeapProcess;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class TauLeapProcessTest {
+    //
+    // A two-state model: wild-type cells mutate irreversibly into
+    // mutant cells with a fixed probability per division...
+    //
+    private static final class TestGenotype implements Genotype {
+        private final double fitness;
+        private final double mutationProb;
+
+        private TestGenotype(double fitness, double mutationProb) {
+            this.fitness = fitness;
+            this.mutationProb = mutationProb;
+        }
+
+        @Override public Genotype divide(RandomGenerator random) {
+            return (random.nextDouble() < mutationProb) ? mutate(random) : this;
+        }
+
+        @Override public double getMutationProbability() {
+            return mutationProb;
+        }
+
+        @Override public Genotype mutate(RandomGenerator random) {
+            return MUTANT;
+        }
+
+        @Override public String format() {
+            return Double.toString(fitness);
+        }
+
+        @Override public String header() {
+            return "fitness";
+        }
+    }
+
+    private static final TestGenotype MUTANT = new TestGenotype(1.1, 0.0);
+    private static final TestGenotype WILD = new TestGenotype(1.0, 1.0E-3);
+
+    private static final Phenotype PHENOTYPE = new Phenotype() {
+            @Override public double getFitness(Genotype genotype) {
+                return ((TestGenotype) genotype).fitness;
+            }
+        };
+
+    private static final int SIZE = 20000;
+    private static final int STEPS = 5;
+    private static final int TRIALS = 40;
+
+    private static final Map<Genotype, Integer> CENSUS = Map.of(WILD, SIZE / 2, MUTANT, SIZE / 2);
+
+    private static int countMutants(MoranEngine engine) {
+        return engine.countGenotypes().getOrDefault(MUTANT, 0);
+    }
+
+    @Test public void testCensus() {
+        TauLeapProcess process = TauLeapProcess.initialize(CENSUS, PHENOTYPE, MoranRandom.create(5L), 0.03);
+
+        for (int step = 0; step < STEPS; ++step) {
+            process.executeTimeStep();
+
+            int total = 0;
+
+            for (int count : process.countGenotypes().values())
+                total += count;
+
+            int mutants = countMutants(process);
+
+            assertEquals(SIZE, total);
+            assertEquals((SIZE - mutants + 1.1 * mutants) / SIZE, process.getMeanFitness(), 1.0E-12);
+        }
+    }
+
+    @Test public void testExactEquivalence() {
+        //
+        // The approximate and exact engines must agree on the mean
+        // mutant fraction and time clock to within the sampling error
+        // (approximately 0.001 and 0.003)...
+        //
+        double leapFraction = 0.0;
+        double exactFraction = 0.0;
+        double leapClock = 0.0;
+        double exactClock = 0.0;
+
+        for (int trial = 0; trial < TRIALS; ++trial) {
+            TauLeapProcess leap = TauLeapProcess.initialize(CENSUS, PHENOTYPE, MoranRandom.create(31L, trial), 0.03);
+            CloneProcess exact = CloneProcess.initialize(CENSUS, PHENOTYPE, MoranRandom.create(37L, trial));
+
+            for (int step = 0; step < STEPS; ++step) {
+                leap.executeTimeStep();
+                exact.executeTimeStep();
+            }
+
+            leapFraction += (double) countMutants(leap) / SIZE;
+            exactFraction += (double) countMutants(exact) / SIZE;
+
+            leapClock += leap.getTimeClock();
+            exactClock += exact.getTimeClock();
+        }
+
+        assertEquals(exactFraction / TRIALS, leapFraction / TRIALS, 0.004);
+        assertEquals(exactClock / TRIALS, leapClock / TRIALS, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTolerance() {
+        TauLeapProcess.initialize(CENSUS, PHENOTYPE, MoranRandom.create(1L), 1.5);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.TauLeapProcessTest");
+    }
+}
@@ -0,0 +1,65 @@
+package moran.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jam.math.Point;
+
+import moran.cell.Cell;
+import moran.space.LatticeTopology;
+import moran.space.Space;
+
+/**
+ * A space with the neighbor relationships of a lattice topology and
+ * no spatial locations, for testing engines on lattices without
+ * constructing a Bravais lattice.
+ */
+final class TopologySpace extends Space {
+    private final LatticeTopology topology;
+
+    private TopologySpace(LatticeTopology topology, List<? extends Cell> cells) {
+        super(cells);
+        this.topology = topology;
+
+        if (cells.size() != topology.size())
+            throw new IllegalArgumentException("The cells must fill the topology.");
+    }
+
+    static TopologySpace create(LatticeTopology topology, List<? extends Cell> cells) {
+        return new TopologySpace(topology, cells);
+    }
+
+    @Override public List<Cell> getNeighbors(Cell cell) {
+        int index = indexOf(cell);
+        List<Cell> neighbors = new ArrayList<Cell>();
+
+        for (int k = 0; k < topology.countNeighbors(index); ++k)
+            neighbors.add(get(topology.getNeighbor(index, k)));
+
+        return neighbors;
+    }
+
+    @Override public int maxNeighborCount() {
+        return topology.maxNeighborCount();
+    }
+
+    @Override public int countNeighbors(int index) {
+        return topology.countNeighbors(index);
+    }
+
+    @Override public int getNeighborIndex(int index, int k) {
+        return topology.getNeighbor(index, k);
+    }
+
+    @Override public int getNeighborIndexes(int index, int[] neighbors) {
+        return topology.getNeighbors(index, neighbors);
+    }
+
+    @Override public Point locate(int index) {
+        return null;
+    }
+
+    @Override public Point locate(Cell cell) {
+        return null;
+    }
+}
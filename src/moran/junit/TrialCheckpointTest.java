@@ -0,0 +1,211 @@
+package moran.junit;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import moran.ab.ABCell;
+import moran.ab.ABConfig;
+import moran.ab.ABGenotype;
+import moran.ab.ABPhenotype;
+import moran.cell.Cell;
+import moran.cell.PopulationMode;
+import moran.driver.MoranEngine;
+import moran.driver.MoranKernel;
+import moran.driver.MoranRandom;
+import moran.driver.MoranTrial;
+import moran.driver.TrialCheckpoint;
+import moran.space.LatticeTopology;
+import moran.space.Space;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class TrialCheckpointTest {
+    static {
+        System.setProperty(ABConfig.FITNESS_RATIO_PROPERTY, "1.25");
+        System.setProperty(ABConfig.MUTATION_RATE_PROPERTY, "0.01");
+    }
+
+    private static final String STRUCTURE = "SQUARE; 1.0; 8, 6";
+    private static final int STEPS = 10;
+
+    private static Space createLattice() {
+        LatticeTopology topology = LatticeTopology.parse(STRUCTURE);
+        List<Cell> cells = new ArrayList<Cell>();
+
+        Cell.resetIndex();
+
+        for (int site = 0; site < topology.size(); ++site)
+            cells.add(ABCell.newA());
+
+        return TopologySpace.create(topology, cells);
+    }
+
+    private static Space createPoint() {
+        List<Cell> cells = new ArrayList<Cell>();
+
+        Cell.resetIndex();
+
+        for (int k = 0; k < 40; ++k)
+            cells.add(ABCell.newA());
+
+        return Space.point(cells);
+    }
+
+    private static Space createMapped() {
+        return Space.mapped(STRUCTURE, ABGenotype.A);
+    }
+
+    private static File createTempFile() throws Exception {
+        File file = File.createTempFile("checkpoint", ".bin");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static void assertResume(Supplier<Space> factory) throws Exception {
+        //
+        // A trial resumed from a checkpoint must continue exactly as
+        // the uninterrupted trial...
+        //
+        MoranRandom random = MoranRandom.create(31L);
+        MoranTrial trial = MoranTrial.create(0, MoranKernel.initialize(factory.get(), ABPhenotype.INSTANCE, random), random);
+
+        for (int step = 0; step < STEPS; ++step)
+            trial.advance();
+
+        File file = createTempFile();
+        TrialCheckpoint.capture(trial, List.of()).write(file, ABGenotype.CODEC);
+
+        for (int step = 0; step < STEPS; ++step)
+            trial.advance();
+
+        TrialCheckpoint checkpoint = TrialCheckpoint.read(file, ABGenotype.CODEC);
+
+        assertEquals(0, checkpoint.getTrialIndex());
+        assertEquals(STEPS, checkpoint.getTimeStep());
+
+        Space space = factory.get();
+        checkpoint.restore(space);
+
+        MoranRandom resumedRandom = checkpoint.restoreRandom();
+        MoranEngine engine = MoranKernel.initialize(space, ABPhenotype.INSTANCE, resumedRandom);
+        engine.restoreState(checkpoint.getTimeClock(), checkpoint.getMeanFitness());
+
+        MoranTrial resumed = MoranTrial.restore(0, checkpoint.getTimeStep(), engine, resumedRandom);
+
+        for (int step = 0; step < STEPS; ++step)
+            resumed.advance();
+
+        assertEquals(trial.getTimeStep(), resumed.getTimeStep());
+        assertEquals(trial.getTimeClock(), resumed.getTimeClock(), 0.0);
+        assertEquals(trial.getMeanFitness(), resumed.getMeanFitness(), 0.0);
+
+        for (int index = 0; index < space.size(); ++index) {
+            Cell expected = trial.viewSpace().get(index);
+            Cell actual = resumed.viewSpace().get(index);
+
+            assertSame(expected.getGenotype(), actual.getGenotype());
+            assertEquals(expected.getFounderIndex(), actual.getFounderIndex());
+        }
+
+        assertTrue(trial.getMeanFitness() > 1.0);
+    }
+
+    @Test public void testResumeLattice() throws Exception {
+        assertResume(TrialCheckpointTest::createLattice);
+    }
+
+    @Test public void testResumePoint() throws Exception {
+        assertResume(TrialCheckpointTest::createPoint);
+    }
+
+    @Test public void testResumeColumn() throws Exception {
+        System.setProperty(PopulationMode.POPULATION_MODE_PROPERTY, "COLUMN");
+
+        try {
+            assertResume(TrialCheckpointTest::createPoint);
+        }
+        finally {
+            System.clearProperty(PopulationMode.POPULATION_MODE_PROPERTY);
+        }
+    }
+
+    @Test public void testResumeMapped() throws Exception {
+        assertResume(TrialCheckpointTest::createMapped);
+    }
+
+    @Test public void testRandomState() throws Exception {
+        MoranRandom random = MoranRandom.create(5L);
+
+        // Leave partially consumed buffers...
+        for (int k = 0; k < 100; ++k) {
+            random.nextDouble();
+            random.nextExponential();
+        }
+
+        File file = createTempFile();
+
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(file))) {
+            random.writeState(output);
+        }
+
+        MoranRandom restored;
+
+        try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+            restored = MoranRandom.readState(input);
+        }
+
+        for (int k = 0; k < 1000; ++k) {
+            assertEquals(random.nextDouble(), restored.nextDouble(), 0.0);
+            assertEquals(random.nextExponential(), restored.nextExponential(), 0.0);
+            assertEquals(random.nextLong(), restored.nextLong());
+        }
+    }
+
+    @Test public void testReplace() throws Exception {
+        MoranRandom random = MoranRandom.create(7L);
+        MoranTrial trial = MoranTrial.create(3, MoranKernel.initialize(createPoint(), ABPhenotype.INSTANCE, random), random);
+        File file = createTempFile();
+
+        trial.advance();
+        TrialCheckpoint.capture(trial, List.of()).write(file, ABGenotype.CODEC);
+
+        trial.advance();
+        TrialCheckpoint.capture(trial, List.of()).write(file, ABGenotype.CODEC);
+
+        TrialCheckpoint checkpoint = TrialCheckpoint.read(file, ABGenotype.CODEC);
+
+        assertEquals(3, checkpoint.getTrialIndex());
+        assertEquals(2, checkpoint.getTimeStep());
+        assertEquals(40, checkpoint.size());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testInvalidFile() throws Exception {
+        File file = createTempFile();
+
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(file))) {
+            output.writeInt(12345);
+        }
+
+        TrialCheckpoint.read(file, ABGenotype.CODEC);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnknownRandom() {
+        MoranEngine engine = MoranKernel.initialize(createPoint(), ABPhenotype.INSTANCE, MoranRandom.create(1L));
+        TrialCheckpoint.capture(MoranTrial.create(0, engine), List.of());
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.TrialCheckpointTest");
+    }
+}
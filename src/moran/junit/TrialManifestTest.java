@@ -0,0 +1,91 @@
+package moran.junit;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.file.Files;
+
+import moran.driver.TrialManifest;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+public class TrialManifestTest {
+    private static File createTempFile() throws Exception {
+        File file = File.createTempFile("manifest", ".csv");
+        file.delete();
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test public void testCreate() throws Exception {
+        File file = createTempFile();
+        TrialManifest manifest = TrialManifest.open(file, 123L, false);
+
+        assertTrue(file.exists());
+        assertEquals(123L, manifest.getRandomSeed());
+        assertEquals(0, manifest.countComplete());
+        assertFalse(manifest.isComplete(0));
+    }
+
+    @Test public void testReopen() throws Exception {
+        File file = createTempFile();
+        TrialManifest manifest = TrialManifest.open(file, 456L, false);
+
+        manifest.markComplete(0);
+        manifest.markComplete(2);
+        manifest.markComplete(2);
+
+        assertEquals(3, Files.readAllLines(file.toPath()).size());
+
+        // The recorded seed replaces a seed that was not fixed...
+        TrialManifest reopened = TrialManifest.open(file, 789L, false);
+
+        assertEquals(456L, reopened.getRandomSeed());
+        assertEquals(2, reopened.countComplete());
+        assertTrue(reopened.isComplete(0));
+        assertFalse(reopened.isComplete(1));
+        assertTrue(reopened.isComplete(2));
+
+        reopened.markComplete(1);
+        assertTrue(TrialManifest.open(file, 456L, true).isComplete(1));
+    }
+
+    @Test public void testPartialLine() throws Exception {
+        File file = createTempFile();
+        TrialManifest.open(file, 11L, true).markComplete(7);
+
+        // An interrupted append leaves a line without its newline...
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write("trial,7");
+        }
+
+        TrialManifest manifest = TrialManifest.open(file, 11L, true);
+
+        assertEquals(1, manifest.countComplete());
+        assertTrue(manifest.isComplete(7));
+        assertFalse(manifest.isComplete(73));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testSeedMismatch() throws Exception {
+        File file = createTempFile();
+
+        TrialManifest.open(file, 1L, true);
+        TrialManifest.open(file, 2L, true);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testInvalidLine() throws Exception {
+        File file = createTempFile();
+
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("randomSeed,5\nbogus,3\n");
+        }
+
+        TrialManifest.open(file, 5L, true);
+    }
+
+    public static void main(String[] args) {
+        org.junit.runner.JUnitCore.main("moran.junit.TrialManifestTest");
+    }
+}
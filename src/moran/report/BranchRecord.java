@@ -0,0 +1,90 @@
+package moran.report;
+
+import java.text.DecimalFormat;
+
+import jam.report.LineBuilder;
+
+import moran.driver.MoranDriver;
+import moran.driver.MoranTrial;
+
+/**
+ * Records the state at which a simulation trial was forked from its
+ * shared burn-in trial.
+ */
+public class BranchRecord extends MoranRecord {
+    private final int parentIndex;
+    private final double meanFitness;
+
+    private static final DecimalFormat MEAN_FITNESS_FORMAT = new DecimalFormat("#0.0#####");
+
+    private BranchRecord(MoranDriver driver) {
+        super(driver);
+
+        MoranTrial trial = driver.getTrial();
+
+        this.parentIndex = trial.getParentIndex();
+        this.meanFitness = trial.getMeanFitness();
+    }
+
+    /**
+     * Base name for the branch report.
+     */
+    public static final String BRANCH_BASE_NAME = "branch-trial.csv";
+
+    /**
+     * Creates a new branch record for the trial executing in a driver
+     * application, which must be at its branch step.
+     *
+     * @param driver the active driver application.
+     *
+     * @return the branch record for the current trial.
+     */
+    public static BranchRecord create(MoranDriver driver) {
+        return new BranchRecord(driver);
+    }
+
+    /**
+     * Returns the index of the burn-in trial from which the trial was
+     * forked.
+     *
+     * @return the index of the parent trial.
+     */
+    public int getParentIndex() {
+        return parentIndex;
+    }
+
+    /**
+     * Returns the mean fitness of the cell population when the trial
+     * was forked.
+     *
+     * @return the mean fitness of the cell population when the trial
+     * was forked.
+     */
+    public double getMeanFitness() {
+        return meanFitness;
+    }
+
+    @Override public String formatLine() {
+        LineBuilder builder = LineBuilder.csv();
+
+        builder.append(super.formatLine());
+        builder.append(getParentIndex());
+        builder.append(getMeanFitness(), MEAN_FITNESS_FORMAT);
+
+        return builder.toString();
+    }
+
+    @Override public String getBaseName() {
+        return BRANCH_BASE_NAME;
+    }
+
+    @Override public String getHeaderLine() {
+        LineBuilder builder = LineBuilder.csv();
+
+        builder.append(super.getHeaderLine());
+        builder.append("parentIndex");
+        builder.append("meanFitness");
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package moran.report;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import jam.report.ReportWriter;
+import jam.sim.StepRecordCache;
+
+import moran.driver.BranchTrigger;
+import moran.driver.MoranDriver;
+
+/**
+ * Reports the parent trial, branch step, time clock, and mean fitness
+ * of each simulation trial forked from a shared burn-in trial.
+ */
+public final class BranchReport extends MoranReport {
+    //
+    // One record per trial; the cache is shared by concurrent trials,
+    // so all access is synchronized on it...
+    //
+    private final StepRecordCache<BranchRecord> cache = StepRecordCache.create();
+
+    private BranchReport(MoranDriver driver) {
+        super(driver);
+    }
+
+    /**
+     * Creates a new report for a given driver application.
+     *
+     * @param driver the governing driver application.
+     *
+     * @return the new report object.
+     */
+    public static BranchReport create(MoranDriver driver) {
+        return new BranchReport(driver);
+    }
+
+    /**
+     * Determines whether the branch report will be executed: it runs
+     * whenever trials are forked from burn-in trials.
+     *
+     * @return {@code true} iff the branch report should be executed.
+     */
+    public static boolean reportRequested() {
+        return BranchTrigger.global() != BranchTrigger.NONE;
+    }
+
+    @Override public void initializeSimulation() {
+        if (!cache.isEmpty())
+            throw new IllegalStateException("Expected an empty record cache.");
+    }
+
+    @Override public void initializeTrial() {
+        BranchRecord record = BranchRecord.create(getDriver());
+
+        synchronized (cache) {
+            cache.add(record);
+        }
+    }
+
+    @Override public void processStep() {
+        //
+        // Nothing to record after the branch step...
+        //
+    }
+
+    @Override public void finalizeTrial() {
+        //
+        // Resumable simulations write the record of each trial into a
+        // durable part file before the trial is marked complete...
+        //
+        if (getDriver().isResumable())
+            writePart();
+    }
+
+    private void writePart() {
+        List<BranchRecord> trialRecords;
+
+        synchronized (cache) {
+            trialRecords = new ArrayList<BranchRecord>(cache.lookupTrial(getTrialIndex()));
+        }
+
+        File partFile = ReportParts.getPartFile(this, BranchRecord.BRANCH_BASE_NAME, getTrialIndex());
+        ReportParts.write(partFile, trialRecords);
+    }
+
+    @Override public void finalizeSimulation() {
+        if (getDriver().isResumable())
+            ReportParts.mergeTrials(this, BranchRecord.BRANCH_BASE_NAME);
+        else
+            ReportWriter.write(getReportDir(), cache);
+    }
+}
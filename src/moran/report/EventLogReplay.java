@@ -0,0 +1,359 @@
+
+package moran.report;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import moran.cell.Genotype;
+import moran.cell.GenotypeCodec;
+import moran.space.Space;
+import moran.space.SpaceView;
+
+import static moran.report.EventLogWriter.*;
+
+/**
+ * Reconstructs the state of the cellular space at any logged time
+ * step from an event log written by the {@link EventLogReport}.
+ *
+ * <p>The log is read through memory-mapped windows.  A replay seeks to
+ * the latest keyframe at or before the requested time step and then
+ * streams the events of the following steps; a replay of a later step
+ * within the same keyframe interval continues from the previous replay
+ * instead, so replaying every step in order (to render a movie, for
+ * example) reads each event once.
+ *
+ * <p>The replayed state is restored into a space created exactly as
+ * for the start of the logged trial (see {@link
+ * moran.cell.Population#restore(Genotype[], long[])}), so that the
+ * replayed members inherit the logged founder indexes.
+ */
+public final class EventLogReplay implements AutoCloseable {
+    private final File logFile;
+    private final FileChannel channel;
+
+    private final int trialIndex;
+    private final int siteCount;
+    private final Genotype[] genotypes;
+
+    // The time step and byte offset of each keyframe...
+    private final int[] keyframeSteps;
+    private final long[] keyframeOffsets;
+
+    // The byte offset of the end of the event records...
+    private final long endOffset;
+
+    // The state after the latest replayed step...
+    private final int[] siteGenotypes;
+    private final long[] siteFounders;
+
+    private int replayStep = -1;
+    private double replayClock = Double.NaN;
+
+    // The byte offset of the next unread record...
+    private long cursor;
+
+    // The mapped window of the log file...
+    private MappedByteBuffer window = null;
+    private long windowStart = 0;
+
+    private static final long WINDOW_SIZE = 64L * 1024L * 1024L;
+
+    private EventLogReplay(File logFile, GenotypeCodec codec) throws IOException {
+        this.logFile = logFile;
+        this.channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ);
+
+        try {
+            long fileLength = channel.size() - channel.size() % RECORD_SIZE;
+
+            if (fileLength < RECORD_SIZE || readSite(0) != MAGIC || readValue(0) != VERSION)
+                throw new IOException("Invalid event log: [" + logFile + "].");
+
+            long header = readPayload(0);
+
+            this.trialIndex = (int) (header >>> 32);
+            this.siteCount = (int) header;
+            this.genotypes = readGenotypes(EventLogWriter.genotypeFile(logFile), codec);
+
+            this.siteGenotypes = new int[siteCount];
+            this.siteFounders = new long[siteCount];
+
+            List<long[]> keyframes = new ArrayList<long[]>();
+
+            if (readSite(fileLength - RECORD_SIZE) == TRAILER_MARK)
+                this.endOffset = readIndex(fileLength, keyframes);
+            else
+                this.endOffset = scanKeyframes(fileLength, keyframes);
+
+            if (keyframes.isEmpty())
+                throw new IOException("Event log has no keyframes: [" + logFile + "].");
+
+            this.keyframeSteps = new int[keyframes.size()];
+            this.keyframeOffsets = new long[keyframes.size()];
+
+            for (int k = 0; k < keyframes.size(); ++k) {
+                keyframeSteps[k] = (int) keyframes.get(k)[0];
+                keyframeOffsets[k] = keyframes.get(k)[1];
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private static Genotype[] readGenotypes(File file, GenotypeCodec codec) throws IOException {
+        List<Genotype> genotypes = new ArrayList<Genotype>();
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int genotypeId;
+
+                try {
+                    genotypeId = input.readInt();
+                }
+                catch (EOFException ex) {
+                    break;
+                }
+
+                if (genotypeId != genotypes.size())
+                    throw new IOException("Invalid genotype dictionary: [" + file + "].");
+
+                genotypes.add(codec.read(input));
+            }
+        }
+
+        return genotypes.toArray(new Genotype[0]);
+    }
+
+    private long readIndex(long fileLength, List<long[]> keyframes) throws IOException {
+        long trailer = fileLength - RECORD_SIZE;
+        long indexOffset = readPayload(trailer);
+        int keyframeCount = readValue(trailer);
+
+        if (indexOffset < RECORD_SIZE
+            || readSite(indexOffset) != INDEX_MARK
+            || indexOffset + (keyframeCount + 1L) * RECORD_SIZE != trailer)
+            throw new IOException("Invalid event log index: [" + logFile + "].");
+
+        for (int k = 1; k <= keyframeCount; ++k) {
+            long position = indexOffset + k * RECORD_SIZE;
+            keyframes.add(new long[] { readValue(position), readPayload(position) });
+        }
+
+        return indexOffset;
+    }
+
+    private long scanKeyframes(long fileLength, List<long[]> keyframes) {
+        //
+        // The log of an interrupted trial has no index, and its final
+        // step may be incomplete, so the log ends at the last marker...
+        //
+        long lastMark = RECORD_SIZE;
+
+        for (long position = RECORD_SIZE; position < fileLength; position += RECORD_SIZE) {
+            int site = readSite(position);
+
+            if (site == KEYFRAME_MARK)
+                keyframes.add(new long[] { readValue(position), position });
+
+            if (site < 0)
+                lastMark = position;
+        }
+
+        if (!keyframes.isEmpty() && keyframes.get(keyframes.size() - 1)[1] == lastMark)
+            keyframes.remove(keyframes.size() - 1);
+
+        return lastMark;
+    }
+
+    /**
+     * Opens an event log for replay.
+     *
+     * @param logFile the event log file.
+     *
+     * @param codec the codec that wrote the genotype dictionary.
+     *
+     * @return the replay for the specified log.
+     *
+     * @throws UncheckedIOException if the log is invalid or an I/O
+     * error occurs.
+     */
+    public static EventLogReplay open(File logFile, GenotypeCodec codec) {
+        try {
+            return new EventLogReplay(logFile, codec);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void map(long position) {
+        if (window != null && position >= windowStart && position + RECORD_SIZE <= windowStart + window.limit())
+            return;
+
+        try {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, channel.size() - position));
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private int readSite(long position) {
+        map(position);
+        return window.getInt((int) (position - windowStart));
+    }
+
+    private int readValue(long position) {
+        map(position);
+        return window.getInt((int) (position - windowStart) + 4);
+    }
+
+    private long readPayload(long position) {
+        map(position);
+        return window.getLong((int) (position - windowStart) + 8);
+    }
+
+    /**
+     * Returns the index of the logged trial.
+     *
+     * @return the index of the logged trial.
+     */
+    public int getTrialIndex() {
+        return trialIndex;
+    }
+
+    /**
+     * Returns the number of sites in the logged space.
+     *
+     * @return the number of sites in the logged space.
+     */
+    public int size() {
+        return siteCount;
+    }
+
+    /**
+     * Returns the first logged time step.
+     *
+     * @return the first logged time step.
+     */
+    public int getFirstStep() {
+        return keyframeSteps[0];
+    }
+
+    /**
+     * Returns the latest replayed time step.
+     *
+     * @return the latest replayed time step ({@code -1} before the
+     * first replay).
+     */
+    public int getReplayStep() {
+        return replayStep;
+    }
+
+    /**
+     * Returns the continuous time clock at the latest replayed step.
+     *
+     * @return the continuous time clock at the latest replayed step
+     * (not a number before the first replay).
+     */
+    public double getTimeClock() {
+        return replayClock;
+    }
+
+    /**
+     * Reconstructs the state of the cellular space at a logged time
+     * step.
+     *
+     * @param timeStep the time step to replay.
+     *
+     * @param space a space created as for the start of the logged
+     * trial, which receives the replayed state.
+     *
+     * @return a view of the replayed space.
+     *
+     * @throws IllegalArgumentException unless the time step was logged
+     * and the space matches the logged space.
+     */
+    public SpaceView replay(int timeStep, Space space) {
+        if (space.size() != siteCount)
+            throw new IllegalArgumentException("The space does not match the event log.");
+
+        if (timeStep < keyframeSteps[0])
+            throw new IllegalArgumentException("Time step [" + timeStep + "] precedes the event log.");
+
+        int keyframe = findKeyframe(timeStep);
+
+        if (replayStep < keyframeSteps[keyframe] || replayStep > timeStep) {
+            cursor = keyframeOffsets[keyframe];
+            replayNextStep();
+        }
+
+        while (replayStep < timeStep) {
+            if (cursor >= endOffset || readValue(cursor) > timeStep)
+                throw new IllegalArgumentException("Time step [" + timeStep + "] was not logged.");
+
+            replayNextStep();
+        }
+
+        Genotype[] replayGenotypes = new Genotype[siteCount];
+
+        for (int site = 0; site < siteCount; ++site)
+            replayGenotypes[site] = genotypes[siteGenotypes[site]];
+
+        space.restore(replayGenotypes, Arrays.copyOf(siteFounders, siteCount));
+        return space;
+    }
+
+    private int findKeyframe(int timeStep) {
+        int index = Arrays.binarySearch(keyframeSteps, timeStep);
+
+        if (index >= 0)
+            return index;
+        else
+            return -index - 2;
+    }
+
+    private void replayNextStep() {
+        //
+        // Apply the marker at the cursor and the events that follow
+        // it...
+        //
+        replayStep = readValue(cursor);
+        replayClock = Double.longBitsToDouble(readPayload(cursor));
+        cursor += RECORD_SIZE;
+
+        while (cursor < endOffset) {
+            int site = readSite(cursor);
+
+            if (site < 0)
+                break;
+
+            siteGenotypes[site] = readValue(cursor);
+            siteFounders[site] = readPayload(cursor);
+            cursor += RECORD_SIZE;
+        }
+    }
+
+    @Override public void close() {
+        try {
+            window = null;
+            channel.close();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+
+package moran.report;
+
+import java.io.DataInput;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jam.app.JamProperties;
+import jam.lang.JamException;
+
+import moran.driver.MoranDriver;
+
+/**
+ * Writes a compact binary log of the site replacements in each trial,
+ * from which the state of the cellular space at any time step can be
+ * replayed later (see {@link EventLogReplay}) without repeating the
+ * simulation.
+ *
+ * <p>Each trial writes a separate log file with fixed-width records
+ * of sixteen bytes (an int, an int, and a long, big-endian).  The
+ * first record is the header: the magic number, the format version,
+ * and the trial index and site count packed into the long.  Each
+ * logged time step begins with a marker record holding the step
+ * index and the bit pattern of the time clock, followed by one event
+ * record for each site whose occupant changed during the step: the
+ * site index, the genotype identifier, and the founder index of the
+ * new occupant.  At every {@code moran.report.eventLogKeyframeInterval}
+ * steps (and at the first logged step), a keyframe marker replaces
+ * the step marker and is followed by an event record for every site.
+ * When the trial is finalized, an index of the keyframe offsets and a
+ * trailer record locating the index are appended; a log without the
+ * trailer (from an interrupted trial) remains readable.
+ *
+ * <p>The genotype identifiers refer to a dictionary file written next
+ * to the log with the genotype codec of the driver application, so
+ * the report requires an application that defines a codec.
+ *
+ * <p>A trial resumed from a checkpoint starts a new log with a
+ * keyframe at the checkpointed time step.
+ */
+public final class EventLogReport extends MoranReport {
+    private final int keyframeInterval;
+
+    // Open log writers indexed by trial...
+    private final Map<Integer, EventLogWriter> writers = new ConcurrentHashMap<Integer, EventLogWriter>();
+
+    private EventLogReport(MoranDriver driver) {
+        super(driver);
+        this.keyframeInterval = resolveKeyframeInterval();
+    }
+
+    private static int resolveKeyframeInterval() {
+        int interval = JamProperties.getOptionalInt(KEYFRAME_INTERVAL_PROPERTY, DEFAULT_KEYFRAME_INTERVAL);
+
+        if (interval < 1)
+            throw JamException.runtime("The event log keyframe interval must be positive.");
+
+        return interval;
+    }
+
+    /**
+     * Name of the system property that specifies whether to run the
+     * event log report.
+     */
+    public static final String RUN_REPORT_PROPERTY = "moran.report.runEventLogReport";
+
+    /**
+     * Name of the system property that specifies the number of time
+     * steps between keyframes in the event log.
+     */
+    public static final String KEYFRAME_INTERVAL_PROPERTY = "moran.report.eventLogKeyframeInterval";
+
+    /**
+     * Default number of time steps between keyframes.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 100;
+
+    /**
+     * Base name of the event log files; the trial index is appended.
+     */
+    public static final String LOG_BASE_NAME = "event-log";
+
+    /**
+     * Creates a new report for a given driver application.
+     *
+     * @param driver the governing driver application.
+     *
+     * @return the new report object.
+     */
+    public static EventLogReport create(MoranDriver driver) {
+        return new EventLogReport(driver);
+    }
+
+    /**
+     * Determines whether this report will be executed.
+     *
+     * @return {@code true} iff this report should be executed.
+     */
+    public static boolean reportRequested() {
+        return JamProperties.getOptionalBoolean(RUN_REPORT_PROPERTY, false);
+    }
+
+    /**
+     * Returns the name of the event log file for a trial.
+     *
+     * @param trialIndex the index of the trial.
+     *
+     * @return the base name of the event log file for the trial.
+     */
+    public static String formatLogName(int trialIndex) {
+        return String.format("%s-%05d.bin", LOG_BASE_NAME, trialIndex);
+    }
+
+    @Override public boolean requiresCells() {
+        return true;
+    }
+
+    @Override public void initializeSimulation() {
+        //
+        // Fail before any trial executes if there is no codec...
+        //
+        getDriver().getGenotypeCodec();
+    }
+
+    @Override public void initializeTrial() {
+        startLog();
+    }
+
+    private void startLog() {
+        File logFile = getReportFile(formatLogName(getTrialIndex()));
+
+        EventLogWriter writer =
+            EventLogWriter.open(logFile, getTrialIndex(), viewSpace().size(), getDriver().getGenotypeCodec(), keyframeInterval);
+
+        writer.record(viewSpace(), getTimeStep(), getTimeClock());
+        writers.put(getTrialIndex(), writer);
+    }
+
+    @Override public void processStep() {
+        writers.get(getTrialIndex()).record(viewSpace(), getTimeStep(), getTimeClock());
+    }
+
+    @Override public void finalizeTrial() {
+        EventLogWriter writer = writers.remove(getTrialIndex());
+
+        if (writer != null)
+            writer.close();
+    }
+
+    @Override public void readCheckpoint(DataInput input) throws IOException {
+        startLog();
+    }
+
+    @Override public void finalizeSimulation() {
+        //
+        // Each log is complete when its trial is finalized...
+        //
+    }
+}
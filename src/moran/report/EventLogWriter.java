@@ -0,0 +1,267 @@
+
+package moran.report;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import moran.cell.Genotype;
+import moran.cell.GenotypeCodec;
+import moran.cell.Population;
+import moran.space.SpaceView;
+
+/**
+ * Writes the event log for one simulation trial (see {@link
+ * EventLogReport} for the file format).
+ */
+public final class EventLogWriter {
+    private final int keyframeInterval;
+    private final GenotypeCodec codec;
+
+    private final DataOutputStream events;
+    private final DataOutputStream genotypes;
+
+    // Identifiers assigned to genotypes in order of appearance...
+    private final Map<Genotype, Integer> genotypeIds = new HashMap<Genotype, Integer>();
+
+    // Whether dictionary entries have been written since the last
+    // flush...
+    private boolean genotypesPending = false;
+
+    // The logged state of each site...
+    private final int[] siteGenotypes;
+    private final long[] siteFounders;
+
+    // The sites replaced in the current time step...
+    private final int[] changedSites;
+
+    // The time step and byte offset of each keyframe...
+    private final List<Integer> keyframeSteps = new ArrayList<Integer>();
+    private final List<Long> keyframeOffsets = new ArrayList<Long>();
+
+    // The byte offset of the next record...
+    private long offset;
+
+    static final int MAGIC = 0x4D4F5245;
+    static final int VERSION = 1;
+
+    // Every record (and the header) occupies sixteen bytes: an int
+    // site index (or negative marker), an int value, and a long
+    // payload...
+    static final int RECORD_SIZE = 16;
+
+    static final int STEP_MARK = -1;
+    static final int KEYFRAME_MARK = -2;
+    static final int INDEX_MARK = -3;
+    static final int TRAILER_MARK = -4;
+
+    private EventLogWriter(File logFile, int trialIndex, int siteCount, GenotypeCodec codec, int keyframeInterval) throws IOException {
+        this.codec = codec;
+        this.keyframeInterval = keyframeInterval;
+        this.siteGenotypes = new int[siteCount];
+        this.siteFounders = new long[siteCount];
+        this.changedSites = new int[siteCount];
+
+        this.events = openStream(logFile);
+        this.genotypes = openStream(genotypeFile(logFile));
+
+        writeRecord(MAGIC, VERSION, ((long) trialIndex << 32) | siteCount);
+    }
+
+    private static DataOutputStream openStream(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    /**
+     * Returns the file holding the genotype dictionary of an event log.
+     *
+     * @param logFile the event log file.
+     *
+     * @return the genotype dictionary file for the specified log.
+     */
+    public static File genotypeFile(File logFile) {
+        return new File(logFile.getPath() + ".genotypes");
+    }
+
+    /**
+     * Opens a new event log.
+     *
+     * @param logFile the event log file.
+     *
+     * @param trialIndex the index of the logged trial.
+     *
+     * @param siteCount the number of sites in the logged space.
+     *
+     * @param codec the codec for the genotypes of the population.
+     *
+     * @param keyframeInterval the number of time steps between
+     * keyframes.
+     *
+     * @return the new log writer.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    public static EventLogWriter open(File logFile, int trialIndex, int siteCount, GenotypeCodec codec, int keyframeInterval) {
+        try {
+            return new EventLogWriter(logFile, trialIndex, siteCount, codec, keyframeInterval);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Logs the state of the space after a completed time step: a
+     * keyframe for the first logged step and every keyframe step, and
+     * the replaced sites otherwise.
+     *
+     * @param space the simulation space.
+     *
+     * @param timeStep the index of the completed time step.
+     *
+     * @param timeClock the continuous time clock.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    public void record(SpaceView space, int timeStep, double timeClock) {
+        if (space.size() != siteGenotypes.length)
+            throw new IllegalStateException("The space size has changed.");
+
+        //
+        // Read the members by position from a population, which need
+        // not create cell objects in column or mapped storage...
+        //
+        Population population = (space instanceof Population) ? (Population) space : null;
+
+        try {
+            if (keyframeSteps.isEmpty() || timeStep % keyframeInterval == 0)
+                writeKeyframe(space, population, timeStep, timeClock);
+            else
+                writeEvents(space, population, timeStep, timeClock);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeKeyframe(SpaceView space, Population population, int timeStep, double timeClock) throws IOException {
+        for (int site = 0; site < siteGenotypes.length; ++site) {
+            siteGenotypes[site] = getGenotypeId(space, population, site);
+            siteFounders[site] = getFounderIndex(space, population, site);
+        }
+
+        flushGenotypes();
+
+        keyframeSteps.add(timeStep);
+        keyframeOffsets.add(offset);
+
+        writeRecord(KEYFRAME_MARK, timeStep, Double.doubleToLongBits(timeClock));
+
+        for (int site = 0; site < siteGenotypes.length; ++site)
+            writeRecord(site, siteGenotypes[site], siteFounders[site]);
+    }
+
+    private void writeEvents(SpaceView space, Population population, int timeStep, double timeClock) throws IOException {
+        int changeCount = 0;
+
+        for (int site = 0; site < siteGenotypes.length; ++site) {
+            int genotypeId = getGenotypeId(space, population, site);
+            long founder = getFounderIndex(space, population, site);
+
+            if (genotypeId != siteGenotypes[site] || founder != siteFounders[site]) {
+                siteGenotypes[site] = genotypeId;
+                siteFounders[site] = founder;
+                changedSites[changeCount++] = site;
+            }
+        }
+
+        flushGenotypes();
+
+        writeRecord(STEP_MARK, timeStep, Double.doubleToLongBits(timeClock));
+
+        for (int k = 0; k < changeCount; ++k) {
+            int site = changedSites[k];
+            writeRecord(site, siteGenotypes[site], siteFounders[site]);
+        }
+    }
+
+    private int getGenotypeId(SpaceView space, Population population, int site) throws IOException {
+        if (population != null)
+            return getGenotypeId(population.getGenotype(site));
+        else
+            return getGenotypeId(space.get(site).getGenotype());
+    }
+
+    private static long getFounderIndex(SpaceView space, Population population, int site) {
+        if (population != null)
+            return population.getFounderIndex(site);
+        else
+            return space.get(site).getFounderIndex();
+    }
+
+    private int getGenotypeId(Genotype genotype) throws IOException {
+        Integer genotypeId = genotypeIds.get(genotype);
+
+        if (genotypeId != null)
+            return genotypeId;
+
+        int newId = genotypeIds.size();
+        genotypeIds.put(genotype, newId);
+
+        genotypes.writeInt(newId);
+        codec.write(genotypes, genotype);
+        genotypesPending = true;
+
+        return newId;
+    }
+
+    private void flushGenotypes() throws IOException {
+        //
+        // The records of a time step are written only after the new
+        // dictionary entries that they refer to have been flushed, so
+        // the log of an interrupted trial remains readable...
+        //
+        if (genotypesPending) {
+            genotypes.flush();
+            genotypesPending = false;
+        }
+    }
+
+    private void writeRecord(int site, int value, long payload) throws IOException {
+        events.writeInt(site);
+        events.writeInt(value);
+        events.writeLong(payload);
+
+        offset += RECORD_SIZE;
+    }
+
+    /**
+     * Writes the keyframe index and closes the log.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    public void close() {
+        try {
+            long indexOffset = offset;
+            writeRecord(INDEX_MARK, keyframeSteps.size(), 0L);
+
+            for (int k = 0; k < keyframeSteps.size(); ++k)
+                writeRecord(KEYFRAME_MARK, keyframeSteps.get(k), keyframeOffsets.get(k));
+
+            writeRecord(TRAILER_MARK, keyframeSteps.size(), indexOffset);
+
+            genotypes.close();
+            events.close();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
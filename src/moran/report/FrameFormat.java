@@ -0,0 +1,108 @@
+
+package moran.report;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.imageio.ImageIO;
+
+import jam.app.JamProperties;
+
+/**
+ * Enumerates the image formats for the frames written by the {@link
+ * FrameReport}.
+ */
+public enum FrameFormat {
+    /**
+     * Compressed portable network graphics, encoded by the standard
+     * image I/O library.
+     */
+    PNG("png") {
+        @Override public void write(File file, int[] pixels, int width, int height) throws IOException {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            image.setRGB(0, 0, width, height, pixels, 0, width);
+
+            if (!ImageIO.write(image, "png", file))
+                throw new IOException("No PNG encoder is available.");
+        }
+    },
+
+    /**
+     * Uncompressed binary portable pixmaps ({@code P6}), which are the
+     * fastest to write.
+     */
+    PPM("ppm") {
+        @Override public void write(File file, int[] pixels, int width, int height) throws IOException {
+            byte[] bytes = new byte[3 * pixels.length];
+
+            for (int k = 0; k < pixels.length; ++k) {
+                bytes[3 * k]     = (byte) (pixels[k] >> 16);
+                bytes[3 * k + 1] = (byte) (pixels[k] >> 8);
+                bytes[3 * k + 2] = (byte) pixels[k];
+            }
+
+            try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+                output.write(String.format("P6\n%d %d\n255\n", width, height).getBytes(StandardCharsets.US_ASCII));
+                output.write(bytes);
+            }
+        }
+    };
+
+    private final String extension;
+
+    private FrameFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Writes a frame into an image file.
+     *
+     * @param file the destination file.
+     *
+     * @param pixels the RGB value of each pixel, in row-major order
+     * from the top-left corner.
+     *
+     * @param width the width of the frame in pixels.
+     *
+     * @param height the height of the frame in pixels.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public abstract void write(File file, int[] pixels, int width, int height) throws IOException;
+
+    /**
+     * Returns the file name extension for this format.
+     *
+     * @return the file name extension for this format.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Name of the system property that defines the frame format.
+     */
+    public static final String FRAME_FORMAT_PROPERTY = "moran.report.frameFormat";
+
+    /**
+     * Default frame format.
+     */
+    public static final FrameFormat DEFAULT = PNG;
+
+    /**
+     * Returns the frame format defined by system properties.
+     *
+     * @return the frame format defined by system properties.
+     */
+    public static FrameFormat global() {
+        if (JamProperties.isSet(FRAME_FORMAT_PROPERTY))
+            return JamProperties.getRequiredEnum(FRAME_FORMAT_PROPERTY, FrameFormat.class);
+        else
+            return DEFAULT;
+    }
+}
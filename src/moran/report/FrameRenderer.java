@@ -0,0 +1,176 @@
+
+package moran.report;
+
+import java.util.Arrays;
+
+import jam.math.Point;
+
+import moran.space.SpaceView;
+
+/**
+ * Rasterizes the sites of a cellular space into image frames.
+ *
+ * <p>The pixel position of every site is computed once, when the
+ * renderer is created, from the site locations: one lattice constant
+ * spans {@code cellSize} pixels, each site is drawn as a square of
+ * that size, and the y-axis points up.  Three-dimensional spaces are
+ * projected onto the xy-plane.  Thereafter, frames are rendered from
+ * arrays of site colors alone, so no locations are computed and no
+ * objects are created per site, and a renderer may be shared by
+ * concurrent threads.
+ */
+public final class FrameRenderer {
+    private final int width;
+    private final int height;
+    private final int cellSize;
+
+    // The top-left pixel of each site...
+    private final int[] siteOffsets;
+
+    /**
+     * Color of the pixels that are not covered by any site.
+     */
+    public static final int BACKGROUND = 0xFFFFFF;
+
+    private FrameRenderer(SpaceView space, int cellSize) {
+        int siteCount = space.size();
+
+        double[] x = new double[siteCount];
+        double[] y = new double[siteCount];
+
+        for (int site = 0; site < siteCount; ++site) {
+            Point point = space.locate(site);
+
+            x[site] = point.coord(0);
+            y[site] = (point.dimensionality() > 1) ? point.coord(1) : 0.0;
+        }
+
+        double xmin = Arrays.stream(x).min().orElse(0.0);
+        double ymin = Arrays.stream(y).min().orElse(0.0);
+        double scale = cellSize / computeSpacing(space);
+
+        int[] px = new int[siteCount];
+        int[] py = new int[siteCount];
+
+        int pxmax = 0;
+        int pymax = 0;
+
+        for (int site = 0; site < siteCount; ++site) {
+            px[site] = (int) Math.round(scale * (x[site] - xmin));
+            py[site] = (int) Math.round(scale * (y[site] - ymin));
+
+            pxmax = Math.max(pxmax, px[site]);
+            pymax = Math.max(pymax, py[site]);
+        }
+
+        this.cellSize = cellSize;
+        this.width = pxmax + cellSize;
+        this.height = pymax + cellSize;
+        this.siteOffsets = new int[siteCount];
+
+        for (int site = 0; site < siteCount; ++site)
+            siteOffsets[site] = (pymax - py[site]) * width + px[site];
+    }
+
+    private static double computeSpacing(SpaceView space) {
+        //
+        // The lattice constant is the distance from the first site to
+        // its nearest neighbor (the periodic neighbors on the far side
+        // of the lattice are farther away)...
+        //
+        if (space.size() == 0 || space.countNeighbors(0) == 0)
+            return 1.0;
+
+        Point origin = space.locate(0);
+        double spacing = Double.POSITIVE_INFINITY;
+
+        for (int k = 0; k < space.countNeighbors(0); ++k) {
+            Point neighbor = space.locate(space.getNeighborIndex(0, k));
+            double distance = 0.0;
+
+            for (int axis = 0; axis < origin.dimensionality(); ++axis) {
+                double delta = neighbor.coord(axis) - origin.coord(axis);
+                distance += delta * delta;
+            }
+
+            if (distance > 0.0)
+                spacing = Math.min(spacing, Math.sqrt(distance));
+        }
+
+        return Double.isInfinite(spacing) ? 1.0 : spacing;
+    }
+
+    /**
+     * Creates a renderer for the geometry of a cellular space.
+     *
+     * @param space the cellular space (the occupants are ignored).
+     *
+     * @param cellSize the number of pixels spanned by each site.
+     *
+     * @return the renderer for the specified space.
+     *
+     * @throws IllegalArgumentException unless the cell size is
+     * positive.
+     */
+    public static FrameRenderer create(SpaceView space, int cellSize) {
+        if (cellSize < 1)
+            throw new IllegalArgumentException("The cell size must be positive.");
+
+        return new FrameRenderer(space, cellSize);
+    }
+
+    /**
+     * Renders a frame.
+     *
+     * @param siteColors the RGB color of each site.
+     *
+     * @return the RGB value of each pixel, in row-major order from the
+     * top-left corner.
+     *
+     * @throws IllegalArgumentException unless the color array matches
+     * the number of sites.
+     */
+    public int[] render(int[] siteColors) {
+        if (siteColors.length != siteOffsets.length)
+            throw new IllegalArgumentException("The site colors do not match the space.");
+
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, BACKGROUND);
+
+        for (int site = 0; site < siteOffsets.length; ++site) {
+            for (int row = 0; row < cellSize; ++row) {
+                int start = siteOffsets[site] + row * width;
+                Arrays.fill(pixels, start, start + cellSize, siteColors[site]);
+            }
+        }
+
+        return pixels;
+    }
+
+    /**
+     * Returns the width of the frames in pixels.
+     *
+     * @return the width of the frames in pixels.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the frames in pixels.
+     *
+     * @return the height of the frames in pixels.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of sites in the rendered space.
+     *
+     * @return the number of sites in the rendered space.
+     */
+    public int size() {
+        return siteOffsets.length;
+    }
+}
@@ -0,0 +1,375 @@
+
+package moran.report;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jam.app.JamProperties;
+import jam.lang.JamException;
+import jam.math.IntRange;
+
+import moran.cell.Genotype;
+import moran.cell.Population;
+import moran.driver.MoranDriver;
+import moran.segment.GenomeSegment;
+import moran.segment.SegmentCNGenotype;
+import moran.space.SpaceView;
+
+/**
+ * Renders the state of the cellular space at regular intervals into
+ * image frames, for movies of lattice simulations.
+ *
+ * <p>Each site is colored by its genotype (with colors assigned in
+ * order of first appearance within each trial, so that the colors of
+ * a trial do not depend on any trials running concurrently) or, if
+ * {@code moran.report.frameSegment} names a genome segment, by the
+ * copy number of that segment.  The first eight colors follow the
+ * default palette of R, so that the frames match those rendered from
+ * the genotype coordinate report.
+ *
+ * <p>The simulation thread records only the color of each site; the
+ * frames are rasterized (see {@link FrameRenderer}) and encoded (see
+ * {@link FrameFormat}) on a pool of background threads.  The number
+ * of frames awaiting encoding is bounded, so a simulation that samples
+ * faster than the frames can be encoded waits for the encoders rather
+ * than exhausting memory.  All frames are written when the simulation
+ * is finalized.
+ */
+public final class FrameReport extends MoranReport {
+    private final int interval;
+    private final int cellSize;
+    private final int threadCount;
+    private final FrameFormat format;
+    private final GenomeSegment segment;
+
+    // Genotype colors for the active trials, indexed by trial...
+    private final Map<Integer, TrialColors> trialColors = new ConcurrentHashMap<Integer, TrialColors>();
+
+    // The renderer, created from the first sampled space...
+    private volatile FrameRenderer renderer = null;
+
+    private ExecutorService encoder;
+    private Semaphore pending;
+
+    // The first encoding failure, reported by the simulation thread...
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    private static final int[] PALETTE = {
+        0x000000, 0xDF536B, 0x61D04F, 0x2297E6, 0x28E2E5, 0xCD0BBC, 0xF5C710, 0x9E9E9E
+    };
+
+    //
+    // Colors assigned to genotypes in order of first appearance in one
+    // trial, which runs on a single thread.  The genotypes are held
+    // weakly, so extinct genotypes do not accumulate; the count is
+    // never reduced, so their colors are not reused...
+    //
+    private static final class TrialColors {
+        private final Map<Genotype, Integer> genotypeColors = new WeakHashMap<Genotype, Integer>();
+        private int genotypeCount = 0;
+
+        private int computeColor(Genotype genotype) {
+            return genotypeColors.computeIfAbsent(genotype, key -> paletteColor(genotypeCount++));
+        }
+    }
+
+    private FrameReport(MoranDriver driver) {
+        super(driver);
+
+        this.interval = resolveInterval();
+        this.cellSize = resolveCellSize();
+        this.threadCount = resolveThreadCount();
+        this.format = FrameFormat.global();
+        this.segment = resolveSegment();
+    }
+
+    private static int resolveInterval() {
+        return JamProperties.getRequiredInt(REPORT_INTERVAL_PROPERTY, IntRange.POSITIVE);
+    }
+
+    private static int resolveCellSize() {
+        int cellSize = JamProperties.getOptionalInt(CELL_SIZE_PROPERTY, DEFAULT_CELL_SIZE);
+
+        if (cellSize < 1)
+            throw JamException.runtime("The frame cell size must be positive.");
+
+        return cellSize;
+    }
+
+    private static int resolveThreadCount() {
+        int threadCount = JamProperties.getOptionalInt(THREAD_COUNT_PROPERTY, DEFAULT_THREAD_COUNT);
+
+        if (threadCount < 1)
+            throw JamException.runtime("The frame thread count must be positive.");
+
+        return threadCount;
+    }
+
+    private static GenomeSegment resolveSegment() {
+        if (JamProperties.isSet(SEGMENT_PROPERTY))
+            return GenomeSegment.require(JamProperties.getRequired(SEGMENT_PROPERTY));
+        else
+            return null;
+    }
+
+    /**
+     * Name of the system property that specifies whether to run the
+     * frame report.
+     */
+    public static final String RUN_REPORT_PROPERTY = "moran.report.runFrameReport";
+
+    /**
+     * Name of the system property that specifies the reporting
+     * interval (the number of time steps between frames).
+     */
+    public static final String REPORT_INTERVAL_PROPERTY = "moran.report.frameReportInterval";
+
+    /**
+     * Name of the system property that specifies the number of pixels
+     * spanned by each site.
+     */
+    public static final String CELL_SIZE_PROPERTY = "moran.report.frameCellSize";
+
+    /**
+     * Name of the system property that specifies the number of
+     * background threads that encode frames.
+     */
+    public static final String THREAD_COUNT_PROPERTY = "moran.report.frameThreadCount";
+
+    /**
+     * Name of the system property that specifies the genome segment
+     * whose copy number colors the sites (by default, the sites are
+     * colored by genotype).
+     */
+    public static final String SEGMENT_PROPERTY = "moran.report.frameSegment";
+
+    /**
+     * Default number of pixels spanned by each site.
+     */
+    public static final int DEFAULT_CELL_SIZE = 4;
+
+    /**
+     * Default number of background encoding threads.
+     */
+    public static final int DEFAULT_THREAD_COUNT = 2;
+
+    /**
+     * Name of the report subdirectory that contains the frames.
+     */
+    public static final String FRAME_DIR_NAME = "frames";
+
+    /**
+     * Creates a new report for a given driver application.
+     *
+     * @param driver the governing driver application.
+     *
+     * @return the new report object.
+     */
+    public static FrameReport create(MoranDriver driver) {
+        return new FrameReport(driver);
+    }
+
+    /**
+     * Determines whether this report will be executed.
+     *
+     * @return {@code true} iff this report should be executed.
+     */
+    public static boolean reportRequested() {
+        return JamProperties.getOptionalBoolean(RUN_REPORT_PROPERTY, false);
+    }
+
+    /**
+     * Returns the name of the frame file for a trial and time step.
+     *
+     * @param trialIndex the index of the trial.
+     *
+     * @param timeStep the index of the time step.
+     *
+     * @param format the frame format.
+     *
+     * @return the base name of the frame file.
+     */
+    public static String formatFrameName(int trialIndex, int timeStep, FrameFormat format) {
+        return String.format("frame-%05d-%06d.%s", trialIndex, timeStep, format.getExtension());
+    }
+
+    /**
+     * Returns the color of a palette entry: the first eight entries
+     * follow the default palette of R, and the later entries are
+     * spread around the color wheel by the golden angle.
+     *
+     * @param index the palette index.
+     *
+     * @return the RGB color of the palette entry.
+     */
+    public static int paletteColor(int index) {
+        if (index < PALETTE.length)
+            return PALETTE[index];
+
+        float hue = (float) ((index * 0.6180339887498949) % 1.0);
+        return Color.HSBtoRGB(hue, 0.65f, 0.9f) & 0xFFFFFF;
+    }
+
+    @Override public boolean requiresCells() {
+        return true;
+    }
+
+    @Override public void initializeSimulation() {
+        File frameDir = getReportFile(FRAME_DIR_NAME);
+
+        if (!frameDir.isDirectory() && !frameDir.mkdirs())
+            throw new UncheckedIOException(new IOException("Could not create [" + frameDir + "]."));
+
+        encoder = Executors.newFixedThreadPool(threadCount, runnable -> {
+                Thread thread = new Thread(runnable, "frame-encoder");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        pending = new Semaphore(2 * threadCount);
+    }
+
+    @Override public void initializeTrial() {
+        trialColors.put(getTrialIndex(), new TrialColors());
+    }
+
+    @Override public void processStep() {
+        if (isSampleStep(interval))
+            submitFrame();
+    }
+
+    private void submitFrame() {
+        checkFailure();
+
+        int[] siteColors = recordColors(viewSpace());
+        FrameRenderer frameRenderer = getRenderer();
+        File frameFile = new File(getReportFile(FRAME_DIR_NAME), formatFrameName(getTrialIndex(), getTimeStep(), format));
+
+        pending.acquireUninterruptibly();
+
+        try {
+            encoder.execute(() -> encodeFrame(frameRenderer, siteColors, frameFile));
+        }
+        catch (RuntimeException ex) {
+            pending.release();
+            throw ex;
+        }
+    }
+
+    private int[] recordColors(SpaceView space) {
+        //
+        // Read the genotypes directly from the population storage if
+        // possible, and look up the color only when the genotype
+        // changes from one site to the next...
+        //
+        Population population = (space instanceof Population) ? (Population) space : null;
+        TrialColors colors = trialColors.get(getTrialIndex());
+
+        int[] siteColors = new int[space.size()];
+
+        Genotype prevGenotype = null;
+        int prevColor = 0;
+
+        for (int site = 0; site < siteColors.length; ++site) {
+            Genotype genotype =
+                (population != null) ? population.getGenotype(site) : space.get(site).getGenotype();
+
+            if (genotype != prevGenotype) {
+                prevGenotype = genotype;
+                prevColor = computeColor(colors, genotype);
+            }
+
+            siteColors[site] = prevColor;
+        }
+
+        return siteColors;
+    }
+
+    private int computeColor(TrialColors colors, Genotype genotype) {
+        if (segment != null)
+            return paletteColor(computeCopyNumber(genotype));
+        else
+            return colors.computeColor(genotype);
+    }
+
+    private int computeCopyNumber(Genotype genotype) {
+        if (genotype instanceof SegmentCNGenotype)
+            return ((SegmentCNGenotype) genotype).count(segment);
+        else
+            throw new IllegalStateException("Segment coloring requires segment copy-number genotypes.");
+    }
+
+    private FrameRenderer getRenderer() {
+        //
+        // Every trial shares the same spatial structure...
+        //
+        if (renderer == null)
+            createRenderer();
+
+        return renderer;
+    }
+
+    private synchronized void createRenderer() {
+        if (renderer == null)
+            renderer = FrameRenderer.create(viewSpace(), cellSize);
+    }
+
+    private void encodeFrame(FrameRenderer frameRenderer, int[] siteColors, File frameFile) {
+        try {
+            int[] pixels = frameRenderer.render(siteColors);
+            format.write(frameFile, pixels, frameRenderer.getWidth(), frameRenderer.getHeight());
+        }
+        catch (Throwable ex) {
+            failure.compareAndSet(null, ex);
+        }
+        finally {
+            pending.release();
+        }
+    }
+
+    private void checkFailure() {
+        Throwable ex = failure.get();
+
+        if (ex == null)
+            return;
+
+        if (ex instanceof IOException)
+            throw new UncheckedIOException((IOException) ex);
+        else if (ex instanceof RuntimeException)
+            throw (RuntimeException) ex;
+        else
+            throw new RuntimeException(ex);
+    }
+
+    @Override public void finalizeTrial() {
+        //
+        // Frames are encoded in the background across trials, but the
+        // colors of the trial are no longer needed...
+        //
+        trialColors.remove(getTrialIndex());
+    }
+
+    @Override public void finalizeSimulation() {
+        encoder.shutdown();
+
+        try {
+            encoder.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw JamException.runtime("Interrupted while encoding frames.");
+        }
+
+        checkFailure();
+    }
+}
@@ -1,8 +1,21 @@
 
 package moran.report;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 import jam.app.JamProperties;
 import jam.io.IOUtil;
@@ -16,10 +29,34 @@ import moran.driver.MoranDriver;
 /**
  * Reports cellular coordinates and genotype details at regular
  * intervals during a simulation.
+ *
+ * <p>Each trial writes its records to a separate part file, which
+ * allows trials to run concurrently; the part files are merged in
+ * trial order when the simulation is finalized, so the final report
+ * is identical for sequential and concurrent executions.
+ *
+ * <p>Each part file begins with the header line, so a resumable
+ * simulation (see {@link moran.driver.TrialManifest}) that restarts
+ * after an interruption merges the part files of the trials completed
+ * before the interruption with those of the remaining trials; the
+ * part files are retained after merging in resumable simulations.
+ *
+ * <p>The part files also hold the report data in trial checkpoints:
+ * a checkpoint records only the length of the part file for the
+ * current trial, so a resumed simulation must write its reports into
+ * the directory containing the part files.
  */
 public final class GenotypeCoordReport extends MoranReport {
     private final int interval;
-    private PrintWriter writer;
+
+    // The header line, created from the first sampled trial...
+    private volatile String header = null;
+
+    // Open part-file writers indexed by trial...
+    private final Map<Integer, PrintWriter> writers = new ConcurrentHashMap<Integer, PrintWriter>();
+
+    // Indexes of the trials that have written part files...
+    private final ConcurrentSkipListSet<Integer> partIndexes = new ConcurrentSkipListSet<Integer>();
 
     private static final DecimalFormat TIME_CLOCK_FORMAT = new DecimalFormat("#0.0###");
 
@@ -70,13 +107,22 @@ public final class GenotypeCoordReport extends MoranReport {
         return JamProperties.getOptionalBoolean(RUN_REPORT_PROPERTY, false);
     }
 
+    @Override public boolean requiresCells() {
+        return true;
+    }
+
     @Override public void initializeSimulation() {
         //
         // We need a cellular location (for the dimensionality) and
         // genotype (for the genotype data structure) to write the
         // header line, so wait until the first sample interval to
-        // create the writer and write the header...
+        // create the writer and write the header.  Collect the part
+        // files of the trials completed by an earlier execution of a
+        // resumable simulation...
         //
+        for (int trialIndex = 0; trialIndex < getDriver().getTrialTarget(); ++trialIndex)
+            if (getDriver().isTrialComplete(trialIndex) && getPartFile(trialIndex).exists())
+                partIndexes.add(trialIndex);
     }
 
     @Override public void initializeTrial() {
@@ -91,22 +137,36 @@ public final class GenotypeCoordReport extends MoranReport {
     }
 
     private void writeGenotypeCoord() {
-        if (writer == null) {
-            openWriter();
-            writeHeader();
-        }
+        if (header == null)
+            assignHeader();
+
+        PrintWriter writer =
+            writers.computeIfAbsent(getTrialIndex(), this::openPartWriter);
 
         for (Cell cell : listCells())
-            writeGenotypeCoord(cell);
+            writeGenotypeCoord(writer, cell);
 
         writer.flush();
     }
 
-    private void openWriter() {
-        writer = IOUtil.openWriter(getReportFile(REPORT_FILE_NAME));
+    private PrintWriter openPartWriter(int trialIndex) {
+        PrintWriter writer = IOUtil.openWriter(getPartFile(trialIndex));
+        writer.println(header);
+
+        partIndexes.add(trialIndex);
+        return writer;
+    }
+
+    private File getPartFile(int trialIndex) {
+        return ReportParts.getPartFile(this, REPORT_FILE_NAME, trialIndex);
     }
 
-    private void writeHeader() {
+    private synchronized void assignHeader() {
+        if (header == null)
+            header = formatHeader();
+    }
+
+    private String formatHeader() {
         LineBuilder builder = LineBuilder.csv();
 
         builder.append("trialIndex");
@@ -116,29 +176,118 @@ public final class GenotypeCoordReport extends MoranReport {
         builder.append("founder");
         builder.append(genotypeHeader());
 
-        writer.println(builder.toString());
+        return builder.toString();
     }
 
-    private void writeGenotypeCoord(Cell cell) {
+    private void writeGenotypeCoord(PrintWriter writer, Cell cell) {
         LineBuilder builder = LineBuilder.csv();
 
         builder.append(getTrialIndex());
         builder.append(getTimeStep());
         builder.append(getTimeClock(), TIME_CLOCK_FORMAT);
         builder.append(formatCoord(cell));
-        builder.append(cell.getFounder().getIndex());
+        builder.append(cell.getFounderIndex());
         builder.append(cell.getGenotype().format());
 
         writer.println(builder.toString());
     }
 
     @Override public void finalizeTrial() {
+        PrintWriter writer = writers.remove(getTrialIndex());
+
+        if (writer == null)
+            return;
+
+        writer.close();
+
+        if (getDriver().isResumable())
+            ReportParts.force(getPartFile(getTrialIndex()));
+    }
+
+    @Override public void writeCheckpoint(DataOutput output) throws IOException {
+        writeHeader(output);
+
+        output.writeInt(partIndexes.size());
+
+        for (int trialIndex : partIndexes)
+            output.writeInt(trialIndex);
+
+        PrintWriter writer = writers.get(getTrialIndex());
+
+        if (writer != null) {
+            writer.flush();
+            output.writeLong(getPartFile(getTrialIndex()).length());
+        }
+        else {
+            output.writeLong(-1L);
+        }
+    }
+
+    private void writeHeader(DataOutput output) throws IOException {
+        if (header == null) {
+            output.writeInt(-1);
+        }
+        else {
+            byte[] bytes = header.getBytes(StandardCharsets.UTF_8);
+
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    @Override public void readCheckpoint(DataInput input) throws IOException {
+        header = readHeader(input);
+
+        int partCount = input.readInt();
+
+        for (int k = 0; k < partCount; ++k) {
+            int trialIndex = input.readInt();
+
+            if (!getPartFile(trialIndex).exists())
+                throw new IOException("Missing report part file: [" + getPartFile(trialIndex) + "].");
+
+            partIndexes.add(trialIndex);
+        }
+
+        long partLength = input.readLong();
+
+        if (partLength >= 0)
+            writers.put(getTrialIndex(), reopenPartWriter(getPartFile(getTrialIndex()), partLength));
+    }
+
+    private static String readHeader(DataInput input) throws IOException {
+        int length = input.readInt();
+
+        if (length < 0)
+            return null;
+
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static PrintWriter reopenPartWriter(File partFile, long partLength) throws IOException {
         //
-        // Nothing special needed at the end of a trial...
+        // Discard any records written after the checkpoint, then
+        // append the records of the resumed trial...
         //
+        if (partFile.length() < partLength)
+            throw new IOException("Report part file is shorter than its checkpoint: [" + partFile + "].");
+
+        try (FileChannel channel = FileChannel.open(partFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(partLength);
+        }
+
+        return new PrintWriter(Files.newBufferedWriter(partFile.toPath(), StandardOpenOption.APPEND));
     }
 
     @Override public void finalizeSimulation() {
-        writer.close();
+        List<File> partFiles = new ArrayList<File>(partIndexes.size());
+
+        for (int trialIndex : partIndexes)
+            partFiles.add(getPartFile(trialIndex));
+
+        ReportParts.merge(getReportFile(REPORT_FILE_NAME), partFiles, !getDriver().isResumable());
     }
 }
@@ -2,11 +2,11 @@
 package moran.report;
 
 import java.text.DecimalFormat;
+import java.util.Map;
 
 import jam.report.LineBuilder;
-import jam.util.CollectionUtil;
 
-import moran.cell.Cell;
+import moran.cell.Genotype;
 import moran.driver.MoranDriver;
 import moran.segment.GenomeSegment;
 import moran.segment.SegmentCNGenotype;
@@ -25,21 +25,34 @@ public class MeanCopyNumberRecord extends MoranRecord {
         this.meanCN = computeMeanCN(driver);
     }
 
+    private MeanCopyNumberRecord(int trialIndex, int timeStep, double timeClock, double[] meanCN) {
+        super(trialIndex, timeStep, timeClock);
+        this.meanCN = meanCN;
+    }
+
     private double[] computeMeanCN(MoranDriver driver) {
+        //
+        // Accumulate over the distinct genotypes, weighted by the
+        // number of cells that carry them, so that engines tracking
+        // only genotype counts are supported...
+        //
         double[] meanCN = new double[GenomeSegment.count()];
+        long cellCount = 0;
 
-        for (GenomeSegment segment : GenomeSegment.list())
-            meanCN[segment.indexOf()] = computeMeanCN(driver, segment);
+        for (Map.Entry<Genotype, Integer> entry : driver.countGenotypes().entrySet()) {
+            SegmentCNGenotype genotype = (SegmentCNGenotype) entry.getKey();
+            int genotypeCount = entry.getValue();
 
-        return meanCN;
-    }
+            for (GenomeSegment segment : GenomeSegment.list())
+                meanCN[segment.indexOf()] += genotypeCount * genotype.count(segment);
 
-    private double computeMeanCN(MoranDriver driver, GenomeSegment segment) {
-        return CollectionUtil.average(driver.listCells(), cell -> getCopyNumber(cell, segment));
-    }
+            cellCount += genotypeCount;
+        }
+
+        for (int index = 0; index < meanCN.length; ++index)
+            meanCN[index] /= cellCount;
 
-    private static double getCopyNumber(Cell cell, GenomeSegment segment) {
-        return ((SegmentCNGenotype) cell.getGenotype()).count(segment);
+        return meanCN;
     }
 
     /**
@@ -60,6 +73,31 @@ public class MeanCopyNumberRecord extends MoranRecord {
         return new MeanCopyNumberRecord(driver);
     }
 
+    /**
+     * Creates a new record with explicit values, for records restored
+     * from a trial checkpoint.
+     *
+     * @param trialIndex the index of the simulation trial.
+     *
+     * @param timeStep the index of the time step.
+     *
+     * @param timeClock the continuous time clock.
+     *
+     * @param meanCN the mean copy number of each genome segment,
+     * indexed by the segment ordinal index.
+     *
+     * @return the mean copy number record with the specified values.
+     *
+     * @throws IllegalArgumentException unless there is one mean copy
+     * number for each genome segment.
+     */
+    public static MeanCopyNumberRecord create(int trialIndex, int timeStep, double timeClock, double[] meanCN) {
+        if (meanCN.length != GenomeSegment.count())
+            throw new IllegalArgumentException("Expected one mean copy number for each genome segment.");
+
+        return new MeanCopyNumberRecord(trialIndex, timeStep, timeClock, meanCN.clone());
+    }
+
     /**
      * Returns the mean copy number for a genome segment at the time
      * this record was collected.
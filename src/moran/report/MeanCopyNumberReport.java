@@ -1,22 +1,36 @@
 
 package moran.report;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import jam.app.JamProperties;
 import jam.report.ReportWriter;
 import jam.sim.StepRecordCache;
 
 import moran.driver.MoranDriver;
+import moran.segment.GenomeSegment;
 import moran.space.SpaceView;
 
 /**
  * Reports the mean fitness of the cell population for each trial and
  * time step.
+ *
+ * <p>In resumable simulations (see {@link moran.driver.TrialManifest}),
+ * the records of each trial are also written to a durable part file
+ * when the trial is finalized, and the report file is merged from the
+ * part files of all completed trials, including those completed by an
+ * earlier, interrupted execution.
  */
 public final class MeanCopyNumberReport extends MoranReport {
     //
-    // All mean fitness records indexed by trial and time step...
+    // All records indexed by trial and time step; the cache is shared
+    // by concurrent trials, so all access is synchronized on it...
     //
     private final StepRecordCache<MeanCopyNumberRecord> cache = StepRecordCache.create();
 
@@ -56,24 +70,97 @@ public final class MeanCopyNumberReport extends MoranReport {
     }
 
     @Override public void initializeTrial() {
-        Collection<MeanCopyNumberRecord> trialRecords =
-            cache.lookupTrial(getTrialIndex());
+        synchronized (cache) {
+            Collection<MeanCopyNumberRecord> trialRecords =
+                cache.lookupTrial(getTrialIndex());
 
-        if (!trialRecords.isEmpty())
-            throw new IllegalStateException("Expected an empty trial cache.");
+            if (!trialRecords.isEmpty())
+                throw new IllegalStateException("Expected an empty trial cache.");
+        }
     }
 
     @Override public void processStep() {
-        cache.add(MeanCopyNumberRecord.create(getDriver()));
+        MeanCopyNumberRecord record = MeanCopyNumberRecord.create(getDriver());
+
+        synchronized (cache) {
+            cache.add(record);
+        }
     }
 
     @Override public void finalizeTrial() {
         //
-        // Nothing special needed at the end of a trial...
+        // Resumable simulations write the records of each trial into a
+        // durable part file before the trial is marked complete...
+        //
+        if (getDriver().isResumable())
+            writePart();
+    }
+
+    private void writePart() {
+        List<MeanCopyNumberRecord> trialRecords;
+
+        synchronized (cache) {
+            trialRecords = new ArrayList<MeanCopyNumberRecord>(cache.lookupTrial(getTrialIndex()));
+        }
+
+        File partFile = ReportParts.getPartFile(this, MeanCopyNumberRecord.MEAN_COPY_NUMBER_BASE_NAME, getTrialIndex());
+        ReportParts.write(partFile, trialRecords);
+    }
+
+    @Override public void writeCheckpoint(DataOutput output) throws IOException {
+        //
+        // Trials execute sequentially when checkpoints are written, so
+        // the cache holds the records for the current trial and all
+        // earlier trials...
         //
+        synchronized (cache) {
+            output.writeInt(getTrialIndex() + 1);
+            output.writeInt(GenomeSegment.count());
+
+            for (int trialIndex = 0; trialIndex <= getTrialIndex(); ++trialIndex) {
+                Collection<MeanCopyNumberRecord> trialRecords = cache.lookupTrial(trialIndex);
+                output.writeInt(trialRecords.size());
+
+                for (MeanCopyNumberRecord record : trialRecords) {
+                    output.writeInt(record.getTimeStep());
+                    output.writeDouble(record.getTimeClock());
+
+                    for (GenomeSegment segment : GenomeSegment.list())
+                        output.writeDouble(record.getMeanCopyNumber(segment));
+                }
+            }
+        }
+    }
+
+    @Override public void readCheckpoint(DataInput input) throws IOException {
+        synchronized (cache) {
+            int trialCount = input.readInt();
+            int segmentCount = input.readInt();
+
+            if (segmentCount != GenomeSegment.count())
+                throw new IOException("The checkpoint does not match the genome segments.");
+
+            for (int trialIndex = 0; trialIndex < trialCount; ++trialIndex) {
+                int recordCount = input.readInt();
+
+                for (int k = 0; k < recordCount; ++k) {
+                    int timeStep = input.readInt();
+                    double timeClock = input.readDouble();
+                    double[] meanCN = new double[segmentCount];
+
+                    for (int index = 0; index < segmentCount; ++index)
+                        meanCN[index] = input.readDouble();
+
+                    cache.add(MeanCopyNumberRecord.create(trialIndex, timeStep, timeClock, meanCN));
+                }
+            }
+        }
     }
 
     @Override public void finalizeSimulation() {
-        ReportWriter.write(getReportDir(), cache);
+        if (getDriver().isResumable())
+            ReportParts.mergeTrials(this, MeanCopyNumberRecord.MEAN_COPY_NUMBER_BASE_NAME);
+        else
+            ReportWriter.write(getReportDir(), cache);
     }
 }
@@ -20,6 +20,11 @@ public class MeanFitnessRecord extends MoranRecord {
         this.meanFitness = driver.getMeanFitness();
     }
 
+    private MeanFitnessRecord(int trialIndex, int timeStep, double timeClock, double meanFitness) {
+        super(trialIndex, timeStep, timeClock);
+        this.meanFitness = meanFitness;
+    }
+
     /**
      * Base name for the fitness trajectory report.
      */
@@ -38,6 +43,24 @@ public class MeanFitnessRecord extends MoranRecord {
         return new MeanFitnessRecord(driver);
     }
 
+    /**
+     * Creates a new fitness record with explicit values, for records
+     * restored from a trial checkpoint.
+     *
+     * @param trialIndex the index of the simulation trial.
+     *
+     * @param timeStep the index of the time step.
+     *
+     * @param timeClock the continuous time clock.
+     *
+     * @param meanFitness the mean fitness of the cell population.
+     *
+     * @return the fitness record with the specified values.
+     */
+    public static MeanFitnessRecord create(int trialIndex, int timeStep, double timeClock, double meanFitness) {
+        return new MeanFitnessRecord(trialIndex, timeStep, timeClock, meanFitness);
+    }
+
     /**
      * Returns the mean fitness of the cell population when this
      * record was collected.
@@ -8,6 +8,7 @@ import jam.report.ReportRecord;
 import jam.sim.StepRecord;
 
 import moran.driver.MoranDriver;
+import moran.driver.MoranTrial;
 
 /**
  * Provides a base class for all report records with the trial index,
@@ -26,8 +27,32 @@ public abstract class MoranRecord extends StepRecord implements ReportRecord {
      * @param driver the active driver application.
      */
     protected MoranRecord(MoranDriver driver) {
-        super(driver.getTrialIndex(), driver.getTimeStep());
-        this.timeClock = driver.getTimeClock();
+        this(driver.getTrial());
+    }
+
+    /**
+     * Creates a new Moran record with the trial index, time step, and
+     * continuous time clock assigned from a simulation trial.
+     *
+     * @param trial the active simulation trial.
+     */
+    protected MoranRecord(MoranTrial trial) {
+        this(trial.getTrialIndex(), trial.getTimeStep(), trial.getTimeClock());
+    }
+
+    /**
+     * Creates a new Moran record with explicit values, for records
+     * restored from a trial checkpoint.
+     *
+     * @param trialIndex the index of the simulation trial.
+     *
+     * @param timeStep the index of the time step.
+     *
+     * @param timeClock the continuous time clock.
+     */
+    protected MoranRecord(int trialIndex, int timeStep, double timeClock) {
+        super(trialIndex, timeStep);
+        this.timeClock = timeClock;
     }
 
     /**
@@ -1,7 +1,10 @@
 
 package moran.report;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.List;
 
@@ -15,6 +18,16 @@ import moran.space.SpaceView;
 /**
  * Provides a base class for simulation reports that may process data
  * after each completed time step and simulation trial.
+ *
+ * <p>The trial-level methods ({@code initializeTrial}, {@code
+ * processStep}, and {@code finalizeTrial}) are called on the thread
+ * executing the trial and may be called concurrently for different
+ * trials; the trial accessors in this class always describe the trial
+ * executing on the calling thread.
+ *
+ * <p>Reports that accumulate data across time steps or trials must
+ * save and restore that data with trial checkpoints by overriding
+ * the {@code writeCheckpoint} and {@code readCheckpoint} methods.
  */
 public abstract class MoranReport {
     private final MoranDriver driver;
@@ -58,6 +71,49 @@ public abstract class MoranReport {
      */
     public abstract void finalizeSimulation();
 
+    /**
+     * Writes the data accumulated by this report into a checkpoint of
+     * the trial executing on the calling thread, after the latest
+     * completed time step has been processed.
+     *
+     * <p>This base class writes nothing.
+     *
+     * @param output the destination for the report data.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeCheckpoint(DataOutput output) throws IOException {
+    }
+
+    /**
+     * Restores the data accumulated by this report from a trial
+     * checkpoint, after the simulation has been initialized and the
+     * checkpointed trial has been restored on the calling thread.
+     *
+     * <p>This base class reads nothing.
+     *
+     * @param input the source of the report data written by {@link
+     * #writeCheckpoint(DataOutput)}.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void readCheckpoint(DataInput input) throws IOException {
+    }
+
+    /**
+     * Indicates whether this report reads individual cells or their
+     * coordinates (through {@link #viewSpace()}), which the engines
+     * that track only genotype counts cannot provide.
+     *
+     * <p>This base class returns {@code false}.
+     *
+     * @return whether this report requires an engine that tracks
+     * individual cells.
+     */
+    public boolean requiresCells() {
+        return false;
+    }
+
     /**
      * Returns the header text for cellular coordinates in report
      * files.
@@ -162,7 +218,7 @@ public abstract class MoranReport {
      * @return the index of the latest completed time step.
      */
     public int getTimeStep() {
-        return driver.getTimeStep();
+        return driver.getTrial().getTimeStep();
     }
 
     /**
@@ -171,7 +227,7 @@ public abstract class MoranReport {
      * @return the index of the latest completed simulation trial.
      */
     public int getTrialIndex() {
-        return driver.getTrialIndex();
+        return driver.getTrial().getTrialIndex();
     }
 
     /**
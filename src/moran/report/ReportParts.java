@@ -0,0 +1,221 @@
+
+package moran.report;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jam.io.IOUtil;
+
+import moran.driver.MoranDriver;
+
+/**
+ * Writes and merges the per-trial part files of reports that write
+ * their output one trial at a time.
+ *
+ * <p>Each part file begins with the header line of the report, so a
+ * restarted simulation can merge the part files written by an earlier
+ * execution without sampling the population again.
+ */
+final class ReportParts {
+    private ReportParts() {}
+
+    /**
+     * Returns the part file for one trial of a report.
+     *
+     * @param report the report writing the part file.
+     *
+     * @param baseName the base name of the merged report file.
+     *
+     * @param trialIndex the index of the trial.
+     *
+     * @return the part file for the specified trial.
+     */
+    static File getPartFile(MoranReport report, String baseName, int trialIndex) {
+        return report.getReportFile(String.format("%s.part%05d", baseName, trialIndex));
+    }
+
+    /**
+     * Writes a complete part file durably: the lines are written to a
+     * temporary file that is forced to the storage device and then
+     * moved atomically into place.
+     *
+     * @param partFile the part file to write.
+     *
+     * @param header the header line of the report.
+     *
+     * @param lines the report lines for the trial.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    static void write(File partFile, String header, Collection<String> lines) {
+        Path target = partFile.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp,
+                                                        StandardOpenOption.CREATE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING,
+                                                        StandardOpenOption.WRITE)) {
+                PrintWriter writer =
+                    new PrintWriter(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8)));
+
+                writer.println(header);
+
+                for (String line : lines)
+                    writer.println(line);
+
+                writer.flush();
+
+                if (writer.checkError())
+                    throw new IOException("Failed to write report part file: [" + partFile + "].");
+
+                channel.force(true);
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Writes the records of one trial into a complete part file
+     * durably (see {@link #write(File, String, Collection)}), in time
+     * step order; no part file is written for a trial without records.
+     *
+     * @param <R> the runtime record type.
+     *
+     * @param partFile the part file to write.
+     *
+     * @param records the records for the trial.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    static <R extends MoranRecord> void write(File partFile, Collection<R> records) {
+        if (records.isEmpty())
+            return;
+
+        List<R> sorted = new ArrayList<R>(records);
+        sorted.sort(Comparator.comparingInt(R::getTimeStep));
+
+        List<String> lines = new ArrayList<String>(sorted.size());
+
+        for (R record : sorted)
+            lines.add(record.formatLine());
+
+        write(partFile, sorted.get(0).getHeaderLine(), lines);
+    }
+
+    /**
+     * Forces the contents of a part file that was written incrementally
+     * to the storage device.
+     *
+     * @param partFile the closed part file.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    static void force(File partFile) {
+        try (FileChannel channel = FileChannel.open(partFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Merges part files into a report file: the header line is taken
+     * from the first part file, and the report lines follow in the
+     * order of the part files.
+     *
+     * @param reportFile the merged report file.
+     *
+     * @param partFiles the part files to merge, in trial order.
+     *
+     * @param deleteParts whether to delete the part files after they
+     * have been merged.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    static void merge(File reportFile, Collection<File> partFiles, boolean deleteParts) {
+        //
+        // No file is written if no trial wrote a part file...
+        //
+        if (partFiles.isEmpty())
+            return;
+
+        PrintWriter writer = IOUtil.openWriter(reportFile);
+        Iterator<File> iterator = partFiles.iterator();
+
+        appendPart(writer, iterator.next(), true);
+
+        while (iterator.hasNext())
+            appendPart(writer, iterator.next(), false);
+
+        writer.close();
+
+        if (deleteParts)
+            for (File partFile : partFiles)
+                deletePart(partFile);
+    }
+
+    /**
+     * Merges the part files written by the completed trials of a
+     * simulation into a report file, retaining the part files so that
+     * the report may be merged again if the simulation is restarted.
+     *
+     * @param report the report that wrote the part files.
+     *
+     * @param baseName the base name of the merged report file.
+     *
+     * @throws UncheckedIOException if an I/O error occurs.
+     */
+    static void mergeTrials(MoranReport report, String baseName) {
+        MoranDriver driver = report.getDriver();
+        List<File> partFiles = new ArrayList<File>();
+
+        for (int trialIndex = 0; trialIndex < driver.getTrialTarget(); ++trialIndex) {
+            File partFile = getPartFile(report, baseName, trialIndex);
+
+            if (driver.isTrialComplete(trialIndex) && partFile.exists())
+                partFiles.add(partFile);
+        }
+
+        merge(report.getReportFile(baseName), partFiles, false);
+    }
+
+    private static void appendPart(PrintWriter writer, File partFile, boolean withHeader) {
+        try (Stream<String> lines = Files.lines(partFile.toPath())) {
+            lines.skip(withHeader ? 0 : 1).forEach(writer::println);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void deletePart(File partFile) {
+        try {
+            Files.delete(partFile.toPath());
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 
 package moran.scalar;
 
+import java.util.random.RandomGenerator;
+
 import moran.cell.Cell;
+import moran.cell.Genotype;
 
 /**
  * Represents a cell whose genotype and phenotype are completely
@@ -10,6 +13,20 @@ import moran.cell.Cell;
 public class ScalarCell extends Cell {
     private final ScalarGenotype genotype;
 
+    // Whether each subclass inherits the identical division of this
+    // class (and therefore divides by genotype)...
+    private static final ClassValue<Boolean> inheritsDivide =
+        new ClassValue<Boolean>() {
+            @Override protected Boolean computeValue(Class<?> cellClass) {
+                try {
+                    return cellClass.getMethod("divide", RandomGenerator.class).getDeclaringClass() == ScalarCell.class;
+                }
+                catch (NoSuchMethodException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        };
+
     private ScalarCell(ScalarCell parent, ScalarGenotype genotype) {
         super(parent);
         this.genotype = genotype;
@@ -24,17 +41,50 @@ public class ScalarCell extends Cell {
         this(null, ScalarGenotype.instance(fitness));
     }
 
+    /**
+     * Creates a new (possibly mutated) daughter cell, for subclasses
+     * that override {@code divide(RandomGenerator)} to add mutation.
+     *
+     * @param parent the parent of the new cell.
+     *
+     * @param fitness the fitness of the new cell.
+     */
+    protected ScalarCell(ScalarCell parent, double fitness) {
+        this(parent, ScalarGenotype.instance(fitness));
+    }
+
     /**
      * Creates a new identical daughter cell.
      *
-     * <p><b>Subclasses requiring mutation must override this method.</b>
+     * <p><b>Subclasses requiring mutation must override this method</b>
+     * (creating their daughters with the protected daughter
+     * constructor); such subclasses do not divide by genotype.
+     *
+     * @param random the source of random deviates (unused).
      *
      * @return a new identical daughter cell.
      */
-    @Override public ScalarCell divide() {
+    @Override public ScalarCell divide(RandomGenerator random) {
         return new ScalarCell(this, genotype);
     }
 
+    @Override public ScalarCell divide(Genotype genotype) {
+        if (genotype instanceof ScalarGenotype)
+            return new ScalarCell(this, (ScalarGenotype) genotype);
+        else
+            throw new IllegalArgumentException("Invalid genotype runtime type.");
+    }
+
+    /**
+     * Returns {@code true} unless a subclass overrides the {@code
+     * divide(RandomGenerator)} method (to add mutation).
+     *
+     * @return whether this cell mutates only through its genotype.
+     */
+    @Override public boolean dividesByGenotype() {
+        return inheritsDivide.get(getClass());
+    }
+
     @Override public ScalarGenotype getGenotype() {
         return genotype;
     }
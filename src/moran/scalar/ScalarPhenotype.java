@@ -20,7 +20,15 @@ public final class ScalarPhenotype implements Phenotype {
         return getScalarFitness((ScalarGenotype) genotype);
     }
 
-    private static double getScalarFitness(ScalarGenotype genotype) {
+    /**
+     * Returns the relative scalar fitness for a scalar genotype
+     * (without the runtime type check of the general method).
+     *
+     * @param genotype the genotype to evaluate.
+     *
+     * @return the relative scalar fitness for the specified genotype.
+     */
+    public static double getScalarFitness(ScalarGenotype genotype) {
         return genotype.getFitness();
     }
 }
@@ -3,6 +3,7 @@ package moran.segment;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
 import jam.app.JamProperties;
 import jam.io.DataReader;
@@ -78,6 +79,20 @@ import moran.cna.CNAType;
  * within a segment (one or the other may occur but not both), but
  * copy-number events may occur on multiple genome segments during
  * a single cell division.
+ *
+ * <p><b>Skip sampling.</b> Copy number events are rare, so instead of
+ * drawing one deviate for every genome segment, the model draws the
+ * position of the next segment with an event directly.  For each
+ * genotype, the model computes (once) the prefix products
+ * {@code P[k]}, the probability that none of the first {@code k}
+ * segments has an event.  Given that no event has occurred before
+ * segment {@code j}, the first event occurs at the smallest index
+ * {@code k >= j} for which {@code P[k + 1] < U * P[j]}, where
+ * {@code U} is uniform on {@code (0, 1]}; a binary search finds that
+ * index, and a second deviate selects a gain or loss.  The number of
+ * deviates is proportional to the number of events rather than the
+ * number of segments, and the distribution of daughter genotypes is
+ * identical to that of independent trials on every segment.
  */
 public final class SegmentCNARateModel {
     //
@@ -94,8 +109,7 @@ public final class SegmentCNARateModel {
     // Gain/loss event sets with genome segments providing the
     // row indexes and copy number states the column indexes...
     private final SegmentCNASet eventSets;
-
-    private static SegmentCNARateModel global = null;
+    private final SegmentCNATable eventTable;
 
     private SegmentCNARateModel(SegmentCNARateMatrix gainRates,
                                 SegmentCNARateMatrix lossRates) {
@@ -106,6 +120,7 @@ public final class SegmentCNARateModel {
         this.gainRates = gainRates;
         this.lossRates = lossRates;
         this.eventSets = SegmentCNASet.create(rateWGD, gainRates, lossRates);
+        this.eventTable = eventSets.getEventTable();
     }
 
     private static void validateRates(SegmentCNARateMatrix rates, CNAType type) {
@@ -161,10 +176,14 @@ public final class SegmentCNARateModel {
      * @return the global CNA rate model defined by system properties.
      */
     public static final SegmentCNARateModel global() {
-        if (global == null)
-            global = createGlobal();
+        return GlobalHolder.INSTANCE;
+    }
 
-        return global;
+    // The holder class defers creation of the global model until it
+    // is first requested and guarantees that it is created exactly
+    // once when simulation trials run concurrently...
+    private static final class GlobalHolder {
+        private static final SegmentCNARateModel INSTANCE = createGlobal();
     }
 
     private static SegmentCNARateModel createGlobal() {
@@ -273,25 +292,185 @@ public final class SegmentCNARateModel {
      *
      * @param parent the genotype of the parent cell.
      *
+     * @param random the source of random deviates.
+     *
      * @return either a new daughter genotype (if one or more copy
      * number changes occur) or the original parent genotype (if no
      * copy number changes occur).
      */
-    public SegmentCNGenotype mutate(SegmentCNGenotype parent) {
-        if (rateWGD.accept())
+    public SegmentCNGenotype mutate(SegmentCNGenotype parent, RandomGenerator random) {
+        if (random.nextDouble() < rateWGD.doubleValue())
             return parent.doubleWG();
 
+        //
+        // Events on one segment do not change the copy numbers of the
+        // other segments, so every event probability is determined by
+        // the parent genotype...
+        //
+        double[] survival = getSurvival(parent);
+
         SegmentCNGenotype daughter = parent;
+        int segmentCount = survival.length - 1;
+        int segmentIndex = nextEvent(parent, survival, 0, random);
 
-        for (GenomeSegment segment : GenomeSegment.list())
-            daughter = mutate(daughter, segment);
+        while (segmentIndex < segmentCount) {
+            GenomeSegment segment = GenomeSegment.instance(segmentIndex);
+            daughter = mutate(daughter, segment, selectEvent(parent, segment, random));
+            segmentIndex = nextEvent(parent, survival, segmentIndex + 1, random);
+        }
 
         return daughter;
     }
 
-    private SegmentCNGenotype mutate(SegmentCNGenotype parent, GenomeSegment segment) {
-        CNAType cnaType = selectEvent(parent, segment);
+    /**
+     * Computes the probability that one or more copy number changes
+     * (including whole genome doubling) accompany the division of a
+     * cell.
+     *
+     * @param parent the genotype of the parent cell.
+     *
+     * @return the probability of mutation per cell division.
+     */
+    public double getMutationProbability(SegmentCNGenotype parent) {
+        double[] survival = getSurvival(parent);
+        double rateWGD = this.rateWGD.doubleValue();
+
+        return rateWGD + (1.0 - rateWGD) * (1.0 - survival[survival.length - 1]);
+    }
 
+    /**
+     * Simulates the mutation of a genotype during cell division given
+     * that one or more copy number changes occur: the result has the
+     * distribution of {@code mutate()} conditioned on an event.
+     *
+     * @param parent the genotype of the parent cell.
+     *
+     * @param random the source of random deviates.
+     *
+     * @return the mutated daughter genotype (which may equal the
+     * parent if the only events were gains or losses that were
+     * truncated at the copy number limits).
+     *
+     * @throws IllegalStateException if no mutation is possible.
+     */
+    public SegmentCNGenotype mutateGivenEvent(SegmentCNGenotype parent, RandomGenerator random) {
+        double mutationProb = getMutationProbability(parent);
+
+        if (mutationProb <= 0.0)
+            throw new IllegalStateException("The genotype cannot mutate.");
+
+        if (random.nextDouble() * mutationProb < rateWGD.doubleValue())
+            return parent.doubleWG();
+
+        //
+        // At least one segment event occurs: the first event falls on
+        // the segment whose survival interval contains a threshold
+        // drawn uniformly from (P[last], 1]...
+        //
+        double[] survival = getSurvival(parent);
+
+        int segmentCount = survival.length - 1;
+        double threshold = 1.0 - random.nextDouble() * (1.0 - survival[segmentCount]);
+
+        int lower = 0;
+        int upper = segmentCount - 1;
+
+        while (lower < upper) {
+            int middle = (lower + upper) >>> 1;
+
+            if (survival[middle + 1] < threshold)
+                upper = middle;
+            else
+                lower = middle + 1;
+        }
+
+        SegmentCNGenotype daughter = parent;
+        int segmentIndex = lower;
+
+        while (segmentIndex < segmentCount) {
+            GenomeSegment segment = GenomeSegment.instance(segmentIndex);
+            daughter = mutate(daughter, segment, selectEvent(parent, segment, random));
+            segmentIndex = nextEvent(parent, survival, segmentIndex + 1, random);
+        }
+
+        return daughter;
+    }
+
+    private double[] getSurvival(SegmentCNGenotype genotype) {
+        double[] survival = genotype.getSurvival();
+
+        if (survival == null) {
+            survival = computeSurvival(genotype);
+            genotype.setSurvival(survival);
+        }
+
+        return survival;
+    }
+
+    private double[] computeSurvival(SegmentCNGenotype genotype) {
+        List<GenomeSegment> segments = GenomeSegment.list();
+        double[] survival = new double[segments.size() + 1];
+
+        survival[0] = 1.0;
+
+        for (GenomeSegment segment : segments)
+            survival[segment.indexOf() + 1] =
+                survival[segment.indexOf()] * (1.0 - getEventProbability(genotype, segment));
+
+        return survival;
+    }
+
+    private double getEventProbability(SegmentCNGenotype genotype, GenomeSegment segment) {
+        return eventTable.getEventProbability(eventTable.indexOf(segment, genotype.count(segment)));
+    }
+
+    private int nextEvent(SegmentCNGenotype parent, double[] survival, int first, RandomGenerator random) {
+        //
+        // Returns the index of the next segment (at or after "first")
+        // with a copy number event, or the segment count if no further
+        // events occur...
+        //
+        int segmentCount = survival.length - 1;
+
+        if (first >= segmentCount)
+            return segmentCount;
+
+        // A segment with a certain event zeroes all later products;
+        // beyond it, fall back to one trial per segment...
+        if (survival[first] == 0.0)
+            return scanEvent(parent, first, random);
+
+        double threshold = (1.0 - random.nextDouble()) * survival[first];
+
+        if (survival[segmentCount] >= threshold)
+            return segmentCount;
+
+        int lower = first;
+        int upper = segmentCount - 1;
+
+        while (lower < upper) {
+            int middle = (lower + upper) >>> 1;
+
+            if (survival[middle + 1] < threshold)
+                upper = middle;
+            else
+                lower = middle + 1;
+        }
+
+        return lower;
+    }
+
+    private int scanEvent(SegmentCNGenotype parent, int first, RandomGenerator random) {
+        int segmentCount = GenomeSegment.count();
+
+        for (int segmentIndex = first; segmentIndex < segmentCount; ++segmentIndex)
+            if (random.nextDouble() < getEventProbability(parent, GenomeSegment.instance(segmentIndex)))
+                return segmentIndex;
+
+        return segmentCount;
+    }
+
+    private static SegmentCNGenotype mutate(SegmentCNGenotype parent, GenomeSegment segment, CNAType cnaType) {
         switch (cnaType) {
         case GAIN:
             return parent.gain(segment);
@@ -299,17 +478,17 @@ public final class SegmentCNARateModel {
         case LOSS:
             return parent.lose(segment);
 
-        case NONE:
-            return parent;
-
         default:
             throw new IllegalStateException("Unknown CNA type.");
         }
     }
 
-    private CNAType selectEvent(SegmentCNGenotype parent, GenomeSegment segment) {
-        int copyNum = parent.count(segment);
-        return getEventSet(segment, copyNum).select();
+    private CNAType selectEvent(SegmentCNGenotype parent, GenomeSegment segment, RandomGenerator random) {
+        //
+        // An event is known to occur on this segment, so choose gain
+        // or loss in proportion to their probabilities...
+        //
+        return eventTable.selectGivenEvent(eventTable.indexOf(segment, parent.count(segment)), random.nextDouble());
     }
 
     // -------------------------------------------------------------- //
@@ -1,10 +1,6 @@
 
 package moran.segment;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 import jam.math.EventSet;
 import jam.math.Probability;
 
@@ -25,13 +21,14 @@ import moran.cna.CNAType;
  */
 public final class SegmentCNASet {
     //
-    // CNA event sets stored in matrix form, using the index of genome
-    // segment as the row index and copy number as the column index.
+    // The event probabilities for every genome segment and copy number,
+    // compiled into flat arrays for sampling; event sets are created
+    // from the table on demand...
     //
-    private final List<List<EventSet<CNAType>>> eventSets;
+    private final SegmentCNATable eventTable;
 
-    private SegmentCNASet(List<List<EventSet<CNAType>>> eventSets) {
-        this.eventSets = eventSets;
+    private SegmentCNASet(SegmentCNATable eventTable) {
+        this.eventTable = eventTable;
     }
 
     /**
@@ -53,7 +50,10 @@ public final class SegmentCNASet {
     public static SegmentCNASet create(Probability rateWGD,
                                        SegmentCNARateMatrix gainRates,
                                        SegmentCNARateMatrix lossRates) {
-        return new SegmentCNASet(Builder.build(rateWGD, gainRates, lossRates));
+        Builder builder = new Builder(rateWGD, gainRates, lossRates);
+        builder.build();
+
+        return new SegmentCNASet(builder.table());
     }
 
     /**
@@ -69,7 +69,20 @@ public final class SegmentCNASet {
      * @throws IllegalArgumentException if the copy number is invalid.
      */
     public EventSet<CNAType> getEventSet(GenomeSegment segment, int copyNum) {
-        return eventSets.get(segment.indexOf()).get(copyNum);
+        if (copyNum < 0 || copyNum > SegmentCNGenotype.maxCopyNumber())
+            throw new IllegalArgumentException("Invalid copy number.");
+
+        int index = eventTable.indexOf(segment, copyNum);
+        return CNASet.create(eventTable.getGainProbability(index), eventTable.getLossProbability(index));
+    }
+
+    /**
+     * Returns the event probabilities compiled into a flat table.
+     *
+     * @return the event probabilities compiled into a flat table.
+     */
+    public SegmentCNATable getEventTable() {
+        return eventTable;
     }
 
     // -------------------------------------------------------------- //
@@ -79,8 +92,9 @@ public final class SegmentCNASet {
         private final SegmentCNARateMatrix gainRates;
         private final SegmentCNARateMatrix lossRates;
 
-        private final List<List<EventSet<CNAType>>> setList =
-            new ArrayList<List<EventSet<CNAType>>>();
+        private final int stride = SegmentCNGenotype.maxCopyNumber() + 1;
+        private final double[] gainProb = new double[GenomeSegment.count() * stride];
+        private final double[] lossProb = new double[GenomeSegment.count() * stride];
 
         private Builder(Probability rateWGD,
                         SegmentCNARateMatrix gainRates,
@@ -90,34 +104,26 @@ public final class SegmentCNASet {
             this.lossRates = lossRates;
         }
 
-        private static List<List<EventSet<CNAType>>> build(Probability rateWGD,
-                                                           SegmentCNARateMatrix gainRates,
-                                                           SegmentCNARateMatrix lossRates) {
-            Builder builder = new Builder(rateWGD, gainRates, lossRates);
-            return builder.build();
-        }
-
-        private List<List<EventSet<CNAType>>> build() {
+        private void build() {
             for (GenomeSegment segment : GenomeSegment.list())
-                setList.add(createSegmentEventSets(segment));
-
-            return Collections.unmodifiableList(setList);
+                for (int copyNum = 0; copyNum <= SegmentCNGenotype.maxCopyNumber(); ++copyNum)
+                    assignRates(segment, copyNum);
         }
 
-        private List<EventSet<CNAType>> createSegmentEventSets(GenomeSegment segment) {
-            List<EventSet<CNAType>> segmentList = new ArrayList<EventSet<CNAType>>();
-
-            for (int copyNum = 0; copyNum <= SegmentCNGenotype.maxCopyNumber(); ++copyNum)
-                segmentList.add(createSegmentEventSet(segment, copyNum));
-
-            return Collections.unmodifiableList(segmentList);
+        private SegmentCNATable table() {
+            return new SegmentCNATable(gainProb, lossProb, stride);
         }
 
-        private EventSet<CNAType> createSegmentEventSet(GenomeSegment segment, int copyNum) {
+        private void assignRates(GenomeSegment segment, int copyNum) {
             Probability gainRate = adjustRate(gainRates.getRate(segment, copyNum));
             Probability lossRate = adjustRate(lossRates.getRate(segment, copyNum));
 
-            return CNASet.create(gainRate, lossRate);
+            // Gains and losses are mutually exclusive...
+            if (gainRate.doubleValue() + lossRate.doubleValue() > 1.0)
+                throw new IllegalArgumentException("The sum of the gain and loss probabilities exceeds one.");
+
+            gainProb[segment.indexOf() * stride + copyNum] = gainRate.doubleValue();
+            lossProb[segment.indexOf() * stride + copyNum] = lossRate.doubleValue();
         }
 
         private Probability adjustRate(Probability rateCNA) {
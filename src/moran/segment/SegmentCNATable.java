@@ -0,0 +1,103 @@
+
+package moran.segment;
+
+import moran.cna.CNAType;
+
+/**
+ * Stores the gain and loss probabilities for every genome segment and
+ * copy number state as flat cumulative thresholds, so that a single
+ * uniform deviate selects a gain or loss once the skip sampling in
+ * {@link SegmentCNARateModel} has placed an event on a segment.
+ *
+ * <p>The element for segment index {@code s} and copy number
+ * {@code c} is located at position {@code s * (maxCopyNumber + 1) + c}.
+ * Instances are immutable and may be shared by concurrent simulation
+ * trials.
+ */
+public final class SegmentCNATable {
+    private final int stride;
+
+    // Gain occurs for uniform deviates below the gain threshold; loss
+    // occurs for deviates between the gain threshold and the event
+    // threshold...
+    private final double[] gainThreshold;
+    private final double[] eventThreshold;
+
+    SegmentCNATable(double[] gainProb, double[] lossProb, int stride) {
+        if (gainProb.length != lossProb.length)
+            throw new IllegalArgumentException("Gain and loss tables must have equal length.");
+
+        if (gainProb.length % stride != 0)
+            throw new IllegalArgumentException("Table length must be a multiple of the stride.");
+
+        this.stride = stride;
+        this.gainThreshold = gainProb.clone();
+        this.eventThreshold = new double[gainProb.length];
+
+        for (int index = 0; index < gainProb.length; ++index)
+            eventThreshold[index] = gainProb[index] + lossProb[index];
+    }
+
+    /**
+     * Returns the table index for a genome segment and copy number.
+     *
+     * @param segment the genome segment of interest.
+     *
+     * @param copyNum the copy number of interest.
+     *
+     * @return the table index for the specified segment and copy
+     * number.
+     */
+    public int indexOf(GenomeSegment segment, int copyNum) {
+        return segment.indexOf() * stride + copyNum;
+    }
+
+    /**
+     * Returns the probability of a copy number gain.
+     *
+     * @param index the table index of the segment and copy number.
+     *
+     * @return the probability of a copy number gain.
+     */
+    public double getGainProbability(int index) {
+        return gainThreshold[index];
+    }
+
+    /**
+     * Returns the probability of a copy number loss.
+     *
+     * @param index the table index of the segment and copy number.
+     *
+     * @return the probability of a copy number loss.
+     */
+    public double getLossProbability(int index) {
+        return eventThreshold[index] - gainThreshold[index];
+    }
+
+    /**
+     * Returns the probability of either a gain or a loss.
+     *
+     * @param index the table index of the segment and copy number.
+     *
+     * @return the probability of either a gain or a loss.
+     */
+    public double getEventProbability(int index) {
+        return eventThreshold[index];
+    }
+
+    /**
+     * Selects a gain or loss given that one of them occurs.
+     *
+     * @param index the table index of the segment and copy number.
+     *
+     * @param uniform a uniform deviate in {@code [0, 1)}.
+     *
+     * @return the selected event type.
+     */
+    public CNAType selectGivenEvent(int index, double uniform) {
+        if (uniform * eventThreshold[index] < gainThreshold[index])
+            return CNAType.GAIN;
+        else
+            return CNAType.LOSS;
+    }
+}
@@ -1,6 +1,8 @@
 
 package moran.segment;
 
+import java.util.random.RandomGenerator;
+
 import moran.cell.Cell;
 import moran.cell.Genotype;
 
@@ -25,8 +27,19 @@ public final class SegmentCNCell extends Cell {
         return new SegmentCNCell(null, SegmentCNGenotype.GERMLINE);
     }
         
-    @Override public SegmentCNCell divide() {
-        return new SegmentCNCell(this, SegmentCNARateModel.global().mutate(genotype));
+    @Override public SegmentCNCell divide(RandomGenerator random) {
+        return new SegmentCNCell(this, genotype.divide(random));
+    }
+
+    @Override public SegmentCNCell divide(Genotype genotype) {
+        if (genotype instanceof SegmentCNGenotype)
+            return new SegmentCNCell(this, (SegmentCNGenotype) genotype);
+        else
+            throw new IllegalArgumentException("Invalid genotype runtime type.");
+    }
+
+    @Override public boolean dividesByGenotype() {
+        return true;
     }
 
     @Override public SegmentCNGenotype getGenotype() {
@@ -3,6 +3,7 @@ package moran.segment;
 
 import java.io.File;
 
+import moran.cell.GenotypeCodec;
 import moran.driver.MoranDriver;
 import moran.space.Space;
 
@@ -23,7 +24,7 @@ public final class SegmentCNDriver extends MoranDriver {
      */
     public static void run(String... propertyFiles) {
         SegmentCNDriver driver = new SegmentCNDriver(propertyFiles);
-        driver.runSimulation();
+        driver.simulate();
     }
 
     @Override protected Space createSpace() {
@@ -34,6 +35,14 @@ public final class SegmentCNDriver extends MoranDriver {
         return SegmentCNPhenotype.global();
     }
 
+    @Override protected SegmentCNGenotype createFounderGenotype() {
+        return SegmentCNGenotype.GERMLINE;
+    }
+
+    @Override public GenotypeCodec getGenotypeCodec() {
+        return SegmentCNGenotype.CODEC;
+    }
+
     @Override protected void recordSnapshot(File snapshotDir) {
         // No-op...
     }
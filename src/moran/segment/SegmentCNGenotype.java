@@ -1,13 +1,18 @@
 
 package moran.segment;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.random.RandomGenerator;
 
 import jam.app.JamProperties;
 import jam.lang.JamException;
 import jam.report.LineBuilder;
 
 import moran.cell.Genotype;
+import moran.cell.GenotypeCodec;
 
 /**
  * Implements a genotype that is completely defined by the copy
@@ -17,14 +22,40 @@ import moran.cell.Genotype;
  * {@code gain()}, {@code lose()}, and {@code doubleWG()} methods
  * return new objects with updated copy numbers while the original
  * object remains unchanged.
+ *
+ * <p><b>Interning.</b> Genotypes are canonical: there is exactly one
+ * instance for each distinct set of copy numbers that is carried by
+ * any living cell, so genotypes may be compared by identity and used
+ * as keys for per-genotype caches.
  */
 public final class SegmentCNGenotype implements Genotype {
     //
     // Copy number of each genome segment indexed by the genome
-    // segment ordinal index...
+    // segment ordinal index, wrapped with its precomputed hash...
     //
+    private final SegmentCNGenotypeTable.Key key;
     private final int[] copyNumbers;
 
+    //
+    // The fitness of this genotype under the global phenotype, in the
+    // fixed-point representation used by SegmentCNPhenotype, cached
+    // after the first evaluation.  Every evaluation path produces the
+    // same exact value, so concurrent assignments are harmless...
+    //
+    private volatile long fixedFitness = UNKNOWN_FITNESS;
+
+    /**
+     * Marks genotypes whose fitness has not yet been evaluated.
+     */
+    static final long UNKNOWN_FITNESS = Long.MIN_VALUE;
+
+    //
+    // The cumulative probabilities that no copy number event occurs
+    // in the leading genome segments, assigned by the global CNA rate
+    // model when this genotype first divides (null until then)...
+    //
+    private volatile double[] survival = null;
+
     private static final int maxCopyNumber = resolveMaxCopyNumber();
 
     private static int resolveMaxCopyNumber() {
@@ -36,8 +67,44 @@ public final class SegmentCNGenotype implements Genotype {
         return max;
     }
 
-    private SegmentCNGenotype(int[] copyNumbers) {
-        this.copyNumbers = copyNumbers;
+    private static final SegmentCNGenotypeTable table = new SegmentCNGenotypeTable();
+
+    SegmentCNGenotype(SegmentCNGenotypeTable.Key key) {
+        this.key = key;
+        this.copyNumbers = key.copyNumbers();
+    }
+
+    private static SegmentCNGenotype intern(int[] copyNumbers) {
+        return table.intern(copyNumbers);
+    }
+
+    long getFixedFitness() {
+        return fixedFitness;
+    }
+
+    void setFixedFitness(long fitness) {
+        this.fixedFitness = fitness;
+    }
+
+    double[] getSurvival() {
+        return survival;
+    }
+
+    void setSurvival(double[] survival) {
+        this.survival = survival;
+    }
+
+    private SegmentCNGenotype inheritFitness(SegmentCNGenotype daughter, GenomeSegment segment) {
+        //
+        // A parent with a cached fitness implies that the global
+        // phenotype exists, and the daughter fitness follows from a
+        // single matrix element difference...
+        //
+        if (daughter.fixedFitness == UNKNOWN_FITNESS && this.fixedFitness != UNKNOWN_FITNESS)
+            daughter.fixedFitness =
+                this.fixedFitness + SegmentCNPhenotype.global().computeFixedDelta(segment, count(segment), daughter.count(segment));
+
+        return daughter;
     }
 
     private int[] copyCopyNumbers() {
@@ -60,7 +127,51 @@ public final class SegmentCNGenotype implements Genotype {
         int[] wild = new int[GenomeSegment.count()];
         Arrays.fill(wild, SegmentCN.GERMLINE_COPY_NUMBER);
 
-        return new SegmentCNGenotype(wild);
+        return intern(wild);
+    }
+
+    /**
+     * Encodes segment copy-number genotypes in trial checkpoints; the
+     * genotypes that are read are interned.
+     */
+    public static final GenotypeCodec CODEC = new GenotypeCodec() {
+            @Override public void write(DataOutput output, Genotype genotype) throws IOException {
+                if (!(genotype instanceof SegmentCNGenotype))
+                    throw new IllegalArgumentException("Invalid genotype runtime type.");
+
+                int[] copyNumbers = ((SegmentCNGenotype) genotype).copyNumbers;
+                output.writeInt(copyNumbers.length);
+
+                for (int copyNumber : copyNumbers)
+                    output.writeInt(copyNumber);
+            }
+
+            @Override public SegmentCNGenotype read(DataInput input) throws IOException {
+                int segmentCount = input.readInt();
+
+                if (segmentCount != GenomeSegment.count())
+                    throw new IOException("The genotype does not match the genome segments.");
+
+                int[] copyNumbers = new int[segmentCount];
+
+                for (int index = 0; index < segmentCount; ++index) {
+                    copyNumbers[index] = input.readInt();
+
+                    if (copyNumbers[index] < 0 || copyNumbers[index] > maxCopyNumber)
+                        throw new IOException("Invalid copy number.");
+                }
+
+                return intern(copyNumbers);
+            }
+        };
+
+    /**
+     * Returns the number of distinct genotypes currently interned.
+     *
+     * @return the number of distinct genotypes currently interned.
+     */
+    public static int internCount() {
+        return table.size();
     }
 
     /**
@@ -109,7 +220,7 @@ public final class SegmentCNGenotype implements Genotype {
         for (int index = 0; index < newCopyNumbers.length; ++index)
             newCopyNumbers[index] *= 2;
 
-        return new SegmentCNGenotype(newCopyNumbers);
+        return intern(newCopyNumbers);
     }
 
     /**
@@ -137,7 +248,7 @@ public final class SegmentCNGenotype implements Genotype {
         int[] newCopyNumbers = copyCopyNumbers();
         ++newCopyNumbers[segment.indexOf()];
 
-        return new SegmentCNGenotype(newCopyNumbers);
+        return inheritFitness(intern(newCopyNumbers), segment);
     }
 
     private void validatePositiveCopyNumber(GenomeSegment segment) {
@@ -162,7 +273,7 @@ public final class SegmentCNGenotype implements Genotype {
         int[] newCopyNumbers = copyCopyNumbers();
         --newCopyNumbers[segment.indexOf()];
 
-        return new SegmentCNGenotype(newCopyNumbers);
+        return inheritFitness(intern(newCopyNumbers), segment);
     }
 
     /**
@@ -182,6 +293,30 @@ public final class SegmentCNGenotype implements Genotype {
             throw new IllegalArgumentException("Copy number exceeds the maximum.");
     }
 
+    @Override public SegmentCNGenotype divide(RandomGenerator random) {
+        return SegmentCNARateModel.global().mutate(this, random);
+    }
+
+    @Override public double getMutationProbability() {
+        return SegmentCNARateModel.global().getMutationProbability(this);
+    }
+
+    @Override public SegmentCNGenotype mutate(RandomGenerator random) {
+        return SegmentCNARateModel.global().mutateGivenEvent(this, random);
+    }
+
+    @Override public boolean equals(Object that) {
+        //
+        // Genotypes are interned, so distinct instances always have
+        // distinct copy numbers...
+        //
+        return this == that;
+    }
+
+    @Override public int hashCode() {
+        return key.hashCode();
+    }
+
     @Override public String format() {
         LineBuilder builder = LineBuilder.csv();
 
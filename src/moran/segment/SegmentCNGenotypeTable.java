@@ -0,0 +1,123 @@
+
+package moran.segment;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the canonical instances of copy-number genotypes: every
+ * distinct copy-number vector maps to exactly one genotype object.
+ *
+ * <p>The table holds its genotypes through weak references, so a
+ * genotype that is no longer carried by any cell (an extinct clone)
+ * is reclaimed by the garbage collector; its table entry is removed
+ * the next time a genotype is interned.  The table therefore grows
+ * with the number of coexisting genotypes, not with the number of
+ * genotypes ever created.
+ *
+ * <p>The table is thread-safe, so concurrent simulation trials share
+ * canonical instances.
+ */
+final class SegmentCNGenotypeTable {
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+    private final ReferenceQueue<SegmentCNGenotype> reclaimed = new ReferenceQueue<SegmentCNGenotype>();
+
+    /**
+     * Wraps a copy-number vector with its precomputed hash code for
+     * use as a table key.  The wrapped array must never be modified.
+     */
+    static final class Key {
+        private final int[] copyNumbers;
+        private final int hashCode;
+
+        Key(int[] copyNumbers) {
+            this.copyNumbers = copyNumbers;
+            this.hashCode = Arrays.hashCode(copyNumbers);
+        }
+
+        int[] copyNumbers() {
+            return copyNumbers;
+        }
+
+        @Override public boolean equals(Object that) {
+            return (that instanceof Key) && equalsKey((Key) that);
+        }
+
+        private boolean equalsKey(Key that) {
+            return this.hashCode == that.hashCode && Arrays.equals(this.copyNumbers, that.copyNumbers);
+        }
+
+        @Override public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Entry extends WeakReference<SegmentCNGenotype> {
+        private final Key key;
+
+        private Entry(SegmentCNGenotype genotype, Key key, ReferenceQueue<SegmentCNGenotype> queue) {
+            super(genotype, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * Returns the canonical genotype with a given copy-number vector,
+     * creating it if necessary.
+     *
+     * @param copyNumbers the copy-number vector, which is owned by
+     * the table after this call and must never be modified.
+     *
+     * @return the canonical genotype with the specified copy numbers.
+     */
+    SegmentCNGenotype intern(int[] copyNumbers) {
+        expungeReclaimed();
+
+        Key key = new Key(copyNumbers);
+
+        while (true) {
+            Entry entry = entries.get(key);
+
+            if (entry != null) {
+                SegmentCNGenotype genotype = entry.get();
+
+                if (genotype != null)
+                    return genotype;
+
+                // The genotype was reclaimed but its entry has not yet
+                // been expunged...
+                entries.remove(key, entry);
+            }
+
+            SegmentCNGenotype genotype = new SegmentCNGenotype(key);
+
+            if (entries.putIfAbsent(key, new Entry(genotype, key, reclaimed)) == null)
+                return genotype;
+
+            // Another thread interned the same vector first; try again
+            // to pick up its instance...
+        }
+    }
+
+    private void expungeReclaimed() {
+        Object reference;
+
+        while ((reference = reclaimed.poll()) != null) {
+            Entry entry = (Entry) reference;
+            entries.remove(entry.key, entry);
+        }
+    }
+
+    /**
+     * Returns the number of genotypes in this table (which may include
+     * reclaimed genotypes whose entries have not yet been expunged).
+     *
+     * @return the number of genotypes in this table.
+     */
+    int size() {
+        expungeReclaimed();
+        return entries.size();
+    }
+}
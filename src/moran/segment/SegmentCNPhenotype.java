@@ -47,6 +47,15 @@ import moran.cell.Phenotype;
  * and {@code loss} must be used to distinguish the event types (but
  * they are not case-sensitive).  Blank lines and comment text (noted
  * by a {@code #} character) are permitted.
+ *
+ * <p><b>Cached fitness.</b> The fitness of each genotype is computed
+ * once and cached on the (interned) genotype object.  The fitness of
+ * a daughter genotype that differs from its parent by one segment is
+ * derived from the parent fitness in constant time.  Fitness values
+ * are accumulated in a fixed-point representation with a resolution
+ * of {@code 2^-40}, so the sum is exact: the fitness of a genotype
+ * does not depend on the sequence of mutations that produced it,
+ * which keeps simulation trials reproducible.
  */
 public final class SegmentCNPhenotype implements Phenotype {
     //
@@ -56,11 +65,54 @@ public final class SegmentCNPhenotype implements Phenotype {
     //
     private final MatrixView fitnessMatrix;
 
-    private static SegmentCNPhenotype global = null;
+    //
+    // The fitness matrix in fixed-point representation, flattened in
+    // row-major order: the element for segment index "s" and copy
+    // number "c" is at position (s * columnCount + c)...
+    //
+    private final long[] fixedFitness;
+    private final int columnCount;
+
+    // Whether every genotype has the same fitness...
+    private final boolean neutral;
+
+    private static final double FIXED_POINT_SCALE = 0x1.0p40;
+    private static final double FIXED_POINT_UNIT  = 0x1.0p-40;
 
     private SegmentCNPhenotype(MatrixView fitnessMatrix) {
         validateFitness(fitnessMatrix);
         this.fitnessMatrix = fitnessMatrix;
+        this.columnCount = fitnessMatrix.ncol();
+        this.fixedFitness = flattenFitness(fitnessMatrix);
+        this.neutral = computeNeutral();
+    }
+
+    private boolean computeNeutral() {
+        //
+        // The genotype fitness is a sum over genome segments, and the
+        // copy number of each segment varies independently, so every
+        // genotype has the same fitness if and only if the fitness of
+        // each segment does not depend on its copy number...
+        //
+        for (int offset = 0; offset < fixedFitness.length; offset += columnCount)
+            for (int col = 1; col < columnCount; ++col)
+                if (fixedFitness[offset + col] != fixedFitness[offset])
+                    return false;
+
+        return true;
+    }
+
+    private static long[] flattenFitness(MatrixView fitnessMatrix) {
+        int nrow = fitnessMatrix.nrow();
+        int ncol = fitnessMatrix.ncol();
+
+        long[] flat = new long[nrow * ncol];
+
+        for (int row = 0; row < nrow; ++row)
+            for (int col = 0; col < ncol; ++col)
+                flat[row * ncol + col] = Math.round(FIXED_POINT_SCALE * fitnessMatrix.get(row, col));
+
+        return flat;
     }
 
     /**
@@ -83,10 +135,14 @@ public final class SegmentCNPhenotype implements Phenotype {
      * @return the global phenotype defined by system properties.
      */
     public static final SegmentCNPhenotype global() {
-        if (global == null)
-            global = new SegmentCNPhenotype(createGlobalMatrix());
+        return GlobalHolder.INSTANCE;
+    }
 
-        return global;
+    // The holder class defers creation of the global phenotype until
+    // it is first requested and guarantees that it is created exactly
+    // once when simulation trials run concurrently...
+    private static final class GlobalHolder {
+        private static final SegmentCNPhenotype INSTANCE = new SegmentCNPhenotype(createGlobalMatrix());
     }
 
     private static JamMatrix createGlobalMatrix() {
@@ -106,6 +162,17 @@ public final class SegmentCNPhenotype implements Phenotype {
         return fitnessMatrix;
     }
    
+    /**
+     * Identifies neutral phenotypes: the fitness of every genome
+     * segment is independent of its copy number (as in a chained
+     * fitness matrix with zero fitness changes).
+     *
+     * @return {@code true} iff every genotype has the same fitness.
+     */
+    @Override public boolean isNeutral() {
+        return neutral;
+    }
+
     @Override public double getFitness(Genotype genotype) {
         if (genotype instanceof SegmentCNGenotype)
             return getCNFitness((SegmentCNGenotype) genotype);
@@ -113,19 +180,60 @@ public final class SegmentCNPhenotype implements Phenotype {
             throw new IllegalArgumentException("Invalid genotype runtime type.");
     }
 
-    private double getCNFitness(SegmentCNGenotype genotype) {
-        double fitness = 0.0;
-
-        for (GenomeSegment segment : GenomeSegment.list()) {
-            int row = segment.indexOf();
-            int col = genotype.count(segment);
+    /**
+     * Returns the relative scalar fitness for a copy-number genotype
+     * (without the runtime type check of the general method).
+     *
+     * @param genotype the genotype to evaluate.
+     *
+     * @return the relative scalar fitness for the specified genotype.
+     */
+    public double getCNFitness(SegmentCNGenotype genotype) {
+        long fitness = genotype.getFixedFitness();
 
-            fitness += fitnessMatrix.get(row, col);
+        if (fitness == SegmentCNGenotype.UNKNOWN_FITNESS) {
+            fitness = computeFixedFitness(genotype);
+            genotype.setFixedFitness(fitness);
         }
 
+        return FIXED_POINT_UNIT * fitness;
+    }
+
+    /**
+     * Computes the fitness of a genotype by summing over all genome
+     * segments, in the fixed-point representation.
+     *
+     * @param genotype the genotype to evaluate.
+     *
+     * @return the fixed-point fitness of the genotype.
+     */
+    long computeFixedFitness(SegmentCNGenotype genotype) {
+        long fitness = 0L;
+
+        for (GenomeSegment segment : GenomeSegment.list())
+            fitness += fixedFitness[segment.indexOf() * columnCount + genotype.count(segment)];
+
         return fitness;
     }
 
+    /**
+     * Computes the change in fitness that accompanies a change in the
+     * copy number of one genome segment, in the fixed-point
+     * representation.
+     *
+     * @param segment the segment that changes copy number.
+     *
+     * @param oldCN the original copy number.
+     *
+     * @param newCN the new copy number.
+     *
+     * @return the fixed-point change in fitness.
+     */
+    long computeFixedDelta(GenomeSegment segment, int oldCN, int newCN) {
+        int offset = segment.indexOf() * columnCount;
+        return fixedFitness[offset + newCN] - fixedFitness[offset + oldCN];
+    }
+
     private static void validateFitness(MatrixView fitnessMatrix) {
         if (fitnessMatrix.nrow() != rowCount())
             throw new IllegalArgumentException("Invalid fitness matrix row count.");
@@ -133,10 +241,25 @@ public final class SegmentCNPhenotype implements Phenotype {
         if (fitnessMatrix.ncol() != colCount())
             throw new IllegalArgumentException("Invalid fitness matrix column count.");
 
-        for (int row = 0; row < fitnessMatrix.nrow(); ++row)
-            for (int col = 0; col < fitnessMatrix.ncol(); ++col)
+        double maxTotal = 0.0;
+
+        for (int row = 0; row < fitnessMatrix.nrow(); ++row) {
+            double maxRow = 0.0;
+
+            for (int col = 0; col < fitnessMatrix.ncol(); ++col) {
                 if (fitnessMatrix.get(row, col) < 0.0)
                     throw new IllegalArgumentException("Negative fitness value.");
+
+                maxRow = Math.max(maxRow, fitnessMatrix.get(row, col));
+            }
+
+            maxTotal += maxRow;
+        }
+
+        // The largest possible genotype fitness must be representable
+        // in the fixed-point format...
+        if (maxTotal * FIXED_POINT_SCALE >= Long.MAX_VALUE)
+            throw new IllegalArgumentException("Fitness values are too large.");
     }
 
     private static int rowCount() {
@@ -8,6 +8,7 @@ import jam.math.IntUtil;
 import jam.util.RegexUtil;
 
 import moran.cell.Cell;
+import moran.cell.PopulationMode;
 
 final class GlobalSpace {
     private final String strProp;
@@ -22,9 +23,20 @@ final class GlobalSpace {
         return new GlobalSpace(factory).create();
     }
 
+    static int resolvePointSize() {
+        GlobalSpace global = new GlobalSpace(null);
+
+        if (!global.isPointStructure())
+            throw new IllegalStateException("The global structure is not a point structure.");
+
+        return global.parsePointSize();
+    }
+
     private Space create() {
         if (isPointStructure())
             return parsePointStructure();
+        else if (isMappedStructure())
+            return parseMappedStructure();
         else
             return parseLatticeStructure();
     }
@@ -34,13 +46,28 @@ final class GlobalSpace {
     }
 
     private Space parsePointStructure() {
+        return Space.point(factory, parsePointSize());
+    }
+
+    private int parsePointSize() {
         String[] fields = RegexUtil.split(RegexUtil.SEMICOLON, strProp, 2);
 
         if (!fields[0].equals("POINT"))
             throw new IllegalStateException("Invalid point structure specification.");
 
-        int size = IntUtil.parseInt(fields[1]);
-        return Space.point(factory, size);
+        return IntUtil.parseInt(fields[1]);
+    }
+
+    private boolean isMappedStructure() {
+        return PopulationMode.global() == PopulationMode.MAPPED && PeriodicLattice.isPeriodic(strProp);
+    }
+
+    private Space parseMappedStructure() {
+        //
+        // Mapped lattices hold no founder cells, only the genotype
+        // that they share...
+        //
+        return Space.mapped(strProp, factory.newInstance().getGenotype());
     }
 
     private Space parseLatticeStructure() {
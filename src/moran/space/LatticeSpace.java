@@ -1,7 +1,6 @@
 
 package moran.space;
 
-import java.util.Collection;
 import java.util.List;
 
 import jam.bravais.Lattice;
@@ -10,11 +9,48 @@ import jam.math.Point;
 import moran.cell.Cell;
 
 final class LatticeSpace extends Space {
-    private final Lattice<Cell> lattice;
+    //
+    // The lattice structure is fixed, so the neighbor relationships
+    // and spatial locations are resolved to population indexes once,
+    // when the space is created.  Thereafter the lattice itself is
+    // never consulted or updated...
+    //
+    private final Point[] locations;
+    private final LatticeTopology topology;
 
     private LatticeSpace(Lattice<Cell> lattice) {
         super(lattice.listOccupants());
-        this.lattice = lattice;
+
+        this.locations = mapLocations(lattice);
+        this.topology = mapTopology(lattice);
+    }
+
+    private Point[] mapLocations(Lattice<Cell> lattice) {
+        Point[] locations = new Point[size()];
+
+        for (int index = 0; index < size(); ++index)
+            locations[index] = lattice.locate(get(index));
+
+        return locations;
+    }
+
+    private LatticeTopology mapTopology(Lattice<Cell> lattice) {
+        int[][] neighborLists = new int[size()][];
+
+        for (int index = 0; index < size(); ++index)
+            neighborLists[index] = mapNeighbors(lattice, get(index));
+
+        return LatticeTopology.create(neighborLists);
+    }
+
+    private int[] mapNeighbors(Lattice<Cell> lattice, Cell cell) {
+        List<Cell> neighbors = lattice.neighborsOf(cell);
+        int[] indexes = new int[neighbors.size()];
+
+        for (int k = 0; k < indexes.length; ++k)
+            indexes[k] = indexOf(neighbors.get(k));
+
+        return indexes;
     }
 
     static LatticeSpace create(Lattice<Cell> lattice) {
@@ -28,18 +64,41 @@ final class LatticeSpace extends Space {
     }
 
     @Override public List<Cell> getNeighbors(Cell cell) {
-        if (lattice.contains(cell))
-            return lattice.neighborsOf(cell);
-        else
-            throw new IllegalArgumentException("Target cell does not reside on the lattice.");
+        int index = indexOf(cell);
+        int count = topology.countNeighbors(index);
+
+        Cell[] neighbors = new Cell[count];
+
+        for (int k = 0; k < count; ++k)
+            neighbors[k] = get(topology.getNeighbor(index, k));
+
+        return List.of(neighbors);
     }
 
-    @Override public Point locate(Cell cell) {
-        return lattice.locate(cell);
+    @Override public int maxNeighborCount() {
+        return topology.maxNeighborCount();
+    }
+
+    @Override public int countNeighbors(int index) {
+        return topology.countNeighbors(index);
+    }
+
+    @Override public int getNeighborIndex(int index, int k) {
+        return topology.getNeighbor(index, k);
+    }
+
+    @Override public int getNeighborIndexes(int index, int[] neighbors) {
+        return topology.getNeighbors(index, neighbors);
     }
 
-    @Override public void replace(Cell oldCell, Cell newCell) {
-        super.replace(oldCell, newCell);
-        lattice.replace(oldCell, newCell);
+    @Override public Point locate(int index) {
+        return locations[index];
+    }
+
+    @Override public Point locate(Cell cell) {
+        if (contains(cell))
+            return locations[indexOf(cell)];
+        else
+            return null;
     }
 }
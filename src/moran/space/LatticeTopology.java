@@ -0,0 +1,204 @@
+
+package moran.space;
+
+import java.util.Arrays;
+
+/**
+ * Describes the neighbor relationships among the sites of a fully
+ * occupied lattice using integer site indexes.
+ *
+ * <p>The neighbor table is stored in compressed sparse row format:
+ * the neighbors of site {@code s} occupy elements
+ * {@code [offsets[s], offsets[s + 1])} of a single {@code int[]}
+ * array, so neighbor queries require no hashing and no allocation.
+ *
+ * <p><b>Periodic Bravais lattices.</b> Topologies may also be parsed
+ * directly from the spatial structure property, without creating any
+ * cells.  The format is {@code TYPE; a; n1, n2, ...}, where
+ * {@code TYPE} is {@code LINEAR}, {@code SQUARE}, {@code HEXAGONAL},
+ * or {@code CUBIC}, {@code a} is the lattice constant (which does not
+ * affect the topology), and {@code n1, n2, ...} are the number of
+ * unit cells along each basis vector.  Parsed lattices have periodic
+ * boundaries and sites indexed in lexicographic order with the first
+ * lattice index varying fastest.
+ */
+public final class LatticeTopology {
+    private final int[] offsets;
+    private final int[] neighbors;
+
+    // Number of unit cells along each basis vector for parsed
+    // lattices (null for topologies mapped from other sources)...
+    private final int[] periods;
+
+    private final int maxNeighborCount;
+
+    private LatticeTopology(int[] offsets, int[] neighbors, int[] periods) {
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.periods = periods;
+        this.maxNeighborCount = computeMaxNeighborCount();
+    }
+
+    private int computeMaxNeighborCount() {
+        int maxCount = 0;
+
+        for (int site = 0; site < size(); ++site)
+            maxCount = Math.max(maxCount, countNeighbors(site));
+
+        return maxCount;
+    }
+
+    /**
+     * Creates a topology from explicit neighbor lists.
+     *
+     * @param neighborLists the indexes of the neighbors of each site,
+     * indexed by site.
+     *
+     * @return the topology defined by the neighbor lists.
+     *
+     * @throws IllegalArgumentException unless every neighbor index is
+     * a valid site index.
+     */
+    public static LatticeTopology create(int[][] neighborLists) {
+        return compress(neighborLists, null);
+    }
+
+    private static LatticeTopology compress(int[][] neighborLists, int[] periods) {
+        int siteCount = neighborLists.length;
+        int[] offsets = new int[siteCount + 1];
+
+        for (int site = 0; site < siteCount; ++site)
+            offsets[site + 1] = offsets[site] + neighborLists[site].length;
+
+        int[] neighbors = new int[offsets[siteCount]];
+
+        for (int site = 0; site < siteCount; ++site) {
+            for (int neighbor : neighborLists[site])
+                if (neighbor < 0 || neighbor >= siteCount)
+                    throw new IllegalArgumentException("Invalid neighbor index.");
+
+            System.arraycopy(neighborLists[site], 0, neighbors, offsets[site], neighborLists[site].length);
+        }
+
+        return new LatticeTopology(offsets, neighbors, periods);
+    }
+
+    /**
+     * Parses a periodic Bravais lattice topology from a spatial
+     * structure specification (the format used by the
+     * {@code moran.space.structure} property).
+     *
+     * @param structure the structure specification.
+     *
+     * @return the topology of the specified lattice.
+     *
+     * @throws RuntimeException unless the specification describes a
+     * supported lattice type with a valid number of periods.
+     */
+    public static LatticeTopology parse(String structure) {
+        PeriodicLattice lattice = PeriodicLattice.parse(structure);
+
+        int[][] neighborLists = new int[lattice.size()][lattice.neighborCount()];
+
+        for (int site = 0; site < neighborLists.length; ++site)
+            lattice.getNeighbors(site, neighborLists[site]);
+
+        return compress(neighborLists, lattice.getPeriods());
+    }
+
+    /**
+     * Returns the number of neighbors of a given site.
+     *
+     * @param site the index of the site of interest.
+     *
+     * @return the number of neighbors of the specified site.
+     */
+    public int countNeighbors(int site) {
+        return offsets[site + 1] - offsets[site];
+    }
+
+    /**
+     * Returns the index of one neighbor of a given site.
+     *
+     * @param site the index of the site of interest.
+     *
+     * @param k the ordinal position of the neighbor, in the range
+     * {@code [0, countNeighbors(site))}.
+     *
+     * @return the index of the {@code k}th neighbor of the site.
+     */
+    public int getNeighbor(int site, int k) {
+        return neighbors[offsets[site] + k];
+    }
+
+    /**
+     * Copies the indexes of the neighbors of a given site into a
+     * buffer.
+     *
+     * @param site the index of the site of interest.
+     *
+     * @param buffer the destination for the neighbor indexes; it must
+     * have a length of at least {@code maxNeighborCount()}.
+     *
+     * @return the number of neighbors copied to the buffer.
+     */
+    public int getNeighbors(int site, int[] buffer) {
+        int count = countNeighbors(site);
+        System.arraycopy(neighbors, offsets[site], buffer, 0, count);
+        return count;
+    }
+
+    /**
+     * Returns the lattice index of a site along one basis vector
+     * (defined only for parsed periodic lattices).
+     *
+     * @param site the index of the site of interest.
+     *
+     * @param dim the basis vector of interest.
+     *
+     * @return the lattice index of the site along the specified basis
+     * vector.
+     *
+     * @throws IllegalStateException unless this topology was parsed
+     * from a structure specification.
+     */
+    public int getLatticeIndex(int site, int dim) {
+        if (periods == null)
+            throw new IllegalStateException("Lattice indexes are defined only for parsed lattices.");
+
+        for (int k = 0; k < dim; ++k)
+            site /= periods[k];
+
+        return site % periods[dim];
+    }
+
+    /**
+     * Returns the number of unit cells along each basis vector
+     * (defined only for parsed periodic lattices).
+     *
+     * @return the number of unit cells along each basis vector (or
+     * {@code null} unless this topology was parsed from a structure
+     * specification).
+     */
+    public int[] getPeriods() {
+        return periods == null ? null : Arrays.copyOf(periods, periods.length);
+    }
+
+    /**
+     * Returns the maximum number of neighbors for any site.
+     *
+     * @return the maximum number of neighbors for any site.
+     */
+    public int maxNeighborCount() {
+        return maxNeighborCount;
+    }
+
+    /**
+     * Returns the number of sites in this lattice.
+     *
+     * @return the number of sites in this lattice.
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+}
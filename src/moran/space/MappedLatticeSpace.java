@@ -0,0 +1,86 @@
+package moran.space;
+
+import java.util.List;
+
+import jam.math.Point;
+
+import moran.cell.Cell;
+import moran.cell.Genotype;
+
+final class MappedLatticeSpace extends Space {
+    //
+    // The members are held in mapped storage, and the neighbors and
+    // locations of each site are computed from its index, so nothing
+    // is stored on the heap in proportion to the size of the space...
+    //
+    private final PeriodicLattice lattice;
+
+    private MappedLatticeSpace(PeriodicLattice lattice, Genotype founderGenotype) {
+        super(lattice.size(), founderGenotype);
+        this.lattice = lattice;
+    }
+
+    static MappedLatticeSpace create(String structure, Genotype founderGenotype) {
+        return new MappedLatticeSpace(PeriodicLattice.parse(structure), founderGenotype);
+    }
+
+    private final class SitePoint extends Point {
+        private final int site;
+
+        private SitePoint(int site) {
+            this.site = site;
+        }
+
+        @Override public int dimensionality() {
+            return lattice.dimensionality();
+        }
+
+        @Override public double coord(int axis) {
+            return lattice.getCoord(site, axis);
+        }
+    }
+
+    @Override public List<Cell> getNeighbors(Cell cell) {
+        int index = indexOf(cell);
+        Cell[] neighbors = new Cell[lattice.neighborCount()];
+
+        for (int k = 0; k < neighbors.length; ++k)
+            neighbors[k] = get(lattice.getNeighbor(index, k));
+
+        return List.of(neighbors);
+    }
+
+    @Override public boolean hasSymmetricNeighbors() {
+        return true;
+    }
+
+    @Override public int maxNeighborCount() {
+        return lattice.neighborCount();
+    }
+
+    @Override public int countNeighbors(int index) {
+        return lattice.neighborCount();
+    }
+
+    @Override public int getNeighborIndex(int index, int k) {
+        return lattice.getNeighbor(index, k);
+    }
+
+    @Override public int getNeighborIndexes(int index, int[] neighbors) {
+        return lattice.getNeighbors(index, neighbors);
+    }
+
+    @Override public Point locate(int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Invalid population index.");
+
+        return new SitePoint(index);
+    }
+
+    @Override public Point locate(Cell cell) {
+        if (contains(cell))
+            return locate(indexOf(cell));
+        else
+            return null;
+    }
+}
@@ -0,0 +1,265 @@
+package moran.space;
+
+import jam.lang.JamException;
+import jam.math.IntUtil;
+import jam.util.RegexUtil;
+
+/**
+ * Computes the neighbor relationships and spatial locations of the
+ * sites of a periodic Bravais lattice by index arithmetic, without
+ * any per-site storage.
+ *
+ * <p>Lattices are parsed from a spatial structure specification with
+ * the format {@code TYPE; a; n1, n2, ...} described in {@link
+ * LatticeTopology}.  Sites are indexed in lexicographic order with the
+ * first lattice index varying fastest.
+ */
+final class PeriodicLattice {
+    private final double latticeConstant;
+    private final int[] periods;
+    private final int[] strides;
+    private final int[][] translations;
+    private final double[][] basis;
+    private final int size;
+
+    //
+    // Nearest-neighbor translations expressed in lattice indexes.
+    // For the hexagonal lattice, the basis vectors are separated by
+    // 60 degrees, so the sixth neighbor pair lies along (a1 - a2)...
+    //
+    private static final int[][] LINEAR_TRANSLATIONS = {
+        { 1 }, { -1 }
+    };
+
+    private static final int[][] SQUARE_TRANSLATIONS = {
+        { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 }
+    };
+
+    private static final int[][] HEXAGONAL_TRANSLATIONS = {
+        { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 }, { 1, -1 }, { -1, 1 }
+    };
+
+    private static final int[][] CUBIC_TRANSLATIONS = {
+        { 1, 0, 0 }, { -1, 0, 0 }, { 0, 1, 0 }, { 0, -1, 0 }, { 0, 0, 1 }, { 0, 0, -1 }
+    };
+
+    // Unit basis vectors in Cartesian coordinates...
+    private static final double[][] LINEAR_BASIS = {
+        { 1.0 }
+    };
+
+    private static final double[][] SQUARE_BASIS = {
+        { 1.0, 0.0 }, { 0.0, 1.0 }
+    };
+
+    private static final double[][] HEXAGONAL_BASIS = {
+        { 1.0, 0.0 }, { 0.5, 0.5 * Math.sqrt(3.0) }
+    };
+
+    private static final double[][] CUBIC_BASIS = {
+        { 1.0, 0.0, 0.0 }, { 0.0, 1.0, 0.0 }, { 0.0, 0.0, 1.0 }
+    };
+
+    private PeriodicLattice(double latticeConstant, int[] periods, int[][] translations, double[][] basis) {
+        if (periods.length != basis.length)
+            throw JamException.runtime("Expected [%d] lattice periods.", basis.length);
+
+        this.latticeConstant = latticeConstant;
+        this.periods = periods;
+        this.translations = translations;
+        this.basis = basis;
+        this.strides = new int[periods.length];
+
+        long siteCount = 1;
+
+        for (int dim = 0; dim < periods.length; ++dim) {
+            strides[dim] = (int) siteCount;
+            siteCount *= periods[dim];
+
+            if (siteCount > Integer.MAX_VALUE)
+                throw JamException.runtime("Lattice is too large for integer site indexes.");
+        }
+
+        this.size = (int) siteCount;
+    }
+
+    /**
+     * Parses a periodic lattice from a spatial structure
+     * specification.
+     *
+     * @param structure the structure specification.
+     *
+     * @return the specified lattice.
+     *
+     * @throws RuntimeException unless the specification describes a
+     * supported lattice type with a valid number of periods.
+     */
+    static PeriodicLattice parse(String structure) {
+        String[] fields = RegexUtil.split(RegexUtil.SEMICOLON, structure, 3);
+        String[] counts = RegexUtil.split(RegexUtil.COMMA, fields[2]);
+
+        String type = fields[0];
+        double latticeConstant = Double.parseDouble(fields[1].trim());
+        int[] periods = new int[counts.length];
+
+        for (int dim = 0; dim < counts.length; ++dim) {
+            periods[dim] = IntUtil.parseInt(counts[dim]);
+
+            // Fewer than three unit cells would make a site its own
+            // neighbor (or a neighbor twice) in a periodic lattice...
+            if (periods[dim] < 3)
+                throw JamException.runtime("Lattice periods must be at least three: [%s].", structure);
+        }
+
+        switch (type) {
+        case "LINEAR":
+            return new PeriodicLattice(latticeConstant, periods, LINEAR_TRANSLATIONS, LINEAR_BASIS);
+
+        case "SQUARE":
+            return new PeriodicLattice(latticeConstant, periods, SQUARE_TRANSLATIONS, SQUARE_BASIS);
+
+        case "HEXAGONAL":
+            return new PeriodicLattice(latticeConstant, periods, HEXAGONAL_TRANSLATIONS, HEXAGONAL_BASIS);
+
+        case "CUBIC":
+            return new PeriodicLattice(latticeConstant, periods, CUBIC_TRANSLATIONS, CUBIC_BASIS);
+
+        default:
+            throw JamException.runtime("Unsupported lattice type: [%s].", type);
+        }
+    }
+
+    /**
+     * Identifies structure specifications for periodic lattices.
+     *
+     * @param structure a structure specification.
+     *
+     * @return {@code true} iff the specification names a lattice type
+     * supported by this class.
+     */
+    static boolean isPeriodic(String structure) {
+        String type = RegexUtil.split(RegexUtil.SEMICOLON, structure, 3)[0];
+
+        switch (type) {
+        case "LINEAR":
+        case "SQUARE":
+        case "HEXAGONAL":
+        case "CUBIC":
+            return true;
+
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Returns the index of one neighbor of a site.
+     *
+     * @param site the index of the site of interest.
+     *
+     * @param k the ordinal position of the neighbor, in the range
+     * {@code [0, neighborCount())}.
+     *
+     * @return the index of the {@code k}th neighbor of the site.
+     */
+    int getNeighbor(int site, int k) {
+        int[] translation = translations[k];
+        int neighbor = site;
+
+        for (int dim = 0; dim < periods.length; ++dim) {
+            if (translation[dim] == 0)
+                continue;
+
+            int index = (site / strides[dim]) % periods[dim];
+            int shifted = Math.floorMod(index + translation[dim], periods[dim]);
+
+            neighbor += (shifted - index) * strides[dim];
+        }
+
+        return neighbor;
+    }
+
+    /**
+     * Copies the indexes of the neighbors of a site into a buffer.
+     *
+     * @param site the index of the site of interest.
+     *
+     * @param buffer the destination for the neighbor indexes; it must
+     * have a length of at least {@code neighborCount()}.
+     *
+     * @return the number of neighbors copied to the buffer.
+     */
+    int getNeighbors(int site, int[] buffer) {
+        for (int k = 0; k < translations.length; ++k)
+            buffer[k] = getNeighbor(site, k);
+
+        return translations.length;
+    }
+
+    /**
+     * Returns the lattice index of a site along one basis vector.
+     *
+     * @param site the index of the site of interest.
+     *
+     * @param dim the basis vector of interest.
+     *
+     * @return the lattice index of the site along the basis vector.
+     */
+    int getLatticeIndex(int site, int dim) {
+        return (site / strides[dim]) % periods[dim];
+    }
+
+    /**
+     * Returns one Cartesian coordinate of a site.
+     *
+     * @param site the index of the site of interest.
+     *
+     * @param axis the Cartesian axis of interest.
+     *
+     * @return the coordinate of the site along the specified axis.
+     */
+    double getCoord(int site, int axis) {
+        double coord = 0.0;
+
+        for (int dim = 0; dim < periods.length; ++dim)
+            coord += getLatticeIndex(site, dim) * basis[dim][axis];
+
+        return latticeConstant * coord;
+    }
+
+    /**
+     * Returns the number of neighbors of every site.
+     *
+     * @return the number of neighbors of every site.
+     */
+    int neighborCount() {
+        return translations.length;
+    }
+
+    /**
+     * Returns the number of basis vectors.
+     *
+     * @return the number of basis vectors.
+     */
+    int dimensionality() {
+        return periods.length;
+    }
+
+    /**
+     * Returns the number of unit cells along each basis vector.
+     *
+     * @return the number of unit cells along each basis vector.
+     */
+    int[] getPeriods() {
+        return periods.clone();
+    }
+
+    /**
+     * Returns the number of sites in this lattice.
+     *
+     * @return the number of sites in this lattice.
+     */
+    int size() {
+        return size;
+    }
+}
@@ -35,6 +35,39 @@ final class PointSpace extends Space {
         return neighbors;
     }
 
+    @Override public boolean isWellMixed() {
+        return true;
+    }
+
+    @Override public int maxNeighborCount() {
+        return size() - 1;
+    }
+
+    @Override public int countNeighbors(int index) {
+        return size() - 1;
+    }
+
+    @Override public int getNeighborIndex(int index, int k) {
+        //
+        // Skip over the target cell...
+        //
+        return (k < index) ? k : k + 1;
+    }
+
+    @Override public int getNeighborIndexes(int index, int[] neighbors) {
+        int count = 0;
+
+        for (int neighbor = 0; neighbor < size(); ++neighbor)
+            if (neighbor != index)
+                neighbors[count++] = neighbor;
+
+        return count;
+    }
+
+    @Override public Point locate(int index) {
+        return Point1D.ORIGIN;
+    }
+
     @Override public Point locate(Cell cell) {
         if (contains(cell))
             return Point1D.ORIGIN;
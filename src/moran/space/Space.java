@@ -13,7 +13,9 @@ import jam.lang.ObjectFactory;
 import jam.util.ListUtil;
 
 import moran.cell.Cell;
+import moran.cell.Genotype;
 import moran.cell.Population;
+import moran.cell.PopulationMode;
 
 /**
  * Represents the spatial arrangement of the fixed-size population of
@@ -48,6 +50,20 @@ public abstract class Space extends Population implements SpaceView {
         return GlobalSpace.create(factory);
     }
 
+    /**
+     * Returns the number of cells in the global space without creating
+     * the space, for engines that track genotype counts rather than
+     * individual cells.
+     *
+     * @return the number of cells in the global point space.
+     *
+     * @throws IllegalStateException unless the structure property
+     * defines a zero-dimensional point space.
+     */
+    public static int resolvePointSize() {
+        return GlobalSpace.resolvePointSize();
+    }
+
     /**
      * Creates a new space and populates it with a collection of
      * cells.
@@ -60,6 +76,47 @@ public abstract class Space extends Population implements SpaceView {
         super(cells);
     }
 
+    /**
+     * Creates a new space in mapped storage, filled with founder cells
+     * that all carry the same genotype, without creating any cell
+     * objects.
+     *
+     * @param size the fixed number of cells in the space.
+     *
+     * @param founderGenotype the genotype of every founder cell.
+     */
+    protected Space(int size, Genotype founderGenotype) {
+        super(size, founderGenotype, PopulationMode.MAPPED);
+    }
+
+    /**
+     * Identifies well-mixed (zero-dimensional) spaces, in which every
+     * cell is a neighbor of every other cell.
+     *
+     * <p>This base class returns {@code false}.
+     *
+     * @return {@code true} iff every cell in this space is a neighbor
+     * of every other cell.
+     */
+    public boolean isWellMixed() {
+        return false;
+    }
+
+    /**
+     * Identifies spaces with symmetric neighbor relationships, in
+     * which every cell is a neighbor of each of its own neighbors.
+     * Engines may then find the cells that count a given cell as a
+     * neighbor without tabulating them.
+     *
+     * <p>This base class returns {@code false}, which is always safe.
+     *
+     * @return {@code true} iff the neighbor relationships in this space
+     * are known to be symmetric.
+     */
+    public boolean hasSymmetricNeighbors() {
+        return false;
+    }
+
     /**
      * Creates a new zero-dimensional point space.
      *
@@ -118,4 +175,25 @@ public abstract class Space extends Population implements SpaceView {
         lattice.fill(factory);
         return lattice(lattice);
     }
+
+    /**
+     * Creates a new periodic lattice space held in a memory-mapped
+     * file, for populations too large to hold as cell objects (see
+     * {@link PopulationMode#MAPPED}).  Neighbors and locations are
+     * computed from the site indexes, so the space requires no storage
+     * on the heap in proportion to its size.
+     *
+     * @param structure the lattice specification, in the format
+     * described by {@link LatticeTopology#parse(String)}.
+     *
+     * @param founderGenotype the genotype of every founder cell.
+     *
+     * @return the new space, filled with founder cells.
+     *
+     * @throws RuntimeException unless the specification describes a
+     * supported periodic lattice.
+     */
+    public static Space mapped(String structure, Genotype founderGenotype) {
+        return MappedLatticeSpace.create(structure, founderGenotype);
+    }
 }
@@ -27,6 +27,69 @@ public interface SpaceView extends PopulationView {
      */
     public abstract List<Cell> getNeighbors(Cell cell);
 
+    /**
+     * Returns the maximum number of neighbors that any cell in this
+     * space may have (the required length of the buffer passed to
+     * {@code getNeighborIndexes()}).
+     *
+     * @return the maximum number of neighbors for any cell.
+     */
+    public abstract int maxNeighborCount();
+
+    /**
+     * Returns the number of neighbors of the cell at a given position.
+     *
+     * @param index the population index of a cell.
+     *
+     * @return the number of neighbors of the specified cell.
+     *
+     * @throws IndexOutOfBoundsException unless the index is valid.
+     */
+    public abstract int countNeighbors(int index);
+
+    /**
+     * Returns the position of one neighbor of the cell at a given
+     * position.
+     *
+     * @param index the population index of a cell.
+     *
+     * @param k the ordinal position of the neighbor, in the range
+     * {@code [0, countNeighbors(index))}.
+     *
+     * @return the population index of the {@code k}th neighbor.
+     *
+     * @throws IndexOutOfBoundsException unless the indexes are valid.
+     */
+    public abstract int getNeighborIndex(int index, int k);
+
+    /**
+     * Identifies the neighbors of a given cell by their population
+     * indexes, without allocating any new objects.
+     *
+     * @param index the population index of a cell (usually one that
+     * has been selected to die).
+     *
+     * @param neighbors a buffer to receive the population indexes of
+     * the neighbors; it must have a length of at least
+     * {@code maxNeighborCount()}.
+     *
+     * @return the number of neighbors assigned to the buffer.
+     *
+     * @throws IndexOutOfBoundsException unless the index is valid.
+     */
+    public abstract int getNeighborIndexes(int index, int[] neighbors);
+
+    /**
+     * Returns the spatial location of the cell at a given position.
+     *
+     * @param index the population index of a cell.
+     *
+     * @return the spatial location of the specified cell.
+     *
+     * @throws IndexOutOfBoundsException unless the index is valid.
+     */
+    public abstract Point locate(int index);
+
     /**
      * Returns the spatial location of a cell in this space.
      *